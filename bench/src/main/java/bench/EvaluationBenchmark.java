@@ -0,0 +1,90 @@
+package bench;
+
+import com.github.bhlangonijr.chesslib.Board;
+
+import minimax.BitboardEvaluator;
+import minimax.BoardEvaluator;
+import minimax.CachedEvaluator;
+import minimax.MaterialEvaluator;
+import minimax.PieceSquareEvaluator;
+import minimax.TaperedEvaluator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a full static evaluation of each position in the standard suite. The material evaluator
+ * is the baseline; the others are the allocation-free replacements. {@code tapered} finds every pawn structure
+ * of the suite in its pawn hash table after the first pass, while {@code taperedUncached} evaluates the pawn
+ * structure at every call, bounding the cost of a pawn hash miss. {@code cachedMaterial} wraps the material
+ * evaluator in a {@code CachedEvaluator}, which serves every call after the first pass from its cache, so it
+ * measures the cost of a cache hit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+
+    @Param({"material", "bitboard", "pieceSquare", "tapered", "taperedUncached", "cachedMaterial"})
+    public String evaluator;
+
+    private BoardEvaluator eval;
+    private Board[] boards;
+
+    /**
+     * Builds the evaluator and loads the positions.
+     */
+    @Setup
+    public void setUp() {
+        switch (this.evaluator) {
+            case "material":
+                this.eval = new MaterialEvaluator();
+                break;
+            case "bitboard":
+                this.eval = new BitboardEvaluator();
+                break;
+            case "pieceSquare":
+                // never bound to these boards, so every call is a full evaluation
+                this.eval = new PieceSquareEvaluator();
+                break;
+            case "tapered":
+                this.eval = new TaperedEvaluator();
+                break;
+            case "taperedUncached":
+                this.eval = new TaperedEvaluator(null);
+                break;
+            case "cachedMaterial":
+                this.eval = new CachedEvaluator(new MaterialEvaluator());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown evaluator " + this.evaluator);
+        }
+        this.boards = Positions.load(Positions.STANDARD);
+    }
+
+    /**
+     * Evaluates every position of the suite once.
+     * @param blackhole : consumes the scores so they are not optimized away
+     */
+    @Benchmark
+    public void evaluateSuite(Blackhole blackhole) {
+        for (Board board : this.boards) {
+            blackhole.consume(this.eval.evaluationScheme(board));
+        }
+    }
+}
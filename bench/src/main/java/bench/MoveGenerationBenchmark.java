@@ -0,0 +1,116 @@
+package bench;
+
+import bitboard.MoveGenerator;
+import bitboard.Position;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw chesslib throughput, the floor under every search: generating the legal moves of each position
+ * in the standard suite, and playing and taking back each of them. The same is measured for the engine's
+ * own {@code bitboard.Position}, which {@code BitboardMinimax} searches on.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    private Board[] boards;
+    private Position[] positions;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * Loads the positions.
+     */
+    @Setup
+    public void setUp() {
+        this.boards = Positions.load(Positions.STANDARD);
+        this.positions = new Position[this.boards.length];
+        for (int i = 0; i < this.boards.length; i++) {
+            this.positions[i] = new Position(this.boards[i]);
+        }
+    }
+
+    /**
+     * Generates the legal moves of every position of the suite.
+     * @param blackhole : consumes the move lists
+     * @param counter : counts the moves generated
+     */
+    @Benchmark
+    public void legalMoves(Blackhole blackhole, NodeCounter counter) {
+        for (Board board : this.boards) {
+            List<Move> moves = board.legalMoves();
+            counter.nodes += moves.size();
+            blackhole.consume(moves);
+        }
+    }
+
+    /**
+     * Generates the legal moves of every position of the suite, then plays and undoes each one.
+     * @param blackhole : consumes the resulting hash keys
+     * @param counter : counts the moves played
+     */
+    @Benchmark
+    public void legalMovesDoUndo(Blackhole blackhole, NodeCounter counter) {
+        for (Board board : this.boards) {
+            for (Move move : board.legalMoves()) {
+                board.doMove(move);
+                blackhole.consume(board.getIncrementalHashKey());
+                board.undoMove();
+                counter.nodes++;
+            }
+        }
+    }
+
+    /**
+     * Generates the legal moves of every position of the suite with the engine's own move generator.
+     * @param blackhole : consumes the last move of each list
+     * @param counter : counts the moves generated
+     */
+    @Benchmark
+    public void bitboardMoves(Blackhole blackhole, NodeCounter counter) {
+        for (Position position : this.positions) {
+            int count = MoveGenerator.generateLegalMoves(position, this.moves, 0);
+            counter.nodes += count;
+            blackhole.consume(this.moves[count - 1]);
+        }
+    }
+
+    /**
+     * Generates the legal moves of every position of the suite with the engine's own move generator,
+     * then makes and unmakes each one.
+     * @param blackhole : consumes the resulting hash keys
+     * @param counter : counts the moves played
+     */
+    @Benchmark
+    public void bitboardMakeUnmake(Blackhole blackhole, NodeCounter counter) {
+        for (Position position : this.positions) {
+            int count = MoveGenerator.generateLegalMoves(position, this.moves, 0);
+            for (int i = 0; i < count; i++) {
+                position.makeMove(this.moves[i]);
+                blackhole.consume(position.getKey());
+                position.unmakeMove();
+                counter.nodes++;
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary JMH result: the nodes (or moves) a benchmark visits, reported as a rate next to ops/s,
+ * i.e. as nodes per second.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class NodeCounter {
+
+    /** Nodes visited during the current iteration. */
+    public long nodes;
+
+    /**
+     * Starts every iteration from zero.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+        this.nodes = 0;
+    }
+}
@@ -0,0 +1,87 @@
+package bench;
+
+import com.github.bhlangonijr.chesslib.Board;
+
+import tools.Perft;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation throughput as perft: the leaf count of a standard position to a fixed depth,
+ * with and without bulk counting, on chesslib and on the engine's own {@code bitboard.Position}.
+ * The {@code nodes} rate is the perft speed in leaves per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PerftBenchmark {
+
+    @Param({"START", "KIWIPETE", "POSITION_3"})
+    public Perft.Position position;
+
+    @Param({"3"})
+    public int depth;
+
+    private Board board;
+    private bitboard.Position own;
+
+    /**
+     * Sets up the position.
+     */
+    @Setup
+    public void setUp() {
+        this.board = this.position.newBoard();
+        this.own = new bitboard.Position(this.position.getFen());
+    }
+
+    /**
+     * Plays every move down to the leaves.
+     * @param counter : counts the leaves
+     * @return the leaf count.
+     */
+    @Benchmark
+    public long perft(NodeCounter counter) {
+        long nodes = Perft.perft(this.board, this.depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+
+    /**
+     * Counts the moves generated one ply above the leaves.
+     * @param counter : counts the leaves
+     * @return the leaf count.
+     */
+    @Benchmark
+    public long perftBulk(NodeCounter counter) {
+        long nodes = Perft.perftBulk(this.board, this.depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+
+    /**
+     * Bulk-counting perft on the engine's own board representation.
+     * @param counter : counts the leaves
+     * @return the leaf count.
+     */
+    @Benchmark
+    public long bitboardPerftBulk(NodeCounter counter) {
+        long nodes = Perft.perftBulk(this.own, this.depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
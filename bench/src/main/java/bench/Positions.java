@@ -0,0 +1,44 @@
+package bench;
+
+import com.github.bhlangonijr.chesslib.Board;
+
+/**
+ * The fixed FEN suites every benchmark runs over, so results stay comparable between engine changes.
+ */
+public final class Positions {
+
+    /** Quiet and balanced positions from the opening to the endgame. */
+    public static final String[] STANDARD = {
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "2r3k1/pp3ppp/2n1b3/3p4/3P4/2PB1N2/P4PPP/R5K1 b - - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    };
+
+    /** Positions with many captures available, where the quiescence search does most of the work. */
+    public static final String[] TACTICAL = {
+        "2rr3k/pp3pp1/1nnqbN1p/3pN3/2pP4/2P3Q1/PPB4P/R4RK1 w - - 0 1",
+        "r1bq2rk/pp3pbp/2p1p1pQ/7P/3P4/2PB1N2/PP3PPR/2KR4 w - - 0 1",
+        "r4q1k/p2bR1rp/2p2Q1N/5p2/5p2/2P5/PP3PPP/R5K1 w - - 0 1",
+        "5k2/8/8/2qn4/2bQr3/8/8/3K4 w - - 0 1",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    };
+
+    private Positions() {
+    }
+
+    /**
+     * Loads every position of a suite into its own board.
+     * @param fens : a suite of FEN strings
+     * @return one {@code Board} per FEN, in order.
+     */
+    public static Board[] load(String[] fens) {
+        Board[] boards = new Board[fens.length];
+        for (int i = 0; i < fens.length; i++) {
+            boards[i] = new Board();
+            boards[i].loadFromFen(fens[i]);
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,57 @@
+package bench;
+
+import com.github.bhlangonijr.chesslib.Board;
+
+import minimax.AdvancedMinimax;
+import minimax.BitboardEvaluator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The quiescence search alone, from every position of the tactical suite.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuiescenceBenchmark {
+
+    private AdvancedMinimax search;
+    private Board[] boards;
+
+    /**
+     * Builds the searcher and loads the positions.
+     */
+    @Setup
+    public void setUp() {
+        this.search = new AdvancedMinimax(1, new BitboardEvaluator());
+        this.boards = Positions.load(Positions.TACTICAL);
+    }
+
+    /**
+     * Runs the quiescence search from every position of the suite.
+     * @param blackhole : consumes the scores
+     * @param counter : counts the quiescence nodes searched
+     */
+    @Benchmark
+    public void quiescenceSuite(Blackhole blackhole, NodeCounter counter) {
+        for (Board board : this.boards) {
+            blackhole.consume(this.search.quiescenceScore(board));
+            counter.nodes += this.search.getNodeCount();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package bench;
+
+import bitboard.Position;
+import com.github.bhlangonijr.chesslib.Board;
+
+import minimax.AdvancedMinimax;
+import minimax.BitboardEvaluator;
+import minimax.BitboardMinimax;
+import minimax.SimpleMinimax;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-depth {@code findBestMove} over the standard suite, for the minimax classes at depths 1 to 5;
+ * {@code BitboardMinimax} runs the {@code AdvancedMinimax} search on the engine's own board representation.
+ * Searches run without a transposition table, so every operation does the same work.
+ * <p>
+ * {@code bitboardPositions} searches {@code Position}s directly, the allocation-free path; run it with
+ * {@code -prof gc}, where {@code gc.alloc.rate.norm} should be a few B/op (JMH's own overhead), against
+ * megabytes per operation for {@code advancedMinimax} at depth 3.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"1", "2", "3", "4", "5"})
+    public int depth;
+
+    private SimpleMinimax simple;
+    private AdvancedMinimax advanced;
+    private BitboardMinimax bitboard;
+    private Board[] boards;
+    private Position[] positions;
+
+    /**
+     * Builds the searchers and loads the positions.
+     */
+    @Setup
+    public void setUp() {
+        this.simple = new SimpleMinimax(this.depth, new BitboardEvaluator());
+        this.advanced = new AdvancedMinimax(this.depth, new BitboardEvaluator());
+        this.bitboard = new BitboardMinimax(this.depth, new BitboardEvaluator());
+        this.boards = Positions.load(Positions.STANDARD);
+        this.positions = new Position[this.boards.length];
+        for (int i = 0; i < this.boards.length; i++) {
+            this.positions[i] = new Position(this.boards[i]);
+        }
+    }
+
+    /**
+     * Searches every position of the suite with {@code SimpleMinimax}.
+     * @param blackhole : consumes the moves found
+     * @param counter : counts the nodes searched
+     */
+    @Benchmark
+    public void simpleMinimax(Blackhole blackhole, NodeCounter counter) {
+        for (Board board : this.boards) {
+            blackhole.consume(this.simple.findBestMove(board));
+            counter.nodes += this.simple.getNodeCount();
+        }
+    }
+
+    /**
+     * Searches every position of the suite with {@code AdvancedMinimax}.
+     * @param blackhole : consumes the moves found
+     * @param counter : counts the nodes searched, including quiescence nodes
+     */
+    @Benchmark
+    public void advancedMinimax(Blackhole blackhole, NodeCounter counter) {
+        for (Board board : this.boards) {
+            blackhole.consume(this.advanced.findBestMove(board));
+            counter.nodes += this.advanced.getNodeCount();
+        }
+    }
+
+    /**
+     * Searches every position of the suite with {@code BitboardMinimax}.
+     * @param blackhole : consumes the moves found
+     * @param counter : counts the nodes searched, including quiescence nodes
+     */
+    @Benchmark
+    public void bitboardMinimax(Blackhole blackhole, NodeCounter counter) {
+        for (Board board : this.boards) {
+            blackhole.consume(this.bitboard.findBestMove(board));
+            counter.nodes += this.bitboard.getNodeCount();
+        }
+    }
+
+    /**
+     * Searches every position of the suite with {@code BitboardMinimax}, on {@code Position}s rather than
+     * {@code Board}s, so no chesslib objects are built for the search.
+     * @param blackhole : consumes the encoded moves found
+     * @param counter : counts the nodes searched, including quiescence nodes
+     */
+    @Benchmark
+    public void bitboardPositions(Blackhole blackhole, NodeCounter counter) {
+        for (Position position : this.positions) {
+            blackhole.consume(this.bitboard.findBestMove(position));
+            counter.nodes += this.bitboard.getNodeCount();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package bitboard;
+
+/**
+ * Precomputed attack tables on 64-bit bitboards, with bit {@code i} standing for square {@code i}
+ * (a1 = 0, b1 = 1, ..., h8 = 63, the same numbering as chesslib's {@code Square} ordinals).
+ * <p>
+ * Knight, king and pawn attacks are looked up by square. Rook and bishop attacks depend on the occupancy
+ * of the board and are found with "fancy" magic bitboards: the blockers on a slider's rays are multiplied
+ * by a per-square magic number, whose top bits then index that square's slice of a shared attack table.
+ * The magic numbers are searched for once, when the class is loaded, from fixed per-rank seeds known to
+ * find them within a few thousand candidates.
+ */
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_4 = RANK_1 << 24;
+    public static final long RANK_5 = RANK_1 << 32;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    // pawn captures of each side, indexed by side then square
+    private static final long[][] PAWN = new long[2][64];
+
+    // squares strictly between two aligned squares, and the whole line through them (0 if not aligned)
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    // seeds of the magic number search, by rank of the square
+    private static final long[] MAGIC_SEEDS = {728, 10316, 55013, 32803, 12281, 15100, 16645, 255};
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] ROOK_ATTACKS;
+    private static final long[] BISHOP_ATTACKS;
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT[sq] = leaperAttacks(sq, new int[][] {{1, 2}, {2, 1}, {2, -1}, {1, -2},
+                {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}});
+            KING[sq] = leaperAttacks(sq, new int[][] {{1, 0}, {1, 1}, {0, 1}, {-1, 1},
+                {-1, 0}, {-1, -1}, {0, -1}, {1, -1}});
+            PAWN[0][sq] = leaperAttacks(sq, new int[][] {{-1, 1}, {1, 1}});
+            PAWN[1][sq] = leaperAttacks(sq, new int[][] {{-1, -1}, {1, -1}});
+        }
+
+        ROOK_ATTACKS = initMagics(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_ATTACKS = initMagics(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                long bitB = 1L << b;
+                if ((rookAttacks(a, 0) & bitB) != 0) {
+                    BETWEEN[a][b] = rookAttacks(a, bitB) & rookAttacks(b, 1L << a);
+                    LINE[a][b] = (rookAttacks(a, 0) & rookAttacks(b, 0)) | (1L << a) | bitB;
+                } else if ((bishopAttacks(a, 0) & bitB) != 0) {
+                    BETWEEN[a][b] = bishopAttacks(a, bitB) & bishopAttacks(b, 1L << a);
+                    LINE[a][b] = (bishopAttacks(a, 0) & bishopAttacks(b, 0)) | (1L << a) | bitB;
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * @param sq : a square index from 0 to 63
+     * @return the squares a knight on {@code sq} attacks.
+     */
+    public static long knightAttacks(int sq) {
+        return KNIGHT[sq];
+    }
+
+    /**
+     * @param sq : a square index from 0 to 63
+     * @return the squares a king on {@code sq} attacks.
+     */
+    public static long kingAttacks(int sq) {
+        return KING[sq];
+    }
+
+    /**
+     * @param side : {@code Position.WHITE} or {@code Position.BLACK}
+     * @param sq : a square index from 0 to 63
+     * @return the squares a pawn of {@code side} on {@code sq} attacks.
+     */
+    public static long pawnAttacks(int side, int sq) {
+        return PAWN[side][sq];
+    }
+
+    /**
+     * @param sq : a square index from 0 to 63
+     * @param occupied : every occupied square
+     * @return the squares a rook on {@code sq} attacks, up to and including the first blocker on each ray.
+     */
+    public static long rookAttacks(int sq, long occupied) {
+        return ROOK_ATTACKS[ROOK_OFFSETS[sq]
+                + (int) (((occupied & ROOK_MASKS[sq]) * ROOK_MAGICS[sq]) >>> ROOK_SHIFTS[sq])];
+    }
+
+    /**
+     * @param sq : a square index from 0 to 63
+     * @param occupied : every occupied square
+     * @return the squares a bishop on {@code sq} attacks, up to and including the first blocker on each ray.
+     */
+    public static long bishopAttacks(int sq, long occupied) {
+        return BISHOP_ATTACKS[BISHOP_OFFSETS[sq]
+                + (int) (((occupied & BISHOP_MASKS[sq]) * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFTS[sq])];
+    }
+
+    /**
+     * @param sq : a square index from 0 to 63
+     * @param occupied : every occupied square
+     * @return the squares a queen on {@code sq} attacks.
+     */
+    public static long queenAttacks(int sq, long occupied) {
+        return rookAttacks(sq, occupied) | bishopAttacks(sq, occupied);
+    }
+
+    /**
+     * @param a : a square index from 0 to 63
+     * @param b : a square index from 0 to 63
+     * @return the squares strictly between {@code a} and {@code b} if they share a rank, file or diagonal,
+     * and 0 otherwise.
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @param a : a square index from 0 to 63
+     * @param b : a square index from 0 to 63
+     * @return the whole rank, file or diagonal through {@code a} and {@code b}, or 0 if they share none.
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * Formats a bitboard as an 8x8 grid, rank 8 first, for debugging.
+     * @param bitboard : any bitboard
+     * @return a multi-line string of {@code 1} and {@code .} characters.
+     */
+    public static String toString(long bitboard) {
+        StringBuilder builder = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            for (int file = 0; file < 8; file++) {
+                builder.append((bitboard >>> (rank * 8 + file) & 1) != 0 ? '1' : '.');
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static long leaperAttacks(int sq, int[][] offsets) {
+        long attacks = 0;
+        for (int[] offset : offsets) {
+            int file = (sq & 7) + offset[0];
+            int rank = (sq >>> 3) + offset[1];
+            if (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                attacks |= 1L << (rank * 8 + file);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Walks the rays of a slider, stopping at the first occupied square of each.
+     * @param edges : if true, leave out the last square of each ray (the relevant-occupancy mask)
+     */
+    private static long slidingAttacks(int sq, long occupied, int[][] directions, boolean edges) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int file = (sq & 7) + direction[0];
+            int rank = (sq >>> 3) + direction[1];
+            while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                if (edges) {
+                    int nextFile = file + direction[0];
+                    int nextRank = rank + direction[1];
+                    if (nextFile < 0 || nextFile > 7 || nextRank < 0 || nextRank > 7) {
+                        break;
+                    }
+                }
+                long bit = 1L << (rank * 8 + file);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                file += direction[0];
+                rank += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Finds a magic number for every square and fills the shared attack table.
+     * @return the attack table, indexed by offset plus magic index.
+     */
+    private static long[] initMagics(int[][] directions, long[] masks, long[] magics, int[] shifts,
+                                     int[] offsets) {
+        int size = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            masks[sq] = slidingAttacks(sq, 0, directions, true);
+            shifts[sq] = 64 - Long.bitCount(masks[sq]);
+            offsets[sq] = size;
+            size += 1 << Long.bitCount(masks[sq]);
+        }
+        long[] table = new long[size];
+
+        long[] occupancies = new long[4096];
+        long[] attacks = new long[4096];
+        int[] epoch = new int[4096];
+        int attempt = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            // every subset of the mask, enumerated with the carry-rippler trick
+            int count = 0;
+            long subset = 0;
+            do {
+                occupancies[count] = subset;
+                attacks[count] = slidingAttacks(sq, subset, directions, false);
+                count++;
+                subset = (subset - masks[sq]) & masks[sq];
+            } while (subset != 0);
+
+            int offset = offsets[sq];
+            long[] seed = {MAGIC_SEEDS[sq >>> 3]};
+            boolean found = false;
+            while (!found) {
+                long magic = nextRandom(seed) & nextRandom(seed) & nextRandom(seed);
+                if (Long.bitCount((masks[sq] * magic) >>> 56) < 6) {
+                    continue;
+                }
+                attempt++;
+                found = true;
+                for (int i = 0; i < count && found; i++) {
+                    int index = (int) ((occupancies[i] * magic) >>> shifts[sq]);
+                    if (epoch[index] != attempt) {
+                        epoch[index] = attempt;
+                        table[offset + index] = attacks[i];
+                    } else if (table[offset + index] != attacks[i]) {
+                        found = false;
+                    }
+                }
+                magics[sq] = magic;
+            }
+        }
+        return table;
+    }
+
+    // xorshift64*, seeded identically on every run so the magics are always the same
+    private static long nextRandom(long[] seed) {
+        long x = seed[0];
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        seed[0] = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+}
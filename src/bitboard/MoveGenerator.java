@@ -0,0 +1,252 @@
+package bitboard;
+
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+/**
+ * Legal move generation for a {@code Position}, writing encoded moves into a caller-supplied {@code int[]}.
+ * <p>
+ * Moves are generated legal directly, without playing them: checks and pins are found once per position,
+ * a king never steps onto an attacked square, a pinned piece only moves along its pin line, and in check
+ * the other pieces only capture the checker or block it. En passant, which can uncover a check along the
+ * rank, is the only move verified by looking at the board after it.
+ */
+public final class MoveGenerator {
+
+    /** No chess position has more legal moves than this; move buffers of this size never overflow. */
+    public static final int MAX_MOVES = 256;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Generates every legal move of the side to move.
+     * @param position : the position to generate moves for
+     * @param moves : the buffer to write into, with room for {@code MAX_MOVES} moves from {@code start}
+     * @param start : index of the first move in {@code moves}
+     * @return the index after the last move written; the number of moves is that minus {@code start}.
+     */
+    public static int generateLegalMoves(Position position, int[] moves, int start) {
+        return generate(position, moves, start, false);
+    }
+
+    /**
+     * Generates the legal captures (en passant included) and promotions of the side to move, for the
+     * quiescence search. Promotions are generated to every piece, captures or not.
+     * @param position : the position to generate moves for
+     * @param moves : the buffer to write into, with room for {@code MAX_MOVES} moves from {@code start}
+     * @param start : index of the first move in {@code moves}
+     * @return the index after the last move written.
+     */
+    public static int generateTacticalMoves(Position position, int[] moves, int start) {
+        return generate(position, moves, start, true);
+    }
+
+    /**
+     * Finds the encoded form of a chesslib {@code Move} in a position, for the {@code Strategy} boundary.
+     * @param position : the position the move is played in
+     * @param move : a {@code Move} object from chesslib
+     * @return the encoded move, or {@code Moves.NONE} if it is not legal in {@code position}.
+     */
+    public static int find(Position position, Move move) {
+        int[] moves = new int[MAX_MOVES];
+        int count = generateLegalMoves(position, moves, 0);
+        int promotion = move.getPromotion() == Piece.NONE ? 0 : move.getPromotion().getPieceType().ordinal();
+        for (int i = 0; i < count; i++) {
+            if (Moves.from(moves[i]) == move.getFrom().ordinal() && Moves.to(moves[i]) == move.getTo().ordinal()
+                    && Moves.promotion(moves[i]) == promotion) {
+                return moves[i];
+            }
+        }
+        return Moves.NONE;
+    }
+
+    private static int generate(Position position, int[] moves, int start, boolean tacticalOnly) {
+        int us = position.sideToMove;
+        int them = us ^ 1;
+        int base = us * 6;
+        long own = position.sides[us];
+        long enemy = position.sides[them];
+        long occupied = position.occupied;
+        int king = position.kingSquare(us);
+        long checkers = position.attackersTo(king, them, occupied);
+        int count = start;
+
+        // king moves, checked against the board without the king so it cannot hide behind itself
+        long kingTargets = Bitboards.kingAttacks(king) & ~own;
+        if (tacticalOnly) {
+            kingTargets &= enemy;
+        }
+        long withoutKing = occupied & ~(1L << king);
+        while (kingTargets != 0) {
+            int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if (position.attackersTo(to, them, withoutKing) == 0) {
+                moves[count++] = Moves.encode(king, to, base + Position.KING, position.pieceAt(to), 0, 0);
+            }
+        }
+        if (Long.bitCount(checkers) > 1) {
+            // only the king can escape a double check
+            return count;
+        }
+
+        // in check, the other pieces must capture the checker or step between it and the king
+        long checkMask = ~0L;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | Bitboards.between(king, checker);
+        } else if (!tacticalOnly) {
+            count = generateCastling(position, moves, count, king);
+        }
+
+        long pinned = pinnedPieces(position, king, us);
+        long targets = ~own & checkMask;
+        if (tacticalOnly) {
+            targets &= enemy;
+        }
+
+        for (int type = Position.KNIGHT; type <= Position.QUEEN; type++) {
+            long pieces = position.pieces[base + type];
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long attacks;
+                switch (type) {
+                    case Position.KNIGHT: attacks = Bitboards.knightAttacks(from); break;
+                    case Position.BISHOP: attacks = Bitboards.bishopAttacks(from, occupied); break;
+                    case Position.ROOK: attacks = Bitboards.rookAttacks(from, occupied); break;
+                    default: attacks = Bitboards.queenAttacks(from, occupied); break;
+                }
+                attacks &= targets;
+                if ((pinned & (1L << from)) != 0) {
+                    attacks &= Bitboards.line(king, from);
+                }
+                while (attacks != 0) {
+                    int to = Long.numberOfTrailingZeros(attacks);
+                    attacks &= attacks - 1;
+                    moves[count++] = Moves.encode(from, to, base + type, position.pieceAt(to), 0, 0);
+                }
+            }
+        }
+        return generatePawnMoves(position, moves, count, king, pinned, checkMask, tacticalOnly);
+    }
+
+    private static int generatePawnMoves(Position position, int[] moves, int count, int king, long pinned,
+                                         long checkMask, boolean tacticalOnly) {
+        int us = position.sideToMove;
+        int them = us ^ 1;
+        int pawn = us * 6 + Position.PAWN;
+        long enemy = position.sides[them];
+        long empty = ~position.occupied;
+        int forward = us == Position.WHITE ? 8 : -8;
+        long promotionRank = us == Position.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        long doublePushRank = us == Position.WHITE ? Bitboards.RANK_4 : Bitboards.RANK_5;
+
+        long pawns = position.pieces[pawn];
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = checkMask;
+            if ((pinned & (1L << from)) != 0) {
+                allowed &= Bitboards.line(king, from);
+            }
+
+            // captures, promoting on the last rank
+            long captures = Bitboards.pawnAttacks(us, from) & enemy & allowed;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                count = addPawnMove(moves, count, from, to, pawn, position.pieceAt(to), promotionRank, 0);
+            }
+
+            // pushes; only promotions are tactical
+            int to = from + forward;
+            if ((empty & (1L << to)) != 0) {
+                if ((allowed & (1L << to)) != 0 && (!tacticalOnly || (promotionRank & (1L << to)) != 0)) {
+                    count = addPawnMove(moves, count, from, to, pawn, Position.NO_PIECE, promotionRank, 0);
+                }
+                int twoSquares = to + forward;
+                if (!tacticalOnly && (doublePushRank & (1L << twoSquares)) != 0
+                        && (empty & allowed & (1L << twoSquares)) != 0) {
+                    moves[count++] = Moves.encode(from, twoSquares, pawn, Position.NO_PIECE, 0, Moves.DOUBLE_PUSH);
+                }
+            }
+
+            // en passant, checked by removing both pawns and looking for an uncovered attack on the king
+            int ep = position.enPassant;
+            if (ep >= 0 && (Bitboards.pawnAttacks(us, from) & (1L << ep)) != 0) {
+                int victim = ep ^ 8;
+                long after = (position.occupied & ~(1L << from) & ~(1L << victim)) | (1L << ep);
+                if (position.attackersTo(king, them, after) == 0) {
+                    moves[count++] = Moves.encode(from, ep, pawn, them * 6 + Position.PAWN, 0, Moves.EN_PASSANT);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int addPawnMove(int[] moves, int count, int from, int to, int pawn, int captured,
+                                   long promotionRank, int flags) {
+        if ((promotionRank & (1L << to)) != 0) {
+            for (int promotion = Position.QUEEN; promotion >= Position.KNIGHT; promotion--) {
+                moves[count++] = Moves.encode(from, to, pawn, captured, promotion, flags);
+            }
+        } else {
+            moves[count++] = Moves.encode(from, to, pawn, captured, 0, flags);
+        }
+        return count;
+    }
+
+    private static int generateCastling(Position position, int[] moves, int count, int king) {
+        int us = position.sideToMove;
+        int them = us ^ 1;
+        int rights = position.castling >>> (us * 2);
+        if ((rights & 3) == 0) {
+            return count;
+        }
+        long occupied = position.occupied;
+        int kingPiece = us * 6 + Position.KING;
+        int rook = us * 6 + Position.ROOK;
+        // the king must be on its original square for any right to remain, but check in case of odd FENs
+        int home = us == Position.WHITE ? 4 : 60;
+        if (king != home) {
+            return count;
+        }
+        if ((rights & 1) != 0 && position.pieceAt(home + 3) == rook
+                && (occupied & Bitboards.between(home, home + 3)) == 0
+                && position.attackersTo(home + 1, them, occupied) == 0
+                && position.attackersTo(home + 2, them, occupied) == 0) {
+            moves[count++] = Moves.encode(home, home + 2, kingPiece, Position.NO_PIECE, 0, Moves.CASTLING);
+        }
+        if ((rights & 2) != 0 && position.pieceAt(home - 4) == rook
+                && (occupied & Bitboards.between(home, home - 4)) == 0
+                && position.attackersTo(home - 1, them, occupied) == 0
+                && position.attackersTo(home - 2, them, occupied) == 0) {
+            moves[count++] = Moves.encode(home, home - 2, kingPiece, Position.NO_PIECE, 0, Moves.CASTLING);
+        }
+        return count;
+    }
+
+    /**
+     * Finds the pieces of {@code us} that stand alone between their king and an enemy slider.
+     */
+    private static long pinnedPieces(Position position, int king, int us) {
+        int them = us ^ 1;
+        int base = them * 6;
+        long enemy = position.sides[them];
+        long snipers = (Bitboards.rookAttacks(king, enemy)
+                & (position.pieces[base + Position.ROOK] | position.pieces[base + Position.QUEEN]))
+                | (Bitboards.bishopAttacks(king, enemy)
+                & (position.pieces[base + Position.BISHOP] | position.pieces[base + Position.QUEEN]));
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.between(king, sniper) & position.occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & position.sides[us];
+            }
+        }
+        return pinned;
+    }
+}
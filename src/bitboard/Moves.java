@@ -0,0 +1,158 @@
+package bitboard;
+
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+/**
+ * Moves encoded as a single {@code int}, so move lists are plain {@code int[]} arrays and generating
+ * or playing a move never allocates. The bits are laid out as follows:
+ * <pre>
+ *  0- 5  origin square         6-11  destination square
+ * 12-14  promotion piece type (0 if none)
+ *    15  en passant            16  castling            17  double pawn push
+ * 18-21  moving piece         22-25  captured piece ({@code Position.NO_PIECE} if none)
+ * </pre>
+ * The low 15 bits (squares and promotion) identify a move within a position, and are what the
+ * transposition table stores; see {@code hashMove}. A move is never 0, since its squares differ.
+ */
+public final class Moves {
+
+    /** The absence of a move. */
+    public static final int NONE = 0;
+
+    static final int EN_PASSANT = 1 << 15;
+    static final int CASTLING = 1 << 16;
+    static final int DOUBLE_PUSH = 1 << 17;
+
+    private static final Square[] SQUARES = Square.values();
+    private static final Piece[] PIECES = Piece.values();
+    private static final char[] PROMOTION_LETTERS = {' ', 'n', 'b', 'r', 'q'};
+
+    private Moves() {
+    }
+
+    /**
+     * Encodes a move.
+     * @param from : origin square
+     * @param to : destination square
+     * @param piece : the moving piece
+     * @param captured : the captured piece, or {@code Position.NO_PIECE}
+     * @param promotion : the piece type promoted to, or 0
+     * @param flags : any of the {@code EN_PASSANT}, {@code CASTLING} and {@code DOUBLE_PUSH} bits
+     * @return the encoded move.
+     */
+    static int encode(int from, int to, int piece, int captured, int promotion, int flags) {
+        return from | (to << 6) | (promotion << 12) | flags | (piece << 18) | (captured << 22);
+    }
+
+    /**
+     * @param move : an encoded move
+     * @return the origin square.
+     */
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    /**
+     * @param move : an encoded move
+     * @return the destination square.
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @param move : an encoded move
+     * @return the piece type promoted to ({@code Position.KNIGHT} ... {@code Position.QUEEN}), or 0.
+     */
+    public static int promotion(int move) {
+        return (move >>> 12) & 0x7;
+    }
+
+    /**
+     * @param move : an encoded move
+     * @return the moving piece.
+     */
+    public static int piece(int move) {
+        return (move >>> 18) & 0xF;
+    }
+
+    /**
+     * @param move : an encoded move
+     * @return the captured piece ({@code Position.NO_PIECE} for quiet moves; a pawn for en passant).
+     */
+    public static int captured(int move) {
+        return (move >>> 22) & 0xF;
+    }
+
+    /**
+     * @param move : an encoded move
+     * @return whether the move captures a piece, en passant included.
+     */
+    public static boolean isCapture(int move) {
+        return captured(move) != Position.NO_PIECE;
+    }
+
+    /**
+     * @param move : an encoded move
+     * @return whether the move captures or promotes, i.e. changes the material balance.
+     */
+    public static boolean isTactical(int move) {
+        return isCapture(move) || promotion(move) != 0;
+    }
+
+    /**
+     * @param move : an encoded move
+     * @return whether the move captures en passant.
+     */
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    /**
+     * @param move : an encoded move
+     * @return whether the move is castling.
+     */
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    /**
+     * Returns the part of a move that identifies it within a position: its squares and promotion.
+     * @param move : an encoded move
+     * @return a non-zero 15-bit value, or {@code NONE} for {@code NONE}.
+     */
+    public static int hashMove(int move) {
+        return move & 0x7FFF;
+    }
+
+    /**
+     * Converts a move to a chesslib {@code Move}, for the {@code Strategy} boundary.
+     * @param move : an encoded move
+     * @return a new {@code Move} object, or null for {@code NONE}.
+     */
+    public static Move toMove(int move) {
+        if (move == NONE) {
+            return null;
+        }
+        int promotion = promotion(move);
+        // the moving pawn's index plus the promotion type is the index of the promoted piece of the same side
+        Piece promoted = promotion == 0 ? Piece.NONE : PIECES[piece(move) + promotion];
+        return new Move(SQUARES[from(move)], SQUARES[to(move)], promoted);
+    }
+
+    /**
+     * Formats a move in UCI coordinate notation, e.g. {@code e2e4} or {@code e7e8q}.
+     * @param move : an encoded move
+     * @return the move as a string.
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        String uci = SQUARES[from(move)].value().toLowerCase() + SQUARES[to(move)].value().toLowerCase();
+        int promotion = promotion(move);
+        return promotion == 0 ? uci : uci + PROMOTION_LETTERS[promotion];
+    }
+}
@@ -0,0 +1,766 @@
+package bitboard;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.CastleRight;
+import com.github.bhlangonijr.chesslib.MoveBackup;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Engine-internal chess position: one bitboard per piece plus a square-indexed mailbox, with moves
+ * played by {@code makeMove} and taken back by {@code unmakeMove} from an undo stack of primitives.
+ * Unlike chesslib's {@code Board}, playing and undoing moves never allocates once the stack has grown
+ * to the search depth, and moves are plain {@code int}s (see {@code Moves}).
+ * <p>
+ * Pieces are numbered like chesslib's {@code Piece} ordinals ({@code WHITE_PAWN} = 0 ... {@code BLACK_KING} = 11),
+ * i.e. {@code side * 6 + type}, and squares like chesslib's {@code Square} ordinals (a1 = 0 ... h8 = 63).
+ * The position carries its own Zobrist key, which differs from chesslib's, and a second key of the pawns alone,
+ * for caching pawn-structure evaluations.
+ * <p>
+ * Conversion from and to chesslib happens through {@code loadFromBoard} and {@code loadFromFen}, which forget
+ * the game history, or {@code loadGame}, which replays the moves since the last capture or pawn move so that
+ * {@code isRepetition} also sees positions of the game before it was loaded. An instance must not be shared
+ * between threads.
+ */
+public final class Position {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    /** Mailbox value of an empty square, and the captured piece of a quiet move. */
+    public static final int NO_PIECE = 12;
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    /** Forsyth-Edwards Notation of the initial position. */
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // centipawn values for static exchange evaluation, indexed by piece type
+    private static final int[] VALUES = {100, 325, 325, 500, 1000, 20000};
+
+    private static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+    private static final Piece[] PIECES = Piece.values();
+
+    private static final long[][] PIECE_KEYS = new long[12][64];
+    // the piece keys of the pawns, and 0 for every other piece, so the pawn key is updated without a branch
+    private static final long[][] PAWN_KEYS = new long[12][64];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long SIDE_KEY;
+
+    // castling rights kept when a piece moves from or to each square
+    private static final int[] CASTLING_MASKS = new int[64];
+
+    static {
+        long seed = 0x2F4A7C159E3779B9L;
+        for (int piece = 0; piece < 12; piece++) {
+            for (int sq = 0; sq < 64; sq++) {
+                seed = splitMix(seed);
+                PIECE_KEYS[piece][sq] = mix(seed);
+            }
+        }
+        for (int rights = 0; rights < 16; rights++) {
+            seed = splitMix(seed);
+            CASTLING_KEYS[rights] = rights == 0 ? 0 : mix(seed);
+        }
+        for (int file = 0; file < 8; file++) {
+            seed = splitMix(seed);
+            EN_PASSANT_KEYS[file] = mix(seed);
+        }
+        SIDE_KEY = mix(splitMix(seed));
+        PAWN_KEYS[WHITE * 6 + PAWN] = PIECE_KEYS[WHITE * 6 + PAWN];
+        PAWN_KEYS[BLACK * 6 + PAWN] = PIECE_KEYS[BLACK * 6 + PAWN];
+
+        Arrays.fill(CASTLING_MASKS, 0xF);
+        CASTLING_MASKS[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASKS[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASKS[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASKS[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASKS[63] &= ~BLACK_KINGSIDE;
+        CASTLING_MASKS[56] &= ~BLACK_QUEENSIDE;
+    }
+
+    final long[] pieces = new long[12];
+    final long[] sides = new long[2];
+    long occupied;
+    private final int[] mailbox = new int[64];
+    int sideToMove;
+    int castling;
+    // square a pawn capturing en passant moves to, or -1
+    int enPassant;
+    private int halfMoveClock;
+    private int fullMoveNumber;
+    private long key;
+    private long pawnKey;
+
+    // undo stack: the move played, the state it replaced (castling, en passant, clock) and the key before it
+    private int[] moveStack = new int[64];
+    private int[] stateStack = new int[64];
+    private long[] keyStack = new long[64];
+    private int stackSize;
+
+    // scratch buffer for static exchange evaluation
+    private final int[] gain = new int[33];
+
+    /**
+     * Makes a new position set up in the initial position.
+     */
+    public Position() {
+        loadFromFen(START_FEN);
+    }
+
+    /**
+     * Makes a new position from Forsyth-Edwards Notation.
+     * @param fen : the position in FEN
+     */
+    public Position(String fen) {
+        loadFromFen(fen);
+    }
+
+    /**
+     * Makes a new position equal to the current position of a chesslib {@code Board}.
+     * @param board : a {@code Board} object from chesslib
+     */
+    public Position(Board board) {
+        loadFromBoard(board);
+    }
+
+    /**
+     * Sets the position to the current position of a chesslib {@code Board}, clearing the undo stack.
+     * The board's bitboards are copied directly, so loading does not allocate.
+     * @param board : a {@code Board} object from chesslib
+     */
+    public void loadFromBoard(Board board) {
+        clear();
+        for (int piece = 0; piece < 12; piece++) {
+            long bitboard = board.getBitboard(PIECES[piece]);
+            while (bitboard != 0) {
+                put(piece, Long.numberOfTrailingZeros(bitboard));
+                bitboard &= bitboard - 1;
+            }
+        }
+        int rights = castlingRights(board.getCastleRight(Side.WHITE))
+                | castlingRights(board.getCastleRight(Side.BLACK)) << 2;
+        Square enPassant = board.getEnPassant();
+        setState(board.getSideToMove() == Side.WHITE ? WHITE : BLACK, rights,
+                enPassant == null || enPassant == Square.NONE ? -1 : enPassant.ordinal(),
+                board.getHalfMoveCounter(), board.getMoveCounter());
+    }
+
+    /**
+     * Sets the position to the current position of a chesslib {@code Board} reached through the moves played
+     * on it since the last capture or pawn move: the position before those moves is loaded and the moves are
+     * played again, so they are on the undo stack and {@code isRepetition} can find the positions they passed
+     * through. Moves the board does not remember (e.g. before it was loaded from a FEN) are left out.
+     * @param board : a {@code Board} object from chesslib; it is not modified
+     */
+    public void loadGame(Board board) {
+        LinkedList<MoveBackup> backups = board.getBackup();
+        int reversible = Math.min(board.getHalfMoveCounter(), backups.size());
+        if (reversible == 0) {
+            loadFromBoard(board);
+            return;
+        }
+        // take the moves back on a copy, which only needs the pieces and state the backups restore
+        Board start = new Board();
+        start.loadFromFen(board.getFen());
+        Move[] played = new Move[reversible];
+        Iterator<MoveBackup> undo = backups.descendingIterator();
+        for (int i = reversible - 1; i >= 0; i--) {
+            MoveBackup backup = undo.next();
+            played[i] = backup.getMove();
+            backup.restore(start);
+        }
+        loadFromBoard(start);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (Move move : played) {
+            int count = MoveGenerator.generateLegalMoves(this, moves, 0);
+            int found = Moves.NONE;
+            for (int i = 0; i < count && found == Moves.NONE; i++) {
+                if (Moves.toMove(moves[i]).equals(move)) {
+                    found = moves[i];
+                }
+            }
+            if (found == Moves.NONE) {
+                // not a move of this game after all: keep the position without its history
+                loadFromBoard(board);
+                return;
+            }
+            makeMove(found);
+        }
+    }
+
+    private static int castlingRights(CastleRight right) {
+        if (right == CastleRight.KING_AND_QUEEN_SIDE) {
+            return WHITE_KINGSIDE | WHITE_QUEENSIDE;
+        } else if (right == CastleRight.KING_SIDE) {
+            return WHITE_KINGSIDE;
+        } else if (right == CastleRight.QUEEN_SIDE) {
+            return WHITE_QUEENSIDE;
+        }
+        return 0;
+    }
+
+    /**
+     * Sets the position from Forsyth-Edwards Notation, clearing the undo stack.
+     * The move clocks may be left out.
+     * @param fen : the position in FEN
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public void loadFromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        clear();
+        int rank = 7;
+        int file = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int piece = PIECE_LETTERS.indexOf(c);
+                if (piece < 0 || rank < 0 || file > 7) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                put(piece, rank * 8 + file);
+                file++;
+            }
+        }
+
+        int rights = 0;
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K': rights |= WHITE_KINGSIDE; break;
+                case 'Q': rights |= WHITE_QUEENSIDE; break;
+                case 'k': rights |= BLACK_KINGSIDE; break;
+                case 'q': rights |= BLACK_QUEENSIDE; break;
+                default: break;
+            }
+        }
+        setState(fields[1].equals("b") ? BLACK : WHITE, rights,
+                fields[3].equals("-") ? -1 : (fields[3].charAt(1) - '1') * 8 + (fields[3].charAt(0) - 'a'),
+                fields.length > 4 ? Integer.parseInt(fields[4]) : 0,
+                fields.length > 5 ? Integer.parseInt(fields[5]) : 1);
+    }
+
+    private void clear() {
+        Arrays.fill(this.pieces, 0);
+        Arrays.fill(this.sides, 0);
+        Arrays.fill(this.mailbox, NO_PIECE);
+        this.occupied = 0;
+        this.key = 0;
+        this.pawnKey = 0;
+        this.stackSize = 0;
+    }
+
+    // sets everything but the pieces, and adds it to the key of the pieces
+    private void setState(int side, int rights, int enPassantSquare, int halfMoves, int fullMoves) {
+        this.sideToMove = side;
+        if (side == BLACK) {
+            this.key ^= SIDE_KEY;
+        }
+        this.castling = rights;
+        this.key ^= CASTLING_KEYS[rights];
+        this.enPassant = enPassantSquare;
+        if (enPassantSquare >= 0) {
+            this.key ^= EN_PASSANT_KEYS[enPassantSquare & 7];
+        }
+        this.halfMoveClock = halfMoves;
+        this.fullMoveNumber = fullMoves;
+    }
+
+    /**
+     * Formats the position in Forsyth-Edwards Notation.
+     * @return the FEN string.
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = this.mailbox[rank * 8 + file];
+                if (piece == NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(PIECE_LETTERS.charAt(piece));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(this.sideToMove == WHITE ? " w " : " b ");
+        if (this.castling == 0) {
+            fen.append('-');
+        } else {
+            if ((this.castling & WHITE_KINGSIDE) != 0) fen.append('K');
+            if ((this.castling & WHITE_QUEENSIDE) != 0) fen.append('Q');
+            if ((this.castling & BLACK_KINGSIDE) != 0) fen.append('k');
+            if ((this.castling & BLACK_QUEENSIDE) != 0) fen.append('q');
+        }
+        fen.append(' ');
+        if (this.enPassant < 0) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + (this.enPassant & 7))).append((char) ('1' + (this.enPassant >>> 3)));
+        }
+        return fen.append(' ').append(this.halfMoveClock).append(' ').append(this.fullMoveNumber).toString();
+    }
+
+    /**
+     * Plays a move generated for this position by {@code MoveGenerator}.
+     * @param move : a legal move, encoded as by {@code Moves}
+     */
+    public void makeMove(int move) {
+        push(move);
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        int piece = Moves.piece(move);
+        int captured = Moves.captured(move);
+        int us = this.sideToMove;
+
+        this.key ^= CASTLING_KEYS[this.castling];
+        if (this.enPassant >= 0) {
+            this.key ^= EN_PASSANT_KEYS[this.enPassant & 7];
+        }
+
+        if (captured != NO_PIECE) {
+            // the pawn taken en passant stands behind the destination square
+            remove(captured, Moves.isEnPassant(move) ? to ^ 8 : to);
+        }
+        remove(piece, from);
+        int promotion = Moves.promotion(move);
+        put(promotion == 0 ? piece : us * 6 + promotion, to);
+        if (Moves.isCastling(move)) {
+            int rook = us * 6 + ROOK;
+            if (to > from) {
+                remove(rook, to + 1);
+                put(rook, to - 1);
+            } else {
+                remove(rook, to - 2);
+                put(rook, to + 1);
+            }
+        }
+
+        this.castling &= CASTLING_MASKS[from] & CASTLING_MASKS[to];
+        this.key ^= CASTLING_KEYS[this.castling];
+        if ((move & Moves.DOUBLE_PUSH) != 0) {
+            this.enPassant = (from + to) >>> 1;
+            this.key ^= EN_PASSANT_KEYS[this.enPassant & 7];
+        } else {
+            this.enPassant = -1;
+        }
+        this.halfMoveClock = captured != NO_PIECE || piece == us * 6 + PAWN ? 0 : this.halfMoveClock + 1;
+        if (us == BLACK) {
+            this.fullMoveNumber++;
+        }
+        this.sideToMove = us ^ 1;
+        this.key ^= SIDE_KEY;
+    }
+
+    /**
+     * Takes back the last move played with {@code makeMove} or {@code makeNullMove}.
+     */
+    public void unmakeMove() {
+        int move = this.moveStack[--this.stackSize];
+        int us = this.sideToMove ^ 1;
+        this.sideToMove = us;
+        if (us == BLACK) {
+            this.fullMoveNumber--;
+        }
+        if (move != Moves.NONE) {
+            int from = Moves.from(move);
+            int to = Moves.to(move);
+            int piece = Moves.piece(move);
+            int captured = Moves.captured(move);
+            int promotion = Moves.promotion(move);
+
+            remove(promotion == 0 ? piece : us * 6 + promotion, to);
+            put(piece, from);
+            if (Moves.isCastling(move)) {
+                int rook = us * 6 + ROOK;
+                if (to > from) {
+                    remove(rook, to - 1);
+                    put(rook, to + 1);
+                } else {
+                    remove(rook, to + 1);
+                    put(rook, to - 2);
+                }
+            }
+            if (captured != NO_PIECE) {
+                put(captured, Moves.isEnPassant(move) ? to ^ 8 : to);
+            }
+        }
+
+        int state = this.stateStack[this.stackSize];
+        this.castling = state & 0xF;
+        this.enPassant = ((state >>> 4) & 0x7F) - 1;
+        this.halfMoveClock = state >>> 11;
+        this.key = this.keyStack[this.stackSize];
+    }
+
+    /**
+     * Passes the turn to the other side without moving, for null-move pruning. Must not be called in check.
+     * Taken back with {@code unmakeMove}.
+     */
+    public void makeNullMove() {
+        push(Moves.NONE);
+        if (this.enPassant >= 0) {
+            this.key ^= EN_PASSANT_KEYS[this.enPassant & 7];
+            this.enPassant = -1;
+        }
+        this.halfMoveClock++;
+        if (this.sideToMove == BLACK) {
+            this.fullMoveNumber++;
+        }
+        this.sideToMove ^= 1;
+        this.key ^= SIDE_KEY;
+    }
+
+    private void push(int move) {
+        if (this.stackSize == this.moveStack.length) {
+            this.moveStack = Arrays.copyOf(this.moveStack, this.stackSize * 2);
+            this.stateStack = Arrays.copyOf(this.stateStack, this.stackSize * 2);
+            this.keyStack = Arrays.copyOf(this.keyStack, this.stackSize * 2);
+        }
+        this.moveStack[this.stackSize] = move;
+        this.stateStack[this.stackSize] = this.castling | ((this.enPassant + 1) << 4) | (this.halfMoveClock << 11);
+        this.keyStack[this.stackSize] = this.key;
+        this.stackSize++;
+    }
+
+    private void put(int piece, int sq) {
+        long bit = 1L << sq;
+        this.pieces[piece] |= bit;
+        this.sides[piece / 6] |= bit;
+        this.occupied |= bit;
+        this.mailbox[sq] = piece;
+        this.key ^= PIECE_KEYS[piece][sq];
+        this.pawnKey ^= PAWN_KEYS[piece][sq];
+    }
+
+    private void remove(int piece, int sq) {
+        long bit = ~(1L << sq);
+        this.pieces[piece] &= bit;
+        this.sides[piece / 6] &= bit;
+        this.occupied &= bit;
+        this.mailbox[sq] = NO_PIECE;
+        this.key ^= PIECE_KEYS[piece][sq];
+        this.pawnKey ^= PAWN_KEYS[piece][sq];
+    }
+
+    /**
+     * Returns the pieces of {@code side} that attack {@code sq}, given the occupied squares {@code occupied}.
+     * Pieces not on {@code occupied} are ignored, so captured pieces can be removed from the board by
+     * leaving them out of it.
+     * @param sq : a square index
+     * @param side : {@code WHITE} or {@code BLACK}
+     * @param occupied : the squares considered occupied
+     * @return a bitboard of attackers.
+     */
+    public long attackersTo(int sq, int side, long occupied) {
+        int base = side * 6;
+        long rooks = this.pieces[base + ROOK] | this.pieces[base + QUEEN];
+        long bishops = this.pieces[base + BISHOP] | this.pieces[base + QUEEN];
+        return ((Bitboards.pawnAttacks(side ^ 1, sq) & this.pieces[base + PAWN])
+                | (Bitboards.knightAttacks(sq) & this.pieces[base + KNIGHT])
+                | (Bitboards.kingAttacks(sq) & this.pieces[base + KING])
+                | (Bitboards.rookAttacks(sq, occupied) & rooks)
+                | (Bitboards.bishopAttacks(sq, occupied) & bishops)) & occupied;
+    }
+
+    /**
+     * @param sq : a square index
+     * @param side : {@code WHITE} or {@code BLACK}
+     * @return whether any piece of {@code side} attacks {@code sq}.
+     */
+    public boolean isAttacked(int sq, int side) {
+        return attackersTo(sq, side, this.occupied) != 0;
+    }
+
+    /**
+     * @return whether the side to move is in check.
+     */
+    public boolean inCheck() {
+        return isAttacked(kingSquare(this.sideToMove), this.sideToMove ^ 1);
+    }
+
+    /**
+     * @param side : {@code WHITE} or {@code BLACK}
+     * @return the square of the king of {@code side}.
+     */
+    public int kingSquare(int side) {
+        return Long.numberOfTrailingZeros(this.pieces[side * 6 + KING]);
+    }
+
+    /**
+     * @param piece : a piece number from 0 to 11
+     * @return the bitboard of that piece.
+     */
+    public long getBitboard(int piece) {
+        return this.pieces[piece];
+    }
+
+    /**
+     * @param side : {@code WHITE} or {@code BLACK}
+     * @return the squares occupied by {@code side}.
+     */
+    public long getOccupied(int side) {
+        return this.sides[side];
+    }
+
+    /**
+     * @return every occupied square.
+     */
+    public long getOccupied() {
+        return this.occupied;
+    }
+
+    /**
+     * @param sq : a square index
+     * @return the piece on {@code sq}, or {@code NO_PIECE}.
+     */
+    public int pieceAt(int sq) {
+        return this.mailbox[sq];
+    }
+
+    /**
+     * @return {@code WHITE} or {@code BLACK}.
+     */
+    public int getSideToMove() {
+        return this.sideToMove;
+    }
+
+    /**
+     * @return the castling rights, a combination of the {@code WHITE_KINGSIDE} ... {@code BLACK_QUEENSIDE} bits.
+     */
+    public int getCastlingRights() {
+        return this.castling;
+    }
+
+    /**
+     * @return the square a pawn capturing en passant would move to, or -1.
+     */
+    public int getEnPassant() {
+        return this.enPassant;
+    }
+
+    /**
+     * @return the number of half-moves since the last capture or pawn move.
+     */
+    public int getHalfMoveClock() {
+        return this.halfMoveClock;
+    }
+
+    /**
+     * @return the Zobrist key of the position.
+     */
+    public long getKey() {
+        return this.key;
+    }
+
+    /**
+     * Recomputes the Zobrist key from scratch, to check the incrementally updated one.
+     * @return the Zobrist key the position should have.
+     */
+    public long computeKey() {
+        long computed = this.sideToMove == BLACK ? SIDE_KEY : 0;
+        for (int sq = 0; sq < 64; sq++) {
+            if (this.mailbox[sq] != NO_PIECE) {
+                computed ^= PIECE_KEYS[this.mailbox[sq]][sq];
+            }
+        }
+        computed ^= CASTLING_KEYS[this.castling];
+        if (this.enPassant >= 0) {
+            computed ^= EN_PASSANT_KEYS[this.enPassant & 7];
+        }
+        return computed;
+    }
+
+    /**
+     * @return the Zobrist key of the pawns alone, which only changes when a pawn moves, is captured or promotes.
+     */
+    public long getPawnKey() {
+        return this.pawnKey;
+    }
+
+    /**
+     * Computes the pawn key of any pawn structure, e.g. one read from a chesslib {@code Board}, with the same
+     * Zobrist numbers as {@code getPawnKey}.
+     * @param whitePawns : bitboard of the white pawns
+     * @param blackPawns : bitboard of the black pawns
+     * @return the pawn key a {@code Position} with these pawns has.
+     */
+    public static long pawnKey(long whitePawns, long blackPawns) {
+        long computed = 0;
+        while (whitePawns != 0) {
+            computed ^= PIECE_KEYS[WHITE * 6 + PAWN][Long.numberOfTrailingZeros(whitePawns)];
+            whitePawns &= whitePawns - 1;
+        }
+        while (blackPawns != 0) {
+            computed ^= PIECE_KEYS[BLACK * 6 + PAWN][Long.numberOfTrailingZeros(blackPawns)];
+            blackPawns &= blackPawns - 1;
+        }
+        return computed;
+    }
+
+    /**
+     * Checks whether the position occurred before, with the same side to move, since the last capture or pawn
+     * move, looking back over the moves on the undo stack. One earlier occurrence is enough. A null move ends
+     * the look back, since no game passes through one.
+     * @return true if the position is a repetition.
+     */
+    public boolean isRepetition() {
+        int limit = Math.max(this.stackSize - this.halfMoveClock, 0);
+        for (int i = this.stackSize - 1; i >= limit; i--) {
+            if (this.moveStack[i] == Moves.NONE) {
+                return false;
+            }
+            if (((this.stackSize - i) & 1) == 0 && this.keyStack[i] == this.key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of moves played since the position was loaded that have not been taken back.
+     */
+    public int getPly() {
+        return this.stackSize;
+    }
+
+    /**
+     * Checks whether the side to move has a knight, bishop, rook or queen, which null-move pruning
+     * needs to be safe from zugzwang.
+     * @return true if the side to move has a piece other than pawns and its king.
+     */
+    public boolean hasPieces() {
+        int base = this.sideToMove * 6;
+        return (this.sides[this.sideToMove] & ~this.pieces[base + PAWN] & ~this.pieces[base + KING]) != 0;
+    }
+
+    /**
+     * Static exchange evaluation of a capture or promotion, as in {@code minimax.StaticExchange}: the material
+     * the side to move wins once every piece that can recapture on the destination square has done so,
+     * least valuable first, each side stopping when recapturing would lose material. Pins are ignored.
+     * @param move : a capture or promotion of the side to move
+     * @return the material won (positive) or lost (negative), in centipawns.
+     */
+    public int staticExchange(int move) {
+        int to = Moves.to(move);
+        long occ = this.occupied & ~(1L << Moves.from(move));
+        int onSquare = VALUES[Moves.piece(move) % 6];
+        int depth = 0;
+        this.gain[0] = captureValue(move);
+        if (Moves.promotion(move) != 0) {
+            onSquare = VALUES[Moves.promotion(move)];
+        }
+        if (Moves.isEnPassant(move)) {
+            occ &= ~(1L << (to ^ 8));
+        }
+
+        int side = this.sideToMove ^ 1;
+        while (true) {
+            long attackers = attackersTo(to, side, occ);
+            if (attackers == 0) {
+                break;
+            }
+            // the least valuable attacker recaptures
+            int type = PAWN;
+            long attacker = 0;
+            for (; type <= KING; type++) {
+                long candidates = attackers & this.pieces[side * 6 + type];
+                if (candidates != 0) {
+                    attacker = candidates & -candidates;
+                    break;
+                }
+            }
+            depth++;
+            this.gain[depth] = onSquare - this.gain[depth - 1];
+            onSquare = VALUES[type];
+            occ &= ~attacker;
+            side ^= 1;
+            // a king can only recapture if the square is no longer defended
+            if (type == KING && attackersTo(to, side, occ) != 0) {
+                depth--;
+                break;
+            }
+        }
+
+        // either side may stop the exchange when continuing would lose material
+        while (depth > 0) {
+            this.gain[depth - 1] = -Math.max(-this.gain[depth - 1], this.gain[depth]);
+            depth--;
+        }
+        return this.gain[0];
+    }
+
+    /**
+     * Returns the material gained by a capture or promotion before any recapture.
+     * @param move : a move of the side to move
+     * @return the value of the captured piece plus any promotion gain, in centipawns.
+     */
+    public static int captureValue(int move) {
+        int captured = Moves.captured(move);
+        int value = captured == NO_PIECE ? 0 : VALUES[captured % 6];
+        if (Moves.promotion(move) != 0) {
+            value += VALUES[Moves.promotion(move)] - VALUES[PAWN];
+        }
+        return value;
+    }
+
+    /**
+     * Draws the board as text, rank 8 first, followed by the FEN.
+     * @return a multi-line string.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            for (int file = 0; file < 8; file++) {
+                int piece = this.mailbox[rank * 8 + file];
+                builder.append(piece == NO_PIECE ? '.' : PIECE_LETTERS.charAt(piece));
+            }
+            builder.append('\n');
+        }
+        return builder.append(toFen()).toString();
+    }
+
+    private static long splitMix(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,112 @@
+package book;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+import minimax.SearchStats;
+import minimax.Strategy;
+
+import java.util.Random;
+
+/**
+ * {@code Strategy} decorator that plays from an opening book while the game is in it, and asks the wrapped
+ * strategy (typically an {@code AdvancedMinimax}) to search once the position is no longer in the book.
+ * Book moves are returned immediately, without spending any of the time budget.
+ */
+public class BookStrategy implements Strategy {
+
+    private final PolyglotBook book;
+    private final Strategy fallback;
+    private final PolyglotBook.Selection selection;
+    private final Random random;
+    private boolean lastFromBook;
+    private long bookMoves;
+
+    /**
+     * Makes a strategy choosing book moves at random, in proportion to their weights.
+     * @param book : the opening book to probe first
+     * @param fallback : the {@code Strategy} used when the position is not in the book
+     */
+    public BookStrategy(PolyglotBook book, Strategy fallback) {
+        this(book, fallback, PolyglotBook.Selection.WEIGHTED, new Random());
+    }
+
+    /**
+     * Makes a strategy choosing book moves as given.
+     * @param book : the opening book to probe first
+     * @param fallback : the {@code Strategy} used when the position is not in the book
+     * @param selection : whether to play the best book move or a weighted random one
+     * @param random : the source of randomness for weighted selection, e.g. seeded for reproducible games
+     */
+    public BookStrategy(PolyglotBook book, Strategy fallback, PolyglotBook.Selection selection, Random random) {
+        if (book == null || fallback == null) {
+            throw new IllegalArgumentException("The book and the fallback strategy must not be null.");
+        }
+        this.book = book;
+        this.fallback = fallback;
+        this.selection = selection;
+        this.random = random;
+    }
+
+    /**
+     * Returns a book move if the position is in the book, and otherwise the move found by the wrapped strategy.
+     * @param board : a {@code Board} object from chesslib
+     * @return a legal {@code Move}.
+     */
+    @Override
+    public Move findBestMove(Board board) {
+        Move move = probe(board);
+        return move != null ? move : this.fallback.findBestMove(board);
+    }
+
+    /**
+     * Returns a book move if the position is in the book, and otherwise the move the wrapped strategy finds
+     * within {@code budgetMillis}.
+     * @param board : a {@code Board} object from chesslib
+     * @param budgetMillis : the time allowed for the search, in milliseconds
+     * @return a legal {@code Move}.
+     */
+    @Override
+    public Move findBestMove(Board board, long budgetMillis) {
+        Move move = probe(board);
+        return move != null ? move : this.fallback.findBestMove(board, budgetMillis);
+    }
+
+    private Move probe(Board board) {
+        Move move = this.book.select(board, this.selection, this.random);
+        this.lastFromBook = move != null;
+        if (this.lastFromBook) {
+            this.bookMoves++;
+        }
+        return move;
+    }
+
+    /**
+     * Returns the statistics of the wrapped strategy's last search; a book move does not change them.
+     * @return a {@code SearchStats} object.
+     */
+    @Override
+    public SearchStats getSearchStats() {
+        return this.fallback.getSearchStats();
+    }
+
+    /**
+     * @return whether the last move returned came from the book.
+     */
+    public boolean isLastMoveFromBook() {
+        return this.lastFromBook;
+    }
+
+    /**
+     * @return the number of book moves returned so far.
+     */
+    public long getBookMoves() {
+        return this.bookMoves;
+    }
+
+    /**
+     * @return the wrapped strategy.
+     */
+    public Strategy getFallback() {
+        return this.fallback;
+    }
+}
@@ -0,0 +1,296 @@
+package book;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Read-only opening book in the Polyglot {@code .bin} format: a sequence of 16-byte big-endian entries
+ * (key, move, weight, learn), sorted by the {@code PolyglotKey} of the position they belong to.
+ * <p>
+ * The file is memory-mapped rather than read, so opening even a book of hundreds of megabytes is instant,
+ * only the pages a lookup touches are ever loaded, and every process using the same book shares them through
+ * the operating system's page cache. A lookup is a binary search over the entries for the first with the
+ * position's key, followed by a scan over the entries sharing it. Books larger than 2 GB are not supported.
+ * A book may be probed by several threads at once.
+ */
+public class PolyglotBook {
+
+    /** Size of one entry in the file, in bytes. */
+    public static final int ENTRY_SIZE = 16;
+
+    /**
+     * How {@code select} picks among the book moves of a position.
+     */
+    public enum Selection {
+        /** Always play the move with the highest weight. */
+        BEST,
+        /** Play a random move, each with probability proportional to its weight. */
+        WEIGHTED
+    }
+
+    /**
+     * A book move of a position and its weight.
+     */
+    public static final class Entry {
+        private final Move move;
+        private final int weight;
+
+        private Entry(Move move, int weight) {
+            this.move = move;
+            this.weight = weight;
+        }
+
+        /**
+         * @return the book move, a legal {@code Move} in the position it was looked up for.
+         */
+        public Move getMove() {
+            return this.move;
+        }
+
+        /**
+         * @return the weight of the move, from 0 to 65535; usually how often or how well it was played.
+         */
+        public int getWeight() {
+            return this.weight;
+        }
+
+        @Override
+        public String toString() {
+            return this.move + " (" + this.weight + ")";
+        }
+    }
+
+    private static final Square[] SQUARES = Square.values();
+    private static final PieceType[] PROMOTIONS = {
+        PieceType.NONE, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN
+    };
+
+    private final ByteBuffer entries;
+    private final int size;
+    private final PolyglotKey keys;
+
+    /**
+     * Opens a book keyed with {@code PolyglotKey.getDefault()}.
+     * @param file : path to the {@code .bin} file
+     */
+    public PolyglotBook(Path file) {
+        this(file, PolyglotKey.getDefault());
+    }
+
+    /**
+     * Opens a book keyed with the given key table.
+     * @param file : path to the {@code .bin} file
+     * @param keys : the {@code PolyglotKey} the book was written with
+     * @throws IllegalArgumentException if the file is not a book, or is keyed with the standard Polyglot table
+     * and {@code keys} is not that table, so that no position would ever be found in it.
+     */
+    public PolyglotBook(Path file, PolyglotKey keys) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % ENTRY_SIZE != 0 || length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(file + " is not a Polyglot book of at most 2 GB.");
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            this.entries = mapped;
+            this.size = (int) (length / ENTRY_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open opening book " + file, e);
+        }
+        this.keys = keys;
+        // every published book has the initial position, under the standard key
+        if (contains(PolyglotKey.STANDARD_START_KEY) && !keys.isStandard()) {
+            throw new IllegalArgumentException(file + " is keyed with the standard Polyglot table; set -D"
+                    + PolyglotKey.TABLE_PROPERTY + " to a file holding that table to read it.");
+        }
+    }
+
+    /**
+     * @return the number of entries in the book.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Looks up the book moves of a position.
+     * @param board : a {@code Board} object from chesslib; it is not modified
+     * @return the legal book moves of the position with their weights, in book order; empty if it is not in the book.
+     */
+    public List<Entry> lookup(Board board) {
+        List<Entry> found = new ArrayList<>();
+        long key = this.keys.key(board);
+        List<Move> legal = null;
+        // absolute get methods only, so concurrent lookups never disturb each other
+        for (int i = firstIndex(key); i < this.size && keyAt(i) == key; i++) {
+            if (legal == null) {
+                legal = board.legalMoves();
+            }
+            Move move = decodeMove(board, this.entries.getShort(i * ENTRY_SIZE + 8) & 0xFFFF);
+            // entries from a colliding position may hold moves that are not legal here
+            if (legal.contains(move)) {
+                found.add(new Entry(move, this.entries.getShort(i * ENTRY_SIZE + 10) & 0xFFFF));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Picks a book move for a position.
+     * @param board : a {@code Board} object from chesslib; it is not modified
+     * @param selection : how to choose among several book moves
+     * @param random : the source of randomness for {@code Selection.WEIGHTED}
+     * @return a legal book move, or null if the position is not in the book.
+     */
+    public Move select(Board board, Selection selection, Random random) {
+        List<Entry> found = lookup(board);
+        if (found.isEmpty()) {
+            return null;
+        }
+        long total = 0;
+        Entry best = found.get(0);
+        for (Entry entry : found) {
+            total += entry.weight;
+            if (entry.weight > best.weight) {
+                best = entry;
+            }
+        }
+        if (selection == Selection.BEST || total == 0) {
+            return best.move;
+        }
+        long pick = (long) (random.nextDouble() * total);
+        for (Entry entry : found) {
+            pick -= entry.weight;
+            if (pick < 0) {
+                return entry.move;
+            }
+        }
+        return best.move;
+    }
+
+    /**
+     * Finds the index of the first entry with a key not less than {@code key}, comparing keys as
+     * unsigned numbers, as the book is sorted.
+     */
+    private int firstIndex(long key) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private boolean contains(long key) {
+        int index = firstIndex(key);
+        return index < this.size && keyAt(index) == key;
+    }
+
+    private long keyAt(int index) {
+        return this.entries.getLong(index * ENTRY_SIZE);
+    }
+
+    /**
+     * Converts a Polyglot move (to file in bits 0-2, to rank 3-5, from file 6-8, from rank 9-11, promotion
+     * 12-14) to a chesslib {@code Move}. Polyglot writes castling as the king capturing its own rook.
+     */
+    private static Move decodeMove(Board board, int encoded) {
+        Square to = SQUARES[encoded & 0x3F];
+        Square from = SQUARES[(encoded >>> 6) & 0x3F];
+        int promotion = (encoded >>> 12) & 0x7;
+        Side side = board.getSideToMove();
+        if (board.getPiece(from) == Piece.make(side, PieceType.KING)
+                && board.getPiece(to) == Piece.make(side, PieceType.ROOK)) {
+            to = SQUARES[to.ordinal() > from.ordinal() ? from.ordinal() + 2 : from.ordinal() - 2];
+        }
+        Piece promoted = promotion == 0 || promotion >= PROMOTIONS.length
+                ? Piece.NONE : Piece.make(side, PROMOTIONS[promotion]);
+        return new Move(from, to, promoted);
+    }
+
+    /**
+     * Converts a chesslib {@code Move} to its Polyglot encoding, writing castling as the king capturing its rook.
+     */
+    private static int encodeMove(Board board, Move move) {
+        int from = move.getFrom().ordinal();
+        int to = move.getTo().ordinal();
+        if (board.getPiece(move.getFrom()).getPieceType() == PieceType.KING && Math.abs(to - from) == 2) {
+            to = to > from ? from + 3 : from - 4;
+        }
+        int promotion = 0;
+        if (move.getPromotion() != Piece.NONE) {
+            promotion = move.getPromotion().getPieceType().ordinal();
+        }
+        return to | (from << 6) | (promotion << 12);
+    }
+
+    /**
+     * Writes a book of the given lines, e.g. a small repertoire or a book for testing. Every line is a
+     * space-separated sequence of moves in coordinate notation ({@code e2e4 e7e5 g1f3}) played from the
+     * initial position; each move of each line becomes a book move, weighted by the number of lines playing it.
+     * @param file : path of the {@code .bin} file to create or overwrite
+     * @param keys : the {@code PolyglotKey} to key the book with
+     * @param lines : the lines of moves to include
+     */
+    public static void write(Path file, PolyglotKey keys, List<String> lines) {
+        // key -> move -> weight, sorted by unsigned key as the format requires
+        Map<Long, Map<Integer, Integer>> book = new TreeMap<>(Long::compareUnsigned);
+        for (String line : lines) {
+            Board board = new Board();
+            for (String text : line.trim().split("\\s+")) {
+                if (text.isEmpty()) {
+                    continue;
+                }
+                Move move = new Move(text, board.getSideToMove());
+                if (!board.legalMoves().contains(move)) {
+                    throw new IllegalArgumentException("Illegal move " + text + " in line: " + line);
+                }
+                book.computeIfAbsent(keys.key(board), k -> new TreeMap<>())
+                        .merge(encodeMove(board, move), 1, Integer::sum);
+                board.doMove(move);
+            }
+        }
+
+        int count = 0;
+        for (Map<Integer, Integer> moves : book.values()) {
+            count += moves.size();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(count * ENTRY_SIZE);
+        for (Map.Entry<Long, Map<Integer, Integer>> position : book.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                buffer.putLong(position.getKey());
+                buffer.putShort((short) (int) move.getKey());
+                buffer.putShort((short) Math.min(move.getValue(), 0xFFFF));
+                buffer.putInt(0);
+            }
+        }
+        try {
+            Files.write(file, buffer.array());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write opening book " + file, e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package book;
+
+import bitboard.Bitboards;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.CastleRight;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.Square;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Computes the Polyglot hash key of a position, the key opening book entries are sorted and looked up by.
+ * The key XORs together 781 random numbers chosen by the position, laid out as in the Polyglot format:
+ * <pre>
+ *   0-767  a piece on a square: 64 * kind + 8 * rank + file, kinds ordered
+ *          black pawn, white pawn, black knight, white knight, ..., black king, white king
+ * 768-771  castling rights: white short, white long, black short, black long
+ * 772-779  en passant file, only if a pawn of the side to move stands ready to capture
+ *     780  white to move
+ * </pre>
+ * Published books are keyed with Polyglot's own table of numbers, which is not part of this source tree;
+ * to read them, load that table with {@code fromFile}, or point the {@code polyglot.random64} system property
+ * at it. Without it, {@code getDefault} warns and falls back to a fixed table generated here, which reads and
+ * writes books in the same format that only this engine understands (such as those made by
+ * {@code PolyglotBook.write}). {@code isStandard} tells the two apart by the key of the initial position, and
+ * {@code PolyglotBook} uses it to refuse a published book opened with the generated table, which would
+ * otherwise never find a move.
+ */
+public final class PolyglotKey {
+
+    /** Number of random numbers in a Polyglot key table. */
+    public static final int TABLE_SIZE = 781;
+
+    /** System property naming a file with the 781 numbers of the standard Polyglot table. */
+    public static final String TABLE_PROPERTY = "polyglot.random64";
+
+    /** Key of the initial position under the standard Polyglot table, as given in the format's description. */
+    public static final long STANDARD_START_KEY = 0x463B96181691FC9CL;
+
+    private static final int CASTLING_OFFSET = 768;
+    private static final int EN_PASSANT_OFFSET = 772;
+    private static final int TURN_OFFSET = 780;
+
+    private static final Piece[] PIECES = Piece.values();
+    // hex numbers as written in C or Java sources, e.g. 0x9D39247E33776D41ULL
+    private static final Pattern HEX_NUMBER = Pattern.compile("(?:0[xX])?([0-9a-fA-F]{16})");
+
+    private static PolyglotKey defaultKey;
+
+    private final long[] random;
+
+    private PolyglotKey(long[] random) {
+        this.random = random;
+    }
+
+    /**
+     * Returns the key table named by the {@code polyglot.random64} system property, or the generated table
+     * if the property is not set, with a warning on the standard error stream since published books cannot
+     * be read with it. The table is read once and shared.
+     * @return a {@code PolyglotKey}.
+     */
+    public static synchronized PolyglotKey getDefault() {
+        if (defaultKey == null) {
+            String file = System.getProperty(TABLE_PROPERTY);
+            if (file == null) {
+                // standard error, as standard output may carry a protocol such as UCI
+                System.err.println("No Polyglot key table given (-D" + TABLE_PROPERTY + "=<file>): using a generated "
+                        + "table, which only reads books written by this engine.");
+                defaultKey = generated();
+            } else {
+                defaultKey = fromFile(Paths.get(file));
+            }
+        }
+        return defaultKey;
+    }
+
+    /**
+     * Reads a key table from a text file holding the 781 numbers in order as 16-digit hexadecimal numbers,
+     * with or without a {@code 0x} prefix; anything around them (commas, brackets, {@code ULL} suffixes,
+     * line breaks) is ignored, so the array can be copied from a C, Java or Python source file.
+     * @param file : path to the text file
+     * @return a {@code PolyglotKey} using the numbers read.
+     */
+    public static PolyglotKey fromFile(Path file) {
+        String text;
+        try {
+            text = Files.readString(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read Polyglot key table " + file, e);
+        }
+        long[] random = new long[TABLE_SIZE];
+        Matcher matcher = HEX_NUMBER.matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            if (count == TABLE_SIZE) {
+                throw new IllegalArgumentException("More than " + TABLE_SIZE + " numbers in " + file);
+            }
+            random[count++] = Long.parseUnsignedLong(matcher.group(1), 16);
+        }
+        if (count != TABLE_SIZE) {
+            throw new IllegalArgumentException("Expected " + TABLE_SIZE + " numbers in " + file + ", found " + count);
+        }
+        return new PolyglotKey(random);
+    }
+
+    /**
+     * Returns a key table of fixed pseudo-random numbers, the same on every run.
+     * @return a {@code PolyglotKey} incompatible with books made with the standard Polyglot table.
+     */
+    public static PolyglotKey generated() {
+        long[] random = new long[TABLE_SIZE];
+        long seed = 0x5A17B00CL;
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            // splitmix64
+            seed += 0x9E3779B97F4A7C15L;
+            long z = seed;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            random[i] = z ^ (z >>> 31);
+        }
+        return new PolyglotKey(random);
+    }
+
+    /**
+     * Tells whether this is the standard Polyglot table, by the key it gives the initial position.
+     * @return true if books published for Polyglot can be read with this table.
+     */
+    public boolean isStandard() {
+        return key(new Board()) == STANDARD_START_KEY;
+    }
+
+    /**
+     * Computes the key of a position.
+     * @param board : a {@code Board} object from chesslib
+     * @return the Polyglot key of the current position of {@code board}.
+     */
+    public long key(Board board) {
+        long key = 0;
+        for (int p = 0; p < 12; p++) {
+            Piece piece = PIECES[p];
+            // chesslib orders pieces white first, Polyglot interleaves them black first
+            int kind = 2 * piece.getPieceType().ordinal() + (piece.getPieceSide() == Side.WHITE ? 1 : 0);
+            long pieces = board.getBitboard(piece);
+            while (pieces != 0L) {
+                key ^= this.random[64 * kind + Long.numberOfTrailingZeros(pieces)];
+                pieces &= pieces - 1;
+            }
+        }
+
+        CastleRight white = board.getCastleRight(Side.WHITE);
+        CastleRight black = board.getCastleRight(Side.BLACK);
+        if (white == CastleRight.KING_SIDE || white == CastleRight.KING_AND_QUEEN_SIDE) {
+            key ^= this.random[CASTLING_OFFSET];
+        }
+        if (white == CastleRight.QUEEN_SIDE || white == CastleRight.KING_AND_QUEEN_SIDE) {
+            key ^= this.random[CASTLING_OFFSET + 1];
+        }
+        if (black == CastleRight.KING_SIDE || black == CastleRight.KING_AND_QUEEN_SIDE) {
+            key ^= this.random[CASTLING_OFFSET + 2];
+        }
+        if (black == CastleRight.QUEEN_SIDE || black == CastleRight.KING_AND_QUEEN_SIDE) {
+            key ^= this.random[CASTLING_OFFSET + 3];
+        }
+
+        // the en passant file only counts if a pawn of the side to move stands beside the pawn that moved
+        Square enPassant = board.getEnPassant();
+        Side side = board.getSideToMove();
+        if (enPassant != null && enPassant != Square.NONE) {
+            long pawns = board.getBitboard(Piece.make(side, PieceType.PAWN));
+            int them = side == Side.WHITE ? 1 : 0;
+            if ((Bitboards.pawnAttacks(them, enPassant.ordinal()) & pawns) != 0) {
+                key ^= this.random[EN_PASSANT_OFFSET + (enPassant.ordinal() & 7)];
+            }
+        }
+
+        if (side == Side.WHITE) {
+            key ^= this.random[TURN_OFFSET];
+        }
+        return key;
+    }
+}
@@ -0,0 +1,307 @@
+package endgame;
+
+import bitboard.Bitboards;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Win/draw table of every position of a king and one piece against a lone king, built by retrograde analysis.
+ * <p>
+ * The side with the piece is called the strong side; the lone king can never win, so a position is either a
+ * win for the strong side or a draw, and one bit per position is enough. Positions are indexed by the side to
+ * move, the squares of the strong king, the weak king and the piece, always with white as the strong side
+ * ({@code Bitbases} mirrors positions where black has the piece), which makes 2 * 64 * 64 * 64 positions and
+ * 64 KB per table. Castling, which only matters in a handful of {@code KRK} positions, is not considered.
+ * <p>
+ * The file format is a 16-byte header (magic number, version, endgame and number of positions, as big-endian
+ * {@code int}s) followed by the bits, position {@code i} being bit {@code i & 7} of byte {@code i >>> 3}. Loaded
+ * tables are memory-mapped, so they are shared between processes through the page cache, and a loaded or
+ * generated table may be probed by several threads at once.
+ */
+public final class Bitbase {
+
+    /**
+     * The endgames covered, named by their pieces: the strong side's king and piece, then the lone king.
+     */
+    public enum Endgame {
+        /** King and pawn against king. */
+        KPK,
+        /** King and rook against king. */
+        KRK,
+        /** King and queen against king. */
+        KQK
+    }
+
+    /** Number of positions in a table. */
+    public static final int SIZE = 2 * 64 * 64 * 64;
+
+    private static final int MAGIC = 0x42425345;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    // states of a position during generation
+    private static final byte UNKNOWN = 0;
+    private static final byte INVALID = 1;
+    private static final byte DRAW = 2;
+    private static final byte WIN = 3;
+
+    private final Endgame endgame;
+    private final ByteBuffer data;
+
+    private Bitbase(Endgame endgame, ByteBuffer data) {
+        this.endgame = endgame;
+        this.data = data;
+    }
+
+    /**
+     * Computes the index of a position, with white as the strong side.
+     * @param whiteToMove : whether the strong side is to move
+     * @param strongKing : square of the strong side's king
+     * @param weakKing : square of the lone king
+     * @param piece : square of the strong side's other piece
+     * @return an index from 0 to {@code SIZE - 1}.
+     */
+    public static int index(boolean whiteToMove, int strongKing, int weakKing, int piece) {
+        return (whiteToMove ? 0 : 1 << 18) | strongKing << 12 | weakKing << 6 | piece;
+    }
+
+    /**
+     * Looks a position up, with white as the strong side. The position must be legal: a white pawn on ranks
+     * 2 to 7, kings not adjacent, and black not in check with white to move; other positions read as draws.
+     * @param whiteToMove : whether the strong side is to move
+     * @param strongKing : square of the strong side's king
+     * @param weakKing : square of the lone king
+     * @param piece : square of the strong side's other piece
+     * @return true if the strong side wins with best play, false if it is a draw.
+     */
+    public boolean isWin(boolean whiteToMove, int strongKing, int weakKing, int piece) {
+        int index = index(whiteToMove, strongKing, weakKing, piece);
+        return (this.data.get(HEADER_SIZE + (index >>> 3)) >>> (index & 7) & 1) != 0;
+    }
+
+    /**
+     * @return the endgame this table covers.
+     */
+    public Endgame getEndgame() {
+        return this.endgame;
+    }
+
+    /**
+     * @return the number of positions won by the strong side, a quick check of a table's contents.
+     */
+    public int countWins() {
+        int wins = 0;
+        for (int i = HEADER_SIZE; i < this.data.capacity(); i++) {
+            wins += Integer.bitCount(this.data.get(i) & 0xFF);
+        }
+        return wins;
+    }
+
+    /**
+     * Writes the table to a file, which {@code load} maps back.
+     * @param file : path of the file to create or overwrite
+     */
+    public void write(Path file) {
+        ByteBuffer copy = this.data.duplicate();
+        copy.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (copy.hasRemaining()) {
+                channel.write(copy);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write bitbase " + file, e);
+        }
+    }
+
+    /**
+     * Maps a table written by {@code write}.
+     * @param file : path of the table
+     * @return the table, backed by the mapped file.
+     */
+    public static Bitbase load(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_SIZE + SIZE / 8) {
+                throw new IllegalArgumentException(file + " is not a bitbase.");
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int endgame = data.getInt(8);
+            if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION || data.getInt(12) != SIZE
+                    || endgame < 0 || endgame >= Endgame.values().length) {
+                throw new IllegalArgumentException(file + " is not a bitbase of version " + VERSION + ".");
+            }
+            return new Bitbase(Endgame.values()[endgame], data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read bitbase " + file, e);
+        }
+    }
+
+    /**
+     * Builds a table by retrograde analysis. {@code KPK} promotes into the other two endgames, so generating
+     * it generates them first; {@code Bitbases} reuses them instead.
+     * @param endgame : the endgame to solve
+     * @return the table, held in memory.
+     */
+    public static Bitbase generate(Endgame endgame) {
+        if (endgame == Endgame.KPK) {
+            return generate(endgame, generate(Endgame.KQK), generate(Endgame.KRK));
+        }
+        return generate(endgame, null, null);
+    }
+
+    /**
+     * Builds a table. Every position starts unknown, except illegal ones, checkmates and stalemates, and
+     * the lone king capturing the piece; then positions are resolved until nothing changes: with the strong
+     * side to move, a position is won if some move wins and drawn if every move draws; with the weak side
+     * to move, it is drawn if some move draws and won if every move loses. Whatever is still unknown is a draw.
+     * @param queens : the {@code KQK} table, for pawn promotions
+     * @param rooks : the {@code KRK} table, for pawn promotions
+     */
+    static Bitbase generate(Endgame endgame, Bitbase queens, Bitbase rooks) {
+        byte[] states = new byte[SIZE];
+        for (int index = 0; index < SIZE; index++) {
+            states[index] = initialState(endgame, index);
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int index = 0; index < SIZE; index++) {
+                if (states[index] == UNKNOWN) {
+                    byte state = (index >>> 18) == 0
+                            ? strongState(endgame, states, index, queens, rooks)
+                            : weakState(endgame, states, index);
+                    if (state != UNKNOWN) {
+                        states[index] = state;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(HEADER_SIZE + SIZE / 8);
+        data.putInt(MAGIC).putInt(VERSION).putInt(endgame.ordinal()).putInt(SIZE);
+        for (int index = 0; index < SIZE; index++) {
+            if (states[index] == WIN) {
+                int offset = HEADER_SIZE + (index >>> 3);
+                data.put(offset, (byte) (data.get(offset) | 1 << (index & 7)));
+            }
+        }
+        return new Bitbase(endgame, data);
+    }
+
+    private static long pieceAttacks(Endgame endgame, int piece, long occupied) {
+        switch (endgame) {
+            case KPK: return Bitboards.pawnAttacks(0, piece);
+            case KRK: return Bitboards.rookAttacks(piece, occupied);
+            default: return Bitboards.queenAttacks(piece, occupied);
+        }
+    }
+
+    private static byte initialState(Endgame endgame, int index) {
+        boolean strongToMove = (index >>> 18) == 0;
+        int strongKing = (index >>> 12) & 63;
+        int weakKing = (index >>> 6) & 63;
+        int piece = index & 63;
+        if (strongKing == weakKing || strongKing == piece || weakKing == piece
+                || (Bitboards.kingAttacks(strongKing) & 1L << weakKing) != 0
+                || (endgame == Endgame.KPK && (piece < 8 || piece >= 56))) {
+            return INVALID;
+        }
+        long occupied = 1L << strongKing | 1L << weakKing | 1L << piece;
+        boolean check = (pieceAttacks(endgame, piece, occupied) & 1L << weakKing) != 0;
+        if (strongToMove) {
+            // the side that just moved cannot have left its king in check
+            return check ? INVALID : UNKNOWN;
+        }
+        long escapes = weakKingMoves(endgame, strongKing, weakKing, piece);
+        if (escapes == 0) {
+            return check ? WIN : DRAW;
+        }
+        // taking the piece leaves two bare kings
+        return (escapes & 1L << piece) != 0 ? DRAW : UNKNOWN;
+    }
+
+    /**
+     * Squares the lone king can move to: not next to the other king, and not attacked by the piece, which is
+     * looked at through the square the king leaves so that it cannot step back along a rook's or queen's line.
+     */
+    private static long weakKingMoves(Endgame endgame, int strongKing, int weakKing, int piece) {
+        long attacked = Bitboards.kingAttacks(strongKing)
+                | pieceAttacks(endgame, piece, 1L << strongKing | 1L << piece);
+        return Bitboards.kingAttacks(weakKing) & ~attacked & ~(1L << strongKing);
+    }
+
+    private static byte strongState(Endgame endgame, byte[] states, int index, Bitbase queens, Bitbase rooks) {
+        int strongKing = (index >>> 12) & 63;
+        int weakKing = (index >>> 6) & 63;
+        int piece = index & 63;
+        long occupied = 1L << strongKing | 1L << weakKing | 1L << piece;
+        boolean allDraw = true;
+
+        long kingMoves = Bitboards.kingAttacks(strongKing) & ~Bitboards.kingAttacks(weakKing) & ~occupied;
+        while (kingMoves != 0) {
+            int to = Long.numberOfTrailingZeros(kingMoves);
+            kingMoves &= kingMoves - 1;
+            byte child = states[index(false, to, weakKing, piece)];
+            if (child == WIN) {
+                return WIN;
+            }
+            allDraw &= child == DRAW;
+        }
+
+        long pieceMoves;
+        if (endgame == Endgame.KPK) {
+            int push = piece + 8;
+            if ((occupied & 1L << push) != 0) {
+                pieceMoves = 0;
+            } else if (push >= 56) {
+                // a promotion wins if either a queen or a rook on the last rank wins with black to move
+                if (queens.isWin(false, strongKing, weakKing, push) || rooks.isWin(false, strongKing, weakKing, push)) {
+                    return WIN;
+                }
+                pieceMoves = 0;
+            } else {
+                pieceMoves = 1L << push;
+                if (piece < 16 && (occupied & 1L << (push + 8)) == 0) {
+                    pieceMoves |= 1L << (push + 8);
+                }
+            }
+        } else {
+            pieceMoves = pieceAttacks(endgame, piece, occupied) & ~occupied;
+        }
+        while (pieceMoves != 0) {
+            int to = Long.numberOfTrailingZeros(pieceMoves);
+            pieceMoves &= pieceMoves - 1;
+            byte child = states[index(false, strongKing, weakKing, to)];
+            if (child == WIN) {
+                return WIN;
+            }
+            allDraw &= child == DRAW;
+        }
+        // with no moves at all the strong side is stalemated, which allDraw also covers
+        return allDraw ? DRAW : UNKNOWN;
+    }
+
+    private static byte weakState(Endgame endgame, byte[] states, int index) {
+        int strongKing = (index >>> 12) & 63;
+        int weakKing = (index >>> 6) & 63;
+        int piece = index & 63;
+        long moves = weakKingMoves(endgame, strongKing, weakKing, piece);
+        boolean allWin = true;
+        while (moves != 0) {
+            int to = Long.numberOfTrailingZeros(moves);
+            moves &= moves - 1;
+            byte child = states[index(true, strongKing, to, piece)];
+            if (child == DRAW) {
+                return DRAW;
+            }
+            allWin &= child == WIN;
+        }
+        return allWin ? WIN : UNKNOWN;
+    }
+}
@@ -0,0 +1,195 @@
+package endgame;
+
+import bitboard.Position;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.CastleRight;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Side;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The {@code KPK}, {@code KRK} and {@code KQK} bitbases together, probed with chesslib {@code Board}s or
+ * bitboard {@code Position}s of either colour. A search that reaches one of these endgames can stop there
+ * and use {@code score} instead: a draw is exactly 0, and a win is worth {@code WIN_SCORE} plus a small
+ * bonus for progress (pushing the pawn, or driving the lone king to the edge with the strong king close),
+ * so that the search still finds its way to mate or promotion. Checkmate and stalemate are not detected;
+ * the search must look for them before probing.
+ */
+public class Bitbases {
+
+    /** Base score of a won bitbase position, in pawns: above any evaluation, and below every mate score. */
+    public static final double WIN_SCORE = 10000;
+
+    /**
+     * The result of a bitbase probe, for the side to move.
+     */
+    public enum Outcome {
+        /** The side to move wins. */
+        WIN,
+        /** The position is a draw. */
+        DRAW,
+        /** The side to move loses. */
+        LOSS,
+        /** The position is not covered by the bitbases. */
+        UNKNOWN
+    }
+
+    private static final Bitbase.Endgame[] ENDGAMES = Bitbase.Endgame.values();
+
+    private final Bitbase[] tables = new Bitbase[ENDGAMES.length];
+
+    /**
+     * Generates the three bitbases in memory, which takes about a second.
+     */
+    public Bitbases() {
+        Bitbase queens = Bitbase.generate(Bitbase.Endgame.KQK);
+        Bitbase rooks = Bitbase.generate(Bitbase.Endgame.KRK);
+        this.tables[Bitbase.Endgame.KQK.ordinal()] = queens;
+        this.tables[Bitbase.Endgame.KRK.ordinal()] = rooks;
+        this.tables[Bitbase.Endgame.KPK.ordinal()] = Bitbase.generate(Bitbase.Endgame.KPK, queens, rooks);
+    }
+
+    /**
+     * Maps the bitbases from files named after their endgame ({@code KPK.bitbase}, ...) in {@code directory},
+     * generating and writing any that are missing, so only the first run pays for the generation.
+     * @param directory : the directory holding the bitbase files, created if needed
+     */
+    public Bitbases(Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create bitbase directory " + directory, e);
+        }
+        // KPK promotes into the others, so they come first
+        Bitbase.Endgame[] order = {Bitbase.Endgame.KQK, Bitbase.Endgame.KRK, Bitbase.Endgame.KPK};
+        for (Bitbase.Endgame endgame : order) {
+            Path file = directory.resolve(endgame + ".bitbase");
+            Bitbase table;
+            if (Files.exists(file)) {
+                table = Bitbase.load(file);
+                if (table.getEndgame() != endgame) {
+                    throw new IllegalArgumentException(file + " holds the " + table.getEndgame() + " bitbase.");
+                }
+            } else {
+                table = Bitbase.generate(endgame, this.tables[Bitbase.Endgame.KQK.ordinal()],
+                        this.tables[Bitbase.Endgame.KRK.ordinal()]);
+                table.write(file);
+            }
+            this.tables[endgame.ordinal()] = table;
+        }
+    }
+
+    /**
+     * @param endgame : one of the endgames covered
+     * @return the bitbase of {@code endgame}.
+     */
+    public Bitbase get(Bitbase.Endgame endgame) {
+        return this.tables[endgame.ordinal()];
+    }
+
+    /**
+     * Looks the position of {@code board} up.
+     * @param board : a {@code Board} object from chesslib; it is not modified
+     * @return the outcome for the side to move, {@code UNKNOWN} for positions with other material or castling rights.
+     */
+    public Outcome probe(Board board) {
+        double score = score(board);
+        return Double.isNaN(score) ? Outcome.UNKNOWN : score == 0 ? Outcome.DRAW : score > 0 ? Outcome.WIN : Outcome.LOSS;
+    }
+
+    /**
+     * Looks the position up.
+     * @param position : a bitboard {@code Position}
+     * @return the outcome for the side to move, {@code UNKNOWN} for positions with other material or castling rights.
+     */
+    public Outcome probe(Position position) {
+        double score = score(position);
+        return Double.isNaN(score) ? Outcome.UNKNOWN : score == 0 ? Outcome.DRAW : score > 0 ? Outcome.WIN : Outcome.LOSS;
+    }
+
+    /**
+     * Scores the position of {@code board} for a search, from the point of view of the side to move.
+     * @param board : a {@code Board} object from chesslib; it is not modified
+     * @return 0 for a draw, about {@code WIN_SCORE} for a win and minus that for a loss, or NaN if the position
+     * is not covered.
+     */
+    public double score(Board board) {
+        long occupied = board.getBitboard();
+        if (Long.bitCount(occupied) != 3
+                || board.getCastleRight(Side.WHITE) != CastleRight.NONE
+                || board.getCastleRight(Side.BLACK) != CastleRight.NONE) {
+            return Double.NaN;
+        }
+        long kings = board.getBitboard(Piece.WHITE_KING) | board.getBitboard(Piece.BLACK_KING);
+        Side strong = Long.bitCount(board.getBitboard(Side.WHITE)) == 2 ? Side.WHITE : Side.BLACK;
+        long piece = board.getBitboard(strong) & ~kings;
+        int pieceType;
+        if ((piece & board.getBitboard(Piece.make(strong, PieceType.PAWN))) != 0) {
+            pieceType = Position.PAWN;
+        } else if ((piece & board.getBitboard(Piece.make(strong, PieceType.ROOK))) != 0) {
+            pieceType = Position.ROOK;
+        } else if ((piece & board.getBitboard(Piece.make(strong, PieceType.QUEEN))) != 0) {
+            pieceType = Position.QUEEN;
+        } else {
+            return Double.NaN;
+        }
+        int strongKing = Long.numberOfTrailingZeros(board.getBitboard(Piece.make(strong, PieceType.KING)));
+        int weakKing = Long.numberOfTrailingZeros(board.getBitboard(Piece.make(strong.flip(), PieceType.KING)));
+        return score(pieceType, strong == Side.WHITE, strongKing, weakKing, Long.numberOfTrailingZeros(piece),
+                board.getSideToMove() == strong);
+    }
+
+    /**
+     * Scores the position for a search, from the point of view of the side to move.
+     * @param position : a bitboard {@code Position}
+     * @return 0 for a draw, about {@code WIN_SCORE} for a win and minus that for a loss, or NaN if the position
+     * is not covered.
+     */
+    public double score(Position position) {
+        long occupied = position.getOccupied();
+        if (Long.bitCount(occupied) != 3 || position.getCastlingRights() != 0) {
+            return Double.NaN;
+        }
+        int strong = Long.bitCount(position.getOccupied(Position.WHITE)) == 2 ? Position.WHITE : Position.BLACK;
+        long piece = position.getOccupied(strong) & ~position.getBitboard(strong * 6 + Position.KING);
+        int pieceSquare = Long.numberOfTrailingZeros(piece);
+        int pieceType = position.pieceAt(pieceSquare) - strong * 6;
+        if (pieceType != Position.PAWN && pieceType != Position.ROOK && pieceType != Position.QUEEN) {
+            return Double.NaN;
+        }
+        return score(pieceType, strong == Position.WHITE, position.kingSquare(strong),
+                position.kingSquare(strong ^ 1), pieceSquare, position.getSideToMove() == strong);
+    }
+
+    private double score(int pieceType, boolean strongIsWhite, int strongKing, int weakKing, int piece,
+                         boolean strongToMove) {
+        if (!strongIsWhite) {
+            // mirror the ranks, so the tables only hold white pieces
+            strongKing ^= 56;
+            weakKing ^= 56;
+            piece ^= 56;
+        }
+        Bitbase table = this.tables[pieceType == Position.PAWN ? Bitbase.Endgame.KPK.ordinal()
+                : pieceType == Position.ROOK ? Bitbase.Endgame.KRK.ordinal() : Bitbase.Endgame.KQK.ordinal()];
+        if (!table.isWin(strongToMove, strongKing, weakKing, piece)) {
+            return 0;
+        }
+        double score = WIN_SCORE;
+        if (pieceType == Position.PAWN) {
+            // worth less than any promoted piece, so the search goes on to promote
+            score += 1 + 0.1 * ((piece >>> 3) - 1);
+        } else {
+            int file = weakKing & 7;
+            int rank = weakKing >>> 3;
+            int edge = Math.max(3 - file, file - 4) + Math.max(3 - rank, rank - 4);
+            int distance = Math.abs(file - (strongKing & 7)) + Math.abs(rank - (strongKing >>> 3));
+            score += (pieceType == Position.QUEEN ? 9 : 5) + 0.1 * edge + 0.04 * (14 - distance);
+        }
+        return strongToMove ? score : -score;
+    }
+}
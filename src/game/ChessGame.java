@@ -1,11 +1,14 @@
 package game;
 
+import book.BookStrategy;
+import book.PolyglotBook;
 import com.github.bhlangonijr.chesslib.Board;
 import com.github.bhlangonijr.chesslib.move.Move;
 import com.github.bhlangonijr.chesslib.Side;
 import gui.BoardGUI;
 import minimax.*;
 
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 /**
@@ -16,6 +19,7 @@ import java.util.Scanner;
 public class ChessGame {
     private Board board;
     private Strategy ai;
+    private Ponderer ponderer;
 
     /**
      * Constructs a chess game object, which possesses the main driver play function
@@ -27,6 +31,20 @@ public class ChessGame {
         this.ai = ai;
     }
 
+    /**
+     * Constructs a chess game in which the computer may think while the user does.
+     * @param ai : An object of type {@code Strategy}, which has some move finder function to act as the computer.
+     * @param ponder : whether to search the user's expected reply during the user's turn; only possible
+     * when {@code ai} is an {@code AdvancedMinimax}, possibly behind a {@code BookStrategy}
+     */
+    public ChessGame(Strategy ai, boolean ponder) {
+        this(ai);
+        Strategy search = ai instanceof BookStrategy ? ((BookStrategy) ai).getFallback() : ai;
+        if (ponder && search instanceof AdvancedMinimax) {
+            this.ponderer = new Ponderer((AdvancedMinimax) search);
+        }
+    }
+
     /**
      * Main function through which a chess game will be played.
      * Given a user side, the user will type moves in the terminal and play back-and-forth with an AI
@@ -38,6 +56,7 @@ public class ChessGame {
     public void play(Side userSide) {
         Scanner scanner = new Scanner(System.in);
         BoardGUI.drawBoard(board);
+        Move userMove = null;
 
         while (!board.isMated() && !board.isDraw()) {
             if (board.getSideToMove() == userSide) {
@@ -56,6 +75,7 @@ public class ChessGame {
                     move = scanner.nextLine().toLowerCase().replaceAll("\\s", "");
                 }
                 try {
+                    userMove = new Move(move, userSide);
                     board.doMove(move);
                     BoardGUI.drawBoard(board);
                 } catch (Exception e) {
@@ -63,12 +83,22 @@ public class ChessGame {
                 }
             } else {
                 System.out.println("The opponent is thinking...");
-                Move aiMove = ai.findBestMove(board);
+                // on a ponder hit the move was (mostly) found while the user was thinking
+                Move aiMove = ponderer != null ? ponderer.finish(userMove) : null;
+                if (aiMove == null) {
+                    aiMove = ai.findBestMove(board);
+                }
                 board.doMove(aiMove);
                 System.out.println("The opponent has moved: " + aiMove.toString());
                 BoardGUI.drawBoard(board);
+                if (ponderer != null && !board.isMated() && !board.isDraw()) {
+                    ponderer.start(board, aiMove);
+                }
             }
         }
+        if (ponderer != null) {
+            ponderer.shutdown();
+        }
 
         if (board.isMated()) {
             System.out.println("Checkmate! " + board.getSideToMove().flip() + " wins!");
@@ -79,6 +109,11 @@ public class ChessGame {
         scanner.close();
     }
 
+    /**
+     * Starts a game on the terminal. An optional argument names a Polyglot opening book, which the computer
+     * then plays from before it starts searching.
+     * @param args : optionally, the path of a {@code .bin} opening book
+     */
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
 
@@ -97,10 +132,14 @@ public class ChessGame {
         if (aiDifficulty == 0) {
             ai = new SimpleMinimax();
         } else {
-            ai = new AdvancedMinimax();
+            // the transposition table carries what was found while pondering over to the actual search
+            ai = new AdvancedMinimax(4, new BitboardEvaluator(), new TranspositionTable());
+        }
+        if (args.length > 0) {
+            ai = new BookStrategy(new PolyglotBook(Paths.get(args[0])), ai);
         }
 
-        ChessGame game = new ChessGame(ai);
+        ChessGame game = new ChessGame(ai, true);
         game.play(userSide);
 
         scanner.close();
@@ -1,39 +1,60 @@
 package minimax;
 
 import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.move.MoveGenerator;
 import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
 import com.github.bhlangonijr.chesslib.Side;
 
-import java.lang.Math;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * The AdvancedMinimax class implements the Strategy interface and extends SimpleMinix. AdvancedMinimax provides
  * an implementation for the alpha-beta pruning algorithm. It also provides a numericalMoveCalculator method for recursively calculating the score
  * of a given board state to a specified depth, and a quiescenceSearch method to recursively
  * search for the optimal score when only captures and checks are possible.
+ * <p>
+ * The search is written in negamax form, scoring every node from the point of view of the side to move, and
+ * uses Principal Variation Search: the first move of a node is searched with the full window and the others
+ * with a null window, which only proves that they are no better, re-searching any move that turns out better.
+ * Iterative deepening searches each iteration in an aspiration window around the previous score.
+ * Scores passed in or out of the class (and stored in the transposition table) remain from white's point of view.
+ * The search itself is the one of {@code NegamaxMinimax}, shared with {@code BitboardMinimax}; this class plays
+ * it on chesslib's {@code Board}.
  * @author  Marios Petrov
  * @since May 06, 2023
  */
 
-public class AdvancedMinimax extends SimpleMinimax {
+public class AdvancedMinimax extends NegamaxMinimax {
+
+    private static final long RANK_2 = 0xFF00L;
+    private static final long RANK_7 = 0xFF000000000000L;
+
+    // the board being searched, and the moves generated at every ply until they are ordered
+    private Board board;
+    private final List<List<Move>> moves = new ArrayList<>(Collections.nCopies(MoveOrderer.MAX_PLY, null));
+    private final StaticExchange see = new StaticExchange();
 
     /**
-     * Constructs an AdvancedMinimax object with a depth of 4 and a MaterialEvaluator object
+     * Constructs an AdvancedMinimax object with a depth of 4 and the basic {@code BitboardEvaluator}
      * for evaluating board states.
      */
     
     public AdvancedMinimax() {
-        super();
+        this(4);
     }
 
     /**
-     * Constructs an AdvancedMinimax object with the specified depth and a MaterialEvaluator
-     * object for evaluating board states.
+     * Constructs an AdvancedMinimax object with the specified depth and the basic
+     * {@code BitboardEvaluator} for evaluating board states.
      * @param depth The maximum depth to search.
      */
     
     public AdvancedMinimax(int depth) {
-        super(depth);
+        this(depth, new BitboardEvaluator());
     }
 
     /**
@@ -42,117 +63,285 @@ public class AdvancedMinimax extends SimpleMinimax {
      * @param eval : A {@code BoardEvaluator} object.
      */
     public AdvancedMinimax(int depth, BoardEvaluator eval) {
-        super(depth, eval);
+        this(depth, eval, null, new SearchOptions());
+    }
+
+    /**
+     * Constructs an AdvancedMinimax object with the specified depth, BoardEvaluator object and
+     * selective search options.
+     * @param depth : An integer representing the maximum depth to search through
+     * @param eval : A {@code BoardEvaluator} object.
+     * @param options : the {@code SearchOptions} turning on null-move pruning and late move reductions
+     */
+    public AdvancedMinimax(int depth, BoardEvaluator eval, SearchOptions options) {
+        this(depth, eval, null, options);
+    }
+
+    /**
+     * Constructs an AdvancedMinimax object with the specified depth, BoardEvaluator object and
+     * transposition table.
+     * @param depth : An integer representing the maximum depth to search through
+     * @param eval : A {@code BoardEvaluator} object.
+     * @param tt : A {@code TranspositionTable}, or null to search without one.
+     */
+    public AdvancedMinimax(int depth, BoardEvaluator eval, TranspositionTable tt) {
+        this(depth, eval, tt, new SearchOptions());
+    }
+
+    /**
+     * Constructs an AdvancedMinimax object with the specified depth, BoardEvaluator object,
+     * transposition table and selective search options.
+     * @param depth : An integer representing the maximum depth to search through
+     * @param eval : A {@code BoardEvaluator} object.
+     * @param tt : A {@code TranspositionTable}, or null to search without one.
+     * @param options : the {@code SearchOptions} turning on null-move pruning and late move reductions
+     */
+    public AdvancedMinimax(int depth, BoardEvaluator eval, TranspositionTable tt, SearchOptions options) {
+        super(depth, eval, tt, options);
     }
 
     @Override
     public Move findBestMove(Board board) {
-        Move optimalMove = null;
-        double optimalScore;
-        Side player = board.getSideToMove();
-        if (player == Side.WHITE) optimalScore = Double.NEGATIVE_INFINITY;
-        else optimalScore = Double.POSITIVE_INFINITY;
-
-        for (Move move : board.legalMoves()) {
-            board.doMove(move);
-            double moveEval = alphaBeta(board, this.depth - 1, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, false);
-            board.undoMove();
-
-            if ((player == Side.WHITE && moveEval > optimalScore) || (player == Side.BLACK && moveEval < optimalScore)) {
-                optimalScore = moveEval;
-                optimalMove = move;
-            }
+        if (this.tt != null) {
+            this.tt.newSearch();
         }
-        return optimalMove;
+        clearStop();
+        prepareSearch(board);
+        Move bestMove = toMove(searchFixedDepth());
+        SearchEvent.commit(getClass().getSimpleName(), this.stats);
+        return bestMove;
     }
 
     /**
-     * Recursively calculates the score of a given board state to the specified depth
-     * using the minimax algorithm.
-     * @param board The board state to evaluate.
-     * @param depth The maximum depth to search.
-     * @param alpha : current minimum score for maximizing player
-     * @param beta : current maximum score for minimizing player.
-     * @return The score of the board state.
+     * Finds the best move using iterative deepening: the position is searched to depth 1, 2, 3, ...
+     * until {@code budgetMillis} runs out, and the best move of the last completed iteration is returned.
+     * The principal variation of each iteration is searched first in the next one, within an aspiration
+     * window around its score that is widened whenever the search fails outside it.
+     * Depth 1 is always completed, so a move is returned even for very small budgets.
+     * @param board : A {@code Board} object from chesslib
+     * @param budgetMillis : wall-clock time allowed for the search, in milliseconds
+     * @return the best {@code Move} found in the time allowed.
      */
-    
-    private double alphaBeta(Board board, int depth, double alpha, double beta, boolean isMaximizingPlayer) {
-        if (depth == 0) {
-            return quiescenceSearch(board, alpha, beta, isMaximizingPlayer);
-        }
+    @Override
+    public Move findBestMove(Board board, long budgetMillis) {
+        return iterativeDeepening(board, MAX_DEPTH, budgetMillis);
+    }
 
-        if (isMaximizingPlayer) {
-            double maxScore = Double.NEGATIVE_INFINITY;
-            for (Move move : board.legalMoves()) {
-                board.doMove(move);
-                maxScore = Math.max(maxScore, alphaBeta(board, depth - 1, alpha, beta, false));
-                board.undoMove();
-                alpha = Math.max(alpha, maxScore);
-                if (beta <= alpha) {
-                    break;
-                }
-            }
-            return maxScore;
-        } else {
-            double minScore = Double.POSITIVE_INFINITY;
-            for (Move move : board.legalMoves()) {
-                board.doMove(move);
-                minScore = Math.min(minScore, alphaBeta(board, depth - 1, alpha, beta, true));
-                board.undoMove();
-                beta = Math.min(beta, minScore);
-                if (beta <= alpha) {
-                    break;
-                }
-            }
-            return minScore;
+    /**
+     * Finds the best move using iterative deepening up to {@code maxDepth}, within {@code budgetMillis}.
+     * Like {@code findBestMove(Board, long)}, the move from the last completed iteration is returned.
+     * @param board : A {@code Board} object from chesslib
+     * @param maxDepth : deepest iteration to search, at most {@code MAX_DEPTH}
+     * @param budgetMillis : wall-clock time allowed for the search, in milliseconds;
+     * {@code Long.MAX_VALUE} for no limit
+     * @return the best {@code Move} found.
+     */
+    public Move iterativeDeepening(Board board, int maxDepth, long budgetMillis) {
+        if (this.tt != null) {
+            this.tt.newSearch();
         }
+        clearStop();
+        Move bestMove = deepen(board, maxDepth, deadlineAfter(budgetMillis));
+        SearchEvent.commit(getClass().getSimpleName(), this.stats);
+        return bestMove;
     }
 
     /**
-     * Implementation of the quiescent search algorithm, which extends the normal minimax approach
-     * if the current board state is considered volatile, as measured by alpha and beta
+     * Runs the iterative deepening loop without resetting the transposition table generation or a pending
+     * {@code stop} request, so several searchers can share one search.
      * @param board : A {@code Board} object from chesslib
-     * @param alpha : Double
-     * @param beta : Double
-     * @param isMaximizingPlayer : Boolean, representing whether the current player is the maximizing player or not (i.e.,
-     * if player is playing white or not).
-     * @return
+     * @param maxDepth : deepest iteration to search
+     * @param end : {@code System.nanoTime()} value after which the search stops
+     * @return the move of the last completed iteration.
      */
-    private double quiescenceSearch(Board board, double alpha, double beta, boolean isMaximizingPlayer) {
-        double eval = this.eval.evaluationScheme(board);
-
-        if (isMaximizingPlayer) {
-            if (eval >= beta) return beta;
-            if (eval > alpha) alpha = eval;
-        } else {
-            if (eval <= alpha) return alpha;
-            if (eval < beta) beta = eval;
+    Move deepen(Board board, int maxDepth, long end) {
+        prepareSearch(board);
+        return toMove(searchIteratively(maxDepth, end));
+    }
+
+    /**
+     * Makes {@code board} the one searched and resets the per-search state.
+     */
+    private void prepareSearch(Board board) {
+        this.board = board;
+        if (this.incremental != null) {
+            this.incremental.reset(board);
         }
+        prepareSearch();
+    }
 
-        for (Move move : board.legalMoves()) {
-            double materialBefore = this.eval.evaluationScheme(board);
-            board.doMove(move);
-            double materialAfter = this.eval.evaluationScheme(board);
+    /**
+     * Runs only the quiescence search from {@code board}: the static evaluation once the captures and
+     * promotions worth playing have been resolved. Useful for measuring and tuning the quiescence search.
+     * Resets the node count, and is not interrupted by the clock.
+     * @param board : A {@code Board} object from chesslib; restored before returning
+     * @return the quiescence score, from white's point of view.
+     */
+    public double quiescenceScore(Board board) {
+        prepareSearch(board);
+        return searchQuiescence();
+    }
 
-            // Skip non-capture moves
-            if (Math.abs(materialAfter - materialBefore) < 0.1) {
-                board.undoMove();
-                continue;
-            }
+    /**
+     * Searches a single root move to {@code depth} with the window {@code (alpha, beta)}, for callers that
+     * distribute the root moves themselves. Resets the node count, and is not interrupted by the clock.
+     * @param board : A {@code Board} object from chesslib, in the root position; restored before returning
+     * @param move : a legal move in the root position
+     * @param depth : the depth of the root, including {@code move}
+     * @param alpha : lower edge of the search window, from white's point of view
+     * @param beta : upper edge of the search window, from white's point of view
+     * @return the score of {@code move}, from white's point of view.
+     */
+    double searchRootMove(Board board, Move move, int depth, double alpha, double beta) {
+        prepareSearch(board);
+        makeMove(board, move);
+        double score = searchPlayedRootMove(depth, alpha, beta);
+        unmakeMove(board);
+        finishSearch();
+        return score;
+    }
+
+    /**
+     * Returns the root moves in the order the fixed-depth search tries them, for callers that
+     * distribute the root moves themselves. Clears the killer and history tables.
+     * @param board : A {@code Board} object from chesslib, in the root position
+     * @return the legal moves, best-ordered first.
+     */
+    List<Move> orderedRootMoves(Board board) {
+        this.orderer.clear();
+        int count = this.orderer.order(board, board.legalMoves(), 0, TranspositionTable.NO_MOVE);
+        List<Move> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(this.orderer.moveAt(0, i));
+        }
+        return moves;
+    }
 
-            double score = quiescenceSearch(board, alpha, beta, !isMaximizingPlayer);
-            board.undoMove();
+    @Override
+    int sideToMove() {
+        return this.board.getSideToMove() == Side.WHITE ? 1 : -1;
+    }
 
-            if (isMaximizingPlayer) {
-                if (score >= beta) return beta;
-                if (score > alpha) alpha = score;
-            } else {
-                if (score <= alpha) return alpha;
-                if (score < beta) beta = score;
+    @Override
+    long positionKey() {
+        return this.board.getIncrementalHashKey();
+    }
+
+    @Override
+    boolean inCheck() {
+        return this.board.isKingAttacked();
+    }
+
+    @Override
+    boolean isRepetition() {
+        return this.board.isRepetition(2);
+    }
+
+    @Override
+    boolean hasPieces() {
+        return hasPieces(this.board);
+    }
+
+    @Override
+    double evaluate() {
+        return this.eval.evaluationScheme(this.board);
+    }
+
+    @Override
+    double probeBitbases() {
+        if (this.bitbases == null || Long.bitCount(this.board.getBitboard()) != 3) {
+            return Double.NaN;
+        }
+        return this.bitbases.score(this.board);
+    }
+
+    @Override
+    int generateMoves(int ply) {
+        List<Move> legal = this.board.legalMoves();
+        this.moves.set(ply, legal);
+        return legal.size();
+    }
+
+    /**
+     * Generates the pseudo-legal captures, together with the promotions that do not capture, which
+     * chesslib's capture generator leaves out.
+     */
+    @Override
+    int generateTacticalMoves(int ply) {
+        List<Move> captures = this.board.pseudoLegalCaptures();
+        Side side = this.board.getSideToMove();
+        long seventhRank = side == Side.WHITE ? RANK_7 : RANK_2;
+        if ((this.board.getBitboard(Piece.make(side, PieceType.PAWN)) & seventhRank) != 0) {
+            List<Move> pawnMoves = new ArrayList<>();
+            MoveGenerator.generatePawnMoves(this.board, pawnMoves);
+            for (Move move : pawnMoves) {
+                if (move.getPromotion() != Piece.NONE) {
+                    captures.add(move);
+                }
             }
         }
-        return isMaximizingPlayer ? alpha : beta;
+        this.moves.set(ply, captures);
+        return captures.size();
     }
-}
 
+    @Override
+    void orderMoves(int ply, int count, int hashMove) {
+        this.orderer.order(this.board, this.moves.get(ply), ply, hashMove);
+    }
 
+    @Override
+    int moveAt(int ply, int index) {
+        return TranspositionTable.encodeMove(this.orderer.moveAt(ply, index));
+    }
+
+    @Override
+    int hashMove(int move) {
+        return move;
+    }
+
+    @Override
+    Move toMove(int move) {
+        return TranspositionTable.decodeMove(move);
+    }
+
+    @Override
+    boolean isTactical(int ply, int index) {
+        return isCapture(this.board, this.orderer.moveAt(ply, index));
+    }
+
+    @Override
+    int captureValue(int ply, int index) {
+        return StaticExchange.captureValue(this.board, this.orderer.moveAt(ply, index));
+    }
+
+    @Override
+    boolean isBadCapture(int ply, int index) {
+        Move move = this.orderer.moveAt(ply, index);
+        return this.see.evaluate(this.board, move) < 0 || !this.board.isMoveLegal(move, false);
+    }
+
+    @Override
+    void makeMove(int ply, int index) {
+        makeMove(this.board, this.orderer.moveAt(ply, index));
+    }
+
+    @Override
+    void makeNullMove() {
+        this.board.doNullMove();
+    }
+
+    @Override
+    void unmakeMove() {
+        unmakeMove(this.board);
+    }
+
+    @Override
+    void unmakeNullMove() {
+        this.board.undoMove();
+    }
+
+    @Override
+    void recordCutoff(int ply, int index, int depth) {
+        this.orderer.recordCutoff(this.board, this.orderer.moveAt(ply, index), ply, depth);
+    }
+}
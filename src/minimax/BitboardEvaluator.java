@@ -0,0 +1,69 @@
+package minimax;
+
+import bitboard.Position;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+
+/**
+ * Material evaluator that reads the piece bitboards of a {@code Board} directly and counts their bits.
+ * It uses the same weights as {@code MaterialEvaluator}, but never builds strings or boxes numbers,
+ * so evaluating a board allocates nothing.
+ * Unlike {@code MaterialEvaluator}, it does not detect checkmate or stalemate; the minimax searches
+ * score those positions themselves, since they already know whether any legal moves are left.
+ */
+public class BitboardEvaluator implements BoardEvaluator {
+
+    // kings are left out, since both sides always have exactly one and their weights cancel
+    private static final Piece[] PIECES = {
+        Piece.WHITE_PAWN, Piece.WHITE_KNIGHT, Piece.WHITE_BISHOP, Piece.WHITE_ROOK, Piece.WHITE_QUEEN,
+        Piece.BLACK_PAWN, Piece.BLACK_KNIGHT, Piece.BLACK_BISHOP, Piece.BLACK_ROOK, Piece.BLACK_QUEEN
+    };
+
+    // weights as per MaterialEvaluator, in the order of PIECES
+    private static final double[] WEIGHTS = {
+        1d, 3.25d, 3.25d, 5d, 10d,
+        -1d, -3.25d, -3.25d, -5d, -10d
+    };
+
+    // absolute piece values indexed by PieceType ordinal (PAWN ... KING, NONE)
+    private static final double[] TYPE_VALUES = {1d, 3.25d, 3.25d, 5d, 10d, 100d, 0d};
+
+    /**
+     * Returns the material value of a piece type, as used by this evaluator.
+     * @param type : a {@code PieceType} from chesslib
+     * @return the (positive) value of the piece type; {@code PieceType.NONE} is worth 0.
+     */
+    public static double pieceValue(PieceType type) {
+        return TYPE_VALUES[type.ordinal()];
+    }
+
+    /**
+     * Evaluates the board by summing the weights of all pieces on the board.
+     * @param board : A {@code Board} object from the {@code chesslib} library
+     * @return A double indicating total piece value on the board.
+     */
+    @Override
+    public double evaluationScheme(Board board) {
+        double materialSum = 0;
+        for (int i = 0; i < PIECES.length; i++) {
+            materialSum += WEIGHTS[i] * Long.bitCount(board.getBitboard(PIECES[i]));
+        }
+        return materialSum;
+    }
+
+    /**
+     * Evaluates a {@code Position} the same way, from its piece bitboards.
+     * @param position : A {@code Position} from the {@code bitboard} package
+     * @return A double indicating total piece value on the board.
+     */
+    @Override
+    public double evaluationScheme(Position position) {
+        double materialSum = 0;
+        for (int i = 0; i < PIECES.length; i++) {
+            // PIECES skips the kings, whose Position numbers are 5 and 11
+            materialSum += WEIGHTS[i] * Long.bitCount(position.getBitboard(i < 5 ? i : i + 1));
+        }
+        return materialSum;
+    }
+}
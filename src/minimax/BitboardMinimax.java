@@ -0,0 +1,253 @@
+package minimax;
+
+import bitboard.MoveGenerator;
+import bitboard.Moves;
+import bitboard.Position;
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.Board;
+
+/**
+ * The search of {@code NegamaxMinimax} (negamax alpha-beta with principal variation search, aspiration windows,
+ * quiescence search, the transposition table, move ordering and the selective search options), run on the
+ * engine's own {@code bitboard.Position} instead of chesslib's {@code Board} as {@code AdvancedMinimax} does.
+ * <p>
+ * The chesslib {@code Board} is only read when a search starts (with the moves since the last capture or pawn
+ * move, so that repetitions of the game are recognized) and a chesslib {@code Move} is only built for the
+ * result; in between, moves are {@code int}s generated into a preallocated buffer per ply and played with
+ * {@code Position.makeMove} / {@code unmakeMove}, which is several times faster than {@code legalMoves()} and
+ * {@code doMove}. Positions are evaluated with {@code BoardEvaluator.evaluationScheme(Position)}, which
+ * {@code BitboardEvaluator} and {@code PieceSquareEvaluator} implement directly.
+ * <p>
+ * Callers that keep their own {@code Position} can search it with {@code findBestMove(Position)} and
+ * {@code iterativeDeepening(Position, int, long)}, which return encoded moves. Scores are primitives, the move
+ * buffers and principal variation table are allocated once with the searcher, and move ordering and the
+ * transposition table work in place, so after warm-up these searches allocate nothing on the heap (provided the
+ * evaluator does not, and no flight recording of the search events is running).
+ * <p>
+ * The transposition table may be shared with other {@code BitboardMinimax} searchers, but not with the
+ * chesslib-based classes, since the two board representations hash positions and encode moves differently.
+ */
+public class BitboardMinimax extends NegamaxMinimax {
+
+    // the position being searched: either boardPosition, loaded from a chesslib Board, or one passed by the caller
+    private Position position;
+    private final Position boardPosition = new Position();
+    // generated moves, one buffer per ply (quiescence included)
+    private final int[][] moves = new int[MoveOrderer.MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    /**
+     * Constructs a BitboardMinimax object with the specified depth and BoardEvaluator object.
+     * @param depth : An integer representing the maximum depth to search through
+     * @param eval : A {@code BoardEvaluator} object, ideally one implementing {@code evaluationScheme(Position)}
+     */
+    public BitboardMinimax(int depth, BoardEvaluator eval) {
+        this(depth, eval, null, new SearchOptions());
+    }
+
+    /**
+     * Constructs a BitboardMinimax object with the specified depth, BoardEvaluator object and
+     * transposition table.
+     * @param depth : An integer representing the maximum depth to search through
+     * @param eval : A {@code BoardEvaluator} object, ideally one implementing {@code evaluationScheme(Position)}
+     * @param tt : A {@code TranspositionTable}, or null to search without one.
+     */
+    public BitboardMinimax(int depth, BoardEvaluator eval, TranspositionTable tt) {
+        this(depth, eval, tt, new SearchOptions());
+    }
+
+    /**
+     * Constructs a BitboardMinimax object with the specified depth, BoardEvaluator object,
+     * transposition table and selective search options.
+     * @param depth : An integer representing the maximum depth to search through
+     * @param eval : A {@code BoardEvaluator} object, ideally one implementing {@code evaluationScheme(Position)}
+     * @param tt : A {@code TranspositionTable}, or null to search without one.
+     * @param options : the {@code SearchOptions} turning on null-move pruning and late move reductions
+     */
+    public BitboardMinimax(int depth, BoardEvaluator eval, TranspositionTable tt, SearchOptions options) {
+        super(depth, eval, tt, options);
+    }
+
+    /**
+     * Finds the best move at the configured depth.
+     * @param board : A {@code Board} object from chesslib; it is not modified
+     * @return the best {@code Move}, or null if there are no legal moves.
+     */
+    @Override
+    public Move findBestMove(Board board) {
+        this.boardPosition.loadGame(board);
+        return Moves.toMove(findBestMove(this.boardPosition));
+    }
+
+    /**
+     * Finds the best move at the configured depth in one of the engine's own positions, without allocating.
+     * @param position : the {@code Position} to search; it is played on during the search, and left as it was
+     * @return the best move encoded as in {@code Moves}, or {@code Moves.NONE} if there are no legal moves.
+     */
+    public int findBestMove(Position position) {
+        if (this.tt != null) {
+            this.tt.newSearch();
+        }
+        clearStop();
+        this.position = position;
+        prepareSearch();
+        int bestMove = searchFixedDepth();
+        SearchEvent.commit(getClass().getSimpleName(), this.stats);
+        return bestMove;
+    }
+
+    /**
+     * Finds the best move using iterative deepening within {@code budgetMillis}, like
+     * {@code AdvancedMinimax.findBestMove(Board, long)}.
+     * @param board : A {@code Board} object from chesslib; it is not modified
+     * @param budgetMillis : wall-clock time allowed for the search, in milliseconds
+     * @return the best {@code Move} found in the time allowed.
+     */
+    @Override
+    public Move findBestMove(Board board, long budgetMillis) {
+        return iterativeDeepening(board, MAX_DEPTH, budgetMillis);
+    }
+
+    /**
+     * Finds the best move using iterative deepening up to {@code maxDepth}, within {@code budgetMillis}.
+     * The move from the last completed iteration is returned; depth 1 is always completed.
+     * @param board : A {@code Board} object from chesslib; it is not modified
+     * @param maxDepth : deepest iteration to search, at most {@code MAX_DEPTH}
+     * @param budgetMillis : wall-clock time allowed for the search, in milliseconds;
+     * {@code Long.MAX_VALUE} for no limit
+     * @return the best {@code Move} found.
+     */
+    public Move iterativeDeepening(Board board, int maxDepth, long budgetMillis) {
+        this.boardPosition.loadGame(board);
+        return Moves.toMove(iterativeDeepening(this.boardPosition, maxDepth, budgetMillis));
+    }
+
+    /**
+     * Finds the best move in one of the engine's own positions using iterative deepening up to
+     * {@code maxDepth}, within {@code budgetMillis}, without allocating.
+     * @param position : the {@code Position} to search; it is played on during the search, and left as it was
+     * @param maxDepth : deepest iteration to search, at most {@code MAX_DEPTH}
+     * @param budgetMillis : wall-clock time allowed for the search, in milliseconds;
+     * {@code Long.MAX_VALUE} for no limit
+     * @return the best move encoded as in {@code Moves}, or {@code Moves.NONE} if there are no legal moves.
+     */
+    public int iterativeDeepening(Position position, int maxDepth, long budgetMillis) {
+        if (this.tt != null) {
+            this.tt.newSearch();
+        }
+        clearStop();
+        long end = deadlineAfter(budgetMillis);
+        this.position = position;
+        prepareSearch();
+        int bestMove = searchIteratively(maxDepth, end);
+        SearchEvent.commit(getClass().getSimpleName(), this.stats);
+        return bestMove;
+    }
+
+    @Override
+    int sideToMove() {
+        return this.position.getSideToMove() == Position.WHITE ? 1 : -1;
+    }
+
+    @Override
+    long positionKey() {
+        return this.position.getKey();
+    }
+
+    @Override
+    boolean inCheck() {
+        return this.position.inCheck();
+    }
+
+    @Override
+    boolean isRepetition() {
+        return this.position.isRepetition();
+    }
+
+    @Override
+    boolean hasPieces() {
+        return this.position.hasPieces();
+    }
+
+    @Override
+    double evaluate() {
+        return this.eval.evaluationScheme(this.position);
+    }
+
+    @Override
+    double probeBitbases() {
+        if (this.bitbases == null || Long.bitCount(this.position.getOccupied()) != 3) {
+            return Double.NaN;
+        }
+        return this.bitbases.score(this.position);
+    }
+
+    @Override
+    int generateMoves(int ply) {
+        return MoveGenerator.generateLegalMoves(this.position, this.moves[ply], 0);
+    }
+
+    @Override
+    int generateTacticalMoves(int ply) {
+        return MoveGenerator.generateTacticalMoves(this.position, this.moves[ply], 0);
+    }
+
+    @Override
+    void orderMoves(int ply, int count, int hashMove) {
+        this.orderer.order(this.moves[ply], count, ply, hashMove);
+    }
+
+    @Override
+    int moveAt(int ply, int index) {
+        return this.moves[ply][index];
+    }
+
+    @Override
+    int hashMove(int move) {
+        return Moves.hashMove(move);
+    }
+
+    @Override
+    Move toMove(int move) {
+        return Moves.toMove(move);
+    }
+
+    @Override
+    boolean isTactical(int ply, int index) {
+        return Moves.isTactical(this.moves[ply][index]);
+    }
+
+    @Override
+    int captureValue(int ply, int index) {
+        return Position.captureValue(this.moves[ply][index]);
+    }
+
+    @Override
+    boolean isBadCapture(int ply, int index) {
+        return this.position.staticExchange(this.moves[ply][index]) < 0;
+    }
+
+    @Override
+    void makeMove(int ply, int index) {
+        this.position.makeMove(this.moves[ply][index]);
+    }
+
+    @Override
+    void makeNullMove() {
+        this.position.makeNullMove();
+    }
+
+    @Override
+    void unmakeMove() {
+        this.position.unmakeMove();
+    }
+
+    @Override
+    void unmakeNullMove() {
+        this.position.unmakeMove();
+    }
+
+    @Override
+    void recordCutoff(int ply, int index, int depth) {
+        this.orderer.recordCutoff(this.moves[ply][index], ply, depth);
+    }
+}
@@ -1,5 +1,6 @@
 package minimax;
 
+import bitboard.Position;
 import com.github.bhlangonijr.chesslib.Board;
 
 /**
@@ -19,4 +20,17 @@ public interface BoardEvaluator {
      * an advantage for black.
      */
     double evaluationScheme(Board board);
+
+    /**
+     * Returns a numerical evaluation of a position in the engine's own board representation, as searched by
+     * {@code BitboardMinimax}. The default converts the position to a chesslib {@code Board} through its FEN,
+     * which is slow but works for every evaluator; evaluators meant for {@code BitboardMinimax} override it.
+     * @param position : A {@code Position} from the {@code bitboard} package
+     * @return a double, positive if white is better, on the same scale as {@code evaluationScheme(Board)}.
+     */
+    default double evaluationScheme(Position position) {
+        Board board = new Board();
+        board.loadFromFen(position.toFen());
+        return evaluationScheme(board);
+    }
 }
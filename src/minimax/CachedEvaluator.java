@@ -0,0 +1,189 @@
+package minimax;
+
+import bitboard.Position;
+import com.github.bhlangonijr.chesslib.Board;
+
+/**
+ * Decorator caching the scores of any {@code BoardEvaluator} in a fixed-size table indexed by the
+ * Zobrist key of the position, so that leaves reached again (in sibling subtrees, through transpositions,
+ * or in the next iteration of iterative deepening) are not evaluated again.
+ * <p>
+ * The cache is lossy: each key maps to a single slot, and a new score always replaces the one there.
+ * Boards are keyed by chesslib's {@code getIncrementalHashKey()} and {@code Position}s by their own key;
+ * scores depend only on the placement of the pieces, castling rights, en passant square and side to move,
+ * so the wrapped evaluator must not depend on the history of the game. As in {@code TranspositionTable},
+ * each slot holds the key XOR-ed with the score bits, so one instance can be shared by parallel searches
+ * (provided the wrapped evaluator can be), and the hit counters are approximate when it is.
+ * <p>
+ * Wrapping an {@code IncrementalEvaluator} hides it from the searches, which then let it score every leaf
+ * from scratch; its incremental score is already cheaper than a cache lookup, so it is best left unwrapped.
+ */
+public class CachedEvaluator implements BoardEvaluator {
+
+    /** Default cache size, in megabytes. */
+    public static final int DEFAULT_SIZE_MB = 4;
+
+    // 8 bytes each for the key and score arrays
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private final BoardEvaluator eval;
+    private final long[] keys;
+    private final long[] scores;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    /**
+     * Wraps {@code eval} in a cache of {@code DEFAULT_SIZE_MB} megabytes.
+     * @param eval : the {@code BoardEvaluator} whose scores are cached
+     */
+    public CachedEvaluator(BoardEvaluator eval) {
+        this(eval, DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * Wraps {@code eval} in a cache of roughly {@code sizeMb} megabytes, rounded down to a power of two entries.
+     * @param eval : the {@code BoardEvaluator} whose scores are cached
+     * @param sizeMb : integer, the memory budget of the cache in megabytes
+     */
+    public CachedEvaluator(BoardEvaluator eval, int sizeMb) {
+        if (eval == null) {
+            throw new IllegalArgumentException("The cached evaluator must not be null.");
+        }
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Evaluation cache size must be at least 1 MB.");
+        }
+        long capacity = Long.highestOneBit(((long) sizeMb << 20) / BYTES_PER_ENTRY);
+        capacity = Math.min(capacity, 1 << 30);
+        this.eval = eval;
+        this.keys = new long[(int) capacity];
+        this.scores = new long[(int) capacity];
+        this.mask = (int) capacity - 1;
+    }
+
+    /**
+     * Returns the score of the board from the cache, evaluating and caching it on a miss.
+     * @param board : A {@code Board} object from the {@code chesslib} library
+     * @return the score of the wrapped evaluator.
+     */
+    @Override
+    public double evaluationScheme(Board board) {
+        long key = board.getIncrementalHashKey();
+        double score = probe(key);
+        if (!Double.isNaN(score)) {
+            return score;
+        }
+        return store(key, this.eval.evaluationScheme(board));
+    }
+
+    /**
+     * Returns the score of the position from the cache, evaluating and caching it on a miss.
+     * @param position : A {@code Position} from the {@code bitboard} package
+     * @return the score of the wrapped evaluator.
+     */
+    @Override
+    public double evaluationScheme(Position position) {
+        long key = position.getKey();
+        double score = probe(key);
+        if (!Double.isNaN(score)) {
+            return score;
+        }
+        return store(key, this.eval.evaluationScheme(position));
+    }
+
+    /**
+     * Looks a key up. The slot is read once, and the score returned is the one checked against the key,
+     * so a store into the slot by another thread in between cannot hand back another position's score.
+     * @return the cached score, or NaN on a miss.
+     */
+    private double probe(long key) {
+        this.probes++;
+        int slot = (int) key & this.mask;
+        long bits = this.scores[slot];
+        // an empty slot looks like a score of 0 stored for key 0, so that key is never served from the cache
+        if ((this.keys[slot] ^ bits) == key && key != 0) {
+            this.hits++;
+            return Double.longBitsToDouble(bits);
+        }
+        return Double.NaN;
+    }
+
+    private double store(long key, double score) {
+        int slot = (int) key & this.mask;
+        long bits = Double.doubleToRawLongBits(score);
+        this.scores[slot] = bits;
+        this.keys[slot] = key ^ bits;
+        return score;
+    }
+
+    /**
+     * Returns the wrapped evaluator.
+     * @return the {@code BoardEvaluator} whose scores are cached.
+     */
+    public BoardEvaluator getEvaluator() {
+        return this.eval;
+    }
+
+    /**
+     * Empties the cache and resets its statistics, e.g. after changing the wrapped evaluator's parameters.
+     */
+    public void clear() {
+        java.util.Arrays.fill(this.keys, 0L);
+        java.util.Arrays.fill(this.scores, 0L);
+        resetStatistics();
+    }
+
+    /**
+     * Resets the probe and hit counters.
+     */
+    public void resetStatistics() {
+        this.probes = 0;
+        this.hits = 0;
+    }
+
+    /**
+     * @return the number of slots in the cache.
+     */
+    public int getCapacity() {
+        return this.keys.length;
+    }
+
+    /**
+     * @return the number of evaluations requested since the last reset.
+     */
+    public long getProbes() {
+        return this.probes;
+    }
+
+    /**
+     * @return the number of evaluations served from the cache since the last reset.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return the number of evaluations passed on to the wrapped evaluator since the last reset.
+     */
+    public long getMisses() {
+        return this.probes - this.hits;
+    }
+
+    /**
+     * @return the fraction of evaluations served from the cache since the last reset, from 0 to 1.
+     */
+    public double getHitRate() {
+        return this.probes == 0 ? 0 : (double) this.hits / this.probes;
+    }
+
+    /**
+     * Summarizes the cache statistics, e.g. for printing after a search.
+     * @return a human-readable string with the probe, hit and miss counts.
+     */
+    @Override
+    public String toString() {
+        return String.format("EvalCache[%d entries] probes=%d hits=%d (%.1f%%) misses=%d",
+                this.keys.length, this.probes, this.hits, 100 * getHitRate(), getMisses());
+    }
+}
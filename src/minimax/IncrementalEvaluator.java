@@ -0,0 +1,38 @@
+package minimax;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+/**
+ * A {@code BoardEvaluator} that keeps its evaluation up to date as moves are made and unmade,
+ * instead of rescoring the whole board at every leaf.
+ * The evaluator is bound to a single {@code Board} by {@code reset}; afterwards every move made on that board
+ * must be announced through {@code onMove} before it is played, and every undo through {@code onUndo}.
+ * Because it holds per-search state, an instance must not be shared between concurrent searches.
+ */
+public interface IncrementalEvaluator extends BoardEvaluator {
+
+    /**
+     * Binds the evaluator to {@code board} and recomputes its evaluation from scratch.
+     * @param board : the {@code Board} that subsequent moves will be played on
+     */
+    void reset(Board board);
+
+    /**
+     * Updates the evaluation for a move that is about to be played on the bound board.
+     * Must be called before {@code board.doMove(move)}.
+     * @param move : a legal {@code Move} in the current position of the bound board
+     */
+    void onMove(Move move);
+
+    /**
+     * Restores the evaluation from before the most recent {@code onMove}.
+     */
+    void onUndo();
+
+    /**
+     * Returns a fresh, unbound evaluator of the same kind, for use by another search.
+     * @return a new {@code IncrementalEvaluator}.
+     */
+    IncrementalEvaluator copy();
+}
@@ -0,0 +1,237 @@
+package minimax;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.Board;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel search strategy in the "Lazy SMP" style: several {@code AdvancedMinimax} searchers run
+ * iterative deepening on the same position at once, sharing nothing but a lock-free
+ * {@code TranspositionTable}. The helpers fill the table with results that the main searcher then
+ * reuses, so it reaches a given depth sooner. Half of the helpers search one ply deeper than the
+ * main searcher, which spreads them over different parts of the tree.
+ * <p>
+ * Every searcher works on its own copy of the board, so the {@code Board} passed to
+ * {@code findBestMove} is never modified. With a single thread the search is the ordinary,
+ * deterministic {@code AdvancedMinimax} search.
+ */
+public class LazySmpMinimax implements Strategy {
+    private final int depth;
+    private final TranspositionTable tt;
+    private final AdvancedMinimax[] searchers;
+    private final ExecutorService helperPool;
+    private final SearchStats stats = new SearchStats();
+
+    /**
+     * Makes a new parallel search with a depth of {@code depth}, using one thread per available processor
+     * and a default-sized transposition table.
+     * @param depth : integer, representing the number of moves into the future to look into
+     * @param eval : an object of class {@code BoardEvaluator}
+     */
+    public LazySmpMinimax(int depth, BoardEvaluator eval) {
+        this(depth, eval, Runtime.getRuntime().availableProcessors(), new TranspositionTable());
+    }
+
+    /**
+     * Makes a new parallel search with a depth of {@code depth}, using {@code threads} threads
+     * and a default-sized transposition table.
+     * @param depth : integer, representing the number of moves into the future to look into
+     * @param eval : an object of class {@code BoardEvaluator}
+     * @param threads : number of searching threads, including the calling thread
+     */
+    public LazySmpMinimax(int depth, BoardEvaluator eval, int threads) {
+        this(depth, eval, threads, new TranspositionTable());
+    }
+
+    /**
+     * Makes a new parallel search with a depth of {@code depth}, using {@code threads} threads that
+     * share the transposition table {@code tt}.
+     * An {@code IncrementalEvaluator} is copied for each helper thread, since it holds per-search state;
+     * any other evaluator is shared and must therefore be thread-safe.
+     * @param depth : integer, representing the number of moves into the future to look into
+     * @param eval : an object of class {@code BoardEvaluator}
+     * @param threads : number of searching threads, including the calling thread
+     * @param tt : the {@code TranspositionTable} shared by all threads
+     */
+    public LazySmpMinimax(int depth, BoardEvaluator eval, int threads, TranspositionTable tt) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one search thread is required.");
+        }
+        if (tt == null) {
+            throw new IllegalArgumentException("Lazy SMP needs a shared transposition table.");
+        }
+        this.depth = depth;
+        this.tt = tt;
+        this.searchers = new AdvancedMinimax[threads];
+        this.searchers[0] = new AdvancedMinimax(depth, eval, tt);
+        for (int i = 1; i < threads; i++) {
+            BoardEvaluator helperEval = eval instanceof IncrementalEvaluator ? ((IncrementalEvaluator) eval).copy() : eval;
+            this.searchers[i] = new AdvancedMinimax(depth, helperEval, tt);
+        }
+        if (threads > 1) {
+            this.helperPool = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "lazy-smp-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.helperPool = null;
+        }
+    }
+
+    /**
+     * Finds the best move at the configured depth, searching with all threads.
+     * @param board : a {@code Board} object; it is not modified
+     * @return the best {@code Move} found by the main searcher.
+     */
+    @Override
+    public Move findBestMove(Board board) {
+        return search(board, this.depth, Long.MAX_VALUE);
+    }
+
+    /**
+     * Finds the best move by iterative deepening within {@code budgetMillis}, searching with all threads.
+     * @param board : a {@code Board} object; it is not modified
+     * @param budgetMillis : wall-clock time allowed for the search, in milliseconds
+     * @return the best {@code Move} found by the main searcher.
+     */
+    @Override
+    public Move findBestMove(Board board, long budgetMillis) {
+        return search(board, AdvancedMinimax.MAX_DEPTH, budgetMillis);
+    }
+
+    /**
+     * Finds the best move by iterative deepening up to {@code maxDepth}, within {@code budgetMillis},
+     * searching with all threads.
+     * @param board : a {@code Board} object; it is not modified
+     * @param maxDepth : deepest iteration of the main searcher, at most {@code AdvancedMinimax.MAX_DEPTH}
+     * @param budgetMillis : wall-clock time allowed for the search, in milliseconds;
+     * {@code Long.MAX_VALUE} for no limit
+     * @return the best {@code Move} found by the main searcher.
+     */
+    public Move iterativeDeepening(Board board, int maxDepth, long budgetMillis) {
+        return search(board, Math.min(maxDepth, AdvancedMinimax.MAX_DEPTH), budgetMillis);
+    }
+
+    /**
+     * Runs the main searcher on the calling thread and the helpers on the pool, and stops the helpers
+     * as soon as the main searcher has finished.
+     */
+    private Move search(Board board, int maxDepth, long budgetMillis) {
+        this.tt.newSearch();
+        long end = AdvancedMinimax.deadlineAfter(budgetMillis);
+        AdvancedMinimax main = this.searchers[0];
+
+        List<Future<Move>> helpers = new ArrayList<>();
+        for (int i = 1; i < this.searchers.length; i++) {
+            AdvancedMinimax helper = this.searchers[i];
+            Board copy = board.clone();
+            int helperDepth = Math.min(maxDepth + (i & 1), AdvancedMinimax.MAX_DEPTH);
+            helper.clearStop();
+            helpers.add(this.helperPool.submit(() -> helper.deepen(copy, helperDepth, end)));
+        }
+
+        main.clearStop();
+        Move bestMove = main.deepen(board.clone(), maxDepth, end);
+
+        for (int i = 1; i < this.searchers.length; i++) {
+            this.searchers[i].stop();
+        }
+        this.stats.reset();
+        this.stats.merge(main.stats);
+        for (int i = 0; i < helpers.size(); i++) {
+            try {
+                helpers.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Helper search failed.", e.getCause());
+            }
+            this.stats.merge(this.searchers[i + 1].stats);
+        }
+        SearchEvent.commit(getClass().getSimpleName(), this.stats);
+        return bestMove;
+    }
+
+    /**
+     * Stops a running search early; the move of the last completed iteration is returned.
+     * May be called from any thread.
+     */
+    public void stop() {
+        for (AdvancedMinimax searcher : this.searchers) {
+            searcher.stop();
+        }
+    }
+
+    /**
+     * Stops the helper threads. The strategy must not be used afterwards.
+     */
+    public void shutdown() {
+        if (this.helperPool != null) {
+            this.helperPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the number of searching threads.
+     * @return the thread count, including the calling thread.
+     */
+    public int getThreadCount() {
+        return this.searchers.length;
+    }
+
+    /**
+     * Returns the number of nodes visited by all threads during the last search.
+     * @return a node count.
+     */
+    public long getNodeCount() {
+        return this.stats.getNodes();
+    }
+
+    /**
+     * Returns the statistics of the last search, summed over all threads.
+     * @return a copy of the merged {@code SearchStats}.
+     */
+    @Override
+    public SearchStats getSearchStats() {
+        return new SearchStats(this.stats);
+    }
+
+    /**
+     * Returns the depth of the last iteration completed by the main searcher.
+     * @return an integer depth.
+     */
+    public int getLastDepth() {
+        return this.searchers[0].getLastDepth();
+    }
+
+    /**
+     * Returns the score of the last iteration completed by the main searcher.
+     * @return the score, from white's point of view.
+     */
+    public double getLastScore() {
+        return this.searchers[0].getLastScore();
+    }
+
+    /**
+     * Returns the principal variation found by the main searcher.
+     * @return a list of {@code Move} objects.
+     */
+    public List<Move> getPrincipalVariation() {
+        return this.searchers[0].getPrincipalVariation();
+    }
+
+    /**
+     * Returns the transposition table shared by all threads.
+     * @return a {@code TranspositionTable}.
+     */
+    public TranspositionTable getTranspositionTable() {
+        return this.tt;
+    }
+}
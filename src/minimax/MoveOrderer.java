@@ -0,0 +1,258 @@
+package minimax;
+
+import bitboard.Moves;
+import bitboard.Position;
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Orders moves so that alpha-beta pruning sees the strongest moves first. Moves are ranked as follows:
+ * <ol>
+ *     <li>the hash move (from the transposition table or the previous principal variation);</li>
+ *     <li>captures and promotions, most valuable victim first, then least valuable attacker (MVV-LVA);</li>
+ *     <li>the two killer moves of the current ply, i.e. quiet moves that recently caused a cutoff there;</li>
+ *     <li>all other quiet moves, by their history score.</li>
+ * </ol>
+ * Ordered moves are kept in a preallocated buffer per ply and sorted in place, so ordering does not allocate.
+ * Moves of the engine's own {@code bitboard.Position}, encoded as {@code int}s, are ordered the same way
+ * directly in the caller's buffer.
+ * An instance holds per-search state and must not be shared between concurrent searches.
+ */
+public class MoveOrderer {
+
+    /** Deepest ply (including quiescence) that moves can be ordered for. */
+    public static final int MAX_PLY = 128;
+
+    // no chess position has more legal moves than this
+    private static final int MAX_MOVES = 256;
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int FIRST_KILLER_SCORE = 1 << 28;
+    private static final int SECOND_KILLER_SCORE = FIRST_KILLER_SCORE - 1;
+    private static final int HISTORY_LIMIT = FIRST_KILLER_SCORE - 2;
+
+    // victim and attacker values for MVV-LVA, indexed by PieceType ordinal (PAWN ... KING, NONE)
+    private static final int[] ORDER_VALUES = {1, 3, 3, 5, 9, 20, 0};
+
+    private final Move[][] moves = new Move[MAX_PLY][MAX_MOVES];
+    private final int[][] scores = new int[MAX_PLY][MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[64][64];
+    private boolean enabled = true;
+
+    /**
+     * Copies {@code legalMoves} into the buffer of {@code ply} and sorts them, best first.
+     * @param board : the {@code Board} the moves were generated for
+     * @param legalMoves : the moves to order
+     * @param ply : distance from the root, in half-moves, below {@code MAX_PLY}
+     * @param hashMove : a move to search first, encoded with {@code TranspositionTable.encodeMove},
+     * or {@code TranspositionTable.NO_MOVE}
+     * @return the number of moves in the buffer; read them with {@code moveAt}.
+     */
+    public int order(Board board, List<Move> legalMoves, int ply, int hashMove) {
+        Move[] buffer = this.moves[ply];
+        int[] bufferScores = this.scores[ply];
+        int count = 0;
+        for (Move move : legalMoves) {
+            buffer[count] = move;
+            bufferScores[count] = this.enabled ? score(board, move, ply, hashMove) : 0;
+            count++;
+        }
+        if (this.enabled) {
+            sort(buffer, bufferScores, count);
+        }
+        return count;
+    }
+
+    /**
+     * Returns a move ordered by the last call to {@code order} for this ply.
+     * @param ply : distance from the root, in half-moves
+     * @param index : position of the move in the ordering
+     * @return the {@code Move}.
+     */
+    public Move moveAt(int ply, int index) {
+        return this.moves[ply][index];
+    }
+
+    /**
+     * Sorts {@code int}-encoded moves of a {@code bitboard.Position} in place, best first, ranking them like
+     * {@code order}. Killer and history scores must then come from {@code recordCutoff(int, int, int)}.
+     * @param moves : the moves to order, encoded as by {@code bitboard.Moves}
+     * @param count : the number of moves, at the start of {@code moves}
+     * @param ply : distance from the root, in half-moves, below {@code MAX_PLY}
+     * @param hashMove : a move to search first, as returned by {@code Moves.hashMove}, or {@code Moves.NONE}
+     */
+    public void order(int[] moves, int count, int ply, int hashMove) {
+        if (!this.enabled) {
+            return;
+        }
+        int[] bufferScores = this.scores[ply];
+        for (int i = 0; i < count; i++) {
+            bufferScores[i] = score(moves[i], ply, hashMove);
+        }
+        sort(moves, bufferScores, count);
+    }
+
+    /**
+     * Records that {@code move} caused a beta cutoff. Quiet moves become killers of this ply and gain
+     * history score; captures are already ordered well and are not recorded.
+     * @param board : the {@code Board} the move was played from, in that position
+     * @param move : the move that caused the cutoff
+     * @param ply : distance from the root, in half-moves
+     * @param depth : remaining depth of the node, deeper cutoffs counting for more
+     */
+    public void recordCutoff(Board board, Move move, int ply, int depth) {
+        if (SimpleMinimax.isCapture(board, move)) {
+            return;
+        }
+        recordQuietCutoff(TranspositionTable.encodeMove(move), move.getFrom().ordinal(), move.getTo().ordinal(),
+                ply, depth);
+    }
+
+    /**
+     * Records that an {@code int}-encoded move of a {@code bitboard.Position} caused a beta cutoff,
+     * like {@code recordCutoff(Board, Move, int, int)}.
+     * @param move : the move that caused the cutoff, encoded as by {@code bitboard.Moves}
+     * @param ply : distance from the root, in half-moves
+     * @param depth : remaining depth of the node, deeper cutoffs counting for more
+     */
+    public void recordCutoff(int move, int ply, int depth) {
+        if (Moves.isTactical(move)) {
+            return;
+        }
+        recordQuietCutoff(Moves.hashMove(move), Moves.from(move), Moves.to(move), ply, depth);
+    }
+
+    private void recordQuietCutoff(int encoded, int from, int to, int ply, int depth) {
+        int[] plyKillers = this.killers[ply];
+        if (plyKillers[0] != encoded) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = encoded;
+        }
+
+        this.history[from][to] += depth * depth;
+        if (this.history[from][to] > HISTORY_LIMIT) {
+            // keep history scores below the killers by halving the whole table
+            for (int[] row : this.history) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] /= 2;
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets all killer moves and history scores, e.g. before a new search.
+     */
+    public void clear() {
+        for (int[] plyKillers : this.killers) {
+            Arrays.fill(plyKillers, TranspositionTable.NO_MOVE);
+        }
+        for (int[] row : this.history) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    /**
+     * Turns ordering on or off. When off, moves keep the order they were generated in,
+     * which is useful for measuring how much ordering helps.
+     * @param enabled : whether to order moves
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return whether moves are being ordered.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    private int score(Board board, Move move, int ply, int hashMove) {
+        int encoded = TranspositionTable.encodeMove(move);
+        if (encoded == hashMove) {
+            return HASH_MOVE_SCORE;
+        }
+        if (SimpleMinimax.isCapture(board, move)) {
+            Piece victim = board.getPiece(move.getTo());
+            // en passant captures a pawn on another square; a promotion wins the promoted piece
+            int victimValue = victim == Piece.NONE ? ORDER_VALUES[PieceType.PAWN.ordinal()]
+                    : ORDER_VALUES[victim.getPieceType().ordinal()];
+            if (move.getPromotion() != Piece.NONE) {
+                victimValue += ORDER_VALUES[move.getPromotion().getPieceType().ordinal()];
+            }
+            int attackerValue = ORDER_VALUES[board.getPiece(move.getFrom()).getPieceType().ordinal()];
+            return CAPTURE_SCORE + victimValue * 64 - attackerValue;
+        }
+        if (encoded == this.killers[ply][0]) {
+            return FIRST_KILLER_SCORE;
+        }
+        if (encoded == this.killers[ply][1]) {
+            return SECOND_KILLER_SCORE;
+        }
+        return this.history[move.getFrom().ordinal()][move.getTo().ordinal()];
+    }
+
+    private int score(int move, int ply, int hashMove) {
+        int encoded = Moves.hashMove(move);
+        if (encoded == hashMove) {
+            return HASH_MOVE_SCORE;
+        }
+        if (Moves.isTactical(move)) {
+            int captured = Moves.captured(move);
+            // a promotion without capture is ranked like capturing a pawn, as above
+            int victimValue = ORDER_VALUES[captured == Position.NO_PIECE ? Position.PAWN : captured % 6];
+            if (Moves.promotion(move) != 0) {
+                victimValue += ORDER_VALUES[Moves.promotion(move)];
+            }
+            return CAPTURE_SCORE + victimValue * 64 - ORDER_VALUES[Moves.piece(move) % 6];
+        }
+        if (encoded == this.killers[ply][0]) {
+            return FIRST_KILLER_SCORE;
+        }
+        if (encoded == this.killers[ply][1]) {
+            return SECOND_KILLER_SCORE;
+        }
+        return this.history[Moves.from(move)][Moves.to(move)];
+    }
+
+    /**
+     * Stable insertion sort, best score first; move lists are short enough for it to beat anything fancier.
+     */
+    private static void sort(Move[] buffer, int[] bufferScores, int count) {
+        for (int i = 1; i < count; i++) {
+            Move move = buffer[i];
+            int score = bufferScores[i];
+            int j = i - 1;
+            while (j >= 0 && bufferScores[j] < score) {
+                buffer[j + 1] = buffer[j];
+                bufferScores[j + 1] = bufferScores[j];
+                j--;
+            }
+            buffer[j + 1] = move;
+            bufferScores[j + 1] = score;
+        }
+    }
+
+    private static void sort(int[] buffer, int[] bufferScores, int count) {
+        for (int i = 1; i < count; i++) {
+            int move = buffer[i];
+            int score = bufferScores[i];
+            int j = i - 1;
+            while (j >= 0 && bufferScores[j] < score) {
+                buffer[j + 1] = buffer[j];
+                bufferScores[j + 1] = bufferScores[j];
+                j--;
+            }
+            buffer[j + 1] = move;
+            bufferScores[j + 1] = score;
+        }
+    }
+}
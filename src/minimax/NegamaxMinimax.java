@@ -0,0 +1,707 @@
+package minimax;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The search shared by {@code AdvancedMinimax} and {@code BitboardMinimax}: negamax alpha-beta with principal
+ * variation search, iterative deepening in aspiration windows, quiescence search, the transposition table,
+ * endgame bitbases and the selective search options. Only the board representation differs between the two,
+ * so the search is written once here against a small set of operations on the position being searched
+ * (generating, ordering and playing moves, evaluating, probing), which the subclasses implement for chesslib's
+ * {@code Board} and for the engine's own {@code bitboard.Position}.
+ * <p>
+ * Moves are referred to by their index in the ordered move list of their ply, and are otherwise handled as
+ * {@code int}s chosen by the subclass (its {@code moveAt}); {@code hashMove} reduces such a move to the form
+ * the transposition table stores, and {@code toMove} converts it to a chesslib {@code Move} for callers.
+ * Nothing here allocates once the searcher is built, so the search allocates only what its subclass does.
+ * <p>
+ * Scores passed in or out of the class (and stored in the transposition table) are from white's point of view;
+ * within the search, every node is scored from the point of view of the side to move.
+ * @see AdvancedMinimax
+ * @see BitboardMinimax
+ */
+public abstract class NegamaxMinimax extends SimpleMinimax {
+
+    /** Deepest iteration attempted by the time-bounded search. */
+    public static final int MAX_DEPTH = 32;
+
+    // the clock is only read once per this many nodes (must be a power of two minus one)
+    private static final int TIME_CHECK_MASK = 2047;
+
+    // quiescence skips captures that cannot raise the score to alpha even with this much positional gain (in pawns)
+    private static final double DELTA_MARGIN = 2.0;
+
+    // half-width of the first aspiration window (in pawns), doubled after every failed attempt,
+    // and the width beyond which the window is opened completely
+    private static final double ASPIRATION_WINDOW = 0.5;
+    private static final double ASPIRATION_LIMIT = 8.0;
+    private static final int ASPIRATION_MIN_DEPTH = 3;
+
+    private long deadline = Long.MAX_VALUE;
+    private boolean aborted;
+    private boolean interruptible;
+    private volatile boolean stopRequested;
+
+    // triangular principal variation table, indexed by ply
+    private final int[][] pvTable = new int[MAX_DEPTH + 1][MAX_DEPTH + 1];
+    private final int[] pvLength = new int[MAX_DEPTH + 1];
+    private final int[] previousPv = new int[MAX_DEPTH + 1];
+    private int previousPvLength;
+    private boolean followPv;
+    // best move of every iteration, converted to chesslib moves only when the statistics are handed out
+    private final int[] iterationMoves = new int[SearchStats.MAX_ITERATIONS + 1];
+    private double lastScore;
+    // score of the last root search, which is only a bound when it failed outside its aspiration window
+    private double rootScore;
+    private int lastDepth;
+    private final SearchOptions options;
+    // when the root itself is a bitbase win, won nodes are searched on so that the win is actually played out
+    private boolean rootInBitbase;
+    private long nullMovePrunes;
+    private long lateMoveReductions;
+    private long searchStart;
+
+    /**
+     * Constructs a search with the specified depth, BoardEvaluator object, transposition table and selective
+     * search options.
+     * @param depth : An integer representing the maximum depth to search through
+     * @param eval : A {@code BoardEvaluator} object.
+     * @param tt : A {@code TranspositionTable}, or null to search without one.
+     * @param options : the {@code SearchOptions} turning on null-move pruning and late move reductions
+     */
+    NegamaxMinimax(int depth, BoardEvaluator eval, TranspositionTable tt, SearchOptions options) {
+        super(depth, eval, tt);
+        if (options == null) {
+            throw new IllegalArgumentException("Search options must not be null.");
+        }
+        this.options = options;
+    }
+
+    // ----- operations on the position being searched, implemented for each board representation -----
+
+    /** @return 1 if white is to move, -1 otherwise. */
+    abstract int sideToMove();
+
+    /** @return the Zobrist key of the position, as the transposition table is indexed by. */
+    abstract long positionKey();
+
+    /** @return true if the side to move is in check. */
+    abstract boolean inCheck();
+
+    /** @return true if the position occurred before since the last capture or pawn move. */
+    abstract boolean isRepetition();
+
+    /**
+     * @return true if the side to move has a knight, bishop, rook or queen, for the null-move zugzwang guard
+     * and to know when stalemate is possible at the horizon.
+     */
+    abstract boolean hasPieces();
+
+    /** @return the static evaluation of the position, from white's point of view. */
+    abstract double evaluate();
+
+    /** @return the bitbase score of the position for the side to move, or NaN if the bitbases do not cover it. */
+    abstract double probeBitbases();
+
+    /**
+     * Generates the legal moves of the position into the move list of {@code ply}.
+     * @return the number of moves.
+     */
+    abstract int generateMoves(int ply);
+
+    /**
+     * Generates the captures and promotions of the position into the move list of {@code ply}; they may be
+     * pseudo-legal, in which case {@code isBadCapture} rejects the illegal ones.
+     * @return the number of moves.
+     */
+    abstract int generateTacticalMoves(int ply);
+
+    /**
+     * Sorts the move list of {@code ply} best first.
+     * @param hashMove : a move to search first, as returned by {@code hashMove}, or {@code NO_MOVE}
+     */
+    abstract void orderMoves(int ply, int count, int hashMove);
+
+    /** @return the move at {@code index} in the ordered move list of {@code ply}. */
+    abstract int moveAt(int ply, int index);
+
+    /** @return the part of {@code move} the transposition table stores, which identifies it within its position. */
+    abstract int hashMove(int move);
+
+    /** @return a chesslib {@code Move} for {@code move}, or null for {@code NO_MOVE}. */
+    abstract Move toMove(int move);
+
+    /** @return true if the move at {@code index} of {@code ply} captures or promotes. */
+    abstract boolean isTactical(int ply, int index);
+
+    /** @return the value of what the move at {@code index} of {@code ply} captures or promotes to, in centipawns. */
+    abstract int captureValue(int ply, int index);
+
+    /** @return true if the capture at {@code index} of {@code ply} loses material by static exchange, or is illegal. */
+    abstract boolean isBadCapture(int ply, int index);
+
+    /** Plays the move at {@code index} in the move list of {@code ply}. */
+    abstract void makeMove(int ply, int index);
+
+    /** Passes the turn without moving, for null-move pruning. */
+    abstract void makeNullMove();
+
+    /** Takes back the last move played with {@code makeMove}. */
+    abstract void unmakeMove();
+
+    /** Takes back the null move played with {@code makeNullMove}. */
+    abstract void unmakeNullMove();
+
+    /** Lets the move orderer learn from a beta cutoff by the move at {@code index} of {@code ply}. */
+    abstract void recordCutoff(int ply, int index, int depth);
+
+    // ----- the search -----
+
+    /**
+     * Asks a running search to stop as soon as possible. A time-bounded search then returns the
+     * move of its last completed iteration; a fixed-depth search returns null.
+     * May be called from any thread.
+     */
+    public void stop() {
+        this.stopRequested = true;
+    }
+
+    /**
+     * Withdraws a pending {@code stop} request before a new search starts.
+     */
+    void clearStop() {
+        this.stopRequested = false;
+    }
+
+    /**
+     * Converts a time budget into a {@code System.nanoTime()} deadline, saturating instead of overflowing.
+     * @param budgetMillis : wall-clock time allowed, in milliseconds
+     * @return the deadline in nanoseconds.
+     */
+    static long deadlineAfter(long budgetMillis) {
+        long now = System.nanoTime();
+        if (budgetMillis >= (Long.MAX_VALUE - now) / 1_000_000L) {
+            return Long.MAX_VALUE;
+        }
+        return now + budgetMillis * 1_000_000L;
+    }
+
+    /**
+     * Resets the per-search state before a new search of the position the subclass has set up.
+     */
+    void prepareSearch() {
+        this.stats.reset();
+        this.searchStart = System.nanoTime();
+        this.nullMovePrunes = 0;
+        this.lateMoveReductions = 0;
+        this.previousPvLength = 0;
+        this.orderer.clear();
+        this.rootInBitbase = !Double.isNaN(probeBitbases());
+    }
+
+    /**
+     * Searches the prepared position to the configured depth with a full window.
+     * @return the best move, or {@code NO_MOVE} if the search was stopped or there are no legal moves.
+     */
+    int searchFixedDepth() {
+        this.deadline = Long.MAX_VALUE;
+        this.interruptible = true;
+        int bestMove = searchRoot(this.depth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        if (!this.aborted) {
+            completeIteration(this.depth, bestMove);
+        }
+        finishSearch();
+        return bestMove;
+    }
+
+    /**
+     * Runs the iterative deepening loop on the prepared position.
+     * @param maxDepth : deepest iteration to search
+     * @param end : {@code System.nanoTime()} value after which the search stops
+     * @return the move of the last completed iteration, or {@code NO_MOVE} if there are no legal moves.
+     */
+    int searchIteratively(int maxDepth, long end) {
+        long start = this.searchStart;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (int iterationDepth = 1; iterationDepth <= Math.min(maxDepth, MAX_DEPTH); iterationDepth++) {
+            this.deadline = end;
+            this.interruptible = iterationDepth > 1;
+            int move = aspirationSearch(iterationDepth);
+            if (this.aborted || move == TranspositionTable.NO_MOVE) {
+                break;
+            }
+            bestMove = move;
+            completeIteration(iterationDepth, move);
+
+            // stop early once a forced mate has been found, or if the next iteration can't finish in time
+            long now = System.nanoTime();
+            if (Math.abs(this.lastScore) >= MATE_BOUND || now - start > (end - start) / 2) {
+                break;
+            }
+        }
+        this.deadline = Long.MAX_VALUE;
+        finishSearch();
+        return bestMove;
+    }
+
+    /**
+     * Searches the move the subclass has just played at the root, with the window {@code (alpha, beta)} from
+     * white's point of view, without the clock and without following a principal variation.
+     * @param depth : the depth of the root, including the move played
+     * @return the score of the move, from white's point of view.
+     */
+    double searchPlayedRootMove(int depth, double alpha, double beta) {
+        this.deadline = Long.MAX_VALUE;
+        this.interruptible = false;
+        this.aborted = false;
+        this.followPv = false;
+        return sideToMove() > 0 ? negamax(depth - 1, 1, alpha, beta, true)
+                : -negamax(depth - 1, 1, -beta, -alpha, true);
+    }
+
+    /**
+     * Runs only the quiescence search from the prepared position, without the clock.
+     * @return the quiescence score, from white's point of view.
+     */
+    double searchQuiescence() {
+        this.deadline = Long.MAX_VALUE;
+        this.interruptible = false;
+        this.aborted = false;
+        double score = sideToMove() * quiescenceSearch(0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        finishSearch();
+        return score;
+    }
+
+    /**
+     * Records the result of a completed iteration, so it can be reported and its principal variation reused.
+     */
+    private void completeIteration(int depth, int bestMove) {
+        // only now is the root score exact: an aborted iteration leaves the previous one's score
+        this.lastScore = this.rootScore;
+        this.lastDepth = depth;
+        this.previousPvLength = this.pvLength[0];
+        System.arraycopy(this.pvTable[0], 0, this.previousPv, 0, this.previousPvLength);
+        long elapsed = System.nanoTime() - this.searchStart;
+        this.stats.completeIteration(depth, elapsed, null);
+        if (depth <= SearchStats.MAX_ITERATIONS) {
+            this.iterationMoves[depth] = bestMove;
+        }
+        SearchIterationEvent.commit(depth, this.stats.nodes, elapsed);
+    }
+
+    /**
+     * Records the duration of the search that just ended.
+     */
+    void finishSearch() {
+        this.stats.elapsedNanos = System.nanoTime() - this.searchStart;
+    }
+
+    /**
+     * Returns the statistics of the last search, with the best move of every completed iteration.
+     * @return a copy of the {@code SearchStats}, unaffected by later searches.
+     */
+    @Override
+    public SearchStats getSearchStats() {
+        SearchStats stats = super.getSearchStats();
+        for (int depth = 1; depth <= Math.min(stats.getCompletedDepth(), SearchStats.MAX_ITERATIONS); depth++) {
+            if (stats.getIterationNanos(depth) != 0) {
+                stats.setIterationMove(depth, toMove(this.iterationMoves[depth]));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the principal variation found by the last completed search, starting with the best move.
+     * @return a list of {@code Move} objects, empty if no search has completed yet.
+     */
+    public List<Move> getPrincipalVariation() {
+        List<Move> pv = new ArrayList<>();
+        for (int i = 0; i < this.previousPvLength; i++) {
+            pv.add(toMove(this.previousPv[i]));
+        }
+        return pv;
+    }
+
+    /**
+     * Returns the score of the best move found by the last completed search iteration.
+     * @return the score, from white's point of view.
+     */
+    public double getLastScore() {
+        return this.lastScore;
+    }
+
+    /**
+     * Returns the depth of the last completed search iteration.
+     * @return an integer depth.
+     */
+    public int getLastDepth() {
+        return this.lastDepth;
+    }
+
+    /**
+     * Returns the search options this object was constructed with.
+     * @return the {@code SearchOptions}.
+     */
+    public SearchOptions getSearchOptions() {
+        return this.options;
+    }
+
+    /**
+     * Returns how many nodes the last search pruned because a null move still failed high.
+     * @return a count of nodes, zero unless null-move pruning is on.
+     */
+    public long getNullMovePrunes() {
+        return this.nullMovePrunes;
+    }
+
+    /**
+     * Returns how many moves the last search only searched to a reduced depth, i.e. late move reductions
+     * that did not have to be searched again at full depth.
+     * @return a count of moves, zero unless late move reductions are on.
+     */
+    public long getLateMoveReductions() {
+        return this.lateMoveReductions;
+    }
+
+    /**
+     * Searches the root to {@code depth} in a narrow window around the score of the previous iteration,
+     * widening the window on the failing side and searching again until the score falls inside it.
+     * Shallow iterations and mate scores are searched with a full window.
+     * @param depth : the depth to search to
+     * @return the best move, or {@code NO_MOVE} if the search was aborted or there are no legal moves.
+     */
+    private int aspirationSearch(int depth) {
+        int sign = sideToMove();
+        double previous = sign * this.lastScore;
+        if (depth < ASPIRATION_MIN_DEPTH || Math.abs(previous) >= MATE_BOUND) {
+            return searchRoot(depth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        }
+
+        double window = ASPIRATION_WINDOW;
+        double alpha = previous - window;
+        double beta = previous + window;
+        while (true) {
+            int move = searchRoot(depth, alpha, beta);
+            if (move == TranspositionTable.NO_MOVE) {
+                return TranspositionTable.NO_MOVE;
+            }
+            double score = sign * this.rootScore;
+            window *= 2;
+            if (score <= alpha) {
+                alpha = window > ASPIRATION_LIMIT ? Double.NEGATIVE_INFINITY : score - window;
+            } else if (score >= beta) {
+                beta = window > ASPIRATION_LIMIT ? Double.POSITIVE_INFINITY : score + window;
+            } else {
+                return move;
+            }
+        }
+    }
+
+    /**
+     * Searches every root move to {@code depth} within the window {@code (alpha, beta)} and returns the best one.
+     * The first move is searched with the whole window; every other move is first searched with a null window
+     * at the best score so far, which only prunes moves that cannot be strictly better, and searched again
+     * if it is better.
+     * @param depth : the depth to search to
+     * @param alpha : lower edge of the window, from the point of view of the side to move
+     * @param beta : upper edge of the window, from the point of view of the side to move
+     * @return the best move, or {@code NO_MOVE} if the search was aborted or there are no legal moves.
+     */
+    private int searchRoot(int depth, double alpha, double beta) {
+        int optimalMove = TranspositionTable.NO_MOVE;
+        double optimalScore = Double.NEGATIVE_INFINITY;
+        int sign = sideToMove();
+        this.aborted = false;
+        this.pvLength[0] = 0;
+
+        int count = generateMoves(0);
+        orderMoves(0, count, this.previousPvLength > 0 ? hashMove(this.previousPv[0]) : TranspositionTable.NO_MOVE);
+
+        for (int i = 0; i < count; i++) {
+            int move = moveAt(0, i);
+            this.followPv = optimalMove == TranspositionTable.NO_MOVE && this.previousPvLength > 1;
+            makeMove(0, i);
+            double moveEval;
+            if (optimalMove == TranspositionTable.NO_MOVE) {
+                moveEval = -negamax(depth - 1, 1, -beta, -alpha, true);
+            } else {
+                moveEval = -negamax(depth - 1, 1, -Math.nextUp(alpha), -alpha, true);
+                if (moveEval > alpha && moveEval < beta && !this.aborted) {
+                    moveEval = -negamax(depth - 1, 1, -beta, -alpha, true);
+                }
+            }
+            unmakeMove();
+            if (this.aborted) {
+                return TranspositionTable.NO_MOVE;
+            }
+
+            if (moveEval > optimalScore || optimalMove == TranspositionTable.NO_MOVE) {
+                optimalScore = moveEval;
+                optimalMove = move;
+                updatePv(0, move);
+            }
+            alpha = Math.max(alpha, moveEval);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        this.rootScore = sign * optimalScore;
+        return optimalMove;
+    }
+
+    /**
+     * Records {@code move} as the best move at {@code ply}, followed by the best line found below it.
+     */
+    private void updatePv(int ply, int move) {
+        int[] line = this.pvTable[ply];
+        line[0] = move;
+        int childLength = this.pvLength[ply + 1];
+        System.arraycopy(this.pvTable[ply + 1], 0, line, 1, childLength);
+        this.pvLength[ply] = childLength + 1;
+    }
+
+    /**
+     * Counts a node and, once every {@code TIME_CHECK_MASK + 1} nodes, checks the deadline and stop requests.
+     * @return true if the search has run out of time or was stopped and should unwind.
+     */
+    private boolean outOfTime() {
+        if ((++this.stats.nodes & TIME_CHECK_MASK) == 0 && this.interruptible
+                && (this.stopRequested || System.nanoTime() > this.deadline)) {
+            this.aborted = true;
+        }
+        return this.aborted;
+    }
+
+    /**
+     * Recursively calculates the score of the position to the specified depth
+     * using the negamax form of alpha-beta with principal variation search.
+     * @param depth : remaining depth
+     * @param ply : distance from the root, in half-moves
+     * @param alpha : score the side to move is already guaranteed
+     * @param beta : score the opponent is already guaranteed, negated
+     * @param allowNullMove : false right after a null move, so that two are never played in a row
+     * @return the score of the position, from the point of view of the side to move.
+     */
+    private double negamax(int depth, int ply, double alpha, double beta, boolean allowNullMove) {
+        this.pvLength[ply] = 0;
+        if (depth == 0) {
+            this.followPv = false;
+            return quiescenceSearch(ply, alpha, beta);
+        }
+        if (outOfTime()) {
+            return 0;
+        }
+        // while playing out a bitbase win, a repeated position counts as a draw so the search cannot go round in circles
+        if (this.rootInBitbase && isRepetition()) {
+            return 0;
+        }
+
+        double alphaOrig = alpha;
+        int sign = sideToMove();
+        long key = positionKey();
+        int ttMove = TranspositionTable.NO_MOVE;
+        if (this.tt != null) {
+            long entry = this.tt.probe(key);
+            if (entry != TranspositionTable.MISS) {
+                ttMove = TranspositionTable.moveOf(entry);
+                if (TranspositionTable.depthOf(entry) >= depth) {
+                    double score = sign * scoreFromTable(TranspositionTable.scoreOf(entry), ply);
+                    int bound = relativeBound(TranspositionTable.boundOf(entry), sign);
+                    if (bound == TranspositionTable.BOUND_EXACT
+                            || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                            || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                        this.tt.recordCutoff();
+                        return score;
+                    }
+                }
+            }
+        }
+
+        int count = generateMoves(ply);
+        boolean inCheck = inCheck();
+        if (count == 0) {
+            // checkmate, or stalemate
+            return inCheck ? -(MATE_SCORE - ply) : 0;
+        }
+        // a bitbase knows the result of the endgame, so there is nothing left to search, unless the game is
+        // already in it: then wins are searched on, scored by the bitbase at the leaves, until mate comes in sight
+        double known = probeBitbases();
+        if (known == 0 || (!Double.isNaN(known) && !this.rootInBitbase)) {
+            this.stats.bitbaseHits++;
+            return known;
+        }
+
+        // null-move pruning: if passing still fails high, a real move almost certainly would too
+        int nullReduction = this.options.getNullMoveReduction();
+        if (this.options.isNullMovePruning() && allowNullMove && !inCheck && !this.followPv
+                && depth > nullReduction && Math.abs(beta) < MATE_BOUND && hasPieces()) {
+            makeNullMove();
+            double score = -negamax(depth - 1 - nullReduction, ply + 1, -beta, -Math.nextDown(beta), false);
+            unmakeNullMove();
+            if (this.aborted) {
+                return 0;
+            }
+            if (score >= beta) {
+                this.nullMovePrunes++;
+                return beta;
+            }
+        }
+
+        int hashMove = ttMove;
+        if (this.followPv) {
+            if (ply < this.previousPvLength) {
+                hashMove = hashMove(this.previousPv[ply]);
+            } else {
+                this.followPv = false;
+            }
+        }
+        orderMoves(ply, count, hashMove);
+        int bestMove = TranspositionTable.NO_MOVE;
+        double bestScore = Double.NEGATIVE_INFINITY;
+
+        boolean reduce = this.options.isLateMoveReductions() && !inCheck
+                && depth >= this.options.getLateMoveMinDepth();
+        for (int i = 0; i < count; i++) {
+            int move = moveAt(ply, i);
+            boolean quiet = reduce && i >= this.options.getLateMoveThreshold() && !isTactical(ply, i);
+            makeMove(ply, i);
+            double score;
+            if (i == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha, true);
+            } else {
+                score = Double.POSITIVE_INFINITY;
+                // late move reduction: a quiet, non-checking move ordered late is first searched shallower
+                if (quiet && !inCheck()) {
+                    int reducedDepth = Math.max(depth - 1 - this.options.getLateMoveReduction(), 0);
+                    score = -negamax(reducedDepth, ply + 1, -Math.nextUp(alpha), -alpha, true);
+                    if (score <= alpha) {
+                        this.lateMoveReductions++;
+                    }
+                }
+                // null window: only prove that the move is no better than alpha
+                if (score > alpha && !this.aborted) {
+                    score = -negamax(depth - 1, ply + 1, -Math.nextUp(alpha), -alpha, true);
+                }
+                if (score > alpha && score < beta && !this.aborted) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha, true);
+                }
+            }
+            unmakeMove();
+            this.followPv = false;
+            if (this.aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                updatePv(ply, move);
+            }
+            alpha = Math.max(alpha, bestScore);
+            if (alpha >= beta) {
+                this.stats.betaCutoffs++;
+                if (i == 0) {
+                    this.stats.firstMoveCutoffs++;
+                }
+                recordCutoff(ply, i, depth);
+                break;
+            }
+        }
+
+        if (this.tt != null) {
+            // the table holds scores from white's point of view
+            double low = sign > 0 ? alphaOrig : -beta;
+            double high = sign > 0 ? beta : -alphaOrig;
+            this.tt.store(key, depth, boundType(sign * bestScore, low, high), scoreToTable(sign * bestScore, ply),
+                    hashMove(bestMove));
+        }
+        return bestScore;
+    }
+
+    /**
+     * Converts a bound type stored from white's point of view into one from the point of view of the side
+     * to move: negating a score turns a lower bound into an upper bound and vice versa.
+     * @param bound : a {@code TranspositionTable} bound type
+     * @param sign : 1 if white is to move, -1 otherwise
+     * @return the bound type for the side to move.
+     */
+    private static int relativeBound(int bound, int sign) {
+        if (sign > 0 || bound == TranspositionTable.BOUND_EXACT) {
+            return bound;
+        }
+        return bound == TranspositionTable.BOUND_LOWER ? TranspositionTable.BOUND_UPPER : TranspositionTable.BOUND_LOWER;
+    }
+
+    /**
+     * Quiescence search, which extends the search past its depth while the position is volatile.
+     * Only captures and promotions are searched, and of those, captures that lose material by static
+     * exchange evaluation or that cannot bring the score back to the window (delta pruning) are skipped.
+     * A side in check searches all of its evasions instead, so mates are still recognized.
+     * @param ply : distance from the root, in half-moves
+     * @param alpha : from the point of view of the side to move
+     * @param beta : from the point of view of the side to move
+     * @return the score of the position, from the point of view of the side to move.
+     */
+    private double quiescenceSearch(int ply, double alpha, double beta) {
+        if (outOfTime()) {
+            return 0;
+        }
+        this.stats.quiescenceNodes++;
+        int sign = sideToMove();
+        boolean inCheck = inCheck();
+        if (ply >= MoveOrderer.MAX_PLY) {
+            this.stats.evaluations++;
+            return sign * evaluate();
+        }
+
+        int count;
+        double standPat = 0;
+        if (inCheck) {
+            count = generateMoves(ply);
+            if (count == 0) {
+                return -(MATE_SCORE - ply);
+            }
+        } else {
+            // a side left with only its king and pawns may be stalemated, which no static evaluation sees
+            if (!hasPieces() && generateMoves(ply) == 0) {
+                return 0;
+            }
+            standPat = probeBitbases();
+            if (Double.isNaN(standPat)) {
+                this.stats.evaluations++;
+                standPat = sign * evaluate();
+            }
+            if (standPat >= beta) return beta;
+            if (standPat > alpha) alpha = standPat;
+            count = generateTacticalMoves(ply);
+        }
+
+        orderMoves(ply, count, TranspositionTable.NO_MOVE);
+        for (int i = 0; i < count; i++) {
+            if (!inCheck) {
+                // delta pruning: even winning the piece outright would leave the score below alpha
+                if (this.options.isDeltaPruning()
+                        && standPat + captureValue(ply, i) / 100.0 + DELTA_MARGIN <= alpha) {
+                    continue;
+                }
+                if (isBadCapture(ply, i)) {
+                    continue;
+                }
+            }
+
+            makeMove(ply, i);
+            double score = -quiescenceSearch(ply + 1, -beta, -alpha);
+            unmakeMove();
+            if (this.aborted) {
+                return 0;
+            }
+
+            if (score >= beta) return beta;
+            if (score > alpha) alpha = score;
+        }
+        return alpha;
+    }
+}
@@ -0,0 +1,176 @@
+package minimax;
+
+/**
+ * Fixed-size cache of pawn-structure evaluations, keyed on the pawn-only Zobrist key of a position
+ * (see {@code bitboard.Position.getPawnKey}). Pawns move rarely compared to the other pieces, so most
+ * positions reached by a search share their pawn structure with thousands of others, and the structure
+ * only needs to be evaluated once for all of them.
+ * <p>
+ * Each entry packs a midgame and an endgame score, in centipawns from white's point of view, into a
+ * single {@code long}. As in {@code TranspositionTable}, every slot also holds the key XOR-ed with the
+ * entry, so the table may be shared by several threads without locking: an entry torn by concurrent
+ * writers is treated as a miss. The statistics counters are approximate when the table is shared.
+ */
+public class PawnHashTable {
+
+    /** Value returned by {@code probe} when a pawn structure is not in the table. */
+    public static final long MISS = 0L;
+
+    /** Default table size, in megabytes. */
+    public static final int DEFAULT_SIZE_MB = 1;
+
+    // 8 bytes each for the key and entry arrays
+    private static final int BYTES_PER_ENTRY = 16;
+
+    /*
+     * Layout of a packed entry:
+     * bits  0-23 : midgame score, signed
+     * bits 24-47 : endgame score, signed
+     * bit  63    : occupied flag, so that an entry is never MISS
+     */
+    private static final int ENDGAME_SHIFT = 24;
+    private static final long SCORE_MASK = 0xFFFFFFL;
+    private static final long OCCUPIED = 1L << 63;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask;
+
+    private long probes;
+    private long hits;
+
+    /**
+     * Makes a new table of {@code DEFAULT_SIZE_MB} megabytes.
+     */
+    public PawnHashTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * Makes a new table of roughly {@code sizeMb} megabytes, rounded down to a power of two entries.
+     * @param sizeMb : integer, the memory budget of the table in megabytes
+     */
+    public PawnHashTable(int sizeMb) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Pawn hash table size must be at least 1 MB.");
+        }
+        long capacity = Long.highestOneBit(((long) sizeMb << 20) / BYTES_PER_ENTRY);
+        capacity = Math.min(capacity, 1 << 30);
+        this.keys = new long[(int) capacity];
+        this.entries = new long[(int) capacity];
+        this.mask = (int) capacity - 1;
+    }
+
+    /**
+     * Looks up a pawn structure in the table.
+     * @param pawnKey : the pawn-only Zobrist key of the position
+     * @return the packed entry, or {@code MISS} if the structure is not stored.
+     * Use {@code middlegameOf} and {@code endgameOf} to unpack it.
+     */
+    public long probe(long pawnKey) {
+        probes++;
+        int slot = (int) pawnKey & mask;
+        long entry = entries[slot];
+        if (entry != MISS && (keys[slot] ^ entry) == pawnKey) {
+            hits++;
+            return entry;
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores the evaluation of a pawn structure, replacing whatever occupied its slot.
+     * @param pawnKey : the pawn-only Zobrist key of the position
+     * @param middlegame : midgame score in centipawns, from white's point of view
+     * @param endgame : endgame score in centipawns, from white's point of view
+     * @return the packed entry that was stored.
+     */
+    public long store(long pawnKey, int middlegame, int endgame) {
+        long entry = pack(middlegame, endgame);
+        int slot = (int) pawnKey & mask;
+        entries[slot] = entry;
+        keys[slot] = pawnKey ^ entry;
+        return entry;
+    }
+
+    /**
+     * Packs a midgame and an endgame score into an entry, without storing it.
+     * @param middlegame : midgame score in centipawns
+     * @param endgame : endgame score in centipawns
+     * @return the packed entry.
+     */
+    static long pack(int middlegame, int endgame) {
+        return OCCUPIED | (middlegame & SCORE_MASK) | ((endgame & SCORE_MASK) << ENDGAME_SHIFT);
+    }
+
+    /**
+     * @param entry : a packed entry returned by {@code probe} or {@code store}
+     * @return the midgame score of the entry, in centipawns.
+     */
+    public static int middlegameOf(long entry) {
+        return (int) (entry << 40 >> 40);
+    }
+
+    /**
+     * @param entry : a packed entry returned by {@code probe} or {@code store}
+     * @return the endgame score of the entry, in centipawns.
+     */
+    public static int endgameOf(long entry) {
+        return (int) (entry << 16 >> 40);
+    }
+
+    /**
+     * Empties the table and resets its statistics.
+     */
+    public void clear() {
+        java.util.Arrays.fill(keys, 0L);
+        java.util.Arrays.fill(entries, 0L);
+        resetStatistics();
+    }
+
+    /**
+     * Resets the probe and hit counters.
+     */
+    public void resetStatistics() {
+        probes = 0;
+        hits = 0;
+    }
+
+    /**
+     * @return the number of slots in the table.
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * @return the number of lookups performed since the last reset.
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return the number of lookups that found their pawn structure since the last reset.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the fraction of lookups that found their pawn structure since the last reset, from 0 to 1.
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * Summarizes the table statistics, e.g. for printing after a search.
+     * @return a human-readable string with the probe and hit counts.
+     */
+    @Override
+    public String toString() {
+        return String.format("PawnHash[%d entries] probes=%d hits=%d (%.1f%%)",
+                keys.length, probes, hits, 100 * getHitRate());
+    }
+}
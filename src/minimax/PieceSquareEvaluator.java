@@ -0,0 +1,211 @@
+package minimax;
+
+import java.util.Arrays;
+
+import bitboard.Position;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+/**
+ * Incremental evaluator combining material with piece-square tables, which reward pieces for
+ * standing on good squares (central knights, advanced pawns, a castled king, ...).
+ * The sum is updated by a small delta on every move, so scoring a leaf is a single field read.
+ * Material weights are those of {@code MaterialEvaluator}; the piece-square values are those of
+ * Tomasz Michniewski's "Simplified Evaluation Function", converted to pawn units.
+ */
+public class PieceSquareEvaluator implements IncrementalEvaluator {
+
+    /*
+     * Tables in centipawns, from white's point of view, written as seen from white's side of the board
+     * (first row is rank 8), indexed by PieceType ordinal.
+     */
+    static final int[][] PIECE_SQUARE_TABLES = {
+        { // pawn
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0
+        },
+        { // knight
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+        },
+        { // bishop
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+        },
+        { // rook
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0
+        },
+        { // queen
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20
+        },
+        { // king
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20
+        }
+    };
+
+    private static final Piece[] PIECES = Piece.values();
+
+    // value of each piece (by Piece ordinal) on each square (by Square ordinal), from white's point of view
+    private static final double[][] VALUES = new double[12][64];
+
+    static {
+        for (int p = 0; p < 12; p++) {
+            Piece piece = PIECES[p];
+            PieceType type = piece.getPieceType();
+            boolean white = piece.getPieceSide() == Side.WHITE;
+            // kings are not given material weight, since both sides always have one
+            double material = type == PieceType.KING ? 0 : BitboardEvaluator.pieceValue(type);
+            for (int sq = 0; sq < 64; sq++) {
+                // white's table is mirrored vertically, since it is written with rank 8 first
+                int index = white ? sq ^ 56 : sq;
+                double value = material + PIECE_SQUARE_TABLES[type.ordinal()][index] / 100d;
+                VALUES[p][sq] = white ? value : -value;
+            }
+        }
+    }
+
+    private Board board;
+    private double score;
+    private double[] history = new double[256];
+    private int historySize;
+
+    /**
+     * Evaluates the board. If {@code board} is the board this evaluator is bound to, the incrementally
+     * maintained score is returned; any other board is scored from scratch.
+     * @param board : A {@code Board} object from the {@code chesslib} library
+     * @return material plus piece-square score, positive if white is better.
+     */
+    @Override
+    public double evaluationScheme(Board board) {
+        if (board == this.board) {
+            return this.score;
+        }
+        return fullEvaluation(board);
+    }
+
+    @Override
+    public void reset(Board board) {
+        this.board = board;
+        this.score = fullEvaluation(board);
+        this.historySize = 0;
+    }
+
+    @Override
+    public void onMove(Move move) {
+        if (this.historySize == this.history.length) {
+            this.history = Arrays.copyOf(this.history, this.history.length * 2);
+        }
+        this.history[this.historySize++] = this.score;
+
+        int from = move.getFrom().ordinal();
+        int to = move.getTo().ordinal();
+        Piece moving = this.board.getPiece(move.getFrom());
+        Piece captured = this.board.getPiece(move.getTo());
+        Piece placed = move.getPromotion() == Piece.NONE ? moving : move.getPromotion();
+
+        double delta = VALUES[placed.ordinal()][to] - VALUES[moving.ordinal()][from];
+        if (captured != Piece.NONE) {
+            delta -= VALUES[captured.ordinal()][to];
+        } else if (moving.getPieceType() == PieceType.PAWN && (from & 7) != (to & 7)) {
+            // a pawn moving diagonally onto an empty square is capturing en passant
+            int capturedSquare = moving == Piece.WHITE_PAWN ? to - 8 : to + 8;
+            Piece capturedPawn = moving == Piece.WHITE_PAWN ? Piece.BLACK_PAWN : Piece.WHITE_PAWN;
+            delta -= VALUES[capturedPawn.ordinal()][capturedSquare];
+        } else if (moving.getPieceType() == PieceType.KING && Math.abs(from - to) == 2) {
+            // castling also moves the rook
+            int rook = moving == Piece.WHITE_KING ? Piece.WHITE_ROOK.ordinal() : Piece.BLACK_ROOK.ordinal();
+            int rookFrom = to > from ? to + 1 : to - 2;
+            int rookTo = to > from ? to - 1 : to + 1;
+            delta += VALUES[rook][rookTo] - VALUES[rook][rookFrom];
+        }
+        this.score += delta;
+    }
+
+    @Override
+    public void onUndo() {
+        this.score = this.history[--this.historySize];
+    }
+
+    @Override
+    public IncrementalEvaluator copy() {
+        return new PieceSquareEvaluator();
+    }
+
+    /**
+     * Scores a {@code Position} from scratch; its piece numbers are chesslib's {@code Piece} ordinals,
+     * so the same tables apply.
+     * @param position : A {@code Position} from the {@code bitboard} package
+     * @return material plus piece-square score, positive if white is better.
+     */
+    @Override
+    public double evaluationScheme(Position position) {
+        double sum = 0;
+        for (int p = 0; p < 12; p++) {
+            long pieces = position.getBitboard(p);
+            while (pieces != 0L) {
+                sum += VALUES[p][Long.numberOfTrailingZeros(pieces)];
+                pieces &= pieces - 1;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Scores a board from scratch by summing the value of every piece on its square.
+     * @param board : A {@code Board} object from the {@code chesslib} library
+     * @return material plus piece-square score, positive if white is better.
+     */
+    public double fullEvaluation(Board board) {
+        double sum = 0;
+        for (int p = 0; p < 12; p++) {
+            long pieces = board.getBitboard(PIECES[p]);
+            while (pieces != 0L) {
+                sum += VALUES[p][Long.numberOfTrailingZeros(pieces)];
+                pieces &= pieces - 1;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,145 @@
+package minimax;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Thinks on the opponent's time: after the engine has moved, it searches in the background the position
+ * reached by the reply it expects, the second move of its principal variation. If the opponent plays that
+ * move (a ponder hit) the answer is already found, or being found, with a warm transposition table; any
+ * other move (a miss) stops the background search at once and the engine searches the actual position.
+ * <p>
+ * The background search uses the wrapped {@code AdvancedMinimax} itself, which must therefore not be used
+ * by anyone else while pondering, i.e. between {@code start} and {@code finish}.
+ */
+public class Ponderer {
+
+    private final AdvancedMinimax search;
+    private final ExecutorService thread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread ponder = new Thread(runnable, "ponder");
+        ponder.setDaemon(true);
+        return ponder;
+    });
+    private Future<Move> pondering;
+    private Move predicted;
+    private long hits;
+    private long misses;
+
+    /**
+     * Makes a ponderer for the given search, which should have a transposition table for hits and misses
+     * alike to profit from the background search.
+     * @param search : the {@code AdvancedMinimax} that plays the engine's moves
+     */
+    public Ponderer(AdvancedMinimax search) {
+        if (search == null) {
+            throw new IllegalArgumentException("The search must not be null.");
+        }
+        this.search = search;
+    }
+
+    /**
+     * Starts pondering after the engine has played {@code engineMove}, if its last search predicted a reply.
+     * @param board : the position after {@code engineMove}, with the opponent to move; it is not modified
+     * @param engineMove : the move the engine has just played, which must be the one its last search found
+     * @return true if a background search was started, false if there was no prediction to ponder on.
+     */
+    public boolean start(Board board, Move engineMove) {
+        if (this.pondering != null) {
+            finish(null);
+        }
+        List<Move> pv = this.search.getPrincipalVariation();
+        // a move that did not come from the last search (e.g. a book move) leaves nothing to predict from
+        if (pv.size() < 2 || !pv.get(0).equals(engineMove) || !board.legalMoves().contains(pv.get(1))) {
+            return false;
+        }
+        this.predicted = pv.get(1);
+        Board position = board.clone();
+        position.doMove(this.predicted);
+        this.pondering = this.thread.submit(() -> this.search.findBestMove(position));
+        return true;
+    }
+
+    /**
+     * Ends pondering once the opponent has moved. On a hit, waits for the background search to complete
+     * and returns its move; on a miss, stops it, which takes a few milliseconds.
+     * @param played : the move the opponent played, or null to just cancel pondering
+     * @return the engine's answer to {@code played} on a ponder hit, or null on a miss or if not pondering.
+     */
+    public Move finish(Move played) {
+        if (this.pondering == null) {
+            return null;
+        }
+        Future<Move> background = this.pondering;
+        this.pondering = null;
+        boolean hit = played != null && played.equals(this.predicted);
+        if (hit) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+        try {
+            if (!hit) {
+                // repeated until the search ends, in case it had not yet started (and cleared the request)
+                while (!background.isDone()) {
+                    this.search.stop();
+                    try {
+                        background.get(1, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        // still searching; stop again
+                    }
+                }
+            }
+            Move move = background.get();
+            return hit ? move : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Pondering failed.", e.getCause());
+        }
+    }
+
+    /**
+     * @return whether pondering was started and {@code finish} has not been called since.
+     */
+    public boolean isPondering() {
+        return this.pondering != null;
+    }
+
+    /**
+     * @return the reply being pondered on, or that was last pondered on.
+     */
+    public Move getPredictedMove() {
+        return this.predicted;
+    }
+
+    /**
+     * @return the number of times the opponent played the predicted move.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return the number of times the opponent played another move, or pondering was cancelled.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Cancels pondering and stops the background thread. The ponderer must not be used afterwards.
+     */
+    public void shutdown() {
+        finish(null);
+        this.thread.shutdownNow();
+    }
+}
@@ -0,0 +1,172 @@
+package minimax;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Side;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Deterministic parallel search that splits the work at the root ("Young Brothers Wait").
+ * The first root move is searched on its own to establish a bound; the remaining root moves are then
+ * searched in parallel against that bound, each as a {@code RecursiveTask} on its own copy of the board.
+ * <p>
+ * A root move only beats the first one if its score is strictly higher, and every such score is exact,
+ * so the result does not depend on how the tasks are scheduled. The quiescence search runs without delta
+ * pruning, which would make a score depend on the window it was searched with, so the best move and its score
+ * are exactly those of the serial {@code AdvancedMinimax} search at the same depth, without a transposition
+ * table and with delta pruning turned off in its {@code SearchOptions}.
+ */
+public class RootSplitMinimax implements Strategy {
+    private final int depth;
+    private final BoardEvaluator eval;
+    private final ForkJoinPool pool;
+    private final SearchOptions options = new SearchOptions();
+    private final SearchStats stats = new SearchStats();
+    private double lastScore;
+
+    /**
+     * Makes a new root-splitting search with a depth of {@code depth}, using the common fork/join pool.
+     * @param depth : integer, representing the number of moves into the future to look into
+     * @param eval : an object of class {@code BoardEvaluator}
+     */
+    public RootSplitMinimax(int depth, BoardEvaluator eval) {
+        this(depth, eval, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Makes a new root-splitting search with a depth of {@code depth}, running on {@code pool}.
+     * An {@code IncrementalEvaluator} is copied for every root move, since it holds per-search state;
+     * any other evaluator is shared and must therefore be thread-safe.
+     * @param depth : integer, representing the number of moves into the future to look into
+     * @param eval : an object of class {@code BoardEvaluator}
+     * @param pool : the {@code ForkJoinPool} that root moves are searched on
+     */
+    public RootSplitMinimax(int depth, BoardEvaluator eval, ForkJoinPool pool) {
+        if (depth < 1) {
+            System.out.println("Invalid depth given. Setting default depth (4).");
+            depth = 4;
+        }
+        this.depth = depth;
+        this.eval = eval;
+        this.pool = pool;
+        this.options.setDeltaPruning(false);
+    }
+
+    /**
+     * Finds the best move at the configured depth, searching the root moves in parallel.
+     * @param board : a {@code Board} object; it is restored before returning
+     * @return the best {@code Move}, or null if there are no legal moves.
+     */
+    @Override
+    public Move findBestMove(Board board) {
+        // the root moves are tried in the same order as the serial search, so ties are broken the same way
+        long start = System.nanoTime();
+        this.stats.reset();
+        AdvancedMinimax first = newSearcher();
+        List<Move> moves = first.orderedRootMoves(board);
+        if (moves.isEmpty()) {
+            return null;
+        }
+        boolean white = board.getSideToMove() == Side.WHITE;
+
+        // the eldest brother is searched alone, with a full window
+        double bound = first.searchRootMove(board, moves.get(0), this.depth,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        this.stats.merge(first.stats);
+
+        // the younger brothers only need to show whether they beat it
+        List<RootMoveTask> tasks = new ArrayList<>();
+        for (int i = 1; i < moves.size(); i++) {
+            double alpha = white ? bound : Double.NEGATIVE_INFINITY;
+            double beta = white ? Double.POSITIVE_INFINITY : bound;
+            tasks.add(new RootMoveTask(newSearcher(), board.clone(), moves.get(i), this.depth, alpha, beta));
+        }
+        this.pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+
+        Move bestMove = moves.get(0);
+        double bestScore = bound;
+        for (int i = 0; i < tasks.size(); i++) {
+            RootMoveTask task = tasks.get(i);
+            double score = task.join();
+            this.stats.merge(task.searcher.stats);
+            if ((white && score > bestScore) || (!white && score < bestScore)) {
+                bestScore = score;
+                bestMove = moves.get(i + 1);
+            }
+        }
+        // the searches overlap, so the duration is the wall time rather than the longest of them
+        this.lastScore = bestScore;
+        this.stats.elapsedNanos = System.nanoTime() - start;
+        this.stats.completeIteration(this.depth, this.stats.elapsedNanos, bestMove);
+        SearchEvent.commit(getClass().getSimpleName(), this.stats);
+        return bestMove;
+    }
+
+    /**
+     * Returns the score of the move chosen by the last search.
+     * @return the score, from white's point of view.
+     */
+    public double getLastScore() {
+        return this.lastScore;
+    }
+
+    /**
+     * Returns the number of nodes visited by all root move searches during the last search.
+     * @return a node count.
+     */
+    public long getNodeCount() {
+        return this.stats.getNodes();
+    }
+
+    /**
+     * Returns the statistics of the last search, summed over all root move searches.
+     * @return a copy of the merged {@code SearchStats}.
+     */
+    @Override
+    public SearchStats getSearchStats() {
+        return new SearchStats(this.stats);
+    }
+
+    private AdvancedMinimax newSearcher() {
+        BoardEvaluator searcherEval = this.eval instanceof IncrementalEvaluator
+                ? ((IncrementalEvaluator) this.eval).copy() : this.eval;
+        return new AdvancedMinimax(this.depth, searcherEval, this.options);
+    }
+
+    /**
+     * Searches one root move on a private copy of the board.
+     */
+    @SuppressWarnings("serial") // never serialized, like any task submitted to a pool
+    private static class RootMoveTask extends RecursiveTask<Double> {
+        private final AdvancedMinimax searcher;
+        private final Board board;
+        private final Move move;
+        private final int depth;
+        private final double alpha;
+        private final double beta;
+
+        RootMoveTask(AdvancedMinimax searcher, Board board, Move move, int depth, double alpha, double beta) {
+            this.searcher = searcher;
+            this.board = board;
+            this.move = move;
+            this.depth = depth;
+            this.alpha = alpha;
+            this.beta = beta;
+        }
+
+        @Override
+        protected Double compute() {
+            return this.searcher.searchRootMove(this.board, this.move, this.depth, this.alpha, this.beta);
+        }
+    }
+}
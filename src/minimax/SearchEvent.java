@@ -0,0 +1,78 @@
+package minimax;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event committed at the end of every search, carrying its {@code SearchStats}.
+ * Like any JFR event it is only recorded while a recording that enables it is running,
+ * e.g. {@code java -XX:StartFlightRecording:filename=search.jfr ...}; otherwise committing it does nothing.
+ */
+@Name("minimax.Search")
+@Label("Search")
+@Category({"Chess AI", "Search"})
+@Description("A completed search for the best move")
+@StackTrace(false)
+class SearchEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(SearchEvent.class);
+
+    @Label("Strategy")
+    String strategy;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Quiescence Nodes")
+    long quiescenceNodes;
+
+    @Label("Evaluations")
+    long evaluations;
+
+    @Label("Beta Cutoffs")
+    long betaCutoffs;
+
+    @Label("First Move Cutoff Rate")
+    @Percentage
+    double firstMoveCutoffRate;
+
+    @Label("Search Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    @Label("Nodes Per Second")
+    double nodesPerSecond;
+
+    /**
+     * Records a finished search, if a running recording enables this event.
+     * @param strategy : the class of the searcher, e.g. {@code "AdvancedMinimax"}
+     * @param stats : the statistics of the search
+     */
+    static void commit(String strategy, SearchStats stats) {
+        // checked before constructing the event, so a search allocates nothing while recording is off
+        if (!TYPE.isEnabled()) {
+            return;
+        }
+        SearchEvent event = new SearchEvent();
+        event.strategy = strategy;
+        event.depth = stats.getCompletedDepth();
+        event.nodes = stats.getNodes();
+        event.quiescenceNodes = stats.getQuiescenceNodes();
+        event.evaluations = stats.getEvaluations();
+        event.betaCutoffs = stats.getBetaCutoffs();
+        event.firstMoveCutoffRate = stats.getFirstMoveCutoffRate();
+        event.elapsed = stats.getElapsedNanos();
+        event.nodesPerSecond = stats.getNodesPerSecond();
+        event.commit();
+    }
+}
@@ -0,0 +1,53 @@
+package minimax;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event committed by {@code AdvancedMinimax} whenever an iteration of iterative
+ * deepening completes, so the cost of every depth can be followed over time. Parallel searches commit
+ * one per searching thread.
+ */
+@Name("minimax.SearchIteration")
+@Label("Search Iteration")
+@Category({"Chess AI", "Search"})
+@Description("A completed iteration of iterative deepening")
+@StackTrace(false)
+class SearchIterationEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(SearchIterationEvent.class);
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Nodes So Far")
+    long nodes;
+
+    @Label("Time So Far")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    /**
+     * Records a completed iteration, if a running recording enables this event.
+     * @param depth : the depth of the iteration
+     * @param nodes : nodes visited by the search so far
+     * @param elapsed : nanoseconds since the search started
+     */
+    static void commit(int depth, long nodes, long elapsed) {
+        // checked before constructing the event, so a search allocates nothing while recording is off
+        if (!TYPE.isEnabled()) {
+            return;
+        }
+        SearchIterationEvent event = new SearchIterationEvent();
+        event.depth = depth;
+        event.nodes = nodes;
+        event.elapsed = elapsed;
+        event.commit();
+    }
+}
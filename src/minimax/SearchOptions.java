@@ -0,0 +1,173 @@
+package minimax;
+
+/**
+ * Switches and parameters for the selective search features of {@code AdvancedMinimax}.
+ * A new object has null-move pruning and late move reductions turned off, so the search is a full-width
+ * alpha-beta search whose result only depends on the depth and the evaluator, apart from the delta pruning of
+ * the quiescence search; selective features trade some of that exactness for depth.
+ * <ul>
+ *     <li><b>Null-move pruning</b>: the side to move passes, and if a reduced-depth search still fails high,
+ *     the node is pruned. Skipped when in check, and when the side to move only has pawns left, since
+ *     passing is then often better than any real move (zugzwang).</li>
+ *     <li><b>Late move reductions</b>: quiet moves ordered late are searched to a reduced depth first, and only
+ *     searched again at full depth if they turn out better than alpha.</li>
+ *     <li><b>Delta pruning</b> (on by default): the quiescence search skips captures that cannot bring the
+ *     score back up to alpha even with a margin. The score of a move then depends on the window it is searched
+ *     with, so searches that must agree move for move whatever their windows turn it off.</li>
+ * </ul>
+ * The options are read during every search, so an object should not be changed while a search runs.
+ */
+public class SearchOptions {
+    private boolean nullMovePruning;
+    private int nullMoveReduction = 2;
+    private boolean lateMoveReductions;
+    private int lateMoveThreshold = 3;
+    private int lateMoveMinDepth = 3;
+    private int lateMoveReduction = 1;
+    private boolean deltaPruning = true;
+
+    /**
+     * Makes a new set of options with null-move pruning and late move reductions turned off,
+     * and delta pruning on.
+     */
+    public SearchOptions() {
+    }
+
+    /**
+     * Makes a new set of options with null-move pruning and late move reductions turned on or off,
+     * using their default parameters.
+     * @param nullMovePruning : whether to use null-move pruning
+     * @param lateMoveReductions : whether to use late move reductions
+     */
+    public SearchOptions(boolean nullMovePruning, boolean lateMoveReductions) {
+        this.nullMovePruning = nullMovePruning;
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /**
+     * @return whether null-move pruning is used.
+     */
+    public boolean isNullMovePruning() {
+        return this.nullMovePruning;
+    }
+
+    /**
+     * Turns null-move pruning on or off.
+     * @param nullMovePruning : whether to use null-move pruning
+     */
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    /**
+     * @return how much shallower than the node the null move is searched (R), 2 by default.
+     */
+    public int getNullMoveReduction() {
+        return this.nullMoveReduction;
+    }
+
+    /**
+     * Sets the depth reduction of the null-move search. The null move is only tried at nodes with more
+     * remaining depth than this.
+     * @param nullMoveReduction : the reduction R, at least 1
+     */
+    public void setNullMoveReduction(int nullMoveReduction) {
+        if (nullMoveReduction < 1) {
+            throw new IllegalArgumentException("The null-move reduction must be at least 1.");
+        }
+        this.nullMoveReduction = nullMoveReduction;
+    }
+
+    /**
+     * @return whether late move reductions are used.
+     */
+    public boolean isLateMoveReductions() {
+        return this.lateMoveReductions;
+    }
+
+    /**
+     * Turns late move reductions on or off.
+     * @param lateMoveReductions : whether to use late move reductions
+     */
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /**
+     * @return how many moves of a node are always searched to full depth, 3 by default.
+     */
+    public int getLateMoveThreshold() {
+        return this.lateMoveThreshold;
+    }
+
+    /**
+     * Sets how many moves of a node are searched to full depth before later moves are reduced.
+     * @param lateMoveThreshold : a number of moves, at least 1
+     */
+    public void setLateMoveThreshold(int lateMoveThreshold) {
+        if (lateMoveThreshold < 1) {
+            throw new IllegalArgumentException("At least the first move must be searched to full depth.");
+        }
+        this.lateMoveThreshold = lateMoveThreshold;
+    }
+
+    /**
+     * @return the least remaining depth at which moves are reduced, 3 by default.
+     */
+    public int getLateMoveMinDepth() {
+        return this.lateMoveMinDepth;
+    }
+
+    /**
+     * Sets the least remaining depth at which late moves are reduced.
+     * @param lateMoveMinDepth : a depth, at least 2
+     */
+    public void setLateMoveMinDepth(int lateMoveMinDepth) {
+        if (lateMoveMinDepth < 2) {
+            throw new IllegalArgumentException("Moves can only be reduced at depth 2 or more.");
+        }
+        this.lateMoveMinDepth = lateMoveMinDepth;
+    }
+
+    /**
+     * @return how many plies late moves are reduced by, 1 by default.
+     */
+    public int getLateMoveReduction() {
+        return this.lateMoveReduction;
+    }
+
+    /**
+     * Sets how many plies late moves are reduced by.
+     * @param lateMoveReduction : a number of plies, at least 1
+     */
+    public void setLateMoveReduction(int lateMoveReduction) {
+        if (lateMoveReduction < 1) {
+            throw new IllegalArgumentException("The late move reduction must be at least 1 ply.");
+        }
+        this.lateMoveReduction = lateMoveReduction;
+    }
+
+    /**
+     * @return whether the quiescence search uses delta pruning, true by default.
+     */
+    public boolean isDeltaPruning() {
+        return this.deltaPruning;
+    }
+
+    /**
+     * Turns delta pruning in the quiescence search on or off. Without it, a position scores the same whatever
+     * the search window, at the cost of a larger quiescence search.
+     * @param deltaPruning : whether to use delta pruning
+     */
+    public void setDeltaPruning(boolean deltaPruning) {
+        this.deltaPruning = deltaPruning;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchOptions[nullMove=" + (this.nullMovePruning ? "R" + this.nullMoveReduction : "off")
+                + ", lmr=" + (this.lateMoveReductions ? "after " + this.lateMoveThreshold + " moves, depth >= "
+                + this.lateMoveMinDepth + ", by " + this.lateMoveReduction : "off")
+                + (this.deltaPruning ? "" : ", delta pruning off") + "]";
+    }
+}
@@ -0,0 +1,239 @@
+package minimax;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.Arrays;
+
+/**
+ * Counters describing one search: how many nodes it visited (and how many of them in the quiescence search),
+ * how often it called the evaluator, how often a move caused a beta cutoff and how often that move was the
+ * first one tried, plus the time, nodes and best move of every completed iteration.
+ * <p>
+ * The counters are plain fields incremented by the search that owns the object, so keeping them costs no
+ * more than a field increment; each searching thread has its own object, and parallel strategies
+ * {@code merge} them once the search is over. Strategies hand out copies, which are not changed by later
+ * searches.
+ */
+public class SearchStats {
+
+    /** Deepest iteration whose timing is recorded. */
+    public static final int MAX_ITERATIONS = 64;
+
+    long nodes;
+    long quiescenceNodes;
+    long evaluations;
+    long betaCutoffs;
+    long firstMoveCutoffs;
+    long bitbaseHits;
+    long elapsedNanos;
+    int completedDepth;
+    private final long[] iterationNanos = new long[MAX_ITERATIONS + 1];
+    private final long[] iterationNodes = new long[MAX_ITERATIONS + 1];
+    private final Move[] iterationMoves = new Move[MAX_ITERATIONS + 1];
+
+    /**
+     * Makes a new, zeroed set of counters.
+     */
+    public SearchStats() {
+    }
+
+    /**
+     * Makes a copy of {@code other}.
+     * @param other : the {@code SearchStats} to copy
+     */
+    public SearchStats(SearchStats other) {
+        this.nodes = other.nodes;
+        this.quiescenceNodes = other.quiescenceNodes;
+        this.evaluations = other.evaluations;
+        this.betaCutoffs = other.betaCutoffs;
+        this.firstMoveCutoffs = other.firstMoveCutoffs;
+        this.bitbaseHits = other.bitbaseHits;
+        this.elapsedNanos = other.elapsedNanos;
+        this.completedDepth = other.completedDepth;
+        System.arraycopy(other.iterationNanos, 0, this.iterationNanos, 0, this.iterationNanos.length);
+        System.arraycopy(other.iterationNodes, 0, this.iterationNodes, 0, this.iterationNodes.length);
+        System.arraycopy(other.iterationMoves, 0, this.iterationMoves, 0, this.iterationMoves.length);
+    }
+
+    /**
+     * Zeroes every counter, before a new search.
+     */
+    public void reset() {
+        this.nodes = 0;
+        this.quiescenceNodes = 0;
+        this.evaluations = 0;
+        this.betaCutoffs = 0;
+        this.firstMoveCutoffs = 0;
+        this.bitbaseHits = 0;
+        this.elapsedNanos = 0;
+        this.completedDepth = 0;
+        Arrays.fill(this.iterationNanos, 0);
+        Arrays.fill(this.iterationNodes, 0);
+        Arrays.fill(this.iterationMoves, null);
+    }
+
+    /**
+     * Records that the iteration to {@code depth} completed, with the time and node count of the whole
+     * search so far and the best move it found.
+     * @param depth : the depth of the iteration
+     * @param nanosSoFar : nanoseconds since the search started
+     * @param bestMove : the best move of the iteration
+     */
+    void completeIteration(int depth, long nanosSoFar, Move bestMove) {
+        this.completedDepth = depth;
+        if (depth <= MAX_ITERATIONS) {
+            this.iterationNanos[depth] = nanosSoFar;
+            this.iterationNodes[depth] = this.nodes;
+            this.iterationMoves[depth] = bestMove;
+        }
+    }
+
+    /**
+     * Sets the best move of the iteration to {@code depth}, for searches that record it in another form and
+     * convert it only when handing out their statistics.
+     * @param depth : an iteration depth, from 1 to {@code MAX_ITERATIONS}
+     * @param bestMove : the best move of the iteration
+     */
+    void setIterationMove(int depth, Move bestMove) {
+        this.iterationMoves[depth] = bestMove;
+    }
+
+    /**
+     * Adds the counters of another search of the same position, e.g. from another thread. Counts and
+     * iteration node counts are summed; times and the completed depth are the maximum of the two. The best
+     * moves of the iterations are this search's own.
+     * @param other : the {@code SearchStats} to add
+     */
+    public void merge(SearchStats other) {
+        this.nodes += other.nodes;
+        this.quiescenceNodes += other.quiescenceNodes;
+        this.evaluations += other.evaluations;
+        this.betaCutoffs += other.betaCutoffs;
+        this.firstMoveCutoffs += other.firstMoveCutoffs;
+        this.bitbaseHits += other.bitbaseHits;
+        this.elapsedNanos = Math.max(this.elapsedNanos, other.elapsedNanos);
+        this.completedDepth = Math.max(this.completedDepth, other.completedDepth);
+        for (int depth = 0; depth <= MAX_ITERATIONS; depth++) {
+            this.iterationNanos[depth] = Math.max(this.iterationNanos[depth], other.iterationNanos[depth]);
+            this.iterationNodes[depth] += other.iterationNodes[depth];
+        }
+    }
+
+    /**
+     * @return the number of nodes visited, including quiescence nodes.
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * @return the number of nodes visited by the quiescence search.
+     */
+    public long getQuiescenceNodes() {
+        return this.quiescenceNodes;
+    }
+
+    /**
+     * @return the number of calls to the evaluator.
+     */
+    public long getEvaluations() {
+        return this.evaluations;
+    }
+
+    /**
+     * @return the number of nodes at which a move caused a beta cutoff.
+     */
+    public long getBetaCutoffs() {
+        return this.betaCutoffs;
+    }
+
+    /**
+     * @return the number of beta cutoffs caused by the first move tried.
+     */
+    public long getFirstMoveCutoffs() {
+        return this.firstMoveCutoffs;
+    }
+
+    /**
+     * @return the number of nodes scored by an endgame bitbase instead of being searched.
+     */
+    public long getBitbaseHits() {
+        return this.bitbaseHits;
+    }
+
+    /**
+     * Returns the share of beta cutoffs caused by the first move tried, a measure of move ordering quality.
+     * @return a fraction between 0 and 1, or 0 if there were no cutoffs.
+     */
+    public double getFirstMoveCutoffRate() {
+        return this.betaCutoffs == 0 ? 0 : (double) this.firstMoveCutoffs / this.betaCutoffs;
+    }
+
+    /**
+     * @return the wall-clock duration of the search, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * @return the number of nodes visited per second of the search.
+     */
+    public double getNodesPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.nodes * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * @return the depth of the last completed iteration.
+     */
+    public int getCompletedDepth() {
+        return this.completedDepth;
+    }
+
+    /**
+     * Returns how long the search took until the iteration to {@code depth} completed.
+     * @param depth : an iteration depth, from 1 to {@code getCompletedDepth()}
+     * @return nanoseconds from the start of the search, or 0 if the iteration was not recorded.
+     */
+    public long getIterationNanos(int depth) {
+        return depth >= 0 && depth <= MAX_ITERATIONS ? this.iterationNanos[depth] : 0;
+    }
+
+    /**
+     * Returns how many nodes the search had visited when the iteration to {@code depth} completed.
+     * @param depth : an iteration depth, from 1 to {@code getCompletedDepth()}
+     * @return a node count, or 0 if the iteration was not recorded.
+     */
+    public long getIterationNodes(int depth) {
+        return depth >= 0 && depth <= MAX_ITERATIONS ? this.iterationNodes[depth] : 0;
+    }
+
+    /**
+     * Returns the best move found by the iteration to {@code depth}, e.g. to see at which depth the search
+     * settled on its final move.
+     * @param depth : an iteration depth, from 1 to {@code getCompletedDepth()}
+     * @return a move, or null if the iteration was not recorded.
+     */
+    public Move getIterationMove(int depth) {
+        return depth >= 0 && depth <= MAX_ITERATIONS ? this.iterationMoves[depth] : null;
+    }
+
+    /**
+     * Summarizes the statistics, one line for the search and one per completed iteration.
+     * @return a human-readable string.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format(
+                "depth=%d nodes=%d qnodes=%d evals=%d cutoffs=%d first-move=%.1f%% bitbase=%d time=%.1fms nps=%.0f",
+                this.completedDepth, this.nodes, this.quiescenceNodes, this.evaluations, this.betaCutoffs,
+                100 * getFirstMoveCutoffRate(), this.bitbaseHits, this.elapsedNanos / 1e6, getNodesPerSecond()));
+        for (int depth = 1; depth <= Math.min(this.completedDepth, MAX_ITERATIONS); depth++) {
+            if (this.iterationNanos[depth] != 0) {
+                builder.append(String.format("%n  depth %d: %.1fms, %d nodes",
+                        depth, this.iterationNanos[depth] / 1e6, this.iterationNodes[depth]));
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -1,10 +1,14 @@
 package minimax;
 
+import endgame.Bitbases;
 import com.github.bhlangonijr.chesslib.move.Move;
 import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
 import com.github.bhlangonijr.chesslib.Side;
 
 import java.lang.Math;
+import java.util.List;
 
 /**
  * Class for creating Minimax objects to predict the best move for an AI playing chess.
@@ -12,24 +16,39 @@ import java.lang.Math;
  * @since May 04 2023
  */
 public class SimpleMinimax implements Strategy {
+
+    /** Score of a checkmate delivered by white at the root; mates further away score slightly less. */
+    public static final double MATE_SCORE = 1e6;
+
+    /** Any score at least this large in absolute value is a forced mate. */
+    public static final double MATE_BOUND = MATE_SCORE - 1000;
+
     protected int depth;
     protected BoardEvaluator eval;
+    protected TranspositionTable tt;
+    protected IncrementalEvaluator incremental;
+    protected final MoveOrderer orderer = new MoveOrderer();
+    protected final SearchStats stats = new SearchStats();
+    protected Bitbases bitbases;
+
+    // best move found at the root by the last search; scores are returned as primitives so nodes allocate nothing
+    private Move rootMove;
 
     /**
-     * Makes a new default Minimax instance with a depth of 10 and
-     * the basic {@code MaterialEvaluator}
+     * Makes a new default Minimax instance with a depth of 4 and
+     * the basic {@code BitboardEvaluator}
      */
     public SimpleMinimax() {
-        this(4, new MaterialEvaluator());
+        this(4, new BitboardEvaluator());
     }
 
     /**
      * Makes a new Minimax instance with a depth of {@code depth} and
-     * the basic {@code MaterialEvaluator}
+     * the basic {@code BitboardEvaluator}
      * @param depth : integer, representing the number of moves into the future to look into
      */
     public SimpleMinimax(int depth) {
-        this(depth, new MaterialEvaluator());
+        this(depth, new BitboardEvaluator());
     }
 
     /**
@@ -38,6 +57,17 @@ public class SimpleMinimax implements Strategy {
      * @param eval : an object of class {@code BoardEvaluator}
      */
     public SimpleMinimax(int depth, BoardEvaluator eval) {
+        this(depth, eval, null);
+    }
+
+    /**
+     * Makes a new Minimax instance with a depth of {@code depth}, some BoardEvaluator {@code eval}
+     * and a transposition table used to avoid re-searching transposed positions.
+     * @param depth : integer, representing number of moves into the future to look into
+     * @param eval : an object of class {@code BoardEvaluator}
+     * @param tt : a {@code TranspositionTable}, or null to search without one
+     */
+    public SimpleMinimax(int depth, BoardEvaluator eval, TranspositionTable tt) {
         if (depth < 1) {
             System.out.println("Invalid depth given. Setting default depth (4).");
             this.depth = 4;
@@ -45,91 +75,64 @@ public class SimpleMinimax implements Strategy {
             this.depth = depth;
         }
         this.eval = eval;
+        this.tt = tt;
+        if (eval instanceof IncrementalEvaluator) {
+            this.incremental = (IncrementalEvaluator) eval;
+        }
     }
-    
+
     /**
-     * Inner class that stores both a move and its score as calculated by the Minimax
-     * algorithm. Implements the {@code Comparable} interface by comparing move scores.
-     */
-    private class PositionEval implements Comparable<PositionEval> {
-        private double moveScore;
-        private Move move;
-
-        /**
-         * Constructs a {@code PositionEval} object based on a {@code Move} object
-         * and its Minimax score.
-         * @param moveScore : Numerical score computed by, e.g., minimax
-         * @param move : A {@code move} object from the chesslib library.
-         */
-        public PositionEval(double moveScore, Move move) {
-            this.moveScore = moveScore;
-            this.move = move;
-        }
-        
-        /**
-         * Returns the move score for the current {@code PositionEval} object.
-         * @return : A double, representing the move score.
-         */
-        public double getMoveScore() {
-            return this.moveScore;
-        }
-
-        /**
-         * Returns the {@code Move} object associated with this {@code PositionEval} object.
-         * @return : A {@code Move} object.
-         */
-        public Move getMove() {
-            return this.move;
-        }
-
-        /**
-         * Compares two {@code PositionEval} objects based on their move score.
-         * @return : Returns 1 if the current object has a higher score than {@code e2},
-         * -1 if the current object has a lower score than {@code e2},
-         * or 0 if they have an equivalent score.
-         */
-        @Override
-        public int compareTo(PositionEval o2) {
-            if (this.moveScore < o2.moveScore) {
-                return -1;
-            } else if (this.moveScore > o2.moveScore) {
-                return 1;
-            } else {
-                return 0;
-            }
-        }
+     * Returns the transposition table used by this instance.
+     * @return a {@code TranspositionTable}, or null if searching without one.
+     */
+    public TranspositionTable getTranspositionTable() {
+        return this.tt;
+    }
 
-        /**
-         * Using the implemented {@code compareTo} method from the {@code Comparable} interface,
-         * finds the {@code PositionEval} object which has the minimum score.
-         * @param e1 : A {@code PositionEval} object to compare to {@code e2}.
-         * @param e2 : A {@code PositionEval} object
-         * @return : Will return {@code e1} if the score for {@code e1} is strictly less than {@code e2},
-         * otherwise, simply returns {@code e2}.
-         */
-        public static PositionEval min(PositionEval e1, PositionEval e2) {
-            if (e1.compareTo(e2) < 0) {
-                return e1;
-            }
-            return e2;
-        }
-
-        /**
-         * Using the implemented {@code compareTo} method from the {@code Comparable} interface,
-         * finds the {@code PositionEval} object which has the maximum score.
-         * @param e1 : A {@code PositionEval} object to compare to {@code e2}
-         * @param e2 : A {@code PositionEval} object.
-         * @return : Returns {@code e1} if the score associated with {@code e1} is strictly greater
-         * than the score for {@code e2}, otherwise returns {@code e2}.
-         */
-        public static PositionEval max(PositionEval e1, PositionEval e2) {
-            if (e1.compareTo(e2) > 0) {
-                return e1;
-            }
-            return e2;
-        }
+    /**
+     * Turns move ordering on or off. Without ordering, moves are searched in the order chesslib
+     * generates them, which makes alpha-beta pruning much less effective; this is mostly useful
+     * for measuring the benefit of ordering.
+     * @param enabled : whether to order moves
+     */
+    public void setMoveOrdering(boolean enabled) {
+        this.orderer.setEnabled(enabled);
+    }
+
+    /**
+     * Sets the endgame bitbases that {@code AdvancedMinimax} and {@code BitboardMinimax} probe, scoring the
+     * positions they cover without searching them further; the basic search here does not use them.
+     * @param bitbases : the {@code Bitbases} to probe, or null to search without them
+     */
+    public void setBitbases(Bitbases bitbases) {
+        this.bitbases = bitbases;
     }
 
+    /**
+     * Returns the endgame bitbases probed by the search.
+     * @return the {@code Bitbases}, or null if searching without them.
+     */
+    public Bitbases getBitbases() {
+        return this.bitbases;
+    }
+
+    /**
+     * Returns the number of nodes visited by the last search.
+     * @return a node count.
+     */
+    public long getNodeCount() {
+        return this.stats.nodes;
+    }
+
+    /**
+     * Returns the statistics of the last search: nodes, evaluations, cutoffs and timings.
+     * @return a copy of the {@code SearchStats}, unaffected by later searches.
+     */
+    @Override
+    public SearchStats getSearchStats() {
+        return new SearchStats(this.stats);
+    }
+    
     /**
      * Finds the best move based on the minimax algorithm at the {@code depth} specified in this
      * {@code Minimax} object.
@@ -138,7 +141,22 @@ public class SimpleMinimax implements Strategy {
 
     @Override
     public Move findBestMove(Board board) {
-        return numericalMoveCalculator(board, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, this.depth).getMove();
+        if (this.tt != null) {
+            this.tt.newSearch();
+        }
+        if (this.incremental != null) {
+            this.incremental.reset(board);
+        }
+        this.stats.reset();
+        this.orderer.clear();
+        long start = System.nanoTime();
+        this.rootMove = null;
+        numericalMoveCalculator(board, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, this.depth);
+        Move bestMove = this.rootMove;
+        this.stats.elapsedNanos = System.nanoTime() - start;
+        this.stats.completeIteration(this.depth, this.stats.elapsedNanos, bestMove);
+        SearchEvent.commit(getClass().getSimpleName(), this.stats);
+        return bestMove;
     }
 
     /**
@@ -147,40 +165,210 @@ public class SimpleMinimax implements Strategy {
      * @param alpha : maximum score for maximizing player
      * @param beta : minimum score for minimizing player
      * @param depth : number of moves at which to look into the future.
-     * @return : an object of {@code PositionEval} which stores move and eval.
+     * @return : the score of the position from white's point of view. At the root, the move achieving it
+     * is left in {@code rootMove}.
      */
-    private PositionEval numericalMoveCalculator(Board board, double alpha, double beta, int depth) {
+    private double numericalMoveCalculator(Board board, double alpha, double beta, int depth) {
+        int ply = this.depth - depth;
+        this.stats.nodes++;
         if (depth == 0) {
-            return new PositionEval(this.eval.evaluationScheme(board), null);
+            // only a side in check can be mated, and a side with pieces besides its king and pawns practically
+            // always has a move, so moves are generated only when the side could be mated or stalemated
+            if ((board.isKingAttacked() || !hasPieces(board)) && board.legalMoves().isEmpty()) {
+                return terminalScore(board, ply);
+            }
+            this.stats.evaluations++;
+            return this.eval.evaluationScheme(board);
         }
 
-        if (board.getSideToMove() == Side.WHITE) {
-            PositionEval maxMove = new PositionEval(Double.NEGATIVE_INFINITY, null);
-            for (Move move: board.legalMoves()) {
-                board.doMove(move);
-                double eval = numericalMoveCalculator(board, alpha, beta, depth - 1).getMoveScore();
-                board.undoMove();
-                maxMove = PositionEval.max(new PositionEval(eval, move), maxMove);
-                alpha = Math.max(alpha, eval);
-                if (beta <= alpha) {
-                    break;
+        double alphaOrig = alpha;
+        double betaOrig = beta;
+        long key = board.getIncrementalHashKey();
+        int ttMove = TranspositionTable.NO_MOVE;
+        if (this.tt != null) {
+            long entry = this.tt.probe(key);
+            if (entry != TranspositionTable.MISS) {
+                ttMove = TranspositionTable.moveOf(entry);
+
+                // never cut off at the root, since a move has to be returned from there
+                if (depth < this.depth && TranspositionTable.depthOf(entry) >= depth) {
+                    double score = scoreFromTable(TranspositionTable.scoreOf(entry), ply);
+                    int bound = TranspositionTable.boundOf(entry);
+                    if (bound == TranspositionTable.BOUND_EXACT
+                            || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                            || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                        this.tt.recordCutoff();
+                        return score;
+                    }
                 }
             }
-            return maxMove;
-        
-        } else {
-            PositionEval minMove = new PositionEval(Double.POSITIVE_INFINITY, null);
-            for (Move move: board.legalMoves()) {
-                board.doMove(move);
-                double eval = numericalMoveCalculator(board, alpha, beta, depth - 1).getMoveScore();
-                board.undoMove();
-                minMove = PositionEval.min(new PositionEval(eval, move), minMove);
+        }
+
+        List<Move> moves = board.legalMoves();
+        if (moves.isEmpty()) {
+            return terminalScore(board, ply);
+        }
+        int count = this.orderer.order(board, moves, ply, ttMove);
+        boolean white = board.getSideToMove() == Side.WHITE;
+        double bestScore = white ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        Move bestMove = null;
+
+        for (int i = 0; i < count; i++) {
+            Move move = this.orderer.moveAt(ply, i);
+            makeMove(board, move);
+            double eval = numericalMoveCalculator(board, alpha, beta, depth - 1);
+            unmakeMove(board);
+            // only a strictly better score replaces the best move, so the first of equal moves is kept
+            if (white ? eval > bestScore : eval < bestScore) {
+                bestScore = eval;
+                bestMove = move;
+            }
+            if (white) {
+                alpha = Math.max(alpha, eval);
+            } else {
                 beta = Math.min(beta, eval);
-                if (beta <= alpha) {
-                    break;
-                }
             }
-            return minMove;
+            if (beta <= alpha) {
+                recordCutoff(board, move, ply, depth, i);
+                break;
+            }
+        }
+
+        if (this.tt != null) {
+            this.tt.store(key, depth, boundType(bestScore, alphaOrig, betaOrig),
+                    scoreToTable(bestScore, ply), TranspositionTable.encodeMove(bestMove));
+        }
+        if (ply == 0) {
+            this.rootMove = bestMove;
+        }
+        return bestScore;
+    }
+
+    /**
+     * Counts a beta cutoff and lets the move orderer learn from it.
+     * @param board : a {@code Board} object from chesslib, in the position the move was played from
+     * @param move : the move that caused the cutoff
+     * @param ply : distance from the root, in half-moves
+     * @param depth : remaining depth of the node
+     * @param index : position of the move in the ordering, 0 for the first move tried
+     */
+    protected void recordCutoff(Board board, Move move, int ply, int depth, int index) {
+        this.stats.betaCutoffs++;
+        if (index == 0) {
+            this.stats.firstMoveCutoffs++;
+        }
+        this.orderer.recordCutoff(board, move, ply, depth);
+    }
+
+    /**
+     * Plays a move on the board, keeping an incremental evaluator (if any) in sync.
+     * @param board : a {@code Board} object from chesslib
+     * @param move : a legal {@code Move} in the current position
+     */
+    protected void makeMove(Board board, Move move) {
+        if (this.incremental != null) {
+            this.incremental.onMove(move);
+        }
+        board.doMove(move);
+    }
+
+    /**
+     * Takes back the last move played with {@code makeMove}.
+     * @param board : a {@code Board} object from chesslib
+     */
+    protected void unmakeMove(Board board) {
+        board.undoMove();
+        if (this.incremental != null) {
+            this.incremental.onUndo();
+        }
+    }
+
+    /**
+     * Determines whether a move captures a piece (including en passant) or promotes a pawn,
+     * i.e. whether it changes the material balance.
+     * @param board : a {@code Board} object from chesslib, before the move is played
+     * @param move : a legal {@code Move} in the current position
+     * @return true if the move captures or promotes.
+     */
+    protected static boolean isCapture(Board board, Move move) {
+        if (board.getPiece(move.getTo()) != Piece.NONE || move.getPromotion() != Piece.NONE) {
+            return true;
+        }
+        return move.getTo() == board.getEnPassant()
+                && board.getPiece(move.getFrom()).getPieceType() == PieceType.PAWN;
+    }
+
+    /**
+     * Checks whether the side to move has any piece besides pawns and its king. A side without one is
+     * the only one worth testing for stalemate at the horizon, and passing may be its best option (zugzwang).
+     * @param board : a {@code Board} object from chesslib
+     * @return true if the side to move has a knight, bishop, rook or queen.
+     */
+    protected static boolean hasPieces(Board board) {
+        Side side = board.getSideToMove();
+        return (board.getBitboard(side) & ~board.getBitboard(Piece.make(side, PieceType.PAWN))
+                & ~board.getBitboard(Piece.make(side, PieceType.KING))) != 0;
+    }
+
+    /**
+     * Scores a position in which the side to move has no legal moves: checkmate if it is in check,
+     * stalemate otherwise. Quicker mates score higher, so the search prefers them.
+     * @param board : a {@code Board} with no legal moves
+     * @param ply : distance from the root, in half-moves
+     * @return the score from white's point of view.
+     */
+    protected static double terminalScore(Board board, int ply) {
+        if (!board.isKingAttacked()) {
+            return 0d;
+        }
+        return board.getSideToMove() == Side.WHITE ? -(MATE_SCORE - ply) : MATE_SCORE - ply;
+    }
+
+    /**
+     * Converts a mate score relative to the root into one relative to the current node, so that it
+     * remains correct when the entry is reached again at a different ply.
+     * @param score : score relative to the root
+     * @param ply : distance from the root, in half-moves
+     * @return the score to store in the transposition table.
+     */
+    protected static double scoreToTable(double score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        } else if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Inverse of {@code scoreToTable}.
+     * @param score : score read from the transposition table
+     * @param ply : distance from the root, in half-moves
+     * @return the score relative to the root.
+     */
+    protected static double scoreFromTable(double score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        } else if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Classifies a search result relative to the window it was searched with. Scores are
+     * always from white's point of view, so the classification is the same for both sides.
+     * @param score : the score returned by the search
+     * @param alpha : lower edge of the search window
+     * @param beta : upper edge of the search window
+     * @return the {@code TranspositionTable} bound type of {@code score}.
+     */
+    protected static int boundType(double score, double alpha, double beta) {
+        if (score <= alpha) {
+            return TranspositionTable.BOUND_UPPER;
+        } else if (score >= beta) {
+            return TranspositionTable.BOUND_LOWER;
         }
+        return TranspositionTable.BOUND_EXACT;
     }
 }
@@ -0,0 +1,107 @@
+package minimax;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Side;
+
+/**
+ * Static Exchange Evaluation (SEE): the material balance of a capture once every piece that can
+ * recapture on the target square has done so, each side always recapturing with its least valuable
+ * piece and stopping as soon as recapturing would lose material. Sliders uncovered by earlier captures
+ * (x-rays) join the exchange. Pins and checks are ignored, as is usual for SEE.
+ * <p>
+ * Values are in centipawns. An instance holds a small scratch buffer and must not be shared between
+ * concurrent searches.
+ */
+public class StaticExchange {
+
+    // centipawn values indexed by PieceType ordinal (PAWN ... KING)
+    private static final int[] VALUES = {100, 325, 325, 500, 1000, 20000};
+
+    private static final PieceType[] TYPES = {
+        PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN, PieceType.KING
+    };
+
+    // an exchange on one square can involve at most every piece on the board
+    private final int[] gain = new int[33];
+
+    /**
+     * Evaluates the exchange started by {@code move}.
+     * @param board : A {@code Board} object from chesslib, with {@code move} not yet played
+     * @param move : a capture or promotion of the side to move
+     * @return the material the side to move wins (positive) or loses (negative) in centipawns.
+     */
+    public int evaluate(Board board, Move move) {
+        int from = move.getFrom().ordinal();
+        long occupied = board.getBitboard() & ~(1L << from);
+        Piece mover = board.getPiece(move.getFrom());
+        int onSquare = VALUES[mover.getPieceType().ordinal()];
+
+        int depth = 0;
+        this.gain[0] = captureValue(board, move);
+        if (move.getPromotion() != Piece.NONE) {
+            onSquare = VALUES[move.getPromotion().getPieceType().ordinal()];
+        }
+        if (board.getPiece(move.getTo()) == Piece.NONE && mover.getPieceType() == PieceType.PAWN
+                && move.getTo() == board.getEnPassant()) {
+            occupied &= ~(1L << board.getEnPassantTarget().ordinal());
+        }
+
+        Side side = board.getSideToMove().flip();
+        while (true) {
+            long attackers = board.squareAttackedBy(move.getTo(), side, occupied) & occupied;
+            if (attackers == 0) {
+                break;
+            }
+            // the least valuable attacker recaptures
+            long attacker = 0;
+            PieceType type = PieceType.KING;
+            for (PieceType candidate : TYPES) {
+                long pieces = attackers & board.getBitboard(Piece.make(side, candidate));
+                if (pieces != 0) {
+                    attacker = pieces & -pieces;
+                    type = candidate;
+                    break;
+                }
+            }
+            depth++;
+            this.gain[depth] = onSquare - this.gain[depth - 1];
+            onSquare = VALUES[type.ordinal()];
+            occupied &= ~attacker;
+            side = side.flip();
+            // a king can only recapture if the square is no longer defended
+            if (type == PieceType.KING && (board.squareAttackedBy(move.getTo(), side, occupied) & occupied) != 0) {
+                depth--;
+                break;
+            }
+        }
+
+        // either side may stop the exchange when continuing would lose material
+        while (depth > 0) {
+            this.gain[depth - 1] = -Math.max(-this.gain[depth - 1], this.gain[depth]);
+            depth--;
+        }
+        return this.gain[0];
+    }
+
+    /**
+     * Returns the material gained by a capture or promotion before any recapture.
+     * @param board : A {@code Board} object from chesslib, with {@code move} not yet played
+     * @param move : a {@code Move} of the side to move
+     * @return the value of the captured piece plus any promotion gain, in centipawns.
+     */
+    public static int captureValue(Board board, Move move) {
+        Piece victim = board.getPiece(move.getTo());
+        int value = victim == Piece.NONE ? 0 : VALUES[victim.getPieceType().ordinal()];
+        if (victim == Piece.NONE && move.getTo() == board.getEnPassant()
+                && board.getPiece(move.getFrom()).getPieceType() == PieceType.PAWN) {
+            value = VALUES[PieceType.PAWN.ordinal()];
+        }
+        if (move.getPromotion() != Piece.NONE) {
+            value += VALUES[move.getPromotion().getPieceType().ordinal()] - VALUES[PieceType.PAWN.ordinal()];
+        }
+        return value;
+    }
+}
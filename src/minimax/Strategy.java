@@ -18,4 +18,24 @@ public interface Strategy {
      * @return A {@code Move} object.
      */
     public Move findBestMove(Board board);
+
+    /**
+     * Finds a best move within a wall-clock time budget. Strategies without time control
+     * fall back to {@code findBestMove(board)} and ignore the budget.
+     * @param board : a {@code Board} object from the {@code chesslib} library.
+     * @param budgetMillis : the time allowed for the search, in milliseconds.
+     * @return A {@code Move} object.
+     */
+    public default Move findBestMove(Board board, long budgetMillis) {
+        return findBestMove(board);
+    }
+
+    /**
+     * Returns the statistics of the last search, such as the number of nodes visited.
+     * Strategies that do not keep statistics return empty ones.
+     * @return a {@code SearchStats} object, unaffected by later searches.
+     */
+    public default SearchStats getSearchStats() {
+        return new SearchStats();
+    }
 }
@@ -0,0 +1,340 @@
+package minimax;
+
+import bitboard.Bitboards;
+import bitboard.Position;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+
+/**
+ * Evaluator with separate midgame and endgame scores, blended by the material left on the board
+ * ("tapered" evaluation), so that e.g. the king is kept safe behind its pawns while queens are on the
+ * board and walks to the center once they are gone.
+ * <p>
+ * Both scores sum material and piece-square values, taken from Ronald Friederich's PeSTO tables, and
+ * pawn-structure terms: a bonus for passed pawns growing as they advance, and penalties for doubled and
+ * isolated pawns. The pawn terms depend on the pawns alone, so they are cached in a {@code PawnHashTable}
+ * keyed by the pawn-only Zobrist key; positions loaded in a {@code Position} provide the key for free,
+ * while for a chesslib {@code Board} it is computed from the pawn bitboards.
+ * <p>
+ * Like {@code BitboardEvaluator}, it does not detect checkmate or stalemate, and it never allocates.
+ * The pawn table may be shared between threads, so one instance can serve every thread of a parallel search.
+ */
+public class TaperedEvaluator implements BoardEvaluator {
+
+    // material in centipawns by piece type (pawn ... king); the king's weight cancels out
+    private static final int[] MIDGAME_MATERIAL = {82, 337, 365, 477, 1025, 0};
+    private static final int[] ENDGAME_MATERIAL = {94, 281, 297, 512, 936, 0};
+
+    // contribution of each piece type to the game phase; 24 with all pieces on the board, 0 with none
+    private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+    private static final int MAX_PHASE = 24;
+
+    /*
+     * Tables in centipawns, from white's point of view, written as seen from white's side of the board
+     * (first row is rank 8), indexed by piece type, as in PieceSquareEvaluator.
+     */
+    private static final int[][] MIDGAME_TABLES = {
+        { // pawn
+              0,    0,    0,    0,    0,    0,    0,    0,
+             98,  134,   61,   95,   68,  126,   34,  -11,
+             -6,    7,   26,   31,   65,   56,   25,  -20,
+            -14,   13,    6,   21,   23,   12,   17,  -23,
+            -27,   -2,   -5,   12,   17,    6,   10,  -25,
+            -26,   -4,   -4,  -10,    3,    3,   33,  -12,
+            -35,   -1,  -20,  -23,  -15,   24,   38,  -22,
+              0,    0,    0,    0,    0,    0,    0,    0
+        },
+        { // knight
+           -167,  -89,  -34,  -49,   61,  -97,  -15, -107,
+            -73,  -41,   72,   36,   23,   62,    7,  -17,
+            -47,   60,   37,   65,   84,  129,   73,   44,
+             -9,   17,   19,   53,   37,   69,   18,   22,
+            -13,    4,   16,   13,   28,   19,   21,   -8,
+            -23,   -9,   12,   10,   19,   17,   25,  -16,
+            -29,  -53,  -12,   -3,   -1,   18,  -14,  -19,
+           -105,  -21,  -58,  -33,  -17,  -28,  -19,  -23
+        },
+        { // bishop
+            -29,    4,  -82,  -37,  -25,  -42,    7,   -8,
+            -26,   16,  -18,  -13,   30,   59,   18,  -47,
+            -16,   37,   43,   40,   35,   50,   37,   -2,
+             -4,    5,   19,   50,   37,   37,    7,   -2,
+             -6,   13,   13,   26,   34,   12,   10,    4,
+              0,   15,   15,   15,   14,   27,   18,   10,
+              4,   15,   16,    0,    7,   21,   33,    1,
+            -33,   -3,  -14,  -21,  -13,  -12,  -39,  -21
+        },
+        { // rook
+             32,   42,   32,   51,   63,    9,   31,   43,
+             27,   32,   58,   62,   80,   67,   26,   44,
+             -5,   19,   26,   36,   17,   45,   61,   16,
+            -24,  -11,    7,   26,   24,   35,   -8,  -20,
+            -36,  -26,  -12,   -1,    9,   -7,    6,  -23,
+            -45,  -25,  -16,  -17,    3,    0,   -5,  -33,
+            -44,  -16,  -20,   -9,   -1,   11,   -6,  -71,
+            -19,  -13,    1,   17,   16,    7,  -37,  -26
+        },
+        { // queen
+            -28,    0,   29,   12,   59,   44,   43,   45,
+            -24,  -39,   -5,    1,  -16,   57,   28,   54,
+            -13,  -17,    7,    8,   29,   56,   47,   57,
+            -27,  -27,  -16,  -16,   -1,   17,   -2,    1,
+             -9,  -26,   -9,  -10,   -2,   -4,    3,   -3,
+            -14,    2,  -11,   -2,   -5,    2,   14,    5,
+            -35,   -8,   11,    2,    8,   15,   -3,    1,
+             -1,  -18,   -9,   10,  -15,  -25,  -31,  -50
+        },
+        { // king
+            -65,   23,   16,  -15,  -56,  -34,    2,   13,
+             29,   -1,  -20,   -7,   -8,   -4,  -38,  -29,
+             -9,   24,    2,  -16,  -20,    6,   22,  -22,
+            -17,  -20,  -12,  -27,  -30,  -25,  -14,  -36,
+            -49,   -1,  -27,  -39,  -46,  -44,  -33,  -51,
+            -14,  -14,  -22,  -46,  -44,  -30,  -15,  -27,
+              1,    7,   -8,  -64,  -43,  -16,    9,    8,
+            -15,   36,   12,  -54,    8,  -28,   24,   14
+        }
+    };
+
+    private static final int[][] ENDGAME_TABLES = {
+        { // pawn
+              0,    0,    0,    0,    0,    0,    0,    0,
+            178,  173,  158,  134,  147,  132,  165,  187,
+             94,  100,   85,   67,   56,   53,   82,   84,
+             32,   24,   13,    5,   -2,    4,   17,   17,
+             13,    9,   -3,   -7,   -7,   -8,    3,   -1,
+              4,    7,   -6,    1,    0,   -5,   -1,   -8,
+             13,    8,    8,   10,   13,    0,    2,   -7,
+              0,    0,    0,    0,    0,    0,    0,    0
+        },
+        { // knight
+            -58,  -38,  -13,  -28,  -31,  -27,  -63,  -99,
+            -25,   -8,  -25,   -2,   -9,  -25,  -24,  -52,
+            -24,  -20,   10,    9,   -1,   -9,  -19,  -41,
+            -17,    3,   22,   22,   22,   11,    8,  -18,
+            -18,   -6,   16,   25,   16,   17,    4,  -18,
+            -23,   -3,   -1,   15,   10,   -3,  -20,  -22,
+            -42,  -20,  -10,   -5,   -2,  -20,  -23,  -44,
+            -29,  -51,  -23,  -15,  -22,  -18,  -50,  -64
+        },
+        { // bishop
+            -14,  -21,  -11,   -8,   -7,   -9,  -17,  -24,
+             -8,   -4,    7,  -12,   -3,  -13,   -4,  -14,
+              2,   -8,    0,   -1,   -2,    6,    0,    4,
+             -3,    9,   12,    9,   14,   10,    3,    2,
+             -6,    3,   13,   19,    7,   10,   -3,   -9,
+            -12,   -3,    8,   10,   13,    3,   -7,  -15,
+            -14,  -18,   -7,   -1,    4,   -9,  -15,  -27,
+            -23,   -9,  -23,   -5,   -9,  -16,   -5,  -17
+        },
+        { // rook
+             13,   10,   18,   15,   12,   12,    8,    5,
+             11,   13,   13,   11,   -3,    3,    8,    3,
+              7,    7,    7,    5,    4,   -3,   -5,   -3,
+              4,    3,   13,    1,    2,    1,   -1,    2,
+              3,    5,    8,    4,   -5,   -6,   -8,  -11,
+             -4,    0,   -5,   -1,   -7,  -12,   -8,  -16,
+             -6,   -6,    0,    2,   -9,   -9,  -11,   -3,
+             -9,    2,    3,   -1,   -5,  -13,    4,  -20
+        },
+        { // queen
+             -9,   22,   22,   27,   27,   19,   10,   20,
+            -17,   20,   32,   41,   58,   25,   30,    0,
+            -20,    6,    9,   49,   47,   35,   19,    9,
+              3,   22,   24,   45,   57,   40,   57,   36,
+            -18,   28,   19,   47,   31,   34,   39,   23,
+            -16,  -27,   15,    6,    9,   17,   10,    5,
+            -22,  -23,  -30,  -16,  -16,  -23,  -36,  -32,
+            -33,  -28,  -22,  -43,   -5,  -32,  -20,  -41
+        },
+        { // king
+            -74,  -35,  -18,  -18,  -11,   15,    4,  -17,
+            -12,   17,   14,   17,   17,   38,   23,   11,
+             10,   17,   23,   15,   20,   45,   44,   13,
+             -8,   22,   24,   27,   26,   33,   26,    3,
+            -18,   -4,   21,   24,   27,   23,    9,  -11,
+            -19,   -3,   11,   21,   23,   16,    7,   -9,
+            -27,  -11,    4,   13,   14,    4,   -5,  -17,
+            -53,  -34,  -21,  -11,  -28,  -14,  -24,  -43
+        }
+    };
+
+    // pawn-structure terms in centipawns; passed pawn bonuses are indexed by rank, counted from the pawn's side
+    private static final int[] PASSED_MIDGAME = {0, 5, 10, 15, 25, 45, 70, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 15, 25, 45, 75, 120, 0};
+    private static final int DOUBLED_MIDGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+
+    private static final Piece[] PIECES = Piece.values();
+
+    // material plus piece-square value of each piece (Piece ordinal, i.e. Position number) on each square
+    private static final int[][] MIDGAME_VALUES = new int[12][64];
+    private static final int[][] ENDGAME_VALUES = new int[12][64];
+
+    // squares in front of a pawn on its own and adjacent files, which must hold no enemy pawn for it to be passed
+    private static final long[][] PASSED_MASKS = new long[2][64];
+    private static final long[] ADJACENT_FILES = new long[8];
+
+    static {
+        for (int p = 0; p < 12; p++) {
+            int type = p % 6;
+            boolean white = p < 6;
+            for (int sq = 0; sq < 64; sq++) {
+                // white's table is mirrored vertically, since it is written with rank 8 first
+                int index = white ? sq ^ 56 : sq;
+                int middlegame = MIDGAME_MATERIAL[type] + MIDGAME_TABLES[type][index];
+                int endgame = ENDGAME_MATERIAL[type] + ENDGAME_TABLES[type][index];
+                MIDGAME_VALUES[p][sq] = white ? middlegame : -middlegame;
+                ENDGAME_VALUES[p][sq] = white ? endgame : -endgame;
+            }
+        }
+
+        for (int file = 0; file < 8; file++) {
+            long files = Bitboards.FILE_A << file;
+            ADJACENT_FILES[file] = ((files << 1) & ~Bitboards.FILE_A) | ((files >>> 1) & ~Bitboards.FILE_H);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            long files = (Bitboards.FILE_A << (sq & 7)) | ADJACENT_FILES[sq & 7];
+            int rank = sq >>> 3;
+            // the ranks strictly above (for white) or below (for black) the pawn
+            long above = rank == 7 ? 0 : -1L << ((rank + 1) * 8);
+            long below = (1L << (rank * 8)) - 1;
+            PASSED_MASKS[Position.WHITE][sq] = files & above;
+            PASSED_MASKS[Position.BLACK][sq] = files & below;
+        }
+    }
+
+    private final PawnHashTable pawnTable;
+
+    /**
+     * Makes a new evaluator caching pawn structures in a {@code PawnHashTable} of the default size.
+     */
+    public TaperedEvaluator() {
+        this(new PawnHashTable());
+    }
+
+    /**
+     * Makes a new evaluator caching pawn structures in {@code pawnTable}.
+     * @param pawnTable : a {@code PawnHashTable}, or null to evaluate the pawn structure at every call
+     */
+    public TaperedEvaluator(PawnHashTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    /**
+     * Returns the pawn hash table used by this evaluator, e.g. to read its hit rate.
+     * @return a {@code PawnHashTable}, or null if evaluating without one.
+     */
+    public PawnHashTable getPawnHashTable() {
+        return this.pawnTable;
+    }
+
+    /**
+     * Evaluates the board by blending its midgame and endgame scores according to the material left.
+     * @param board : A {@code Board} object from the {@code chesslib} library
+     * @return the score in pawns, positive if white is better.
+     */
+    @Override
+    public double evaluationScheme(Board board) {
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (int p = 0; p < 12; p++) {
+            long pieces = board.getBitboard(PIECES[p]);
+            phase += PHASE_WEIGHTS[p % 6] * Long.bitCount(pieces);
+            while (pieces != 0L) {
+                int sq = Long.numberOfTrailingZeros(pieces);
+                middlegame += MIDGAME_VALUES[p][sq];
+                endgame += ENDGAME_VALUES[p][sq];
+                pieces &= pieces - 1;
+            }
+        }
+        long whitePawns = board.getBitboard(Piece.WHITE_PAWN);
+        long blackPawns = board.getBitboard(Piece.BLACK_PAWN);
+        long pawns = pawnStructure(
+                this.pawnTable == null ? 0 : Position.pawnKey(whitePawns, blackPawns), whitePawns, blackPawns);
+        return taper(middlegame + PawnHashTable.middlegameOf(pawns), endgame + PawnHashTable.endgameOf(pawns), phase);
+    }
+
+    /**
+     * Evaluates a {@code Position} the same way; its incrementally updated pawn key is used for the pawn table.
+     * @param position : A {@code Position} from the {@code bitboard} package
+     * @return the score in pawns, positive if white is better.
+     */
+    @Override
+    public double evaluationScheme(Position position) {
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (int p = 0; p < 12; p++) {
+            long pieces = position.getBitboard(p);
+            phase += PHASE_WEIGHTS[p % 6] * Long.bitCount(pieces);
+            while (pieces != 0L) {
+                int sq = Long.numberOfTrailingZeros(pieces);
+                middlegame += MIDGAME_VALUES[p][sq];
+                endgame += ENDGAME_VALUES[p][sq];
+                pieces &= pieces - 1;
+            }
+        }
+        long pawns = pawnStructure(position.getPawnKey(), position.getBitboard(Position.WHITE * 6 + Position.PAWN),
+                position.getBitboard(Position.BLACK * 6 + Position.PAWN));
+        return taper(middlegame + PawnHashTable.middlegameOf(pawns), endgame + PawnHashTable.endgameOf(pawns), phase);
+    }
+
+    /**
+     * Blends the two scores; a phase above the maximum (after promotions) counts as a full midgame.
+     */
+    private static double taper(int middlegame, int endgame, int phase) {
+        phase = Math.min(phase, MAX_PHASE);
+        return (middlegame * phase + endgame * (MAX_PHASE - phase)) / (100d * MAX_PHASE);
+    }
+
+    /**
+     * Looks the pawn structure up in the pawn table, evaluating and storing it on a miss.
+     * @return a packed {@code PawnHashTable} entry with the midgame and endgame pawn-structure scores.
+     */
+    private long pawnStructure(long pawnKey, long whitePawns, long blackPawns) {
+        if (this.pawnTable != null) {
+            long entry = this.pawnTable.probe(pawnKey);
+            if (entry != PawnHashTable.MISS) {
+                return entry;
+            }
+        }
+        int middlegame = 0;
+        int endgame = 0;
+        for (int side = Position.WHITE; side <= Position.BLACK; side++) {
+            long own = side == Position.WHITE ? whitePawns : blackPawns;
+            long enemy = side == Position.WHITE ? blackPawns : whitePawns;
+            int sign = side == Position.WHITE ? 1 : -1;
+            long pawns = own;
+            while (pawns != 0L) {
+                int sq = Long.numberOfTrailingZeros(pawns);
+                pawns &= pawns - 1;
+                int file = sq & 7;
+                if ((PASSED_MASKS[side][sq] & enemy) == 0) {
+                    int rank = side == Position.WHITE ? sq >>> 3 : 7 - (sq >>> 3);
+                    middlegame += sign * PASSED_MIDGAME[rank];
+                    endgame += sign * PASSED_ENDGAME[rank];
+                }
+                if ((ADJACENT_FILES[file] & own) == 0) {
+                    middlegame += sign * ISOLATED_MIDGAME;
+                    endgame += sign * ISOLATED_ENDGAME;
+                }
+            }
+            // every pawn beyond the first on a file is doubled
+            for (int file = 0; file < 8; file++) {
+                int count = Long.bitCount(own & (Bitboards.FILE_A << file));
+                if (count > 1) {
+                    middlegame += sign * DOUBLED_MIDGAME * (count - 1);
+                    endgame += sign * DOUBLED_ENDGAME * (count - 1);
+                }
+            }
+        }
+        if (this.pawnTable != null) {
+            return this.pawnTable.store(pawnKey, middlegame, endgame);
+        }
+        return PawnHashTable.pack(middlegame, endgame);
+    }
+}
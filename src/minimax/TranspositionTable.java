@@ -0,0 +1,312 @@
+package minimax;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.Square;
+
+/**
+ * Fixed-size transposition table keyed on the Zobrist hash of a chesslib {@code Board}.
+ * Each entry stores the search depth, the bound type of the score, the score itself and the best
+ * move found, packed into a single {@code long}, so probing and storing never allocate.
+ * <p>
+ * The table may be shared by several searching threads without locking. Every slot holds the entry
+ * and the position key XOR-ed with the entry; a probe only accepts a slot whose two words agree,
+ * so an entry torn by concurrent writers is treated as a miss instead of being misread.
+ * The statistics counters are not synchronized and are approximate when the table is shared.
+ */
+public class TranspositionTable {
+
+    /** Score is the exact minimax value of the position. */
+    public static final int BOUND_EXACT = 0;
+
+    /** Score is a lower bound (the search failed high). */
+    public static final int BOUND_LOWER = 1;
+
+    /** Score is an upper bound (the search failed low). */
+    public static final int BOUND_UPPER = 2;
+
+    /** Encoded value representing the absence of a move. */
+    public static final int NO_MOVE = 0;
+
+    /** Value returned by {@code probe} when a position is not in the table. */
+    public static final long MISS = 0L;
+
+    /** Default table size, in megabytes. */
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    /**
+     * Decides whether a new entry may overwrite an occupied slot.
+     */
+    public enum ReplacementPolicy {
+        /** Always overwrite the slot with the newest entry. */
+        ALWAYS,
+        /**
+         * Keep entries searched to a greater depth, unless they belong to an older search
+         * or describe the same position.
+         */
+        DEPTH_PREFERRED
+    }
+
+    // 8 bytes each for the key and entry arrays
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private static final Square[] SQUARES = Square.values();
+    private static final Piece[] PIECES = Piece.values();
+
+    /*
+     * Layout of a packed entry:
+     * bits  0-15 : move (from | to << 6 | promotion << 12)
+     * bits 16-23 : depth
+     * bits 24-25 : bound
+     * bits 26-30 : generation
+     * bit  31    : occupied flag
+     * bits 32-63 : score, as float bits
+     */
+    private static final int DEPTH_SHIFT = 16;
+    private static final int BOUND_SHIFT = 24;
+    private static final int GENERATION_SHIFT = 26;
+    private static final int GENERATION_MASK = 0x1F;
+    private static final long OCCUPIED = 1L << 31;
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask;
+    private final ReplacementPolicy policy;
+    private volatile int generation;
+
+    private long probes;
+    private long hits;
+    private long cutoffs;
+    private long stores;
+
+    /**
+     * Makes a new table of {@code DEFAULT_SIZE_MB} megabytes using the depth-preferred replacement policy.
+     */
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB, ReplacementPolicy.DEPTH_PREFERRED);
+    }
+
+    /**
+     * Makes a new table of roughly {@code sizeMb} megabytes using the depth-preferred replacement policy.
+     * @param sizeMb : integer, the memory budget of the table in megabytes
+     */
+    public TranspositionTable(int sizeMb) {
+        this(sizeMb, ReplacementPolicy.DEPTH_PREFERRED);
+    }
+
+    /**
+     * Makes a new table of roughly {@code sizeMb} megabytes. The number of entries is rounded down to
+     * a power of two so that slots can be indexed by masking the hash key.
+     * @param sizeMb : integer, the memory budget of the table in megabytes
+     * @param policy : the {@code ReplacementPolicy} used when a slot is already occupied
+     */
+    public TranspositionTable(int sizeMb, ReplacementPolicy policy) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Transposition table size must be at least 1 MB.");
+        }
+        long capacity = Long.highestOneBit(((long) sizeMb << 20) / BYTES_PER_ENTRY);
+        capacity = Math.min(capacity, 1 << 30);
+        this.keys = new long[(int) capacity];
+        this.entries = new long[(int) capacity];
+        this.mask = (int) capacity - 1;
+        this.policy = policy;
+    }
+
+    /**
+     * Looks up a position in the table.
+     * @param key : the Zobrist key of the position
+     * @return the packed entry for the position, or {@code MISS} if it is not stored.
+     * Use {@code depthOf}, {@code boundOf}, {@code scoreOf} and {@code moveOf} to unpack it.
+     */
+    public long probe(long key) {
+        probes++;
+        int slot = (int) key & mask;
+        long entry = entries[slot];
+        if ((entry & OCCUPIED) != 0 && (keys[slot] ^ entry) == key) {
+            hits++;
+            return entry;
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores a search result, subject to the table's replacement policy.
+     * Scores are kept with {@code float} precision.
+     * @param key : the Zobrist key of the position
+     * @param depth : remaining depth the position was searched to
+     * @param bound : one of {@code BOUND_EXACT}, {@code BOUND_LOWER} or {@code BOUND_UPPER}
+     * @param score : score of the position
+     * @param move : best move in the position, encoded with {@code encodeMove}
+     */
+    public void store(long key, int depth, int bound, double score, int move) {
+        int slot = (int) key & mask;
+        long old = entries[slot];
+        boolean samePosition = (keys[slot] ^ old) == key;
+        int currentGeneration = generation;
+        if (policy == ReplacementPolicy.DEPTH_PREFERRED && (old & OCCUPIED) != 0 && !samePosition
+                && ((old >>> GENERATION_SHIFT) & GENERATION_MASK) == currentGeneration
+                && depthOf(old) > depth) {
+            return;
+        }
+
+        // keep the previous best move if this search did not produce one
+        if (move == NO_MOVE && samePosition) {
+            move = moveOf(old);
+        }
+        long entry = (move & 0xFFFFL)
+                | ((long) Math.min(Math.max(depth, 0), 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) currentGeneration << GENERATION_SHIFT)
+                | OCCUPIED
+                | ((long) Float.floatToRawIntBits((float) score) << 32);
+        keys[slot] = key ^ entry;
+        entries[slot] = entry;
+        stores++;
+    }
+
+    /**
+     * Returns the depth of a packed entry.
+     * @param entry : an entry returned by {@code probe}
+     * @return the remaining depth the stored score was searched to.
+     */
+    public static int depthOf(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Returns the bound type of a packed entry.
+     * @param entry : an entry returned by {@code probe}
+     * @return one of {@code BOUND_EXACT}, {@code BOUND_LOWER} or {@code BOUND_UPPER}.
+     */
+    public static int boundOf(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /**
+     * Returns the score of a packed entry.
+     * @param entry : an entry returned by {@code probe}
+     * @return the stored score.
+     */
+    public static double scoreOf(long entry) {
+        return Float.intBitsToFloat((int) (entry >>> 32));
+    }
+
+    /**
+     * Returns the encoded best move of a packed entry.
+     * @param entry : an entry returned by {@code probe}
+     * @return the encoded move, or {@code NO_MOVE}.
+     */
+    public static int moveOf(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    /**
+     * Records that a probe produced a score usable without searching the position.
+     * Called by the search so the table can report its cutoff count.
+     */
+    public void recordCutoff() {
+        cutoffs++;
+    }
+
+    /**
+     * Marks the start of a new search, so that entries from earlier searches become
+     * preferred candidates for replacement.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * Empties the table and resets its statistics.
+     */
+    public void clear() {
+        java.util.Arrays.fill(keys, 0L);
+        java.util.Arrays.fill(entries, 0L);
+        generation = 0;
+        resetStatistics();
+    }
+
+    /**
+     * Resets the probe, hit, cutoff and store counters.
+     */
+    public void resetStatistics() {
+        probes = 0;
+        hits = 0;
+        cutoffs = 0;
+        stores = 0;
+    }
+
+    /**
+     * @return the number of slots in the table.
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * @return the number of lookups performed since the last reset.
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return the number of lookups that found their position since the last reset.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups whose stored score cut off the search since the last reset.
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * @return the number of entries written since the last reset.
+     */
+    public long getStores() {
+        return stores;
+    }
+
+    /**
+     * Summarizes the table statistics, e.g. for printing after a search.
+     * @return a human-readable string with the probe, hit and cutoff counts.
+     */
+    @Override
+    public String toString() {
+        double hitRate = probes == 0 ? 0 : 100.0 * hits / probes;
+        return String.format("TT[%d entries] probes=%d hits=%d (%.1f%%) cutoffs=%d stores=%d",
+                keys.length, probes, hits, hitRate, cutoffs, stores);
+    }
+
+    /**
+     * Packs a chesslib {@code Move} into 16 bits. A legal move never encodes to {@code NO_MOVE},
+     * since its origin and destination squares always differ.
+     * @param move : a {@code Move} object, may be null
+     * @return the encoded move.
+     */
+    public static int encodeMove(Move move) {
+        if (move == null) {
+            return NO_MOVE;
+        }
+        int promotion = move.getPromotion() == Piece.NONE ? 0 : move.getPromotion().ordinal() + 1;
+        return move.getFrom().ordinal() | (move.getTo().ordinal() << 6) | (promotion << 12);
+    }
+
+    /**
+     * Rebuilds a chesslib {@code Move} from its encoded form.
+     * @param encoded : a move encoded by {@code encodeMove}
+     * @return a new {@code Move} object, or null for {@code NO_MOVE}.
+     */
+    public static Move decodeMove(int encoded) {
+        if (encoded == NO_MOVE) {
+            return null;
+        }
+        int promotion = (encoded >>> 12) & 0xF;
+        return new Move(SQUARES[encoded & 0x3F], SQUARES[(encoded >>> 6) & 0x3F],
+                promotion == 0 ? Piece.NONE : PIECES[promotion - 1]);
+    }
+}
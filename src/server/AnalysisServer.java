@@ -0,0 +1,378 @@
+package server;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import minimax.AdvancedMinimax;
+import minimax.PieceSquareEvaluator;
+import minimax.SimpleMinimax;
+import minimax.Strategy;
+import minimax.TranspositionTable;
+import uci.UciEngine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Batch position analysis over HTTP, on the JDK's built-in {@code HttpServer}, for bulk analysis of game
+ * databases without a GUI or a UCI session.
+ * <p>
+ * {@code POST /analyse} takes a JSON object {@code {"fens": [...], "depth": 6, "movetime": 500, "timeout": 10000}},
+ * where every field but {@code fens} is optional: positions are searched to {@code depth} (4 by default), or
+ * for {@code movetime} milliseconds each if given, and the whole batch must finish within {@code timeout}
+ * milliseconds of its arrival. The response streams one JSON object per line (NDJSON) as each position is
+ * done, in completion order: {@code {"index": 0, "fen": ..., "bestmove": "e2e4", "score": "cp 31",
+ * "depth": 6, "pv": ["e2e4", ...], "nodes": ..., "time": ...}}, with scores for the side to move as in UCI,
+ * or {@code {"index": 0, "fen": ..., "error": ...}} for a position that is invalid, has no legal move or was
+ * not started before the timeout. A position still being searched at the timeout returns the move of its
+ * last completed iteration, with {@code "truncated": true}. A last line {@code {"done": true, ...}} ends it.
+ * {@code GET /status} reports the load.
+ * <p>
+ * Positions are searched on a fixed pool of worker threads, each with its own engine. By default these are
+ * {@code AdvancedMinimax} searches sharing one transposition table across threads and requests, so that
+ * related positions (e.g. successive positions of one game) reuse each other's work. The work accepted is
+ * bounded: a batch that does not fit in the remaining capacity is refused with {@code 503} and a
+ * {@code Retry-After} header, and one larger than the whole capacity with {@code 413}, instead of queueing
+ * without limit.
+ * <p>
+ * Usage: {@code java server.AnalysisServer [port] [threads] [hashMb]} listens on the loopback address
+ * (port 8080, one thread per core and a 64 MB table by default).
+ */
+public class AnalysisServer {
+
+    /** Depth searched when a request gives neither a depth nor a move time. */
+    public static final int DEFAULT_DEPTH = 4;
+
+    /** Timeout of a batch that does not give one, in milliseconds. */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 60_000;
+
+    private static final long MAX_REQUEST_BYTES = 16 << 20;
+
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final ExecutorService handlers;
+    private final ThreadLocal<Strategy> engines;
+    private final TranspositionTable tt;
+    private final int threads;
+    private final int capacity;
+    private final Semaphore slots;
+    private final AtomicLong analysed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Makes a server of {@code AdvancedMinimax} searches with a piece-square evaluation, sharing one
+     * transposition table.
+     * @param address : where to listen; port 0 picks a free port
+     * @param threads : the number of positions searched at once
+     * @param capacity : the number of positions accepted at once, searched or waiting, at least {@code threads}
+     * @param tt : the transposition table shared by all searches
+     * @throws IOException if the address cannot be bound.
+     */
+    public AnalysisServer(InetSocketAddress address, int threads, int capacity, TranspositionTable tt)
+            throws IOException {
+        this(address, () -> new AdvancedMinimax(DEFAULT_DEPTH, new PieceSquareEvaluator(), tt), threads, capacity, tt);
+    }
+
+    /**
+     * Makes a server of any strategy. Depths, principal variations and scores are reported for
+     * {@code AdvancedMinimax} engines only; other strategies search at their own depth unless given a move
+     * time, and are only held to the timeout between positions.
+     * @param address : where to listen; port 0 picks a free port
+     * @param engines : makes the engine of each worker thread, called once per thread
+     * @param threads : the number of positions searched at once
+     * @param capacity : the number of positions accepted at once, searched or waiting, at least {@code threads}
+     * @param tt : the transposition table shared by the engines, reported by {@code /status}; may be null
+     * @throws IOException if the address cannot be bound.
+     */
+    public AnalysisServer(InetSocketAddress address, Supplier<? extends Strategy> engines, int threads, int capacity,
+                          TranspositionTable tt) throws IOException {
+        if (threads < 1 || capacity < threads) {
+            throw new IllegalArgumentException("Need at least one thread, and a capacity of at least one position per thread.");
+        }
+        this.threads = threads;
+        this.capacity = capacity;
+        this.slots = new Semaphore(capacity);
+        this.tt = tt;
+        this.engines = ThreadLocal.withInitial(engines::get);
+        this.workers = Executors.newFixedThreadPool(threads, daemonThreads("analysis"));
+        // handlers mostly wait for their positions; the number of those is bounded by the capacity
+        this.handlers = Executors.newCachedThreadPool(daemonThreads("analysis-http"));
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(this.handlers);
+        this.server.createContext("/analyse", this::analyse);
+        this.server.createContext("/status", this::status);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Starts answering requests.
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Stops answering requests and abandons the batches in progress.
+     */
+    public void stop() {
+        this.server.stop(0);
+        this.workers.shutdownNow();
+        this.handlers.shutdownNow();
+    }
+
+    /**
+     * @return the address the server listens on, with the actual port.
+     */
+    public InetSocketAddress getAddress() {
+        return this.server.getAddress();
+    }
+
+    /**
+     * @return the number of positions accepted and not yet finished.
+     */
+    public int getPending() {
+        return this.capacity - this.slots.availablePermits();
+    }
+
+    private void analyse(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                sendError(exchange, 405, "Use POST.");
+                return;
+            }
+            Batch batch;
+            try {
+                batch = new Batch(readBody(exchange.getRequestBody()));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            if (batch.fens.size() > this.capacity) {
+                sendError(exchange, 413, "At most " + this.capacity + " positions per batch.");
+                return;
+            }
+            if (!this.slots.tryAcquire(batch.fens.size())) {
+                this.rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "The analysis queue is full.");
+                return;
+            }
+            stream(exchange, batch);
+        }
+    }
+
+    // submits every position, and writes the results as they complete
+    private void stream(HttpExchange exchange, Batch batch) throws IOException {
+        long start = System.nanoTime();
+        AtomicBoolean abandoned = new AtomicBoolean();
+        CompletionService<String> completion = new ExecutorCompletionService<>(this.workers);
+        for (int i = 0; i < batch.fens.size(); i++) {
+            int index = i;
+            completion.submit(() -> {
+                try {
+                    return abandoned.get() ? null : analyse(index, batch);
+                } finally {
+                    this.slots.release();
+                }
+            });
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        int errors = 0;
+        Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+        try {
+            for (int i = 0; i < batch.fens.size(); i++) {
+                String result = completion.take().get();
+                if (result.contains("\"error\"")) {
+                    errors++;
+                }
+                out.write(result + "\n");
+                out.flush();
+            }
+            out.write(String.format("{\"done\": true, \"positions\": %d, \"errors\": %d, \"time\": %d}%n",
+                    batch.fens.size(), errors, (System.nanoTime() - start) / 1_000_000));
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandoned.set(true);
+        } catch (ExecutionException e) {
+            abandoned.set(true);
+            throw new IOException("Analysis failed.", e.getCause());
+        } catch (IOException e) {
+            // the client went away: skip the positions not yet started
+            abandoned.set(true);
+            throw e;
+        }
+    }
+
+    // searches one position of a batch, on a worker thread, and formats its result
+    private String analyse(int index, Batch batch) {
+        String fen = batch.fens.get(index);
+        String prefix = "{\"index\": " + index + ", \"fen\": " + Json.quote(fen) + ", ";
+        Board board = new Board();
+        try {
+            board.loadFromFen(fen);
+        } catch (RuntimeException e) {
+            return prefix + "\"error\": \"invalid FEN\"}";
+        }
+        if (Long.bitCount(board.getBitboard(Piece.WHITE_KING)) != 1 || Long.bitCount(board.getBitboard(Piece.BLACK_KING)) != 1) {
+            return prefix + "\"error\": \"invalid FEN\"}";
+        }
+        if (board.legalMoves().isEmpty()) {
+            return prefix + "\"error\": \"" + (board.isKingAttacked() ? "checkmate" : "stalemate") + "\"}";
+        }
+        long remaining = batch.deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return prefix + "\"error\": \"timeout\"}";
+        }
+        Strategy engine = this.engines.get();
+        long searchStart = System.nanoTime();
+        StringBuilder result = new StringBuilder(prefix);
+        if (engine instanceof AdvancedMinimax) {
+            AdvancedMinimax search = (AdvancedMinimax) engine;
+            long budget = batch.moveTime > 0 ? Math.min(batch.moveTime, remaining) : remaining;
+            Move move = search.iterativeDeepening(board, batch.depth, budget);
+            // short of the depth asked for (all of it, with a move time) because of the timeout, not a mate
+            boolean truncated = (batch.moveTime == 0 || remaining < batch.moveTime)
+                    && search.getLastDepth() < batch.depth && Math.abs(search.getLastScore()) < SimpleMinimax.MATE_BOUND;
+            result.append("\"bestmove\": \"").append(move).append("\", \"score\": \"")
+                    .append(UciEngine.formatScore(search.getLastScore(), board.getSideToMove()))
+                    .append("\", \"depth\": ").append(search.getLastDepth()).append(", \"pv\": [");
+            List<Move> pv = search.getPrincipalVariation();
+            for (int i = 0; i < pv.size(); i++) {
+                result.append(i > 0 ? ", \"" : "\"").append(pv.get(i)).append('"');
+            }
+            result.append("], ");
+            if (truncated) {
+                result.append("\"truncated\": true, ");
+            }
+        } else {
+            Move move = batch.moveTime > 0 ? engine.findBestMove(board, Math.min(batch.moveTime, remaining))
+                    : engine.findBestMove(board);
+            result.append("\"bestmove\": \"").append(move).append("\", ");
+        }
+        this.analysed.incrementAndGet();
+        return result.append("\"nodes\": ").append(engine.getSearchStats().getNodes())
+                .append(", \"time\": ").append((System.nanoTime() - searchStart) / 1_000_000).append('}').toString();
+    }
+
+    private void status(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String status = String.format("{\"threads\": %d, \"capacity\": %d, \"pending\": %d, \"analysed\": %d, "
+                            + "\"rejected\": %d, \"ttProbes\": %d, \"ttHits\": %d}", this.threads, this.capacity, getPending(),
+                    this.analysed.get(), this.rejected.get(), this.tt == null ? 0 : this.tt.getProbes(),
+                    this.tt == null ? 0 : this.tt.getHits());
+            send(exchange, 200, status);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int code, String message) throws IOException {
+        send(exchange, code, "{\"error\": " + Json.quote(message) + "}");
+    }
+
+    private static void send(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes((int) MAX_REQUEST_BYTES + 1);
+        if (body.length > MAX_REQUEST_BYTES) {
+            throw new IllegalArgumentException("The request is too large.");
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A request: its positions, search limits and deadline.
+     */
+    private static class Batch {
+        final List<String> fens;
+        final int depth;
+        final long moveTime;
+        final long deadline;
+
+        @SuppressWarnings("unchecked")
+        Batch(String body) {
+            Object json = Json.parse(body);
+            if (!(json instanceof Map)) {
+                throw new IllegalArgumentException("The request must be a JSON object.");
+            }
+            Map<String, Object> request = (Map<String, Object>) json;
+            Object fens = request.get("fens");
+            if (!(fens instanceof List) || ((List<Object>) fens).isEmpty()
+                    || !((List<Object>) fens).stream().allMatch(fen -> fen instanceof String)) {
+                throw new IllegalArgumentException("\"fens\" must be a non-empty array of strings.");
+            }
+            this.fens = (List<String>) fens;
+            this.moveTime = (long) number(request, "movetime", 0, Long.MAX_VALUE);
+            double depth = number(request, "depth", this.moveTime > 0 ? AdvancedMinimax.MAX_DEPTH : DEFAULT_DEPTH,
+                    AdvancedMinimax.MAX_DEPTH);
+            if (depth < 1) {
+                throw new IllegalArgumentException("\"depth\" must be at least 1.");
+            }
+            this.depth = (int) depth;
+            long timeout = (long) number(request, "timeout", DEFAULT_TIMEOUT_MILLIS, Long.MAX_VALUE);
+            this.deadline = System.currentTimeMillis() + timeout;
+        }
+
+        private static double number(Map<String, Object> request, String name, double defaultValue, double max) {
+            Object value = request.getOrDefault(name, defaultValue);
+            if (!(value instanceof Double) || (Double) value < 0 || (Double) value > max) {
+                throw new IllegalArgumentException("\"" + name + "\" must be a number between 0 and " + (long) max + ".");
+            }
+            return (Double) value;
+        }
+    }
+
+    /**
+     * Runs a server on the loopback address until the process is killed.
+     * @param args : {@code [port] [threads] [hashMb]}
+     * @throws IOException if the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int hashMb = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        AnalysisServer server = new AnalysisServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                threads, 64 * threads, new TranspositionTable(hashMb));
+        server.start();
+        System.out.println("Analysing on http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort() + "/analyse");
+    }
+}
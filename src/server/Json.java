@@ -0,0 +1,206 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for the analysis service: a parser into maps, lists, strings, doubles, booleans and nulls,
+ * and string quoting for the responses, which are otherwise written by hand.
+ */
+final class Json {
+
+    private final String text;
+    private int index;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a JSON document.
+     * @param text : the document
+     * @return a {@code Map}, {@code List}, {@code String}, {@code Double}, {@code Boolean}, or null.
+     * @throws IllegalArgumentException if {@code text} is not valid JSON.
+     */
+    static Object parse(String text) {
+        Json parser = new Json(text);
+        Object value = parser.value();
+        parser.skipWhitespace();
+        if (parser.index != text.length()) {
+            throw parser.error("end of input");
+        }
+        return value;
+    }
+
+    /**
+     * @param value : any string
+     * @return {@code value} as a JSON string literal, quotes included.
+     */
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if (this.index >= this.text.length()) {
+            throw error("a value");
+        }
+        char c = this.text.charAt(this.index);
+        switch (c) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default: return number();
+        }
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        this.index++;
+        skipWhitespace();
+        if (peek() == '}') {
+            this.index++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("a key");
+            }
+            String key = string();
+            skipWhitespace();
+            expect(':');
+            object.put(key, value());
+            skipWhitespace();
+            if (peek() == ',') {
+                this.index++;
+            } else {
+                expect('}');
+                return object;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        List<Object> array = new ArrayList<>();
+        this.index++;
+        skipWhitespace();
+        if (peek() == ']') {
+            this.index++;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            skipWhitespace();
+            if (peek() == ',') {
+                this.index++;
+            } else {
+                expect(']');
+                return array;
+            }
+        }
+    }
+
+    private String string() {
+        StringBuilder string = new StringBuilder();
+        this.index++;
+        while (true) {
+            if (this.index >= this.text.length()) {
+                throw error("'\"'");
+            }
+            char c = this.text.charAt(this.index++);
+            if (c == '"') {
+                return string.toString();
+            }
+            if (c != '\\') {
+                string.append(c);
+                continue;
+            }
+            char escaped = this.index < this.text.length() ? this.text.charAt(this.index++) : ' ';
+            switch (escaped) {
+                case '"': case '\\': case '/': string.append(escaped); break;
+                case 'b': string.append('\b'); break;
+                case 'f': string.append('\f'); break;
+                case 'n': string.append('\n'); break;
+                case 'r': string.append('\r'); break;
+                case 't': string.append('\t'); break;
+                case 'u':
+                    if (this.index + 4 > this.text.length()) {
+                        throw error("four hex digits");
+                    }
+                    try {
+                        string.append((char) Integer.parseInt(this.text.substring(this.index, this.index + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("four hex digits");
+                    }
+                    this.index += 4;
+                    break;
+                default: throw error("an escape sequence");
+            }
+        }
+    }
+
+    private Double number() {
+        int start = this.index;
+        while (this.index < this.text.length() && "+-0123456789.eE".indexOf(this.text.charAt(this.index)) >= 0) {
+            this.index++;
+        }
+        try {
+            return Double.valueOf(this.text.substring(start, this.index));
+        } catch (NumberFormatException e) {
+            this.index = start;
+            throw error("a value");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if (!this.text.startsWith(word, this.index)) {
+            throw error("a value");
+        }
+        this.index += word.length();
+        return value;
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error("'" + c + "'");
+        }
+        this.index++;
+    }
+
+    private char peek() {
+        return this.index < this.text.length() ? this.text.charAt(this.index) : '\0';
+    }
+
+    private void skipWhitespace() {
+        while (this.index < this.text.length() && Character.isWhitespace(this.text.charAt(this.index))) {
+            this.index++;
+        }
+    }
+
+    private IllegalArgumentException error(String expected) {
+        return new IllegalArgumentException("Invalid JSON: expected " + expected + " at offset " + this.index + ".");
+    }
+}
@@ -0,0 +1,70 @@
+package test;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import minimax.BitboardEvaluator;
+import minimax.LazySmpMinimax;
+import minimax.TranspositionTable;
+
+/**
+ * Scaling benchmark for the Lazy SMP search. For 1, 2, 4, 8 and 16 threads, searches a fixed set of
+ * positions to a fixed depth with a fresh transposition table, and prints the time to reach that depth
+ * and the nodes searched per second across all threads.
+ * Usage: {@code java test.LazySmpBenchmark [depth]} (default depth 4).
+ */
+public class LazySmpBenchmark {
+
+    private static final String[] POSITIONS = {
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "2r3k1/pp3ppp/2n1b3/3p4/3P4/2PB1N2/P4PPP/R5K1 b - - 0 1"
+    };
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    /**
+     * Runs the benchmark.
+     * @param args : optionally, the search depth
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        System.out.println("Lazy SMP scaling at depth " + depth + " on "
+                + Runtime.getRuntime().availableProcessors() + " available processors");
+        System.out.println(String.format("%8s %14s %14s %12s %10s", "threads", "time (ms)", "nodes", "NPS", "speedup"));
+
+        double baseline = 0;
+        for (int threads : THREAD_COUNTS) {
+            LazySmpMinimax search = new LazySmpMinimax(depth, new BitboardEvaluator(), threads, new TranspositionTable(64));
+
+            // warm up the JIT on the first position
+            search.findBestMove(loadBoard(POSITIONS[0]));
+
+            long nodes = 0;
+            long start = System.nanoTime();
+            for (String fen : POSITIONS) {
+                search.getTranspositionTable().clear();
+                Move move = search.findBestMove(loadBoard(fen));
+                if (move == null) {
+                    throw new IllegalStateException("No move found for " + fen);
+                }
+                nodes += search.getNodeCount();
+            }
+            double millis = (System.nanoTime() - start) / 1e6;
+            search.shutdown();
+
+            if (threads == 1) {
+                baseline = millis;
+            }
+            System.out.println(String.format("%8d %14.1f %14d %12.0f %9.2fx",
+                    threads, millis, nodes, nodes / (millis / 1000), baseline / millis));
+        }
+    }
+
+    private static Board loadBoard(String fen) {
+        Board board = new Board();
+        board.loadFromFen(fen);
+        return board;
+    }
+}
@@ -0,0 +1,82 @@
+package test;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.move.MoveList;
+
+import minimax.AdvancedMinimax;
+import minimax.PieceSquareEvaluator;
+import minimax.SearchOptions;
+import minimax.TranspositionTable;
+
+/**
+ * Regression harness for the selective search features. Searches a fixed set of tactical positions
+ * (the first ten of "Win at Chess") with a fixed time budget per position, once for every combination of
+ * null-move pruning and late move reductions, and prints the average depth reached, how many positions
+ * were solved, and how many nodes were searched and pruned.
+ * Usage: {@code java test.SelectiveSearchRegression [millis per position]} (default 1000).
+ */
+public class SelectiveSearchRegression {
+
+    // FEN and best move in SAN
+    private static final String[][] POSITIONS = {
+        {"2rr3k/pp3pp1/1nnqbN1p/3pN3/2pP4/2P3Q1/PPB4P/R4RK1 w - - 0 1", "Qg6"},
+        {"8/7p/5k2/5p2/p1p2P2/Pr1pPK2/1P1R3P/8 b - - 0 1", "Rxb2"},
+        {"5rk1/1ppb3p/p1pb4/6q1/3P1p1r/2P1R2P/PP1BQ1P1/5RKN w - - 0 1", "Rg3"},
+        {"r1bq2rk/pp3pbp/2p1p1pQ/7P/3P4/2PB1N2/PP3PPR/2KR4 w - - 0 1", "Qxh7"},
+        {"5k2/6pp/p1qN4/1p1p4/3P4/2PKP2Q/PP3r2/3R4 b - - 0 1", "Qc4"},
+        {"7k/p7/1R5K/6r1/6p1/6P1/8/8 w - - 0 1", "Rb7"},
+        {"rnbqkb1r/pppp1ppp/8/4P3/6n1/7P/PPPNPPP1/R1BQKBNR b KQkq - 0 1", "Ne3"},
+        {"r4q1k/p2bR1rp/2p2Q1N/5p2/5p2/2P5/PP3PPP/R5K1 w - - 0 1", "Rf7"},
+        {"3q1rk1/p4pp1/2pb3p/3p4/6Pr/1PNQ4/P1PB1PP1/4RRK1 b - - 0 1", "Bh2"},
+        {"2br2k1/2q3rn/p2NppQ1/2p1P3/Pp5R/4P3/1P3PPP/3R2K1 w - - 0 1", "Rxh7"}
+    };
+
+    /**
+     * Runs the harness.
+     * @param args : optionally, the time budget per position in milliseconds
+     */
+    public static void main(String[] args) {
+        long budget = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        SearchOptions[] configurations = {
+            new SearchOptions(false, false),
+            new SearchOptions(true, false),
+            new SearchOptions(false, true),
+            new SearchOptions(true, true)
+        };
+        System.out.println("Selective search regression, " + POSITIONS.length + " positions, " + budget + " ms each");
+        System.out.println(String.format("%-10s %-6s %10s %8s %12s %12s %12s",
+                "null-move", "LMR", "avg depth", "solved", "nodes", "null prunes", "reductions"));
+
+        for (SearchOptions options : configurations) {
+            int depthSum = 0;
+            int solved = 0;
+            long nodes = 0;
+            long nullMovePrunes = 0;
+            long reductions = 0;
+            for (String[] position : POSITIONS) {
+                Board board = new Board();
+                board.loadFromFen(position[0]);
+                AdvancedMinimax search = new AdvancedMinimax(AdvancedMinimax.MAX_DEPTH, new PieceSquareEvaluator(),
+                        new TranspositionTable(), options);
+                Move move = search.findBestMove(board, budget);
+                depthSum += search.getLastDepth();
+                nodes += search.getNodeCount();
+                nullMovePrunes += search.getNullMovePrunes();
+                reductions += search.getLateMoveReductions();
+                if (move != null && move.equals(parseSan(position[0], position[1]))) {
+                    solved++;
+                }
+            }
+            System.out.println(String.format("%-10s %-6s %10.1f %5d/%-2d %12d %12d %12d",
+                    options.isNullMovePruning() ? "on" : "off", options.isLateMoveReductions() ? "on" : "off",
+                    (double) depthSum / POSITIONS.length, solved, POSITIONS.length, nodes, nullMovePrunes, reductions));
+        }
+    }
+
+    private static Move parseSan(String fen, String san) {
+        MoveList moves = new MoveList(fen);
+        moves.loadFromSan(san);
+        return moves.getFirst();
+    }
+}
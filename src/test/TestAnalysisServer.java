@@ -0,0 +1,141 @@
+package test;
+
+import minimax.TranspositionTable;
+import server.AnalysisServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Drives the analysis server over HTTP on the loopback address.
+ */
+public class TestAnalysisServer {
+
+    private static final String MATE_IN_ONE = "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1";
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private AnalysisServer server;
+
+    private AnalysisServer start(int threads, int capacity) throws IOException {
+        this.server = new AnalysisServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), threads, capacity,
+                new TranspositionTable(4));
+        this.server.start();
+        return this.server;
+    }
+
+    /**
+     * Stops the server.
+     */
+    @AfterEach
+    void tearDown() {
+        if (this.server != null) {
+            this.server.stop();
+        }
+    }
+
+    private HttpRequest post(String json) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + this.server.getAddress().getPort() + "/analyse"))
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpResponse<String> send(String json) throws Exception {
+        return this.client.send(post(json), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String line(List<String> lines, String fen) {
+        return lines.stream().filter(line -> line.contains("\"fen\": \"" + fen + "\"")).findFirst().orElseThrow();
+    }
+
+    /**
+     * Checks that a batch comes back one line per position and a final line, with the best move, score and
+     * principal variation, and errors for positions that cannot be analysed.
+     */
+    @Test
+    void testBatch() throws Exception {
+        start(2, 8);
+        HttpResponse<String> response = send("{\"fens\": [\"" + START + "\", \"" + MATE_IN_ONE + "\", \"not a fen\", "
+                + "\"R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1\"], \"depth\": 3}");
+        Assertions.assertEquals(200, response.statusCode());
+        Assertions.assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElse(""));
+        List<String> lines = response.body().lines().collect(Collectors.toList());
+        Assertions.assertEquals(5, lines.size(), response.body());
+        Assertions.assertTrue(lines.get(4).startsWith("{\"done\": true, \"positions\": 4, \"errors\": 2"), lines.get(4));
+
+        String mate = line(lines, MATE_IN_ONE);
+        Assertions.assertTrue(mate.contains("\"bestmove\": \"a1a8\", \"score\": \"mate 1\"") && mate.contains("\"pv\": [\"a1a8\"], \"nodes\""), mate);
+        String start = line(lines, START);
+        Assertions.assertTrue(start.matches(".*\"index\": 0, .*\"score\": \"cp -?\\d+\", \"depth\": 3, \"pv\": \\[\"\\w{4}\".*"), start);
+        Assertions.assertTrue(line(lines, "not a fen").contains("\"error\": \"invalid FEN\""));
+        Assertions.assertTrue(line(lines, "R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1").contains("\"error\": \"checkmate\""));
+
+        // searches share the transposition table across requests
+        send("{\"fens\": [\"" + START + "\"], \"depth\": 3}");
+        HttpResponse<String> status = this.client.send(HttpRequest.newBuilder(URI.create("http://localhost:"
+                + this.server.getAddress().getPort() + "/status")).build(), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertTrue(status.body().trim().matches(".*\"analysed\": 3, .*\"ttHits\": [1-9].*"), status.body());
+    }
+
+    /**
+     * Checks that malformed requests, batches beyond the capacity and batches that do not fit in the capacity
+     * left are refused at once.
+     */
+    @Test
+    void testBackpressure() throws Exception {
+        start(1, 2);
+        Assertions.assertEquals(400, send("{\"fens\": [").statusCode());
+        Assertions.assertEquals(400, send("{\"fens\": [\"" + START + "\"], \"depth\": -1}").statusCode());
+        Assertions.assertEquals(413, send("{\"fens\": [\"" + START + "\", \"" + START + "\", \"" + START + "\"]}").statusCode());
+
+        CompletableFuture<HttpResponse<String>> busy = this.client.sendAsync(
+                post("{\"fens\": [\"" + START + "\", \"" + START + "\"], \"movetime\": 500}"), HttpResponse.BodyHandlers.ofString());
+        long end = System.currentTimeMillis() + 5000;
+        while (this.server.getPending() < 2 && System.currentTimeMillis() < end) {
+            Thread.sleep(5);
+        }
+        HttpResponse<String> refused = send("{\"fens\": [\"" + MATE_IN_ONE + "\"]}");
+        Assertions.assertEquals(503, refused.statusCode());
+        Assertions.assertEquals("1", refused.headers().firstValue("Retry-After").orElse(""));
+
+        Assertions.assertEquals(200, busy.get().statusCode());
+        Assertions.assertEquals(0, this.server.getPending());
+        Assertions.assertEquals(200, send("{\"fens\": [\"" + MATE_IN_ONE + "\"]}").statusCode());
+    }
+
+    /**
+     * Checks that the timeout cuts the running search short and skips the positions not yet started.
+     */
+    @Test
+    void testTimeout() throws Exception {
+        start(1, 4);
+        long begin = System.nanoTime();
+        HttpResponse<String> response = send("{\"fens\": [\"" + START + "\", \"" + MATE_IN_ONE + "\"], "
+                + "\"movetime\": 5000, \"timeout\": 300}");
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+        Assertions.assertTrue(millis < 2000, millis + " ms");
+        List<String> lines = response.body().lines().collect(Collectors.toList());
+        Assertions.assertEquals(3, lines.size(), response.body());
+        Assertions.assertTrue(line(lines, START).contains("\"truncated\": true"), lines.get(0));
+        // the first search may leave a few milliseconds, in which the mate is found
+        String mate = line(lines, MATE_IN_ONE);
+        Assertions.assertTrue(mate.contains("\"error\": \"timeout\"") || mate.contains("\"score\": \"mate 1\""), mate);
+
+        // past the timeout, positions are not even started
+        response = send("{\"fens\": [\"" + START + "\", \"" + MATE_IN_ONE + "\"], \"timeout\": 0}");
+        lines = response.body().lines().collect(Collectors.toList());
+        Assertions.assertEquals(2, lines.stream().filter(line -> line.contains("\"error\": \"timeout\"")).count(),
+                response.body());
+    }
+}
@@ -0,0 +1,165 @@
+package test;
+
+import bitboard.Position;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import endgame.Bitbase;
+import endgame.Bitbases;
+import minimax.AdvancedMinimax;
+import minimax.BitboardEvaluator;
+import minimax.BitboardMinimax;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests the endgame bitbases against textbook positions, and the searches that probe them.
+ */
+public class TestBitbases {
+
+    static Bitbases bitbases;
+
+    /**
+     * Generates the bitbases once for all tests.
+     */
+    @BeforeAll
+    static void generate() {
+        bitbases = new Bitbases();
+    }
+
+    private static Bitbases.Outcome probe(String fen) {
+        Board board = new Board();
+        board.loadFromFen(fen);
+        Bitbases.Outcome outcome = bitbases.probe(board);
+        Assertions.assertEquals(outcome, bitbases.probe(new Position(fen)), fen);
+        return outcome;
+    }
+
+    /**
+     * Checks king and pawn endings whose result depends on the opposition, the rook pawn and the side to move,
+     * with either colour holding the pawn.
+     */
+    @Test
+    void testKingAndPawn() {
+        // king on the sixth in front of its pawn wins whoever is to move
+        Assertions.assertEquals(Bitbases.Outcome.WIN, probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.LOSS, probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1"));
+        // behind its pawn on the sixth, the king cannot take the opposition whoever is to move
+        Assertions.assertEquals(Bitbases.Outcome.DRAW, probe("4k3/8/4P3/4K3/8/8/8/8 w - - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.DRAW, probe("4k3/8/4P3/4K3/8/8/8/8 b - - 0 1"));
+        // with the pawn on the seventh, black to move is stalemated, white to move wins with Kd6 or Kf6
+        Assertions.assertEquals(Bitbases.Outcome.WIN, probe("4k3/4P3/4K3/8/8/8/8/8 w - - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.DRAW, probe("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1"));
+        // the same positions with colours reversed
+        Assertions.assertEquals(Bitbases.Outcome.WIN, probe("8/8/8/8/8/4k3/4p3/4K3 b - - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.DRAW, probe("8/8/8/8/8/4k3/4p3/4K3 w - - 0 1"));
+        // a king in the corner holds the rook pawn, and a king just outside the square of a passed pawn is too late
+        Assertions.assertEquals(Bitbases.Outcome.DRAW, probe("k7/8/8/8/8/2K5/P7/8 w - - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.WIN, probe("5k2/8/8/1P6/8/8/8/K7 w - - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.DRAW, probe("5k2/8/8/1P6/8/8/8/K7 b - - 0 1"));
+    }
+
+    /**
+     * Checks that rook and queen endings are won, except for stalemates and a rook left hanging.
+     */
+    @Test
+    void testRookAndQueen() {
+        Assertions.assertEquals(Bitbases.Outcome.WIN, probe("8/8/8/3k4/8/8/8/R3K3 w - - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.LOSS, probe("8/8/8/3k4/8/8/8/R3K3 b - - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.DRAW, probe("8/8/8/8/8/2k5/1R6/7K b - - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.WIN, probe("8/8/8/8/8/2k5/1R6/7K w - - 0 1"));
+        // stalemate with black to move, but white to move mates or wins
+        Assertions.assertEquals(Bitbases.Outcome.DRAW, probe("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.WIN, probe("k7/2Q5/1K6/8/8/8/8/8 w - - 0 1"));
+        // black's queen is left hanging
+        Assertions.assertEquals(Bitbases.Outcome.DRAW, probe("8/8/8/8/8/8/6q1/4k2K w - - 0 1"));
+        // other material and castling rights are not covered
+        Assertions.assertEquals(Bitbases.Outcome.UNKNOWN, probe("8/8/8/3k4/8/8/8/N3K3 w - - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.UNKNOWN, probe("8/8/8/3k4/8/8/8/R3K3 w Q - 0 1"));
+        Assertions.assertEquals(Bitbases.Outcome.UNKNOWN, probe("8/8/8/3k4/8/8/4P3/R3K3 w - - 0 1"));
+    }
+
+    /**
+     * Checks that a bitbase written to a file maps back identically, and that {@code Bitbases} writes the
+     * missing files on first use and maps them afterwards.
+     */
+    @Test
+    void testFiles(@TempDir Path directory) {
+        Bitbases written = new Bitbases(directory);
+        for (Bitbase.Endgame endgame : Bitbase.Endgame.values()) {
+            Path file = directory.resolve(endgame + ".bitbase");
+            Assertions.assertTrue(Files.exists(file));
+            Bitbase loaded = Bitbase.load(file);
+            Assertions.assertEquals(endgame, loaded.getEndgame());
+            Assertions.assertEquals(bitbases.get(endgame).countWins(), loaded.countWins());
+            Assertions.assertEquals(bitbases.get(endgame).countWins(), written.get(endgame).countWins());
+        }
+        Bitbases mapped = new Bitbases(directory);
+        Board board = new Board();
+        board.loadFromFen("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1");
+        Assertions.assertEquals(Bitbases.Outcome.LOSS, mapped.probe(board));
+    }
+
+    /**
+     * Checks that both searches score bitbase positions as exact draws or wins and play the winning move.
+     */
+    @Test
+    void testSearch() {
+        AdvancedMinimax search = new AdvancedMinimax(4, new BitboardEvaluator());
+        search.setBitbases(bitbases);
+        Board board = new Board();
+        // only Kd6 or Kf6 keeps the win; the pawn push is a draw
+        board.loadFromFen("4k3/8/8/4K3/4P3/8/8/8 w - - 0 1");
+        Move move = search.findBestMove(board);
+        Assertions.assertTrue(move.equals(new Move(Square.E5, Square.D6)) || move.equals(new Move(Square.E5, Square.F6)),
+                move.toString());
+        Assertions.assertTrue(search.getLastScore() >= Bitbases.WIN_SCORE);
+        Assertions.assertTrue(search.getSearchStats().getBitbaseHits() > 0);
+
+        board.loadFromFen("4k3/8/4P3/4K3/8/8/8/8 w - - 0 1");
+        search.findBestMove(board);
+        Assertions.assertTrue(search.getLastScore() == 0, Double.toString(search.getLastScore()));
+
+        BitboardMinimax bitboard = new BitboardMinimax(4, new BitboardEvaluator());
+        bitboard.setBitbases(bitbases);
+        board.loadFromFen("4k3/8/8/4K3/4P3/8/8/8 w - - 0 1");
+        move = bitboard.findBestMove(board);
+        Assertions.assertTrue(move.equals(new Move(Square.E5, Square.D6)) || move.equals(new Move(Square.E5, Square.F6)),
+                move.toString());
+        Assertions.assertTrue(bitboard.getSearchStats().getBitbaseHits() > 0);
+    }
+
+    /**
+     * Checks that the bitboard search converts a rook ending won by the bitbase into mate, rather than
+     * shuffling between won positions until the game is drawn by repetition, and that positions of the game
+     * loaded from a chesslib {@code Board} count as repetitions.
+     */
+    @Test
+    void testBitboardSearchMates() {
+        Board board = new Board();
+        board.loadFromFen("8/8/8/4k3/8/8/1R6/6K1 w - - 0 1");
+        for (String move : "g1g2 e5e4 g2g1 e4e5".split(" ")) {
+            board.doMove(move);
+        }
+        Position position = new Position();
+        position.loadGame(board);
+        Assertions.assertTrue(position.isRepetition());
+        Assertions.assertEquals(board.getFen(), position.toFen());
+        Assertions.assertFalse(new Position(board).isRepetition());
+
+        BitboardMinimax search = new BitboardMinimax(6, new BitboardEvaluator());
+        search.setBitbases(bitbases);
+        board.loadFromFen("8/8/8/4k3/8/8/1R6/6K1 w - - 0 1");
+        for (int ply = 0; ply < 100 && !board.isMated() && !board.isDraw(); ply++) {
+            board.doMove(search.findBestMove(board));
+        }
+        Assertions.assertTrue(board.isMated(), board.getFen());
+    }
+}
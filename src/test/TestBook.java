@@ -0,0 +1,188 @@
+package test;
+
+import book.BookStrategy;
+import book.PolyglotBook;
+import book.PolyglotKey;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import minimax.AdvancedMinimax;
+import minimax.BitboardEvaluator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests the opening book against a small book generated from a few lines of play.
+ */
+public class TestBook {
+
+    private static final List<String> LINES = Arrays.asList(
+        "e2e4 e7e5 g1f3 b8c6 f1c4 g8f6 e1g1",
+        "e2e4 e7e5 g1f3 b8c6 f1b5",
+        "e2e4 c7c5 g1f3",
+        "d2d4 d7d5 g1f3 g8f6",
+        "g1f3 d7d5 d2d4 c7c6"
+    );
+
+    @TempDir
+    Path directory;
+
+    PolyglotKey keys = PolyglotKey.generated();
+    PolyglotBook book;
+
+    /**
+     * Writes the test book.
+     */
+    @BeforeEach
+    void setUp() {
+        Path file = directory.resolve("test.bin");
+        PolyglotBook.write(file, keys, LINES);
+        book = new PolyglotBook(file, keys);
+    }
+
+    /**
+     * Checks the moves and weights found for a few positions, including a transposition and castling,
+     * which the format writes as the king capturing its rook.
+     */
+    @Test
+    void testLookup() {
+        Board board = new Board();
+        List<PolyglotBook.Entry> moves = book.lookup(board);
+        Assertions.assertEquals(3, moves.size());
+        for (PolyglotBook.Entry entry : moves) {
+            int expected = entry.getMove().toString().equals("e2e4") ? 3 : 1;
+            Assertions.assertEquals(expected, entry.getWeight(), entry.toString());
+        }
+        Assertions.assertEquals(new Move(Square.E2, Square.E4),
+                book.select(board, PolyglotBook.Selection.BEST, new Random(1)));
+
+        // 1. d4 d5 2. Nf3 and 1. Nf3 d5 2. d4 transpose, so the position has the black moves of both lines
+        for (String move : "d2d4 d7d5 g1f3".split(" ")) {
+            board.doMove(move);
+        }
+        Set<String> transposed = new HashSet<>();
+        for (PolyglotBook.Entry entry : book.lookup(board)) {
+            transposed.add(entry.getMove().toString());
+        }
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("g8f6", "c7c6")), transposed);
+        board.doMove("h7h6");
+        Assertions.assertTrue(book.lookup(board).isEmpty());
+
+        board = new Board();
+        for (String move : "e2e4 e7e5 g1f3 b8c6 f1c4 g8f6".split(" ")) {
+            board.doMove(move);
+        }
+        Move castle = book.select(board, PolyglotBook.Selection.BEST, new Random(1));
+        Assertions.assertEquals(new Move(Square.E1, Square.G1), castle);
+        Assertions.assertTrue(board.legalMoves().contains(castle));
+        Assertions.assertEquals(18, book.size());
+    }
+
+    /**
+     * Checks that weighted selection only plays book moves, and plays them roughly in proportion to their weights.
+     */
+    @Test
+    void testWeightedSelection() {
+        Board board = new Board();
+        Random random = new Random(7);
+        int kingPawn = 0;
+        Set<String> played = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            Move move = book.select(board, PolyglotBook.Selection.WEIGHTED, random);
+            played.add(move.toString());
+            if (move.toString().equals("e2e4")) {
+                kingPawn++;
+            }
+        }
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("e2e4", "d2d4", "g1f3")), played);
+        Assertions.assertTrue(kingPawn > 520 && kingPawn < 680, Integer.toString(kingPawn));
+    }
+
+    /**
+     * Checks that the strategy plays from the book while it can and searches once out of it.
+     */
+    @Test
+    void testBookStrategy() {
+        BookStrategy strategy = new BookStrategy(book, new AdvancedMinimax(2, new BitboardEvaluator()),
+                PolyglotBook.Selection.BEST, new Random(1));
+        Board board = new Board();
+        Move first = strategy.findBestMove(board);
+        Assertions.assertTrue(strategy.isLastMoveFromBook());
+        Assertions.assertEquals(new Move(Square.E2, Square.E4), first);
+        board.doMove(first);
+
+        board.doMove("a7a6");
+        Move move = strategy.findBestMove(board, 1000);
+        Assertions.assertFalse(strategy.isLastMoveFromBook());
+        Assertions.assertTrue(board.legalMoves().contains(move));
+        Assertions.assertEquals(1, strategy.getBookMoves());
+    }
+
+    /**
+     * Checks that a book keyed with the standard Polyglot table is refused with the generated table, rather
+     * than opened and never hit, and that the generated table is not taken for the standard one.
+     */
+    @Test
+    void testStandardBookNeedsStandardTable() throws IOException {
+        Assertions.assertFalse(keys.isStandard());
+        // one entry for the initial position: 1. e4 (from e2 = file 4, rank 1; to e4 = file 4, rank 3)
+        ByteBuffer entry = ByteBuffer.allocate(PolyglotBook.ENTRY_SIZE);
+        entry.putLong(PolyglotKey.STANDARD_START_KEY);
+        entry.putShort((short) (1 << 9 | 4 << 6 | 3 << 3 | 4)).putShort((short) 1);
+        Path file = directory.resolve("standard.bin");
+        Files.write(file, entry.array());
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new PolyglotBook(file, keys));
+        Assertions.assertTrue(e.getMessage().contains(PolyglotKey.TABLE_PROPERTY), e.getMessage());
+    }
+
+    /**
+     * Checks that a key table read from a text file indexes pieces and the side to move as the Polyglot
+     * format does, and that the en passant file only enters the key when the capture is possible.
+     */
+    @Test
+    void testKeys() throws IOException {
+        StringBuilder text = new StringBuilder("static const uint64_t Random64[781] = {\n");
+        long[] random = new long[PolyglotKey.TABLE_SIZE];
+        Random numbers = new Random(3);
+        for (int i = 0; i < random.length; i++) {
+            random[i] = numbers.nextLong();
+            text.append(String.format("   0x%016XULL,%n", random[i]));
+        }
+        Path file = directory.resolve("random64.txt");
+        Files.writeString(file, text.append("};\n"));
+        PolyglotKey loaded = PolyglotKey.fromFile(file);
+
+        // white king on e1 (kind 11), black king on e8 (kind 10), no castling rights, white to move
+        Board board = new Board();
+        board.loadFromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        Assertions.assertEquals(random[64 * 11 + 4] ^ random[64 * 10 + 60] ^ random[780], loaded.key(board));
+
+        board = new Board();
+        // 1. e4 leaves an en passant square nobody can use, so the key ignores it...
+        board.doMove("e2e4");
+        Board noEnPassant = new Board();
+        noEnPassant.loadFromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1");
+        Assertions.assertEquals(keys.key(noEnPassant), keys.key(board));
+        // ...but after 1. e4 a6 2. e5 d5 white can take en passant, so it counts
+        board.doMove("a7a6");
+        board.doMove("e4e5");
+        board.doMove("d7d5");
+        noEnPassant.loadFromFen("rnbqkbnr/1pp1pppp/p7/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq - 0 3");
+        Assertions.assertNotEquals(keys.key(noEnPassant), keys.key(board));
+    }
+}
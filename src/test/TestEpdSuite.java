@@ -0,0 +1,82 @@
+package test;
+
+import com.github.bhlangonijr.chesslib.Square;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import minimax.AdvancedMinimax;
+import minimax.BitboardEvaluator;
+import minimax.TranspositionTable;
+import tools.EpdSuite;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Tests the EPD test-suite runner on a few Win At Chess positions.
+ */
+public class TestEpdSuite {
+
+    private static final String SUITE = "# Win At Chess\n"
+            + "2rr3k/pp3pp1/1nnqbN1p/3pN3/2pP4/2P3Q1/PPB4P/R4RK1 w - - bm Qg6; id \"WAC.001\";\n"
+            + "\n"
+            + "r1bq2rk/pp3pbp/2p1p1pQ/7P/3P4/2PB1N2/PP3PPR/2KR4 w - - bm Qxh7+; id \"WAC.004\";\n"
+            + "5k2/6pp/p1qN4/1p1p4/3P4/2PKP2Q/PP3r2/3R4 b - - bm Qc4+; id \"WAC.005\";\n"
+            + "4k3/8/4p3/3p4/8/8/8/3QK3 w - - am Qxd5;\n";
+
+    /**
+     * Checks that operations are read, moves matched in either notation, and ids defaulted to line numbers.
+     */
+    @Test
+    void testParse(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("wac.epd");
+        Files.writeString(file, SUITE);
+        List<EpdSuite.Position> positions = EpdSuite.load(file);
+        Assertions.assertEquals(4, positions.size());
+        Assertions.assertEquals("WAC.001", positions.get(0).getId());
+        Assertions.assertEquals("2rr3k/pp3pp1/1nnqbN1p/3pN3/2pP4/2P3Q1/PPB4P/R4RK1 w - - 0 1", positions.get(0).getFen());
+        Assertions.assertEquals(List.of(new Move(Square.G3, Square.G6)), positions.get(0).getBestMoves());
+        Assertions.assertEquals(List.of(new Move(Square.H6, Square.H7)), positions.get(1).getBestMoves());
+        Assertions.assertEquals("6", positions.get(3).getId());
+        Assertions.assertTrue(positions.get(3).getBestMoves().isEmpty());
+        Assertions.assertEquals(List.of(new Move(Square.D1, Square.D5)), positions.get(3).getAvoidMoves());
+        Assertions.assertFalse(positions.get(3).isSolvedBy(new Move(Square.D1, Square.D5)));
+        Assertions.assertTrue(positions.get(3).isSolvedBy(new Move(Square.D1, Square.D2)));
+
+        EpdSuite.Position coordinates = EpdSuite.parse("4k3/8/8/8/8/8/8/R3K3 w Q - bm e1c1 Ra8+; c0 \"castles\";", "x");
+        Assertions.assertEquals(List.of(new Move(Square.E1, Square.C1), new Move(Square.A1, Square.A8)),
+                coordinates.getBestMoves());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> EpdSuite.parse("4k3/8/8/8/8/8/8/R3K3 w - - bm Qa8;", "x"));
+    }
+
+    /**
+     * Runs the suite on two threads with iterative deepening, and checks that the positions are solved and the
+     * solutions reported no later than the end of the searches.
+     */
+    @Test
+    void testRun() {
+        EpdSuite suite = new EpdSuite(() -> new AdvancedMinimax(4, new BitboardEvaluator(), new TranspositionTable(4)), 2);
+        suite.setMoveTime(2000);
+        List<EpdSuite.Position> positions = List.of(
+                EpdSuite.parse("r1bq2rk/pp3pbp/2p1p1pQ/7P/3P4/2PB1N2/PP3PPR/2KR4 w - - bm Qxh7+; id \"WAC.004\";", "1"),
+                EpdSuite.parse("4k3/8/4p3/3p4/8/8/8/3QK3 w - - am Qxd5;", "2"),
+                EpdSuite.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - bm Ra8#;", "3"));
+        List<EpdSuite.Result> results = suite.run(positions);
+        Assertions.assertEquals(3, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            EpdSuite.Result result = results.get(i);
+            Assertions.assertSame(positions.get(i), result.getPosition());
+            Assertions.assertTrue(result.isSolved(), result.getPosition().getId() + ": " + result.getMove());
+            Assertions.assertTrue(result.getSolutionDepth() >= 1);
+            Assertions.assertTrue(result.getSolutionNodes() > 0 && result.getSolutionNodes() <= result.getNodes());
+            Assertions.assertTrue(result.getSolutionNanos() > 0 && result.getSolutionNanos() <= result.getNanos());
+        }
+        // the mate in one is found by the first iteration
+        Assertions.assertEquals(1, results.get(2).getSolutionDepth());
+    }
+}
@@ -1,13 +1,17 @@
 package test;
 
 import com.github.bhlangonijr.chesslib.*;
+import com.github.bhlangonijr.chesslib.move.Move;
 
+import bitboard.Position;
 import minimax.*;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
+
 
 /**
  * Testing the basic behaviors of the Minimax algorithms, mostly ensuring
@@ -70,6 +74,22 @@ public class TestMinimax {
         Assertions.assertTrue(board.isMated());
     }
 
+    /**
+     * Tests that the searches with the default evaluator see a stalemate at the horizon: taking the rook
+     * with the queen stalemates the lone king, while taking it with the king wins.
+     */
+    @Test
+    void testAvoidStalemate() {
+        String fen = "k7/8/1rK5/8/8/8/8/1Q6 w - - 0 1";
+        Strategy[] searches = {new SimpleMinimax(1), new AdvancedMinimax(1),
+                new BitboardMinimax(1, new BitboardEvaluator())};
+        for (Strategy search : searches) {
+            board.loadFromFen(fen);
+            board.doMove(search.findBestMove(board));
+            Assertions.assertFalse(board.isStaleMate(), search.getClass().getSimpleName());
+        }
+    }
+
     /**
      * Another test for finding mate in 1
      */
@@ -140,4 +160,525 @@ public class TestMinimax {
         Assertions.assertEquals(miniMoveAdv, "d4g1");
 
     }
+
+    /**
+     * Checks that searching with a transposition table finds the same moves as searching without one,
+     * and that the table is actually used.
+     */
+    @Test
+    void testTranspositionTable() {
+        TranspositionTable tt = new TranspositionTable(1);
+        SimpleMinimax mini2 = new SimpleMinimax(2, new MaterialEvaluator(), tt);
+        AdvancedMinimax mini3 = new AdvancedMinimax(2, new MaterialEvaluator(), new TranspositionTable(1));
+
+        String fen = "5k1r/q7/8/8/3Q4/8/8/3K2r1 w - - 0 1";
+        board.loadFromFen(fen);
+        Board board2 = board.clone();
+        Assertions.assertEquals(mini2.findBestMove(board).toString(), "d4g1");
+        Assertions.assertEquals(mini3.findBestMove(board).toString(), "d4g1");
+        Assertions.assertTrue(board.equals(board2));
+
+        // a second search of the same position should be answered largely from the table
+        mini2.findBestMove(board);
+        Assertions.assertTrue(tt.getHits() > 0);
+        Assertions.assertTrue(tt.getCutoffs() > 0);
+    }
+
+    /**
+     * Checks that moves survive the round trip through the transposition table encoding.
+     */
+    @Test
+    void testMoveEncoding() {
+        board.loadFromFen("4k3/1P6/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        for (com.github.bhlangonijr.chesslib.move.Move move : board.legalMoves()) {
+            int encoded = TranspositionTable.encodeMove(move);
+            Assertions.assertNotEquals(TranspositionTable.NO_MOVE, encoded);
+            Assertions.assertEquals(move, TranspositionTable.decodeMove(encoded));
+        }
+    }
+
+    /**
+     * Checks that the time-bounded search returns a legal move within its budget and leaves the board intact.
+     */
+    @Test
+    void testTimeBoundedSearch() {
+        AdvancedMinimax timed = new AdvancedMinimax(4, new MaterialEvaluator(), new TranspositionTable(1));
+        String fen = "r1bqkb1r/pppp1ppp/2n2n2/3Q4/2B1P3/8/PB3PPP/RN2K1NR w KQkq - 0 1";
+        board.loadFromFen(fen);
+        Board board2 = board.clone();
+
+        long start = System.nanoTime();
+        com.github.bhlangonijr.chesslib.move.Move move = timed.findBestMove(board, 500);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        Assertions.assertTrue(board.equals(board2));
+        Assertions.assertTrue(board.legalMoves().contains(move));
+        Assertions.assertTrue(timed.getLastDepth() >= 1);
+        Assertions.assertEquals(move, timed.getPrincipalVariation().get(0));
+        Assertions.assertTrue(elapsedMillis < 2000, "search overran its budget: " + elapsedMillis + " ms");
+        board.doMove(move);
+        Assertions.assertTrue(board.isMated());
+    }
+
+    /**
+     * Checks that the bitboard evaluator agrees with the string-based material evaluator
+     * on positions that are not checkmate or stalemate.
+     */
+    @Test
+    void testBitboardEvaluatorMatchesMaterial() {
+        BoardEvaluator material = new MaterialEvaluator();
+        BoardEvaluator bitboard = new BitboardEvaluator();
+        String[] fens = {
+            "5k2/8/8/2qn4/2bQr3/8/8/3K4 w - - 0 1",
+            "r1bqkb1r/pppp1ppp/2n2n2/3Q4/2B1P3/8/PB3PPP/RN2K1NR w KQkq - 0 1",
+            "5k1r/q7/8/8/3Q4/8/8/3K2r1 w - - 0 1"
+        };
+        for (String fen : fens) {
+            board.loadFromFen(fen);
+            Assertions.assertEquals(material.evaluationScheme(board), bitboard.evaluationScheme(board), 1e-9);
+        }
+    }
+
+    /**
+     * Checks that the incrementally updated evaluation always matches a full rescoring,
+     * through captures, castling, en passant and promotions, and after undoing every move.
+     */
+    @Test
+    void testIncrementalEvaluator() {
+        PieceSquareEvaluator eval = new PieceSquareEvaluator();
+        java.util.Random random = new java.util.Random(42);
+        String[] fens = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "4k3/1P6/8/3pP3/8/8/6p1/4K3 w - d6 0 1"
+        };
+        for (String fen : fens) {
+            board.loadFromFen(fen);
+            double start = eval.fullEvaluation(board);
+            eval.reset(board);
+            int played = 0;
+            for (int i = 0; i < 40; i++) {
+                java.util.List<com.github.bhlangonijr.chesslib.move.Move> moves = board.legalMoves();
+                if (moves.isEmpty()) {
+                    break;
+                }
+                com.github.bhlangonijr.chesslib.move.Move move = moves.get(random.nextInt(moves.size()));
+                eval.onMove(move);
+                board.doMove(move);
+                played++;
+                Assertions.assertEquals(eval.fullEvaluation(board), eval.evaluationScheme(board), 1e-9);
+            }
+            for (int i = 0; i < played; i++) {
+                board.undoMove();
+                eval.onUndo();
+            }
+            Assertions.assertEquals(start, eval.evaluationScheme(board), 1e-9);
+        }
+
+        // searching with the incremental evaluator must still leave the board untouched
+        board.loadFromFen("6k1/5ppp/p7/P7/5b2/7P/1r3PP1/3R2K1 w - - 0 1");
+        Board board2 = board.clone();
+        board.doMove(new AdvancedMinimax(3, new PieceSquareEvaluator()).findBestMove(board));
+        Assertions.assertTrue(board.isMated());
+        board.undoMove();
+        Assertions.assertTrue(board.equals(board2));
+    }
+
+    /**
+     * Checks that the Lazy SMP search leaves the caller's board untouched, finds forced moves,
+     * and with one thread agrees with the serial search.
+     */
+    @Test
+    void testLazySmp() {
+        String fen = "5k1r/q7/8/8/3Q4/8/8/3K2r1 w - - 0 1";
+        board.loadFromFen(fen);
+        Board board2 = board.clone();
+
+        LazySmpMinimax parallel = new LazySmpMinimax(2, new BitboardEvaluator(), 4);
+        Assertions.assertEquals("d4g1", parallel.findBestMove(board).toString());
+        Assertions.assertTrue(board.equals(board2));
+        Assertions.assertTrue(parallel.getNodeCount() > 0);
+        parallel.shutdown();
+
+        LazySmpMinimax single = new LazySmpMinimax(3, new PieceSquareEvaluator(), 1);
+        AdvancedMinimax serial = new AdvancedMinimax(3, new PieceSquareEvaluator(), new TranspositionTable());
+        board.loadFromFen("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4");
+        Assertions.assertEquals(serial.iterativeDeepening(board, 3, Long.MAX_VALUE), single.findBestMove(board));
+    }
+
+    /**
+     * Checks that the root-splitting parallel search picks exactly the move the serial search picks, when the
+     * serial search also runs without delta pruning. The last position is one where, with delta pruning, the
+     * younger brothers' windows made the two searches disagree.
+     */
+    @Test
+    void testRootSplitMatchesSerial() {
+        String[] fens = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+            "2r3k1/pp3ppp/2n1b3/3p4/3P4/2PB1N2/P4PPP/R5K1 b - - 0 1",
+            "5k2/8/8/2qn4/2bQr3/8/8/3K4 w - - 0 1",
+            "rnbqkb1r/pppp1ppp/8/4P3/6n1/7P/PPPNPPP1/R1BQKBNR b KQkq - 0 1"
+        };
+        SearchOptions options = new SearchOptions();
+        options.setDeltaPruning(false);
+        BoardEvaluator[] evals = {new BitboardEvaluator(), new PieceSquareEvaluator()};
+        for (BoardEvaluator eval : evals) {
+            AdvancedMinimax serial = new AdvancedMinimax(3, eval, options);
+            RootSplitMinimax parallel = new RootSplitMinimax(3, eval);
+            for (String fen : fens) {
+                board.loadFromFen(fen);
+                Board board2 = board.clone();
+                Assertions.assertEquals(serial.findBestMove(board), parallel.findBestMove(board), fen);
+                Assertions.assertEquals(serial.getLastScore(), parallel.getLastScore(), 1e-9, fen);
+                Assertions.assertTrue(board.equals(board2));
+            }
+        }
+    }
+
+    /**
+     * Tests that move ordering searches fewer nodes than generator order on the positions above,
+     * without changing the score of the search.
+     */
+    @Test
+    void testMoveOrderingReducesNodes() {
+        String[] fens = {
+            "6k1/5ppp/p7/P7/5b2/7P/1r3PP1/3R2K1 w - - 0 1",
+            "r1bqkb1r/pppp1ppp/2n2n2/3Q4/2B1P3/8/PB3PPP/RN2K1NR w KQkq - 0 1",
+            "5k2/8/8/2qn4/2bQr3/8/8/3K4 w - - 0 1",
+            "5k1r/q7/8/8/3Q4/8/8/3K2r1 w - - 0 1",
+            "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4"
+        };
+        AdvancedMinimax ordered = new AdvancedMinimax(3);
+        AdvancedMinimax unordered = new AdvancedMinimax(3);
+        unordered.setMoveOrdering(false);
+        long orderedNodes = 0;
+        long unorderedNodes = 0;
+        for (String fen : fens) {
+            board.loadFromFen(fen);
+            ordered.findBestMove(board);
+            unordered.findBestMove(board);
+            Assertions.assertEquals(unordered.getLastScore(), ordered.getLastScore(), 1e-9, fen);
+            orderedNodes += ordered.getNodeCount();
+            unorderedNodes += unordered.getNodeCount();
+        }
+        Assertions.assertTrue(orderedNodes < unorderedNodes,
+                "ordered: " + orderedNodes + " nodes, unordered: " + unorderedNodes + " nodes");
+    }
+
+    /**
+     * Tests static exchange evaluation on an undefended and a defended pawn, and on an en passant capture.
+     */
+    @Test
+    void testStaticExchange() {
+        StaticExchange see = new StaticExchange();
+        board.loadFromFen("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1");
+        Assertions.assertEquals(100, see.evaluate(board, new Move(Square.E1, Square.E5)));
+
+        // the knight wins a pawn but is lost to the bishop on f6 behind which the queen x-rays
+        board.loadFromFen("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1");
+        Assertions.assertEquals(-225, see.evaluate(board, new Move(Square.D3, Square.E5)));
+
+        board.loadFromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        Assertions.assertEquals(100, see.evaluate(board, new Move(Square.E5, Square.D6)));
+    }
+
+    /**
+     * Tests that iterative deepening with aspiration windows ends with the same score as a single
+     * full-window search to the same depth.
+     */
+    @Test
+    void testAspirationWindowsMatchFullWindow() {
+        String[] fens = {
+            "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+            "2r3k1/pp3ppp/2n1b3/3p4/3P4/2PB1N2/P4PPP/R5K1 b - - 0 1",
+            "5k2/8/8/2qn4/2bQr3/8/8/3K4 w - - 0 1"
+        };
+        for (String fen : fens) {
+            board.loadFromFen(fen);
+            AdvancedMinimax fullWindow = new AdvancedMinimax(4, new PieceSquareEvaluator());
+            AdvancedMinimax aspiration = new AdvancedMinimax(4, new PieceSquareEvaluator());
+            fullWindow.findBestMove(board);
+            aspiration.iterativeDeepening(board, 4, Long.MAX_VALUE);
+            Assertions.assertEquals(4, aspiration.getLastDepth(), fen);
+            Assertions.assertEquals(fullWindow.getLastScore(), aspiration.getLastScore(), 1e-9, fen);
+        }
+    }
+
+    /**
+     * Tests that null-move pruning and late move reductions still find the mates above, that they
+     * report what they pruned, and that they are off by default.
+     */
+    @Test
+    void testSelectiveSearch() {
+        AdvancedMinimax selective = new AdvancedMinimax(5, new PieceSquareEvaluator(), new SearchOptions(true, true));
+        String[] mates = {
+            "6k1/5ppp/p7/P7/5b2/7P/1r3PP1/3R2K1 w - - 0 1",
+            "r1bqkb1r/pppp1ppp/2n2n2/3Q4/2B1P3/8/PB3PPP/RN2K1NR w KQkq - 0 1"
+        };
+        for (String fen : mates) {
+            board.loadFromFen(fen);
+            board.doMove(selective.findBestMove(board));
+            Assertions.assertTrue(board.isMated(), fen);
+        }
+
+        board.loadFromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        selective.findBestMove(board);
+        Assertions.assertTrue(selective.getNullMovePrunes() > 0);
+        Assertions.assertTrue(selective.getLateMoveReductions() > 0);
+
+        AdvancedMinimax fullWidth = new AdvancedMinimax(3, new PieceSquareEvaluator());
+        fullWidth.findBestMove(board);
+        Assertions.assertEquals(0, fullWidth.getNullMovePrunes());
+        Assertions.assertEquals(0, fullWidth.getLateMoveReductions());
+    }
+
+    /**
+     * Tests that the search statistics are filled in, add up, and are not changed by a later search.
+     */
+    @Test
+    void testSearchStats() {
+        board.loadFromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        AdvancedMinimax search = new AdvancedMinimax(4, new PieceSquareEvaluator(), new TranspositionTable());
+        search.iterativeDeepening(board, 4, Long.MAX_VALUE);
+        SearchStats stats = search.getSearchStats();
+        Assertions.assertEquals(search.getNodeCount(), stats.getNodes());
+        Assertions.assertTrue(stats.getQuiescenceNodes() > 0);
+        Assertions.assertTrue(stats.getNodes() > stats.getQuiescenceNodes());
+        Assertions.assertTrue(stats.getEvaluations() > 0);
+        Assertions.assertTrue(stats.getBetaCutoffs() >= stats.getFirstMoveCutoffs());
+        Assertions.assertTrue(stats.getFirstMoveCutoffRate() > 0.5);
+        Assertions.assertEquals(4, stats.getCompletedDepth());
+        for (int depth = 2; depth <= 4; depth++) {
+            Assertions.assertTrue(stats.getIterationNanos(depth) >= stats.getIterationNanos(depth - 1));
+            Assertions.assertTrue(stats.getIterationNodes(depth) > stats.getIterationNodes(depth - 1));
+        }
+        Assertions.assertTrue(stats.getElapsedNanos() >= stats.getIterationNanos(4));
+        for (int depth = 1; depth <= 4; depth++) {
+            Assertions.assertTrue(board.legalMoves().contains(stats.getIterationMove(depth)));
+        }
+        Assertions.assertEquals(search.getPrincipalVariation().get(0), stats.getIterationMove(4));
+
+        long nodes = stats.getNodes();
+        board.loadFromFen("6k1/5ppp/p7/P7/5b2/7P/1r3PP1/3R2K1 w - - 0 1");
+        search.findBestMove(board);
+        Assertions.assertEquals(nodes, stats.getNodes());
+        Assertions.assertNotEquals(nodes, search.getSearchStats().getNodes());
+
+        RootSplitMinimax split = new RootSplitMinimax(3, new PieceSquareEvaluator());
+        split.findBestMove(board);
+        Assertions.assertEquals(split.getNodeCount(), split.getSearchStats().getNodes());
+        Assertions.assertEquals(3, split.getSearchStats().getCompletedDepth());
+    }
+
+    /**
+     * Tests that the search on the engine's own board representation finds the same scores as the chesslib
+     * search, finds mates, and leaves the board alone.
+     */
+    @Test
+    void testBitboardMinimaxMatchesAdvanced() {
+        String[] fens = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "2rr3k/pp3pp1/1nnqbN1p/3pN3/2pP4/2P3Q1/PPB4P/R4RK1 w - - 0 1"
+        };
+        for (String fen : fens) {
+            board.loadFromFen(fen);
+            AdvancedMinimax chesslib = new AdvancedMinimax(4, new PieceSquareEvaluator());
+            BitboardMinimax bitboard = new BitboardMinimax(4, new PieceSquareEvaluator());
+            chesslib.findBestMove(board);
+            Move move = bitboard.findBestMove(board);
+            Assertions.assertEquals(fen, board.getFen());
+            Assertions.assertTrue(board.legalMoves().contains(move), fen);
+            Assertions.assertEquals(chesslib.getLastScore(), bitboard.getLastScore(), 1e-9, fen);
+        }
+
+        BitboardMinimax search = new BitboardMinimax(3, new BitboardEvaluator(), new TranspositionTable(),
+                new SearchOptions(true, true));
+        board.loadFromFen("r1bqkb1r/pppp1ppp/2n2n2/3Q4/2B1P3/8/PB3PPP/RN2K1NR w KQkq - 0 1");
+        board.doMove(search.findBestMove(board, 2000));
+        Assertions.assertTrue(board.isMated());
+        Assertions.assertTrue(search.getSearchStats().getNodes() > 0);
+        Assertions.assertFalse(search.getPrincipalVariation().isEmpty());
+
+        // every search starts exactly one transposition table generation
+        int[] generations = new int[1];
+        TranspositionTable counting = new TranspositionTable(1) {
+            @Override
+            public void newSearch() {
+                generations[0]++;
+                super.newSearch();
+            }
+        };
+        BitboardMinimax counted = new BitboardMinimax(2, new BitboardEvaluator(), counting);
+        board.loadFromFen(fens[0]);
+        counted.findBestMove(board);
+        counted.findBestMove(board, 1000);
+        counted.findBestMove(new Position(fens[0]));
+        Assertions.assertEquals(3, generations[0]);
+    }
+
+    /**
+     * Tests that, once warmed up, searching the engine's own {@code Position} allocates nothing on the heap,
+     * with and without the transposition table and selective search, and that a {@code Position} loaded from
+     * a chesslib {@code Board} is the same as one loaded from its FEN.
+     */
+    @Test
+    void testBitboardSearchAllocatesNothing() {
+        board.loadFromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        board.doMove(new Move(Square.E1, Square.G1));
+        board.doMove(new Move(Square.C7, Square.C5));
+        Position position = new Position(board);
+        Position fromFen = new Position(board.getFen());
+        Assertions.assertEquals(fromFen.toFen(), position.toFen());
+        Assertions.assertEquals(fromFen.getKey(), position.getKey());
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        BitboardMinimax[] searchers = {
+            new BitboardMinimax(4, new PieceSquareEvaluator()),
+            new BitboardMinimax(4, new BitboardEvaluator(), new TranspositionTable(4), new SearchOptions(true, true))
+        };
+        for (BitboardMinimax search : searchers) {
+            for (int i = 0; i < 5; i++) {
+                search.findBestMove(position);
+                search.iterativeDeepening(position, 4, Long.MAX_VALUE);
+            }
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 5; i++) {
+                search.findBestMove(position);
+                search.iterativeDeepening(position, 4, Long.MAX_VALUE);
+            }
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+            Assertions.assertEquals(0, allocated, "bytes allocated by 10 searches");
+            Assertions.assertEquals(fromFen.toFen(), position.toFen());
+        }
+    }
+
+    /**
+     * Tests the tapered evaluator: the initial position is even, mirrored positions score opposite, scores on
+     * a {@code Board} and a {@code Position} agree, pawn structures are served from the pawn hash table when
+     * seen again, and a passed pawn is worth more than a blocked one.
+     */
+    @Test
+    void testTaperedEvaluator() {
+        TaperedEvaluator eval = new TaperedEvaluator();
+        TaperedEvaluator uncached = new TaperedEvaluator(null);
+        Assertions.assertEquals(0, eval.evaluationScheme(board), 1e-9);
+
+        String[][] mirrored = {
+            {"r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+                "rnbqk2r/pppp1ppp/5n2/2b1p3/4P3/2N2N2/PPPP1PPP/R1BQKB1R b KQkq - 4 4"},
+            {"8/5k2/8/3P4/8/2p5/4K3/8 w - - 0 1", "8/4k3/2P5/8/3p4/8/5K2/8 b - - 0 1"}
+        };
+        for (String[] pair : mirrored) {
+            board.loadFromFen(pair[0]);
+            double score = eval.evaluationScheme(board);
+            Assertions.assertEquals(score, eval.evaluationScheme(new Position(pair[0])), 1e-9);
+            Assertions.assertEquals(score, uncached.evaluationScheme(board), 1e-9);
+            board.loadFromFen(pair[1]);
+            Assertions.assertEquals(-score, eval.evaluationScheme(board), 1e-9, pair[1]);
+        }
+
+        PawnHashTable pawns = eval.getPawnHashTable();
+        pawns.resetStatistics();
+        board.loadFromFen(mirrored[0][0]);
+        eval.evaluationScheme(board);
+        board.doMove(new Move(Square.F3, Square.G5));
+        eval.evaluationScheme(board);
+        Assertions.assertEquals(2, pawns.getHits());
+        Assertions.assertEquals(1.0, pawns.getHitRate(), 1e-9);
+
+        long entry = pawns.store(42L, -321, 1234);
+        Assertions.assertEquals(-321, PawnHashTable.middlegameOf(entry));
+        Assertions.assertEquals(1234, PawnHashTable.endgameOf(entry));
+        Assertions.assertEquals(entry, pawns.probe(42L));
+
+        // the same material, but the black pawn on c7 stops the d-pawn from being passed
+        board.loadFromFen("4k3/p7/8/3P4/8/8/8/4K3 w - - 0 1");
+        double passed = eval.evaluationScheme(board);
+        board.loadFromFen("4k3/2p5/8/3P4/8/8/8/4K3 w - - 0 1");
+        double stopped = eval.evaluationScheme(board);
+        Assertions.assertTrue(passed > stopped + 0.2, passed + " vs " + stopped);
+    }
+
+    /**
+     * Tests that caching evaluations changes neither the scores nor the moves of a search, while serving most
+     * leaves from the cache, and that the wrapped evaluator is only called on misses.
+     */
+    @Test
+    void testCachedEvaluator() {
+        long[] calls = new long[1];
+        BoardEvaluator counting = new BoardEvaluator() {
+            private final TaperedEvaluator eval = new TaperedEvaluator();
+
+            @Override
+            public double evaluationScheme(Board board) {
+                calls[0]++;
+                return eval.evaluationScheme(board);
+            }
+        };
+        CachedEvaluator cached = new CachedEvaluator(counting, 1);
+        board.loadFromFen("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4");
+        AdvancedMinimax plain = new AdvancedMinimax(4, new TaperedEvaluator());
+        AdvancedMinimax search = new AdvancedMinimax(4, cached);
+        Assertions.assertEquals(plain.findBestMove(board), search.findBestMove(board));
+        Assertions.assertEquals(plain.getLastScore(), search.getLastScore(), 1e-9);
+        Assertions.assertEquals(plain.getNodeCount(), search.getNodeCount());
+        Assertions.assertEquals(cached.getMisses(), calls[0]);
+        Assertions.assertTrue(cached.getHitRate() > 0.1, cached.toString());
+
+        calls[0] = 0;
+        cached.clear();
+        double score = cached.evaluationScheme(board);
+        Assertions.assertEquals(score, cached.evaluationScheme(board));
+        Assertions.assertEquals(1, calls[0]);
+        Assertions.assertEquals(1, cached.getHits());
+
+        BitboardMinimax bitboard = new BitboardMinimax(4, new CachedEvaluator(new TaperedEvaluator()));
+        BitboardMinimax uncached = new BitboardMinimax(4, new TaperedEvaluator());
+        Assertions.assertEquals(uncached.findBestMove(board), bitboard.findBestMove(board));
+        Assertions.assertEquals(uncached.getLastScore(), bitboard.getLastScore(), 1e-9);
+    }
+
+    /**
+     * Tests pondering: a hit answers with the move found in the background, a miss cancels the background
+     * search promptly, and a move that did not come from the search is not pondered on.
+     */
+    @Test
+    void testPondering() {
+        AdvancedMinimax search = new AdvancedMinimax(4, new BitboardEvaluator(), new TranspositionTable(4));
+        Ponderer ponderer = new Ponderer(search);
+        Move move = search.findBestMove(board);
+        board.doMove(move);
+        Assertions.assertTrue(ponderer.start(board, move));
+        Move predicted = ponderer.getPredictedMove();
+        Assertions.assertTrue(board.legalMoves().contains(predicted));
+        Move answer = ponderer.finish(predicted);
+        board.doMove(predicted);
+        Assertions.assertTrue(board.legalMoves().contains(answer));
+        Assertions.assertEquals(1, ponderer.getHits());
+
+        board.doMove(answer);
+        Assertions.assertTrue(ponderer.start(board, answer));
+        Move other = null;
+        for (Move legal : board.legalMoves()) {
+            if (!legal.equals(ponderer.getPredictedMove())) {
+                other = legal;
+                break;
+            }
+        }
+        long start = System.nanoTime();
+        Assertions.assertNull(ponderer.finish(other));
+        Assertions.assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        Assertions.assertEquals(1, ponderer.getMisses());
+        Assertions.assertFalse(ponderer.isPondering());
+
+        board.doMove(other);
+        Move notSearched = board.legalMoves().get(0);
+        board.doMove(notSearched);
+        Assertions.assertFalse(ponderer.start(board, notSearched));
+        ponderer.shutdown();
+    }
 }
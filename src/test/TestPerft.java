@@ -0,0 +1,118 @@
+package test;
+
+import bitboard.MoveGenerator;
+import bitboard.Moves;
+import bitboard.Position;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import tools.Perft;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Validates chesslib move generation, as the search walks it, and the engine's own {@code bitboard} move
+ * generation against published perft counts and against each other.
+ */
+public class TestPerft {
+
+    /**
+     * Checks every counting mode against the known counts of the standard positions at shallow depths.
+     */
+    @Test
+    void testKnownCounts() {
+        for (Perft.Position position : Perft.Position.values()) {
+            Board board = position.newBoard();
+            Board board2 = board.clone();
+            for (int depth = 1; depth <= 3; depth++) {
+                long expected = position.getExpectedCount(depth);
+                Assertions.assertEquals(expected, Perft.perft(board, depth), position + " plain " + depth);
+                Assertions.assertEquals(expected, Perft.perftBulk(board, depth), position + " bulk " + depth);
+                Assertions.assertEquals(expected, Perft.perftParallel(board, depth, 2), position + " parallel " + depth);
+            }
+            Assertions.assertTrue(board.equals(board2));
+        }
+    }
+
+    /**
+     * Checks that divide lists every root move once and that its counts add up to the total.
+     */
+    @Test
+    void testDivide() {
+        Board board = Perft.Position.KIWIPETE.newBoard();
+        long total = 0;
+        for (long count : Perft.divide(board, 3).values()) {
+            total += count;
+        }
+        Assertions.assertEquals(48, Perft.divide(board, 3).size());
+        Assertions.assertEquals(Perft.Position.KIWIPETE.getExpectedCount(3), total);
+        Assertions.assertEquals(Perft.divide(board, 3), Perft.divide(board, 3, 4));
+    }
+
+    /**
+     * Checks the engine's own move generator against the known counts, one ply deeper than chesslib above.
+     */
+    @Test
+    void testBitboardKnownCounts() {
+        for (Perft.Position position : Perft.Position.values()) {
+            Position own = new Position(position.getFen());
+            for (int depth = 1; depth <= 4; depth++) {
+                long expected = position.getExpectedCount(depth);
+                Assertions.assertEquals(expected, Perft.perftBulk(own, depth), position + " bitboard " + depth);
+            }
+            Assertions.assertEquals(position.getExpectedCount(2), Perft.perft(own, 2), position + " bitboard plain");
+            Assertions.assertEquals(position.getFen(), own.toFen());
+        }
+    }
+
+    /**
+     * Checks that both generators produce the same moves with the same subtree sizes below each of them,
+     * which locates any disagreement more precisely than a total.
+     */
+    @Test
+    void testBitboardDivideMatchesChesslib() {
+        for (Perft.Position position : Perft.Position.values()) {
+            Map<String, Long> expected = new LinkedHashMap<>();
+            for (Map.Entry<Move, Long> entry : Perft.divide(position.newBoard(), 2).entrySet()) {
+                expected.put(entry.getKey().toString(), entry.getValue());
+            }
+            Assertions.assertEquals(expected, Perft.divide(new Position(position.getFen()), 2), position.toString());
+        }
+    }
+
+    /**
+     * Checks that making and unmaking every move restores the position, that the incrementally updated
+     * keys (of the whole position and of its pawns) always equal ones computed from scratch, and that moves convert to the chesslib moves they stand for.
+     */
+    @Test
+    void testMakeUnmake() {
+        for (Perft.Position position : Perft.Position.values()) {
+            Position own = new Position(position.getFen());
+            Board board = position.newBoard();
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int count = MoveGenerator.generateLegalMoves(own, moves, 0);
+            for (int i = 0; i < count; i++) {
+                String fen = own.toFen();
+                long key = own.getKey();
+                long pawnKey = own.getPawnKey();
+                own.makeMove(moves[i]);
+                Assertions.assertEquals(own.computeKey(), own.getKey(), Moves.toString(moves[i]));
+                Assertions.assertEquals(Position.pawnKey(own.getBitboard(0), own.getBitboard(6)), own.getPawnKey(),
+                        Moves.toString(moves[i]));
+                Move move = Moves.toMove(moves[i]);
+                board.doMove(move);
+                Assertions.assertEquals(board.getFen().split(" ")[0], own.toFen().split(" ")[0], move.toString());
+                board.undoMove();
+                own.unmakeMove();
+                Assertions.assertEquals(fen, own.toFen());
+                Assertions.assertEquals(key, own.getKey());
+                Assertions.assertEquals(pawnKey, own.getPawnKey());
+                Assertions.assertEquals(moves[i], MoveGenerator.find(own, move));
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package test;
+
+import minimax.AdvancedMinimax;
+import minimax.PieceSquareEvaluator;
+import minimax.TranspositionTable;
+import tools.PgnAnnotator;
+import tools.PgnReader;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests the streaming PGN reader and the annotator built on it.
+ */
+public class TestPgnAnnotator {
+
+    private static final String ARCHIVE = "[Event \"First\"]\n"
+            + "[White \"A \\\"quoted\\\" name\"]\n"
+            + "[Result \"0-1\"]\n"
+            + "\n"
+            + "1. e4 {best by test} e5 2. Nf3 (2. f4 exf4 (2... d5)) Nc6 $1 3.Bc4 Nd4?! 4. Nxe5 Qg5 ; a trap\n"
+            + "5. Nxf7 Qxg2 6. Rf1 Qxe4+ 7. Be2 Nf3# 0-1\n"
+            + "% an escaped line\n"
+            + "[Event \"Second\"]\n"
+            + "[SetUp \"1\"]\n"
+            + "[FEN \"6k1/5ppp/8/8/8/8/8/R5K1 b - - 0 40\"]\n"
+            + "[Result \"*\"]\n"
+            + "\n"
+            + "40... h6 41. Ra8+ Kh7 *\n"
+            + "\n"
+            + "[Event \"Third\"]\n"
+            + "[Result \"*\"]\n"
+            + "\n"
+            + "1. e4 e5 2. Ke3 *\n";
+
+    private static List<PgnReader.Game> readAll(String pgn) throws Exception {
+        List<PgnReader.Game> games = new ArrayList<>();
+        try (PgnReader reader = new PgnReader(new StringReader(pgn))) {
+            PgnReader.Game game;
+            while ((game = reader.next()) != null) {
+                games.add(game);
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Checks that games are split, tags unescaped, and only the main line kept from the movetext.
+     */
+    @Test
+    void testReader() throws Exception {
+        List<PgnReader.Game> games = readAll(ARCHIVE);
+        Assertions.assertEquals(3, games.size());
+        Assertions.assertEquals("A \"quoted\" name", games.get(0).getTags().get("White"));
+        Assertions.assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bc4", "Nd4?!", "Nxe5", "Qg5", "Nxf7", "Qxg2", "Rf1",
+                "Qxe4+", "Be2", "Nf3#"), PgnReader.parseMoves(games.get(0).getMovetext()));
+        Assertions.assertEquals("6k1/5ppp/8/8/8/8/8/R5K1 b - - 0 40", games.get(1).getTags().get("FEN"));
+        Assertions.assertEquals(List.of("h6", "Ra8+", "Kh7"), PgnReader.parseMoves(games.get(1).getMovetext()));
+        Assertions.assertEquals(games.get(0).getTags(), readAll(games.get(0).toString()).get(0).getTags());
+    }
+
+    /**
+     * Annotates the archive on two threads with little room in flight, and checks that the games come out in
+     * order with an evaluation after every move but the mate, and that the illegal game is copied unchanged.
+     */
+    @Test
+    void testAnnotate() throws Exception {
+        PgnAnnotator annotator = new PgnAnnotator(
+                () -> new AdvancedMinimax(2, new PieceSquareEvaluator(), new TranspositionTable(1)), 2, 2);
+        annotator.setInFlight(2);
+        StringWriter out = new StringWriter();
+        annotator.annotate(new PgnReader(new StringReader(ARCHIVE)), out);
+        Assertions.assertEquals(3, annotator.getGames());
+        Assertions.assertEquals(1, annotator.getErrors());
+        Assertions.assertEquals(13 + 3, annotator.getPositions());
+
+        List<PgnReader.Game> games = readAll(out.toString());
+        Assertions.assertEquals(3, games.size());
+        Assertions.assertEquals("First", games.get(0).getTags().get("Event"));
+        Assertions.assertEquals("Second", games.get(1).getTags().get("Event"));
+        Assertions.assertEquals("Third", games.get(2).getTags().get("Event"));
+
+        String first = games.get(0).getMovetext();
+        Assertions.assertTrue(first.startsWith("1. e4 {"), first);
+        // twelve evaluations, then the mate in one
+        Assertions.assertEquals(12, first.split("\\{[+-]\\d+\\.\\d\\d/2}").length - 1, first);
+        Assertions.assertTrue(first.contains("Be2 {-M1} 7... Nf3# 0-1"), first);
+        Assertions.assertEquals(PgnReader.parseMoves(readAll(ARCHIVE).get(0).getMovetext()).size(),
+                PgnReader.parseMoves(first).size());
+        Assertions.assertTrue(games.get(1).getMovetext().startsWith("40... h6 {+"), games.get(1).getMovetext());
+        Assertions.assertEquals("1. e4 e5 2. Ke3 *", games.get(2).getMovetext());
+    }
+
+    /**
+     * Checks the format of evaluations.
+     */
+    @Test
+    void testFormat() {
+        Assertions.assertEquals("+0.35/6", PgnAnnotator.formatEvaluation(0.35, 6));
+        Assertions.assertEquals("-1.20/4", PgnAnnotator.formatEvaluation(-1.2, 4));
+        Assertions.assertEquals("+M3", PgnAnnotator.formatEvaluation(1e6 - 5, 5));
+        Assertions.assertEquals("-M1", PgnAnnotator.formatEvaluation(-(1e6 - 2), 5));
+    }
+}
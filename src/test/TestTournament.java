@@ -0,0 +1,101 @@
+package test;
+
+import com.github.bhlangonijr.chesslib.Board;
+
+import minimax.SimpleMinimax;
+import minimax.MaterialEvaluator;
+import tools.MatchStatistics;
+import tools.Tournament;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tests the self-play tournament runner, its PGN output and its statistics.
+ */
+public class TestTournament {
+
+    /**
+     * Plays a short match on two threads and checks that every game is written as PGN whose moves replay
+     * to its result, and counted.
+     */
+    @Test
+    void testMatch() {
+        String opening = "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3";
+        Tournament tournament = new Tournament("depth1", () -> new SimpleMinimax(1, new MaterialEvaluator()),
+                "depth2", () -> new SimpleMinimax(2, new MaterialEvaluator()), List.of(opening));
+        tournament.setThreads(2);
+        tournament.setMaxPlies(40);
+        StringWriter pgn = new StringWriter();
+        tournament.setPgn(pgn);
+        MatchStatistics statistics = tournament.run(4);
+
+        Assertions.assertEquals(4, statistics.getGames());
+        String[] games = pgn.toString().split("\n\n(?=\\[Event)");
+        Assertions.assertEquals(4, games.length);
+        double firstScore = 0;
+        for (String game : games) {
+            Assertions.assertTrue(game.contains("[FEN \"" + opening + "\"]"), game);
+            Matcher result = Pattern.compile("\\[Result \"([^\"]+)\"]").matcher(game);
+            Assertions.assertTrue(result.find());
+            String movetext = game.substring(game.lastIndexOf("]\n") + 2).trim();
+            Assertions.assertTrue(movetext.startsWith("3. "), movetext);
+            Assertions.assertTrue(movetext.endsWith(result.group(1)), movetext);
+            // the ply count matches the moves written
+            String[] tokens = movetext.replaceAll("\\d+\\.+", "").trim().split("\\s+");
+            Matcher plies = Pattern.compile("\\[PlyCount \"(\\d+)\"]").matcher(game);
+            Assertions.assertTrue(plies.find());
+            Assertions.assertEquals(Integer.parseInt(plies.group(1)), tokens.length - 1, movetext);
+            boolean firstIsWhite = game.contains("[White \"depth1\"]");
+            double whiteScore = result.group(1).equals("1-0") ? 1 : result.group(1).equals("0-1") ? 0 : 0.5;
+            firstScore += firstIsWhite ? whiteScore : 1 - whiteScore;
+        }
+        Assertions.assertEquals(firstScore, statistics.getWins() + 0.5 * statistics.getDraws());
+    }
+
+    /**
+     * Checks the Elo, its error bar and the SPRT against hand-computed values.
+     */
+    @Test
+    void testStatistics() {
+        MatchStatistics statistics = new MatchStatistics();
+        for (int i = 0; i < 100; i++) {
+            statistics.add(i < 60 ? 1 : i < 80 ? 0.5 : 0);
+        }
+        Assertions.assertEquals(0.7, statistics.getScore(), 1e-12);
+        Assertions.assertEquals(147.19, statistics.getElo(), 0.01);
+        // per-game standard deviation 0.4, so the score is 0.7 +/- 0.0784
+        double expected = (MatchStatistics.elo(0.7 + 0.0784) - MatchStatistics.elo(0.7 - 0.0784)) / 2;
+        Assertions.assertEquals(expected, statistics.getEloError(), 0.1);
+        Assertions.assertEquals(0, MatchStatistics.elo(MatchStatistics.expectedScore(0)), 1e-12);
+        Assertions.assertEquals(100, MatchStatistics.elo(MatchStatistics.expectedScore(100)), 1e-9);
+
+        Assertions.assertTrue(statistics.getLogLikelihoodRatio(0, 50) > Math.log(19));
+        Assertions.assertEquals(MatchStatistics.Decision.ACCEPT_H1, statistics.sprt(0, 50, 0.05, 0.05));
+        Assertions.assertEquals(MatchStatistics.Decision.ACCEPT_H0, statistics.sprt(250, 300, 0.05, 0.05));
+
+        MatchStatistics even = new MatchStatistics();
+        even.add(1);
+        even.add(0);
+        Assertions.assertEquals(MatchStatistics.Decision.CONTINUE, even.sprt(-5, 5, 0.05, 0.05));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> even.add(0.25));
+    }
+
+    /**
+     * Checks that EPD lines are read as positions, and FENs kept as they are.
+     */
+    @Test
+    void testOpenings() {
+        String fen = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1";
+        Assertions.assertEquals(fen, Tournament.toFen(fen));
+        String epd = "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - bm Bb5; id \"Ruy Lopez\";";
+        Assertions.assertEquals("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 0 1", Tournament.toFen(epd));
+        new Board().loadFromFen(Tournament.toFen(epd));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Tournament.toFen("8/8/8 w"));
+    }
+}
@@ -0,0 +1,160 @@
+package test;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import uci.UciEngine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Writer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the UCI front end through a pipe, as a GUI would.
+ */
+public class TestUci {
+
+    private PipedWriter commands;
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+    private Thread engine;
+
+    /**
+     * Starts an engine reading from a pipe and collecting its responses line by line.
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        this.commands = new PipedWriter();
+        PipedReader in = new PipedReader(this.commands);
+        Writer out = new Writer() {
+            private final StringBuilder line = new StringBuilder();
+
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                for (int i = offset; i < offset + length; i++) {
+                    if (buffer[i] == '\n') {
+                        responses.add(line.toString().trim());
+                        line.setLength(0);
+                    } else {
+                        line.append(buffer[i]);
+                    }
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        this.engine = new Thread(() -> new UciEngine(in, out).run());
+        this.engine.start();
+    }
+
+    /**
+     * Quits the engine.
+     */
+    @AfterEach
+    void tearDown() throws Exception {
+        send("quit");
+        this.engine.join(5000);
+        Assertions.assertFalse(this.engine.isAlive());
+    }
+
+    private void send(String command) throws IOException {
+        this.commands.write(command + "\n");
+        this.commands.flush();
+    }
+
+    /**
+     * Waits for a response starting with {@code prefix}, skipping the others.
+     */
+    private String expect(String prefix, long timeoutMillis) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            String response = this.responses.poll(Math.max(1, end - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            Assertions.assertNotNull(response, "no response starting with " + prefix);
+            if (response.startsWith(prefix)) {
+                return response;
+            }
+        }
+    }
+
+    /**
+     * Checks the handshake, options and a fixed-depth search from a position given by moves.
+     */
+    @Test
+    void testHandshakeAndSearch() throws Exception {
+        send("uci");
+        Assertions.assertTrue(expect("option name Hash", 5000).contains("type spin"));
+        expect("uciok", 5000);
+        send("setoption name Hash value 4");
+        send("setoption name Threads value 2");
+        send("isready");
+        expect("readyok", 5000);
+
+        send("ucinewgame");
+        send("position startpos moves e2e4 e7e5 g1f3");
+        send("go depth 3");
+        String info = expect("info depth", 20000);
+        Assertions.assertTrue(info.startsWith("info depth 3 score cp"), info);
+        String bestMove = expect("bestmove", 20000).split(" ")[1];
+        Board board = new Board();
+        for (String move : "e2e4 e7e5 g1f3".split(" ")) {
+            board.doMove(move);
+        }
+        Assertions.assertTrue(board.legalMoves().contains(new Move(bestMove, Side.BLACK)), bestMove);
+
+        // mate in one from a FEN, found on a clock
+        send("position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        send("go wtime 5000 btime 5000 winc 100 binc 100");
+        Assertions.assertTrue(expect("info", 10000).contains("score mate 1"));
+        Assertions.assertEquals("bestmove a1a8", expect("bestmove", 10000));
+    }
+
+    /**
+     * Checks that an infinite search answers {@code isready} while thinking, only reports its move when told
+     * to stop, and does so promptly.
+     */
+    @Test
+    void testStop() throws Exception {
+        send("position startpos");
+        send("go infinite");
+        send("isready");
+        expect("readyok", 1000);
+        Thread.sleep(500);
+        Assertions.assertTrue(this.responses.stream().noneMatch(response -> response.startsWith("bestmove")));
+        long start = System.nanoTime();
+        send("stop");
+        String bestMove = expect("bestmove", 5000);
+        long stopMillis = (System.nanoTime() - start) / 1_000_000;
+        Assertions.assertTrue(stopMillis < 1000, stopMillis + " ms to stop");
+        Assertions.assertTrue(new Board().legalMoves().contains(new Move(bestMove.split(" ")[1], Side.WHITE)), bestMove);
+    }
+
+    /**
+     * Checks the time allocation and the conversion of scores for the side to move.
+     */
+    @Test
+    void testTimeAndScores() {
+        Assertions.assertEquals(1000 + 75, UciEngine.timeBudget(30000, 100, 0));
+        Assertions.assertEquals(2000, UciEngine.timeBudget(20000, 0, 10));
+        Assertions.assertEquals(70, UciEngine.timeBudget(100, 1000, 0));
+        Assertions.assertEquals(1, UciEngine.timeBudget(10, 0, 0));
+        Assertions.assertEquals("cp 125", UciEngine.formatScore(1.25, Side.WHITE));
+        Assertions.assertEquals("cp -125", UciEngine.formatScore(1.25, Side.BLACK));
+        Assertions.assertEquals("mate 2", UciEngine.formatScore(1e6 - 3, Side.WHITE));
+        Assertions.assertEquals("mate -2", UciEngine.formatScore(1e6 - 3, Side.BLACK));
+    }
+}
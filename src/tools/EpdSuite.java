@@ -0,0 +1,396 @@
+package tools;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.move.MoveList;
+
+import minimax.SearchStats;
+import minimax.Strategy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a tactical test suite in EPD format (e.g. Win At Chess): every position is searched by a
+ * {@code Strategy}, to its own depth or for a fixed time, and counts as solved if the move found is one of its
+ * best moves ({@code bm}) and none of the moves to avoid ({@code am}). Besides the solved count, the runner
+ * reports for every solved position the time and nodes to solution: those of the first iterative deepening
+ * iteration from which the search kept a correct move to the end, read from the search statistics. Summed
+ * over a suite, they measure search efficiency independently of playing strength. Iterations are only
+ * recorded by searches that deepen iteratively, i.e. given a move time; at a fixed depth, the solution is
+ * reached at the end of the search, if at all.
+ * <p>
+ * Positions are searched in parallel on a fixed pool of threads, each with its own strategy; for times that
+ * compare between runs, use no more threads than cores.
+ * <p>
+ * Usage: {@code java tools.EpdSuite <suite.epd> [engine] [-movetime ms] [-threads n]}, with an engine given as in
+ * {@code Tournament}, {@code advanced:6} by default.
+ */
+public class EpdSuite {
+
+    private static final Pattern OPERATION = Pattern.compile("\\s*(\\w+)\\s*((?:\"[^\"]*\"|[^;\"])*);");
+
+    private final Supplier<? extends Strategy> engines;
+    private final int threads;
+    private long moveTime;
+
+    /**
+     * One test position.
+     */
+    public static class Position {
+        private final String id;
+        private final String fen;
+        private final List<Move> bestMoves;
+        private final List<Move> avoidMoves;
+
+        Position(String id, String fen, List<Move> bestMoves, List<Move> avoidMoves) {
+            this.id = id;
+            this.fen = fen;
+            this.bestMoves = Collections.unmodifiableList(bestMoves);
+            this.avoidMoves = Collections.unmodifiableList(avoidMoves);
+        }
+
+        /**
+         * @return the {@code id} operand, or the line number if there is none.
+         */
+        public String getId() {
+            return this.id;
+        }
+
+        /**
+         * @return the position, with move counters {@code 0 1}.
+         */
+        public String getFen() {
+            return this.fen;
+        }
+
+        /**
+         * @return the moves of the {@code bm} operation, empty if there is none.
+         */
+        public List<Move> getBestMoves() {
+            return this.bestMoves;
+        }
+
+        /**
+         * @return the moves of the {@code am} operation, empty if there is none.
+         */
+        public List<Move> getAvoidMoves() {
+            return this.avoidMoves;
+        }
+
+        /**
+         * @param move : a move found for this position
+         * @return whether it is a best move, if any are given, and not a move to avoid.
+         */
+        public boolean isSolvedBy(Move move) {
+            return move != null && (this.bestMoves.isEmpty() || this.bestMoves.contains(move))
+                    && !this.avoidMoves.contains(move);
+        }
+    }
+
+    /**
+     * The outcome of one position.
+     */
+    public static class Result {
+        private final Position position;
+        private final Move move;
+        private final int solutionDepth;
+        private final long solutionNanos;
+        private final long solutionNodes;
+        private final long nanos;
+        private final long nodes;
+
+        Result(Position position, Move move, int solutionDepth, long solutionNanos, long solutionNodes, long nanos,
+               long nodes) {
+            this.position = position;
+            this.move = move;
+            this.solutionDepth = solutionDepth;
+            this.solutionNanos = solutionNanos;
+            this.solutionNodes = solutionNodes;
+            this.nanos = nanos;
+            this.nodes = nodes;
+        }
+
+        /**
+         * @return the position searched.
+         */
+        public Position getPosition() {
+            return this.position;
+        }
+
+        /**
+         * @return the move found.
+         */
+        public Move getMove() {
+            return this.move;
+        }
+
+        /**
+         * @return whether the move found solves the position.
+         */
+        public boolean isSolved() {
+            return this.position.isSolvedBy(this.move);
+        }
+
+        /**
+         * @return the depth of the first iteration from which the search kept a solving move, or 0 if unsolved.
+         */
+        public int getSolutionDepth() {
+            return this.solutionDepth;
+        }
+
+        /**
+         * @return the time the search took to reach the solution, in nanoseconds, or 0 if unsolved.
+         */
+        public long getSolutionNanos() {
+            return this.solutionNanos;
+        }
+
+        /**
+         * @return the nodes the search visited to reach the solution, or 0 if unsolved.
+         */
+        public long getSolutionNodes() {
+            return this.solutionNodes;
+        }
+
+        /**
+         * @return the duration of the whole search, in nanoseconds.
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * @return the nodes of the whole search.
+         */
+        public long getNodes() {
+            return this.nodes;
+        }
+    }
+
+    /**
+     * Makes a runner searching every position to the depth the strategies were made with.
+     * @param engines : makes the strategy of each thread, called once per thread
+     * @param threads : the number of positions searched at once
+     */
+    public EpdSuite(Supplier<? extends Strategy> engines, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed.");
+        }
+        this.engines = engines;
+        this.threads = threads;
+    }
+
+    /**
+     * @param moveTime : the time per position given to {@code findBestMove(board, budgetMillis)}, in
+     * milliseconds; 0 (the default) searches to the strategy's own depth with {@code findBestMove(board)}
+     */
+    public void setMoveTime(long moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    /**
+     * Reads one EPD line: the four position fields, then operations such as {@code bm Qg6;}, {@code am Nxf7;}
+     * and {@code id "WAC.003";}. Moves are given in standard algebraic notation (check and annotation symbols
+     * optional) or as coordinates.
+     * @param line : an EPD record
+     * @param defaultId : the id of a record without an {@code id} operation
+     * @return the test position.
+     * @throws IllegalArgumentException if the position or a move cannot be read.
+     */
+    public static Position parse(String line, String defaultId) {
+        String fen = Tournament.toFen(line);
+        String[] fields = line.trim().split("\\s+", 5);
+        String operations = fields.length > 4 ? fields[4] : "";
+        Board board = new Board();
+        board.loadFromFen(fen);
+        List<Move> legal = board.legalMoves();
+        String[] sans = toSan(fen, legal);
+        String id = defaultId;
+        List<Move> best = new ArrayList<>();
+        List<Move> avoid = new ArrayList<>();
+        Matcher operation = OPERATION.matcher(operations.endsWith(";") ? operations : operations + ";");
+        while (operation.find()) {
+            String operand = operation.group(2).trim();
+            switch (operation.group(1)) {
+                case "id":
+                    id = operand.replace("\"", "");
+                    break;
+                case "bm":
+                case "am":
+                    for (String written : operand.split("\\s+")) {
+                        Move move = findMove(written, legal, sans);
+                        if (move == null) {
+                            throw new IllegalArgumentException("No legal move " + written + " in " + fen);
+                        }
+                        (operation.group(1).equals("bm") ? best : avoid).add(move);
+                    }
+                    break;
+                default:
+                    // other opcodes (c0, dm, ...) do not affect solving
+            }
+        }
+        return new Position(id, fen, best, avoid);
+    }
+
+    private static String[] toSan(String fen, List<Move> moves) {
+        String[] sans = new String[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            MoveList single = new MoveList(fen);
+            single.add(moves.get(i));
+            sans[i] = normalize(single.toSanArray()[0]);
+        }
+        return sans;
+    }
+
+    private static Move findMove(String written, List<Move> legal, String[] sans) {
+        String san = normalize(written);
+        for (int i = 0; i < legal.size(); i++) {
+            if (sans[i].equals(san) || legal.get(i).toString().equals(written.toLowerCase())) {
+                return legal.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static String normalize(String san) {
+        return san.replaceAll("[+#!?=]", "");
+    }
+
+    /**
+     * Reads a suite, one EPD record per line, skipping blank lines and lines starting with {@code #}.
+     * @param file : an EPD file
+     * @return the test positions, with ids defaulting to line numbers.
+     */
+    public static List<Position> load(Path file) {
+        try {
+            List<Position> positions = new ArrayList<>();
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    positions.add(parse(line, Integer.toString(i + 1)));
+                }
+            }
+            return positions;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the suite " + file, e);
+        }
+    }
+
+    /**
+     * Searches every position of a suite.
+     * @param positions : the test positions
+     * @return the results, in the order of {@code positions}.
+     */
+    public List<Result> run(List<Position> positions) {
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "epd-suite");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ThreadLocal<Strategy> engine = ThreadLocal.withInitial(this.engines::get);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Position position : positions) {
+                futures.add(pool.submit(() -> search(position, engine.get())));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the suite.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A search failed.", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Result search(Position position, Strategy strategy) {
+        Board board = new Board();
+        board.loadFromFen(position.getFen());
+        long start = System.nanoTime();
+        Move move = this.moveTime > 0 ? strategy.findBestMove(board, this.moveTime) : strategy.findBestMove(board);
+        long nanos = System.nanoTime() - start;
+        SearchStats stats = strategy.getSearchStats();
+        if (!position.isSolvedBy(move)) {
+            return new Result(position, move, 0, 0, 0, nanos, stats.getNodes());
+        }
+        // walk back over the last iterations as long as they had found a solving move too
+        int depth = Math.min(stats.getCompletedDepth(), SearchStats.MAX_ITERATIONS);
+        if (depth == 0 || stats.getIterationMove(depth) == null) {
+            // no iterations recorded: the whole search is what it took
+            return new Result(position, move, depth, nanos, stats.getNodes(), nanos, stats.getNodes());
+        }
+        while (depth > 1 && position.isSolvedBy(stats.getIterationMove(depth - 1))) {
+            depth--;
+        }
+        return new Result(position, move, depth, stats.getIterationNanos(depth), stats.getIterationNodes(depth), nanos,
+                stats.getNodes());
+    }
+
+    /**
+     * Runs a suite from the command line, printing a line per position and the totals.
+     * @param args : {@code <suite.epd> [engine] [-movetime ms] [-threads n]}
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java tools.EpdSuite <suite.epd> [engine] [-movetime ms] [-threads n]");
+            return;
+        }
+        String engine = "advanced:6";
+        long moveTime = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "-movetime": moveTime = Long.parseLong(args[++i]); break;
+                case "-threads": threads = Integer.parseInt(args[++i]); break;
+                default: engine = args[i];
+            }
+        }
+        EpdSuite suite = new EpdSuite(Tournament.parseEngine(engine), threads);
+        suite.setMoveTime(moveTime);
+        List<Position> positions = load(Path.of(args[0]));
+        long start = System.nanoTime();
+        List<Result> results = suite.run(positions);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("%-12s %-6s %-7s %5s %10s %12s", "id", "result", "move", "depth",
+                "time (ms)", "nodes"));
+        int solved = 0;
+        long solutionNanos = 0;
+        long solutionNodes = 0;
+        for (Result result : results) {
+            if (result.isSolved()) {
+                solved++;
+                solutionNanos += result.getSolutionNanos();
+                solutionNodes += result.getSolutionNodes();
+                System.out.println(String.format("%-12s %-6s %-7s %5d %10.1f %12d", result.getPosition().getId(),
+                        "solved", result.getMove(), result.getSolutionDepth(), result.getSolutionNanos() / 1e6,
+                        result.getSolutionNodes()));
+            } else {
+                System.out.println(String.format("%-12s %-6s %-7s %5s %10.1f %12d", result.getPosition().getId(),
+                        "failed", result.getMove(), "-", result.getNanos() / 1e6, result.getNodes()));
+            }
+        }
+        System.out.println(String.format("%n%s: solved %d/%d in %.1f s; to solution: %.1f ms, %d nodes in total",
+                engine, solved, results.size(), seconds, solutionNanos / 1e6, solutionNodes));
+    }
+}
@@ -0,0 +1,175 @@
+package tools;
+
+/**
+ * The running result of a match between two engines, counted from the first engine's point of view, with
+ * the Elo difference it implies and a sequential probability ratio test (SPRT) on it.
+ * <p>
+ * The error bar is a 95% confidence interval from the variance of the game scores. The SPRT uses the
+ * generalized (normal approximation) log-likelihood ratio of the hypotheses "the first engine is
+ * {@code elo0} stronger" against "{@code elo1} stronger": it can be checked after every game, and stops the
+ * match as soon as either hypothesis is accepted with error rates {@code alpha} and {@code beta}. A change
+ * that should not lose strength is typically tested with {@code elo0 = -5, elo1 = 0} and must be accepted
+ * as not worse; one that should gain is tested with {@code elo0 = 0, elo1 = 5}.
+ */
+public class MatchStatistics {
+
+    /**
+     * The decision of the SPRT so far.
+     */
+    public enum Decision {
+        /** Not enough games yet. */
+        CONTINUE,
+        /** The first engine is not {@code elo1} stronger: {@code elo0} holds. */
+        ACCEPT_H0,
+        /** The first engine is {@code elo1} stronger. */
+        ACCEPT_H1
+    }
+
+    private static final double Z_95 = 1.959964;
+
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /**
+     * Counts one more game.
+     * @param score : the first engine's score, 1 for a win, 0.5 for a draw or 0 for a loss
+     */
+    public synchronized void add(double score) {
+        if (score == 1) {
+            this.wins++;
+        } else if (score == 0.5) {
+            this.draws++;
+        } else if (score == 0) {
+            this.losses++;
+        } else {
+            throw new IllegalArgumentException("A game scores 1, 0.5 or 0, not " + score + ".");
+        }
+    }
+
+    /**
+     * @return the number of games won by the first engine.
+     */
+    public synchronized int getWins() {
+        return this.wins;
+    }
+
+    /**
+     * @return the number of games drawn.
+     */
+    public synchronized int getDraws() {
+        return this.draws;
+    }
+
+    /**
+     * @return the number of games lost by the first engine.
+     */
+    public synchronized int getLosses() {
+        return this.losses;
+    }
+
+    /**
+     * @return the number of games counted.
+     */
+    public synchronized int getGames() {
+        return this.wins + this.draws + this.losses;
+    }
+
+    /**
+     * @return the first engine's mean score per game, between 0 and 1, or NaN before any game.
+     */
+    public synchronized double getScore() {
+        return (this.wins + 0.5 * this.draws) / getGames();
+    }
+
+    /**
+     * @return the Elo difference implied by the score, positive if the first engine is stronger; infinite
+     * if it won or lost every game.
+     */
+    public synchronized double getElo() {
+        return elo(getScore());
+    }
+
+    /**
+     * @return half the width of the 95% confidence interval of {@code getElo()}, or NaN before two games
+     * or after a perfect score.
+     */
+    public synchronized double getEloError() {
+        int games = getGames();
+        double score = getScore();
+        if (games < 2 || score <= 0 || score >= 1) {
+            return Double.NaN;
+        }
+        double margin = Z_95 * Math.sqrt(variance() / games);
+        double low = Math.max(score - margin, 1e-9);
+        double high = Math.min(score + margin, 1 - 1e-9);
+        return (elo(high) - elo(low)) / 2;
+    }
+
+    /**
+     * Computes the log-likelihood ratio of {@code elo1} against {@code elo0} given the games so far.
+     * @param elo0 : the Elo difference of the null hypothesis
+     * @param elo1 : the Elo difference of the alternative hypothesis, above {@code elo0}
+     * @return the LLR, which grows with the games when {@code elo1} is right and falls when {@code elo0} is;
+     * 0 while the scores do not vary yet.
+     */
+    public synchronized double getLogLikelihoodRatio(double elo0, double elo1) {
+        int games = getGames();
+        double variance = variance();
+        if (games == 0 || variance == 0) {
+            return 0;
+        }
+        double score0 = expectedScore(elo0);
+        double score1 = expectedScore(elo1);
+        return games * (score1 - score0) * (2 * getScore() - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * Runs the SPRT on the games so far.
+     * @param elo0 : the Elo difference of the null hypothesis
+     * @param elo1 : the Elo difference of the alternative hypothesis, above {@code elo0}
+     * @param alpha : the probability of accepting {@code elo1} when {@code elo0} holds, e.g. 0.05
+     * @param beta : the probability of accepting {@code elo0} when {@code elo1} holds, e.g. 0.05
+     * @return which hypothesis is accepted, if any yet.
+     */
+    public Decision sprt(double elo0, double elo1, double alpha, double beta) {
+        double llr = getLogLikelihoodRatio(elo0, elo1);
+        if (llr >= Math.log((1 - beta) / alpha)) {
+            return Decision.ACCEPT_H1;
+        }
+        if (llr <= Math.log(beta / (1 - alpha))) {
+            return Decision.ACCEPT_H0;
+        }
+        return Decision.CONTINUE;
+    }
+
+    /**
+     * @param elo : an Elo difference
+     * @return the mean score per game of an engine that much stronger than its opponent.
+     */
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * @param score : a mean score per game
+     * @return the Elo difference that gives that score, the inverse of {@code expectedScore}.
+     */
+    public static double elo(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    // the variance of a single game's score around the mean
+    private double variance() {
+        int games = getGames();
+        double score = getScore();
+        return (this.wins * (1 - score) * (1 - score) + this.draws * (0.5 - score) * (0.5 - score)
+                + this.losses * score * score) / games;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d games: +%d =%d -%d, score %.1f%%, Elo %+.1f +/- %.1f", getGames(), this.wins,
+                this.draws, this.losses, 100 * getScore(), getElo(), getEloError());
+    }
+}
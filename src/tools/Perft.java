@@ -0,0 +1,328 @@
+package tools;
+
+import bitboard.MoveGenerator;
+import bitboard.Moves;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Perft ("performance test") driver: counts the leaf nodes of the legal move tree to a fixed depth,
+ * walking the {@code Board} with chesslib's {@code legalMoves()}, {@code doMove} and {@code undoMove} exactly
+ * as the search does. Comparing the counts with published values validates move generation; timing them
+ * gives the cost of move generation alone, as a baseline for the search.
+ * <p>
+ * Three counting modes are provided: a plain walk that plays every move down to the leaves, a bulk-counting
+ * walk that stops one ply early and counts the generated moves instead of playing them, and a parallel bulk
+ * count that splits the root moves over several threads, each with its own copy of the board.
+ * The same plain and bulk walks are also provided over the engine's own {@code bitboard.Position}, whose
+ * counts must match chesslib's exactly.
+ * <p>
+ * Usage: {@code java tools.Perft [depth] [threads]} validates the standard positions up to {@code depth}
+ * (default 4), and {@code java tools.Perft divide <depth> [fen]} prints the count below every root move.
+ */
+public class Perft {
+
+    /**
+     * A well-known perft position and its published leaf counts, from depth 1 upwards.
+     */
+    public enum Position {
+        START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                20L, 400L, 8902L, 197281L, 4865609L, 119060324L),
+        KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                48L, 2039L, 97862L, 4085603L, 193690690L),
+        POSITION_3("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                14L, 191L, 2812L, 43238L, 674624L, 11030083L),
+        POSITION_4("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                6L, 264L, 9467L, 422333L, 15833292L),
+        POSITION_5("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                44L, 1486L, 62379L, 2103487L, 89941194L),
+        POSITION_6("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                46L, 2079L, 89890L, 3894594L, 164075551L);
+
+        private final String fen;
+        private final long[] counts;
+
+        Position(String fen, long... counts) {
+            this.fen = fen;
+            this.counts = counts;
+        }
+
+        /**
+         * @return the position in Forsyth-Edwards Notation.
+         */
+        public String getFen() {
+            return this.fen;
+        }
+
+        /**
+         * @return the deepest depth with a known leaf count.
+         */
+        public int getMaxDepth() {
+            return this.counts.length;
+        }
+
+        /**
+         * Returns the published leaf count of the position.
+         * @param depth : a depth from 1 to {@code getMaxDepth()}
+         * @return the number of leaf nodes at {@code depth}.
+         */
+        public long getExpectedCount(int depth) {
+            return this.counts[depth - 1];
+        }
+
+        /**
+         * @return a new {@code Board} set up in this position.
+         */
+        public Board newBoard() {
+            Board board = new Board();
+            board.loadFromFen(this.fen);
+            return board;
+        }
+    }
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the leaf nodes to {@code depth} by playing and undoing every move, down to the leaves.
+     * @param board : A {@code Board} object from chesslib; restored before returning
+     * @param depth : number of plies to walk, at least 0
+     * @return the number of leaf nodes.
+     */
+    public static long perft(Board board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (Move move : board.legalMoves()) {
+            board.doMove(move);
+            nodes += perft(board, depth - 1);
+            board.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes to {@code depth}, counting the moves generated one ply above the leaves
+     * instead of playing them.
+     * @param board : A {@code Board} object from chesslib; restored before returning
+     * @param depth : number of plies to walk, at least 0
+     * @return the number of leaf nodes.
+     */
+    public static long perftBulk(Board board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        List<Move> moves = board.legalMoves();
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (Move move : moves) {
+            board.doMove(move);
+            nodes += perftBulk(board, depth - 1);
+            board.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes to {@code depth} on the engine's own board representation, playing and undoing
+     * every move down to the leaves.
+     * @param position : a {@code bitboard.Position}; restored before returning
+     * @param depth : number of plies to walk, at least 0
+     * @return the number of leaf nodes.
+     */
+    public static long perft(bitboard.Position position, int depth) {
+        return walk(position, depth, new int[Math.max(depth, 1)][MoveGenerator.MAX_MOVES], false);
+    }
+
+    /**
+     * Like {@code perft(bitboard.Position, int)}, counting the moves generated one ply above the leaves
+     * instead of playing them.
+     * @param position : a {@code bitboard.Position}; restored before returning
+     * @param depth : number of plies to walk, at least 0
+     * @return the number of leaf nodes.
+     */
+    public static long perftBulk(bitboard.Position position, int depth) {
+        return walk(position, depth, new int[Math.max(depth, 1)][MoveGenerator.MAX_MOVES], true);
+    }
+
+    /**
+     * Counts the leaf nodes below every root move on the engine's own board representation.
+     * @param position : a {@code bitboard.Position}; restored before returning
+     * @param depth : number of plies to walk, including the root move, at least 1
+     * @return the bulk count below each root move, in generation order, keyed by its UCI notation.
+     */
+    public static Map<String, Long> divide(bitboard.Position position, int depth) {
+        // the root moves take the buffer of the full depth, which the walks below never reach
+        int[][] buffers = new int[depth][MoveGenerator.MAX_MOVES];
+        int[] rootMoves = buffers[depth - 1];
+        int count = MoveGenerator.generateLegalMoves(position, rootMoves, 0);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            int move = rootMoves[i];
+            position.makeMove(move);
+            counts.put(Moves.toString(move), walk(position, depth - 1, buffers, true));
+            position.unmakeMove();
+        }
+        return counts;
+    }
+
+    // each ply generates into its own buffer, indexed by the remaining depth
+    private static long walk(bitboard.Position position, int depth, int[][] buffers, boolean bulk) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = buffers[depth - 1];
+        int count = MoveGenerator.generateLegalMoves(position, moves, 0);
+        if (bulk && depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            nodes += walk(position, depth - 1, buffers, bulk);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes to {@code depth} with a bulk count below every root move, the root moves
+     * being spread over {@code threads} threads.
+     * @param board : A {@code Board} object from chesslib; it is not modified
+     * @param depth : number of plies to walk, at least 1
+     * @param threads : number of counting threads
+     * @return the number of leaf nodes.
+     */
+    public static long perftParallel(Board board, int depth, int threads) {
+        long nodes = 0;
+        for (long count : divide(board, depth, threads).values()) {
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes below every root move, the usual way of locating a move generation bug
+     * by comparing with another program.
+     * @param board : A {@code Board} object from chesslib; restored before returning
+     * @param depth : number of plies to walk, including the root move, at least 1
+     * @return the bulk count below each root move, in generation order.
+     */
+    public static Map<Move, Long> divide(Board board, int depth) {
+        Map<Move, Long> counts = new LinkedHashMap<>();
+        for (Move move : board.legalMoves()) {
+            board.doMove(move);
+            counts.put(move, perftBulk(board, depth - 1));
+            board.undoMove();
+        }
+        return counts;
+    }
+
+    /**
+     * Like {@code divide(Board, int)}, with the root moves counted in parallel.
+     * @param board : A {@code Board} object from chesslib; it is not modified
+     * @param depth : number of plies to walk, including the root move, at least 1
+     * @param threads : number of counting threads
+     * @return the bulk count below each root move, in generation order.
+     */
+    public static Map<Move, Long> divide(Board board, int depth, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is required.");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Move> moves = board.legalMoves();
+            List<Future<Long>> results = new ArrayList<>();
+            for (Move move : moves) {
+                Board copy = board.clone();
+                results.add(pool.submit(() -> {
+                    copy.doMove(move);
+                    return perftBulk(copy, depth - 1);
+                }));
+            }
+            Map<Move, Long> counts = new LinkedHashMap<>();
+            for (int i = 0; i < moves.size(); i++) {
+                counts.put(moves.get(i), results.get(i).get());
+            }
+            return counts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Perft was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Perft failed.", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the validation suite, or a divide.
+     * @param args : {@code [depth] [threads]}, or {@code divide <depth> [fen]}
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("divide")) {
+            int depth = Integer.parseInt(args[1]);
+            Board board = new Board();
+            board.loadFromFen(args.length > 2 ? args[2] : Position.START.getFen());
+            long total = 0;
+            for (Map.Entry<Move, Long> entry : divide(board, depth).entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+                total += entry.getValue();
+            }
+            System.out.println("\nMoves: " + board.legalMoves().size() + "\nNodes: " + total);
+            return;
+        }
+
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        System.out.println(String.format("%-11s %5s %-9s %12s %10s %12s  %s",
+                "position", "depth", "mode", "nodes", "time (ms)", "NPS", "result"));
+        boolean allPassed = true;
+        for (Position position : Position.values()) {
+            Board board = position.newBoard();
+            int depth = Math.min(maxDepth, position.getMaxDepth());
+            long expected = position.getExpectedCount(depth);
+
+            long start = System.nanoTime();
+            long plain = perft(board, depth);
+            allPassed &= report(position, depth, "plain", plain, expected, start);
+
+            start = System.nanoTime();
+            long bulk = perftBulk(board, depth);
+            allPassed &= report(position, depth, "bulk", bulk, expected, start);
+
+            start = System.nanoTime();
+            long parallel = perftParallel(board, depth, threads);
+            allPassed &= report(position, depth, "parallel", parallel, expected, start);
+
+            bitboard.Position own = new bitboard.Position(position.getFen());
+            start = System.nanoTime();
+            long ownBulk = perftBulk(own, depth);
+            allPassed &= report(position, depth, "bitboard", ownBulk, expected, start);
+        }
+        System.out.println(allPassed ? "All counts match." : "Some counts DO NOT match.");
+        if (!allPassed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean report(Position position, int depth, String mode, long nodes, long expected, long start) {
+        double millis = (System.nanoTime() - start) / 1e6;
+        boolean passed = nodes == expected;
+        System.out.println(String.format("%-11s %5d %-9s %12d %10.1f %12.0f  %s", position, depth, mode, nodes,
+                millis, nodes / Math.max(millis / 1000, 1e-9), passed ? "ok" : "FAIL (expected " + expected + ")"));
+        return passed;
+    }
+}
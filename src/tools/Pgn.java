@@ -0,0 +1,105 @@
+package tools;
+
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.move.MoveList;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games in Portable Game Notation: the tag pairs, then the moves in standard algebraic notation
+ * numbered from the starting position (which need not be the initial one, nor have white to move), with
+ * optional comments, wrapped at 80 columns, and the result.
+ */
+public class Pgn {
+
+    /** The FEN of the standard starting position, for which no {@code FEN} tag is written. */
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final int LINE_WIDTH = 80;
+
+    private Pgn() {
+    }
+
+    /**
+     * Formats one game.
+     * @param tags : the tag pairs in order, e.g. {@code Event}, {@code White}, ...; the {@code Result} tag and,
+     * for another starting position, the {@code SetUp} and {@code FEN} tags are added if missing
+     * @param startFen : the position the game started from
+     * @param moves : the moves played, all legal
+     * @param result : {@code 1-0}, {@code 0-1}, {@code 1/2-1/2} or {@code *}
+     * @return the game in PGN, ending with a blank line.
+     */
+    public static String format(Map<String, String> tags, String startFen, List<Move> moves, String result) {
+        return format(tags, startFen, moves, null, result);
+    }
+
+    /**
+     * Formats one game with a comment after some of its moves, e.g. engine evaluations.
+     * @param tags : the tag pairs in order, e.g. {@code Event}, {@code White}, ...; the {@code Result} tag and,
+     * for another starting position, the {@code SetUp} and {@code FEN} tags are added if missing
+     * @param startFen : the position the game started from
+     * @param moves : the moves played, all legal
+     * @param comments : the comment after each move, without braces, or null for none; null for no comments
+     * @param result : {@code 1-0}, {@code 0-1}, {@code 1/2-1/2} or {@code *}
+     * @return the game in PGN, ending with a blank line.
+     */
+    public static String format(Map<String, String> tags, String startFen, List<Move> moves, List<String> comments,
+                                String result) {
+        StringBuilder pgn = new StringBuilder();
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            appendTag(pgn, tag.getKey(), tag.getValue());
+        }
+        if (!tags.containsKey("Result")) {
+            appendTag(pgn, "Result", result);
+        }
+        if (!startFen.equals(START_FEN) && !tags.containsKey("FEN")) {
+            appendTag(pgn, "SetUp", "1");
+            appendTag(pgn, "FEN", startFen);
+        }
+        pgn.append('\n');
+
+        MoveList list = new MoveList(startFen);
+        list.addAll(moves);
+        String[] san = list.toSanArray();
+        String[] fields = startFen.split(" ");
+        boolean whiteToMove = fields[1].equals("w");
+        int number = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        int lineLength = 0;
+        for (int i = 0; i <= san.length; i++) {
+            String token;
+            if (i == san.length) {
+                token = result;
+            } else if (whiteToMove) {
+                token = number + ". " + san[i];
+            } else {
+                // black's move number is repeated after a comment, as in export format
+                boolean afterComment = i > 0 && comments != null && comments.get(i - 1) != null;
+                token = (i == 0 || afterComment ? number + "... " : "") + san[i];
+            }
+            if (i < san.length && comments != null && comments.get(i) != null) {
+                token += " {" + comments.get(i).replace('}', ')') + "}";
+            }
+            if (lineLength > 0 && lineLength + 1 + token.length() > LINE_WIDTH) {
+                pgn.append('\n');
+                lineLength = 0;
+            } else if (lineLength > 0) {
+                pgn.append(' ');
+                lineLength++;
+            }
+            pgn.append(token);
+            lineLength += token.length();
+            if (i < san.length && !whiteToMove) {
+                number++;
+            }
+            whiteToMove = !whiteToMove;
+        }
+        return pgn.append("\n\n").toString();
+    }
+
+    private static void appendTag(StringBuilder pgn, String name, String value) {
+        pgn.append('[').append(name).append(" \"")
+                .append(value.replace("\\", "\\\\").replace("\"", "\\\""))
+                .append("\"]\n");
+    }
+}
@@ -0,0 +1,286 @@
+package tools;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.move.MoveList;
+
+import minimax.AdvancedMinimax;
+import minimax.PieceSquareEvaluator;
+import minimax.SimpleMinimax;
+import minimax.TranspositionTable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Annotates PGN archives with engine evaluations: every game is replayed, the position after each move is
+ * searched with {@code AdvancedMinimax}, and the game is written back with the evaluation after each move as
+ * a comment, e.g. {@code {+0.35/6}} in pawns from white's point of view, or {@code {-M3}} for a mate.
+ * <p>
+ * The archive is streamed through a bounded pipeline: the calling thread reads one game at a time, a fixed
+ * pool of workers (each with its own search and transposition table) annotates several games at once, and
+ * each finished game is written as soon as the games before it are, so the output keeps the input order.
+ * At most {@code inFlight} games are held at any time, read but not yet written, so memory does not grow
+ * with the size of the archive. Games whose moves cannot be replayed are copied unchanged.
+ * <p>
+ * Usage: {@code java tools.PgnAnnotator <in.pgn> <out.pgn> [depth] [threads] [-movetime ms]}
+ */
+public class PgnAnnotator {
+
+    private final Supplier<? extends AdvancedMinimax> engines;
+    private final int threads;
+    private final int depth;
+    private long moveTime;
+    private int inFlight;
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicLong positions = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Makes an annotator searching every position to a fixed depth.
+     * @param engines : makes the search of each worker thread, called once per thread
+     * @param threads : the number of games annotated at once
+     * @param depth : the depth of every search
+     */
+    public PgnAnnotator(Supplier<? extends AdvancedMinimax> engines, int threads, int depth) {
+        if (threads < 1 || depth < 1) {
+            throw new IllegalArgumentException("At least one thread and a depth of one are needed.");
+        }
+        this.engines = engines;
+        this.threads = threads;
+        this.depth = depth;
+        this.inFlight = 4 * threads;
+    }
+
+    /**
+     * @param moveTime : a time limit per position in milliseconds, the search stopping at {@code depth} or
+     * when the time is up; 0 (the default) for none
+     */
+    public void setMoveTime(long moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    /**
+     * @param inFlight : the largest number of games read and not yet written, by default four per thread;
+     * games finished ahead of an earlier, longer one wait in memory within this bound
+     */
+    public void setInFlight(int inFlight) {
+        if (inFlight < this.threads) {
+            throw new IllegalArgumentException("At least one game per thread must be allowed in flight.");
+        }
+        this.inFlight = inFlight;
+    }
+
+    /**
+     * @return the number of games written by the last {@code annotate}.
+     */
+    public long getGames() {
+        return this.games.get();
+    }
+
+    /**
+     * @return the number of positions searched by the last {@code annotate}.
+     */
+    public long getPositions() {
+        return this.positions.get();
+    }
+
+    /**
+     * @return the number of games copied unchanged by the last {@code annotate}, as their moves were illegal.
+     */
+    public long getErrors() {
+        return this.errors.get();
+    }
+
+    /**
+     * Annotates every game of {@code in} and writes them to {@code out}, in the same order.
+     * @param in : the games to annotate, read to the end but not closed
+     * @param out : where the annotated games are written, flushed but not closed
+     * @throws IOException if the input cannot be read or the output written.
+     */
+    public void annotate(PgnReader in, Writer out) throws IOException {
+        this.games.set(0);
+        this.positions.set(0);
+        this.errors.set(0);
+        ExecutorService workers = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "annotator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ThreadLocal<AdvancedMinimax> search = ThreadLocal.withInitial(this.engines::get);
+        Semaphore slots = new Semaphore(this.inFlight);
+        OrderedOutput output = new OrderedOutput(out, slots);
+        try {
+            PgnReader.Game game;
+            long index = 0;
+            while ((game = in.next()) != null) {
+                slots.acquire();
+                output.check();
+                long position = index++;
+                PgnReader.Game read = game;
+                workers.execute(() -> {
+                    String annotated;
+                    try {
+                        annotated = annotate(read, search.get());
+                        this.games.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        output.fail(e);
+                        annotated = read.toString();
+                    }
+                    output.write(position, annotated);
+                });
+            }
+            // every game is written once all the slots are back
+            slots.acquire(this.inFlight);
+            output.check();
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while annotating.", e);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    // replays one game, searching after every move, and formats it with the evaluations
+    private String annotate(PgnReader.Game game, AdvancedMinimax search) {
+        String fen = game.getTags().getOrDefault("FEN", Pgn.START_FEN);
+        MoveList moves = new MoveList(fen);
+        try {
+            for (String san : PgnReader.parseMoves(game.getMovetext())) {
+                // decoded on a board kept per thread by chesslib, which is only set up for the game by a replay
+                moves.addSanMove(san, moves.isEmpty(), true);
+            }
+        } catch (RuntimeException e) {
+            // a MoveConversionException for an illegal move, or any exception for a garbled one
+            this.errors.incrementAndGet();
+            return game.toString();
+        }
+        Board board = new Board();
+        board.loadFromFen(fen);
+        List<String> comments = new ArrayList<>(moves.size());
+        for (Move move : moves) {
+            board.doMove(move);
+            if (board.isMated() || board.isDraw()) {
+                comments.add(null);
+                continue;
+            }
+            search.iterativeDeepening(board, this.depth, this.moveTime > 0 ? this.moveTime : Long.MAX_VALUE);
+            comments.add(formatEvaluation(search.getLastScore(), search.getLastDepth()));
+            this.positions.incrementAndGet();
+        }
+        Map<String, String> tags = new LinkedHashMap<>(game.getTags());
+        String result = tags.getOrDefault("Result", "*");
+        tags.put("Annotator", "AdvancedMinimax depth " + this.depth);
+        return Pgn.format(tags, fen, new ArrayList<>(moves), comments, result);
+    }
+
+    /**
+     * Formats an evaluation for a PGN comment.
+     * @param whiteScore : a search score in pawns, from white's point of view
+     * @param depth : the depth it was searched to
+     * @return e.g. {@code +0.35/6}, or {@code +M3} for white mating in three moves.
+     */
+    public static String formatEvaluation(double whiteScore, int depth) {
+        if (Math.abs(whiteScore) >= SimpleMinimax.MATE_BOUND) {
+            int plies = (int) Math.round(SimpleMinimax.MATE_SCORE - Math.abs(whiteScore));
+            return (whiteScore > 0 ? "+M" : "-M") + (plies + 1) / 2;
+        }
+        return String.format("%+.2f/%d", whiteScore, depth);
+    }
+
+    /**
+     * Writes games in input order as they complete, holding the ones finished early, and gives back a slot
+     * for each game written.
+     */
+    private static class OrderedOutput {
+        private final Writer out;
+        private final Semaphore slots;
+        private final Map<Long, String> waiting = new HashMap<>();
+        private long next;
+        private volatile Throwable failure;
+
+        OrderedOutput(Writer out, Semaphore slots) {
+            this.out = out;
+            this.slots = slots;
+        }
+
+        synchronized void write(long index, String game) {
+            this.waiting.put(index, game);
+            String text;
+            while ((text = this.waiting.remove(this.next)) != null) {
+                this.next++;
+                try {
+                    if (this.failure == null) {
+                        this.out.write(text);
+                    }
+                } catch (IOException e) {
+                    this.failure = e;
+                }
+                this.slots.release();
+            }
+        }
+
+        void fail(Throwable e) {
+            this.failure = e;
+        }
+
+        void check() throws IOException {
+            Throwable e = this.failure;
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            if (e != null) {
+                throw new IllegalStateException("A game could not be annotated.", e);
+            }
+        }
+    }
+
+    /**
+     * Annotates a PGN file from the command line, reporting the throughput.
+     * @param args : {@code <in.pgn> <out.pgn> [depth] [threads] [-movetime ms]}
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java tools.PgnAnnotator <in.pgn> <out.pgn> [depth] [threads] [-movetime ms]");
+            return;
+        }
+        List<Integer> numbers = new ArrayList<>();
+        long moveTime = 0;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-movetime")) {
+                moveTime = Long.parseLong(args[++i]);
+            } else {
+                numbers.add(Integer.parseInt(args[i]));
+            }
+        }
+        int depth = numbers.size() > 0 ? numbers.get(0) : 4;
+        int threads = numbers.size() > 1 ? numbers.get(1) : Runtime.getRuntime().availableProcessors();
+        PgnAnnotator annotator = new PgnAnnotator(
+                () -> new AdvancedMinimax(depth, new PieceSquareEvaluator(), new TranspositionTable()), threads, depth);
+        annotator.setMoveTime(moveTime);
+        long start = System.nanoTime();
+        try (PgnReader in = PgnReader.open(Path.of(args[0]));
+             Writer out = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8)) {
+            annotator.annotate(in, out);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%d games, %d positions in %.1f s (%.0f positions/s), %d copied unchanged",
+                annotator.getGames(), annotator.getPositions(), seconds, annotator.getPositions() / seconds,
+                annotator.getErrors()));
+    }
+}
@@ -0,0 +1,200 @@
+package tools;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a PGN file one game at a time, so archives of any size can be processed with only the game at hand
+ * in memory. Each game is returned with its tag pairs and its raw movetext; {@code parseMoves} then extracts
+ * the moves of the main line, skipping comments, variations, annotation glyphs and move numbers.
+ */
+public class PgnReader implements Closeable {
+
+    // large reads, as archives are read sequentially from start to end
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    private final BufferedReader in;
+    private String pending;
+
+    /**
+     * A game as read: its tag pairs and movetext, neither of them checked.
+     */
+    public static class Game {
+        private final Map<String, String> tags;
+        private final String movetext;
+
+        Game(Map<String, String> tags, String movetext) {
+            this.tags = Collections.unmodifiableMap(tags);
+            this.movetext = movetext;
+        }
+
+        /**
+         * @return the tag pairs, in the order read.
+         */
+        public Map<String, String> getTags() {
+            return this.tags;
+        }
+
+        /**
+         * @return the movetext, lines joined by line breaks.
+         */
+        public String getMovetext() {
+            return this.movetext;
+        }
+
+        /**
+         * @return the game back in PGN, as read.
+         */
+        @Override
+        public String toString() {
+            StringBuilder pgn = new StringBuilder();
+            for (Map.Entry<String, String> tag : this.tags.entrySet()) {
+                pgn.append('[').append(tag.getKey()).append(" \"")
+                        .append(tag.getValue().replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n");
+            }
+            return pgn.append('\n').append(this.movetext).append("\n\n").toString();
+        }
+    }
+
+    /**
+     * Reads games from a character stream.
+     * @param in : the PGN text
+     */
+    public PgnReader(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, BUFFER_CHARS);
+    }
+
+    /**
+     * Reads the games of a file through a {@code FileChannel}, decoding it as UTF-8 in a fixed buffer.
+     * @param file : a PGN file
+     * @return a reader positioned on the first game.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static PgnReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        return new PgnReader(new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), BUFFER_CHARS));
+    }
+
+    /**
+     * Reads the next game.
+     * @return the game, or null at the end of the input.
+     * @throws IOException if the input cannot be read.
+     */
+    public Game next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        StringBuilder movetext = new StringBuilder();
+        String line;
+        while ((line = readLine()) != null) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("%")) {
+                // escaped line, ignored by definition
+                continue;
+            }
+            if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+                if (movetext.length() > 0) {
+                    // the next game starts without a blank line after the movetext
+                    this.pending = line;
+                    break;
+                }
+                parseTag(trimmed, tags);
+            } else if (trimmed.isEmpty()) {
+                if (movetext.length() > 0) {
+                    break;
+                }
+            } else {
+                if (movetext.length() > 0) {
+                    movetext.append('\n');
+                }
+                movetext.append(trimmed);
+            }
+        }
+        if (tags.isEmpty() && movetext.length() == 0) {
+            return null;
+        }
+        return new Game(tags, movetext.toString());
+    }
+
+    private String readLine() throws IOException {
+        if (this.pending != null) {
+            String line = this.pending;
+            this.pending = null;
+            return line;
+        }
+        return this.in.readLine();
+    }
+
+    private static void parseTag(String line, Map<String, String> tags) {
+        int space = line.indexOf(' ');
+        int open = line.indexOf('"');
+        int close = line.lastIndexOf('"');
+        if (space < 0 || open < 0 || close <= open) {
+            return;
+        }
+        tags.put(line.substring(1, space), line.substring(open + 1, close).replace("\\\"", "\"").replace("\\\\", "\\"));
+    }
+
+    /**
+     * Extracts the moves of the main line from movetext.
+     * @param movetext : the movetext of a game
+     * @return the moves in standard algebraic notation, as written, annotation symbols included.
+     */
+    public static List<String> parseMoves(String movetext) {
+        List<String> moves = new ArrayList<>();
+        int variations = 0;
+        int i = 0;
+        int length = movetext.length();
+        while (i < length) {
+            char c = movetext.charAt(i);
+            if (c == '{') {
+                int end = movetext.indexOf('}', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == ';') {
+                int end = movetext.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '(') {
+                variations++;
+                i++;
+            } else if (c == ')') {
+                variations = Math.max(variations - 1, 0);
+                i++;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else {
+                int start = i;
+                while (i < length && "{;() \t\r\n".indexOf(movetext.charAt(i)) < 0) {
+                    i++;
+                }
+                String token = movetext.substring(start, i);
+                if (variations == 0) {
+                    // "12.", "12..." and "12.e4" all number the move
+                    token = token.replaceFirst("^\\d+\\.+", "");
+                    if (!token.isEmpty() && !token.startsWith("$") && !isResult(token)) {
+                        moves.add(token);
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+
+    private static boolean isResult(String token) {
+        return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
@@ -0,0 +1,433 @@
+package tools;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import minimax.AdvancedMinimax;
+import minimax.BitboardEvaluator;
+import minimax.BitboardMinimax;
+import minimax.BoardEvaluator;
+import minimax.MaterialEvaluator;
+import minimax.PieceSquareEvaluator;
+import minimax.SimpleMinimax;
+import minimax.Strategy;
+import minimax.TaperedEvaluator;
+import minimax.TranspositionTable;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Headless self-play match between two {@code Strategy} configurations, for checking that a change to the
+ * engine does not cost playing strength. Each opening is played twice with the colours reversed, on a fixed
+ * pool of threads (one per core by default), every game with fresh strategies from the suppliers so that no
+ * transposition table or other state is shared. Finished games are written to a PGN stream as they complete,
+ * and counted in a {@code MatchStatistics}; with an SPRT set, the match stops as soon as it decides.
+ * <p>
+ * A game ends by the rules (mate, stalemate, repetition, fifty moves, insufficient material), is adjudicated
+ * a draw after {@code maxPlies}, and is lost by an engine that returns no move or an illegal one.
+ * <p>
+ * Usage: {@code java tools.Tournament <engine> <engine> [games] [-openings file] [-pgn file] [-threads n]
+ * [-movetime ms] [-maxplies n] [-sprt elo0 elo1]}, where an engine is {@code search[:depth[:evaluator]]}
+ * with a search among {@code simple}, {@code advanced} and {@code bitboard}, and an evaluator among
+ * {@code material}, {@code pst}, {@code bitboard} and {@code tapered}, e.g. {@code advanced:4:tapered}.
+ * The openings file holds one FEN or EPD per line.
+ */
+public class Tournament {
+
+    /** A few balanced openings, as moves from the starting position, used when none are given. */
+    private static final String[] DEFAULT_OPENING_MOVES = {
+            "e2e4 e7e5 g1f3 b8c6",
+            "e2e4 c7c5 g1f3 d7d6",
+            "e2e4 e7e6 d2d4 d7d5",
+            "e2e4 c7c6 d2d4 d7d5",
+            "d2d4 d7d5 c2c4 e7e6",
+            "d2d4 g8f6 c2c4 g7g6",
+            "c2c4 e7e5 b1c3 g8f6",
+            "g1f3 d7d5 g2g3 g8f6"
+    };
+
+    private static final DateTimeFormatter PGN_DATE = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+
+    private final String firstName;
+    private final Supplier<? extends Strategy> first;
+    private final String secondName;
+    private final Supplier<? extends Strategy> second;
+    private final List<String> openings;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long moveTime;
+    private int maxPlies = 300;
+    private Writer pgn;
+    private PrintStream log;
+    private double elo0;
+    private double elo1;
+    private double alpha;
+    private double beta;
+    private boolean sprt;
+    private volatile boolean stopped;
+
+    /**
+     * Makes a match between two engines, searching to their own fixed depth unless a move time is set.
+     * @param firstName : the name of the first engine, for the PGN and the report
+     * @param first : makes the first engine, once for each game
+     * @param secondName : the name of the second engine
+     * @param second : makes the second engine, once for each game
+     * @param openings : the FENs (or EPDs) of the starting positions, used in turn; empty for the default openings
+     */
+    public Tournament(String firstName, Supplier<? extends Strategy> first, String secondName,
+                      Supplier<? extends Strategy> second, List<String> openings) {
+        if (first == null || second == null) {
+            throw new IllegalArgumentException("Both engines must be given.");
+        }
+        this.firstName = firstName;
+        this.first = first;
+        this.secondName = secondName;
+        this.second = second;
+        this.openings = new ArrayList<>();
+        if (openings == null || openings.isEmpty()) {
+            for (String moves : DEFAULT_OPENING_MOVES) {
+                Board board = new Board();
+                for (String move : moves.split(" ")) {
+                    board.doMove(move);
+                }
+                this.openings.add(board.getFen());
+            }
+        } else {
+            for (String opening : openings) {
+                this.openings.add(toFen(opening));
+            }
+        }
+    }
+
+    /**
+     * @param threads : the number of games played at once, by default the number of cores
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed.");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * @param moveTime : the time per move given to {@code findBestMove(board, budgetMillis)}, in milliseconds;
+     * 0 (the default) searches every move to the engine's fixed depth
+     */
+    public void setMoveTime(long moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    /**
+     * @param maxPlies : the length after which a game is adjudicated a draw, 300 plies by default
+     */
+    public void setMaxPlies(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * @param pgn : where finished games are written and flushed, or null (the default) for no PGN
+     */
+    public void setPgn(Writer pgn) {
+        this.pgn = pgn;
+    }
+
+    /**
+     * @param log : where a line is printed after each game with the running score, or null (the default)
+     */
+    public void setLog(PrintStream log) {
+        this.log = log;
+    }
+
+    /**
+     * Stops the match early once the SPRT accepts one of two hypotheses about the first engine's strength.
+     * @param elo0 : the Elo difference of the null hypothesis
+     * @param elo1 : the Elo difference of the alternative hypothesis, above {@code elo0}
+     * @param alpha : the probability of accepting {@code elo1} when {@code elo0} holds
+     * @param beta : the probability of accepting {@code elo0} when {@code elo1} holds
+     */
+    public void setSprt(double elo0, double elo1, double alpha, double beta) {
+        if (elo1 <= elo0) {
+            throw new IllegalArgumentException("elo1 must be above elo0.");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.sprt = true;
+    }
+
+    /**
+     * Plays the match and waits for it to finish.
+     * @param games : the number of games, in pairs over the openings (game {@code 2i} and {@code 2i + 1} both
+     * start from opening {@code i}, the first engine having white in the former)
+     * @return the results from the first engine's point of view; fewer than {@code games} if the SPRT decided.
+     */
+    public MatchStatistics run(int games) {
+        MatchStatistics statistics = new MatchStatistics();
+        this.stopped = false;
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "tournament");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<Game> completion = new ExecutorCompletionService<>(pool);
+        List<Future<Game>> futures = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            int round = i + 1;
+            String fen = this.openings.get(i / 2 % this.openings.size());
+            boolean firstIsWhite = i % 2 == 0;
+            futures.add(completion.submit(() -> play(round, fen, firstIsWhite)));
+        }
+        try {
+            for (int i = 0; i < games; i++) {
+                Game game = completion.take().get();
+                statistics.add(game.firstEngineScore());
+                writePgn(game);
+                if (this.log != null) {
+                    this.log.println(String.format("Game %d (%s): %s %s, %s", game.round, game.termination,
+                            game.result, game.firstIsWhite ? "as white" : "as black", statistics));
+                }
+                if (this.sprt && statistics.sprt(this.elo0, this.elo1, this.alpha, this.beta)
+                        != MatchStatistics.Decision.CONTINUE) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game failed.", e.getCause());
+        } finally {
+            // games still running are abandoned at their next move, and not counted
+            this.stopped = true;
+            for (Future<Game> future : futures) {
+                future.cancel(true);
+            }
+            pool.shutdownNow();
+        }
+        return statistics;
+    }
+
+    private Game play(int round, String fen, boolean firstIsWhite) {
+        Strategy white = firstIsWhite ? this.first.get() : this.second.get();
+        Strategy black = firstIsWhite ? this.second.get() : this.first.get();
+        Game game = new Game(round, fen, firstIsWhite);
+        Board board = new Board();
+        board.loadFromFen(fen);
+        while (!this.stopped && !Thread.currentThread().isInterrupted()) {
+            Side toMove = board.getSideToMove();
+            if (board.isMated()) {
+                return game.end(toMove == Side.WHITE ? "0-1" : "1-0", "normal");
+            }
+            if (board.isDraw()) {
+                return game.end("1/2-1/2", "normal");
+            }
+            if (game.moves.size() >= this.maxPlies) {
+                return game.end("1/2-1/2", "adjudication");
+            }
+            Strategy strategy = toMove == Side.WHITE ? white : black;
+            Board copy = board.clone();
+            Move move = this.moveTime > 0 ? strategy.findBestMove(copy, this.moveTime) : strategy.findBestMove(copy);
+            if (move == null || !board.legalMoves().contains(move)) {
+                return game.end(toMove == Side.WHITE ? "0-1" : "1-0", "rules infraction");
+            }
+            board.doMove(move);
+            game.moves.add(move);
+        }
+        return game.end("*", "unterminated");
+    }
+
+    private void writePgn(Game game) {
+        if (this.pgn == null) {
+            return;
+        }
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", this.firstName + " vs " + this.secondName);
+        tags.put("Site", "?");
+        tags.put("Date", LocalDate.now().format(PGN_DATE));
+        tags.put("Round", Integer.toString(game.round));
+        tags.put("White", game.firstIsWhite ? this.firstName : this.secondName);
+        tags.put("Black", game.firstIsWhite ? this.secondName : this.firstName);
+        tags.put("Result", game.result);
+        if (!game.fen.equals(Pgn.START_FEN)) {
+            tags.put("SetUp", "1");
+            tags.put("FEN", game.fen);
+        }
+        tags.put("PlyCount", Integer.toString(game.moves.size()));
+        tags.put("Termination", game.termination);
+        try {
+            this.pgn.write(Pgn.format(tags, game.fen, game.moves, game.result));
+            this.pgn.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the PGN.", e);
+        }
+    }
+
+    /**
+     * Reads a FEN, or the position of an EPD line whose operations are dropped and whose move counters are
+     * then reset.
+     * @param line : a FEN or an EPD
+     * @return the position as a FEN.
+     */
+    public static String toFen(String line) {
+        String[] fields = line.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Not a FEN or EPD: " + line);
+        }
+        String position = String.join(" ", fields[0], fields[1], fields[2], fields[3]);
+        if (fields.length >= 6 && fields[4].matches("\\d+") && fields[5].matches("\\d+")) {
+            return position + " " + fields[4] + " " + fields[5];
+        }
+        return position + " 0 1";
+    }
+
+    /**
+     * Reads the openings of a FEN or EPD file, skipping blank lines and lines starting with {@code #}.
+     * @param file : one position per line
+     * @return the positions as FENs.
+     */
+    public static List<String> readOpenings(Path file) {
+        try {
+            List<String> openings = new ArrayList<>();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    openings.add(toFen(line));
+                }
+            }
+            return openings;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read openings from " + file, e);
+        }
+    }
+
+    /**
+     * Makes engines from a specification {@code search[:depth[:evaluator]]}, e.g. {@code advanced:4:tapered}.
+     * The {@code advanced} and {@code bitboard} searches get a 16 MB transposition table each.
+     * @param spec : a search among {@code simple}, {@code advanced} and {@code bitboard} (depth 4 by default),
+     * and an evaluator among {@code material}, {@code pst}, {@code bitboard} (the default) and {@code tapered}
+     * @return a supplier of new, independent engines.
+     */
+    public static Supplier<Strategy> parseEngine(String spec) {
+        String[] parts = spec.split(":");
+        int depth = parts.length > 1 ? Integer.parseInt(parts[1]) : 4;
+        String evaluator = parts.length > 2 ? parts[2] : "bitboard";
+        Supplier<BoardEvaluator> eval;
+        switch (evaluator) {
+            case "material": eval = MaterialEvaluator::new; break;
+            case "pst": eval = PieceSquareEvaluator::new; break;
+            case "bitboard": eval = BitboardEvaluator::new; break;
+            case "tapered": eval = TaperedEvaluator::new; break;
+            default: throw new IllegalArgumentException("Unknown evaluator: " + evaluator);
+        }
+        switch (parts[0]) {
+            case "simple": return () -> new SimpleMinimax(depth, eval.get());
+            case "advanced": return () -> new AdvancedMinimax(depth, eval.get(), new TranspositionTable(16));
+            case "bitboard": return () -> new BitboardMinimax(depth, eval.get(), new TranspositionTable(16));
+            default: throw new IllegalArgumentException("Unknown search: " + parts[0]);
+        }
+    }
+
+    /**
+     * Runs a match from the command line, printing a line per game and the final result.
+     * @param args : {@code <engine> <engine> [games] [-openings file] [-pgn file] [-threads n] [-movetime ms]
+     * [-maxplies n] [-sprt elo0 elo1]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java tools.Tournament <engine> <engine> [games] [-openings file] [-pgn file]"
+                    + " [-threads n] [-movetime ms] [-maxplies n] [-sprt elo0 elo1]");
+            return;
+        }
+        int games = 100;
+        List<String> openings = null;
+        Path pgnFile = null;
+        int threads = 0;
+        long moveTime = 0;
+        int maxPlies = 0;
+        double[] sprt = null;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "-openings": openings = readOpenings(Path.of(args[++i])); break;
+                case "-pgn": pgnFile = Path.of(args[++i]); break;
+                case "-threads": threads = Integer.parseInt(args[++i]); break;
+                case "-movetime": moveTime = Long.parseLong(args[++i]); break;
+                case "-maxplies": maxPlies = Integer.parseInt(args[++i]); break;
+                case "-sprt": sprt = new double[] {Double.parseDouble(args[++i]), Double.parseDouble(args[++i])}; break;
+                default: games = Integer.parseInt(args[i]);
+            }
+        }
+        Tournament tournament = new Tournament(args[0], parseEngine(args[0]), args[1], parseEngine(args[1]), openings);
+        if (threads > 0) {
+            tournament.setThreads(threads);
+        }
+        tournament.setMoveTime(moveTime);
+        if (maxPlies > 0) {
+            tournament.setMaxPlies(maxPlies);
+        }
+        if (sprt != null) {
+            tournament.setSprt(sprt[0], sprt[1], 0.05, 0.05);
+        }
+        tournament.setLog(System.out);
+        Writer pgn = pgnFile == null ? null : Files.newBufferedWriter(pgnFile, StandardCharsets.UTF_8);
+        tournament.setPgn(pgn);
+        long start = System.nanoTime();
+        MatchStatistics statistics = tournament.run(games);
+        if (pgn != null) {
+            pgn.close();
+        }
+        System.out.println(String.format("%n%s vs %s: %s (%.1f s)", args[0], args[1], statistics,
+                (System.nanoTime() - start) / 1e9));
+        if (sprt != null) {
+            System.out.println(String.format("SPRT [%.1f, %.1f]: LLR %.2f [%.2f, %.2f], %s", sprt[0], sprt[1],
+                    statistics.getLogLikelihoodRatio(sprt[0], sprt[1]), Math.log(0.05 / 0.95), Math.log(0.95 / 0.05),
+                    statistics.sprt(sprt[0], sprt[1], 0.05, 0.05)));
+        }
+    }
+
+    /**
+     * One game, filled in by the thread playing it.
+     */
+    private static class Game {
+        final int round;
+        final String fen;
+        final boolean firstIsWhite;
+        final List<Move> moves = new ArrayList<>();
+        String result;
+        String termination;
+
+        Game(int round, String fen, boolean firstIsWhite) {
+            this.round = round;
+            this.fen = fen;
+            this.firstIsWhite = firstIsWhite;
+        }
+
+        Game end(String result, String termination) {
+            this.result = result;
+            this.termination = termination;
+            return this;
+        }
+
+        double firstEngineScore() {
+            double whiteScore = this.result.equals("1-0") ? 1 : this.result.equals("0-1") ? 0 : 0.5;
+            return this.firstIsWhite ? whiteScore : 1 - whiteScore;
+        }
+    }
+}
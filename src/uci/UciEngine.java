@@ -0,0 +1,434 @@
+package uci;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.move.Move;
+import minimax.AdvancedMinimax;
+import minimax.LazySmpMinimax;
+import minimax.PieceSquareEvaluator;
+import minimax.SearchStats;
+import minimax.SimpleMinimax;
+import minimax.TranspositionTable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Front end speaking the Universal Chess Interface, so the engine can be driven headless by GUIs, match
+ * runners and test harnesses. It understands {@code uci}, {@code isready}, {@code ucinewgame},
+ * {@code setoption} (the {@code Hash} size in megabytes and the number of search {@code Threads}),
+ * {@code position startpos|fen ... [moves ...]}, {@code go} with {@code depth}, {@code movetime},
+ * {@code wtime}/{@code btime}/{@code winc}/{@code binc}/{@code movestogo} or {@code infinite},
+ * {@code stop} and {@code quit}; anything else is ignored, as the protocol asks.
+ * <p>
+ * Searches run a {@code LazySmpMinimax} on a worker thread, so the command loop keeps reading while the
+ * engine thinks and {@code stop} reaches the search at once; the worker prints the {@code info} and
+ * {@code bestmove} lines when the search ends. Input is read line by line through a buffer, and every
+ * response is flushed as soon as it is written.
+ */
+public class UciEngine {
+
+    /** Name reported to the GUI. */
+    public static final String NAME = "JavaChessAI";
+
+    /** Largest transposition table accepted by the {@code Hash} option, in megabytes. */
+    public static final int MAX_HASH_MB = 1024;
+
+    /** Largest number of search threads accepted by the {@code Threads} option. */
+    public static final int MAX_THREADS = 64;
+
+    // time kept in hand for the GUI and the JVM when playing on a clock, and moves assumed left without movestogo
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    private final BufferedReader in;
+    private final PrintWriter out;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Board board = new Board();
+    private int hashMb = TranspositionTable.DEFAULT_SIZE_MB;
+    private int threads = 1;
+    private LazySmpMinimax strategy;
+    private Future<?> search;
+    // released by stop, so that an infinite search only reports its move when told to
+    private CountDownLatch stopSignal = new CountDownLatch(0);
+
+    /**
+     * Makes an engine reading commands from {@code in} and writing responses to {@code out}.
+     * @param in : the source of commands, one per line
+     * @param out : where responses are written
+     */
+    public UciEngine(Reader in, Writer out) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        this.out = new PrintWriter(out instanceof BufferedWriter ? out : new BufferedWriter(out));
+        this.strategy = newStrategy();
+    }
+
+    /**
+     * Runs the engine on standard input and output.
+     * @param args : unused
+     */
+    public static void main(String[] args) {
+        UciEngine engine = new UciEngine(new InputStreamReader(System.in, StandardCharsets.UTF_8),
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        engine.run();
+    }
+
+    /**
+     * Reads and executes commands until {@code quit} or the end of the input. At the end of the input, a
+     * running search is allowed to finish and report its move, unless it is infinite; {@code quit} stops it.
+     */
+    public void run() {
+        try {
+            String line;
+            while ((line = this.in.readLine()) != null) {
+                if (!execute(line.trim())) {
+                    break;
+                }
+            }
+            if (line != null) {
+                stopSearch();
+            } else {
+                waitForSearch();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read UCI commands.", e);
+        } finally {
+            this.strategy.shutdown();
+            this.worker.shutdownNow();
+        }
+    }
+
+    /**
+     * Executes one command.
+     * @param line : the command, without its line break
+     * @return false for {@code quit}, true otherwise.
+     */
+    boolean execute(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author Saurav Kiri and Marios Petrov");
+                send("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB
+                        + " min 1 max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("uciok");
+                break;
+            case "isready":
+                // answered at once, even while searching
+                send("readyok");
+                break;
+            case "ucinewgame":
+                waitForSearch();
+                this.strategy.getTranspositionTable().clear();
+                this.board = new Board();
+                break;
+            case "setoption":
+                waitForSearch();
+                setOption(tokens);
+                break;
+            case "position":
+                waitForSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                waitForSearch();
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "quit":
+                return false;
+            default:
+                break;
+        }
+        return true;
+    }
+
+    private LazySmpMinimax newStrategy() {
+        return new LazySmpMinimax(AdvancedMinimax.MAX_DEPTH, new PieceSquareEvaluator(), this.threads,
+                new TranspositionTable(this.hashMb));
+    }
+
+    /**
+     * Handles {@code setoption name <name> value <value>}, rebuilding the search for a new hash size or
+     * thread count. Option names are not case-sensitive.
+     */
+    private void setOption(String[] tokens) {
+        String name = valueAfter(tokens, "name", "value");
+        String value = valueAfter(tokens, "value", null);
+        if (name == null || value == null) {
+            return;
+        }
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            send("info string invalid value " + value + " for option " + name);
+            return;
+        }
+        if (name.equalsIgnoreCase("Hash")) {
+            this.hashMb = Math.max(1, Math.min(number, MAX_HASH_MB));
+        } else if (name.equalsIgnoreCase("Threads")) {
+            this.threads = Math.max(1, Math.min(number, MAX_THREADS));
+        } else {
+            send("info string unknown option " + name);
+            return;
+        }
+        this.strategy.shutdown();
+        this.strategy = newStrategy();
+    }
+
+    /**
+     * Joins the tokens following {@code key} up to {@code end} (or the end of the command) with single spaces.
+     */
+    private static String valueAfter(String[] tokens, String key, String end) {
+        StringBuilder value = null;
+        for (int i = 1; i < tokens.length; i++) {
+            if (value == null) {
+                if (tokens[i].equals(key)) {
+                    value = new StringBuilder();
+                }
+            } else if (tokens[i].equals(end)) {
+                break;
+            } else {
+                value.append(value.length() > 0 ? " " : "").append(tokens[i]);
+            }
+        }
+        return value == null || value.length() == 0 ? null : value.toString();
+    }
+
+    /**
+     * Handles {@code position startpos|fen <fen> [moves <move>...]}. The moves are played on the board, so
+     * its history holds the game for repetition detection.
+     */
+    private void setPosition(String[] tokens) {
+        Board next = new Board();
+        int i = 1;
+        if (i < tokens.length && tokens[i].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (i = 2; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                fen.append(tokens[i]).append(' ');
+            }
+            try {
+                next.loadFromFen(fen.toString().trim());
+            } catch (RuntimeException e) {
+                send("info string invalid fen " + fen.toString().trim());
+                return;
+            }
+        } else {
+            i++;
+        }
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            for (i++; i < tokens.length; i++) {
+                Move move;
+                try {
+                    move = new Move(tokens[i], next.getSideToMove());
+                } catch (RuntimeException e) {
+                    move = null;
+                }
+                if (move == null || !next.legalMoves().contains(move)) {
+                    send("info string illegal move " + tokens[i]);
+                    return;
+                }
+                next.doMove(move);
+            }
+        }
+        this.board = next;
+    }
+
+    /**
+     * Handles {@code go}, starting the search on the worker thread.
+     */
+    private void go(String[] tokens) {
+        int depth = AdvancedMinimax.MAX_DEPTH;
+        long moveTime = -1;
+        long time = -1;
+        long increment = 0;
+        int movesToGo = 0;
+        boolean infinite = false;
+        boolean white = this.board.getSideToMove() == Side.WHITE;
+        for (int i = 1; i < tokens.length; i++) {
+            String key = tokens[i];
+            if (key.equals("infinite")) {
+                infinite = true;
+                continue;
+            }
+            if (i + 1 >= tokens.length) {
+                break;
+            }
+            long value;
+            try {
+                value = Long.parseLong(tokens[i + 1]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            i++;
+            switch (key) {
+                case "depth": depth = (int) Math.max(1, Math.min(value, AdvancedMinimax.MAX_DEPTH)); break;
+                case "movetime": moveTime = value; break;
+                case "wtime": if (white) time = value; break;
+                case "btime": if (!white) time = value; break;
+                case "winc": if (white) increment = value; break;
+                case "binc": if (!white) increment = value; break;
+                case "movestogo": movesToGo = (int) value; break;
+                default: break;
+            }
+        }
+
+        long budget = Long.MAX_VALUE;
+        if (!infinite) {
+            if (moveTime >= 0) {
+                budget = Math.max(1, moveTime - MOVE_OVERHEAD_MILLIS);
+            } else if (time >= 0) {
+                budget = timeBudget(time, increment, movesToGo);
+            }
+        }
+
+        Board position = this.board.clone();
+        LazySmpMinimax search = this.strategy;
+        CountDownLatch stop = new CountDownLatch(infinite ? 1 : 0);
+        this.stopSignal = stop;
+        int maxDepth = depth;
+        long budgetMillis = budget;
+        this.search = this.worker.submit(() -> {
+            long start = System.nanoTime();
+            Move move = search.iterativeDeepening(position, maxDepth, budgetMillis);
+            reportSearch(search, position, System.nanoTime() - start);
+            try {
+                // the protocol forbids answering an infinite search before stop
+                stop.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            send("bestmove " + (move == null ? "0000" : move.toString()));
+        });
+    }
+
+    /**
+     * Splits the remaining clock time over the moves still to play, plus most of the increment, always
+     * keeping {@code MOVE_OVERHEAD_MILLIS} in hand.
+     * @param time : time left on the clock, in milliseconds
+     * @param increment : time added after each move, in milliseconds
+     * @param movesToGo : moves to play before the next time control, or 0 if the rest of the game
+     * @return the time to spend on this move, in milliseconds, at least 1.
+     */
+    public static long timeBudget(long time, long increment, int movesToGo) {
+        int moves = movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO;
+        long budget = time / moves + increment * 3 / 4;
+        return Math.max(1, Math.min(budget, time - MOVE_OVERHEAD_MILLIS));
+    }
+
+    /**
+     * Prints the {@code info} line summarizing a finished search.
+     */
+    private void reportSearch(LazySmpMinimax search, Board position, long nanos) {
+        SearchStats stats = search.getSearchStats();
+        StringBuilder info = new StringBuilder("info depth ").append(search.getLastDepth())
+                .append(" score ").append(formatScore(search.getLastScore(), position.getSideToMove()))
+                .append(" nodes ").append(stats.getNodes())
+                .append(" nps ").append((long) (stats.getNodes() * 1e9 / Math.max(nanos, 1)))
+                .append(" time ").append(nanos / 1_000_000);
+        List<Move> pv = search.getPrincipalVariation();
+        if (!pv.isEmpty()) {
+            info.append(" pv");
+            for (Move move : pv) {
+                info.append(' ').append(move);
+            }
+        }
+        send(info.toString());
+    }
+
+    /**
+     * Converts a score in pawns from white's point of view into a UCI score for the side to move.
+     * @param whiteScore : a search score, from white's point of view
+     * @param sideToMove : the side to move in the searched position
+     * @return {@code cp} and the score in centipawns, or {@code mate} and the number of moves to mate,
+     * negative when the side to move is getting mated.
+     */
+    public static String formatScore(double whiteScore, Side sideToMove) {
+        double score = sideToMove == Side.WHITE ? whiteScore : -whiteScore;
+        if (Math.abs(score) >= SimpleMinimax.MATE_BOUND) {
+            int plies = (int) Math.round(SimpleMinimax.MATE_SCORE - Math.abs(score));
+            int moves = (plies + 1) / 2;
+            return "mate " + (score > 0 ? moves : -moves);
+        }
+        return "cp " + Math.round(score * 100);
+    }
+
+    /**
+     * Stops the running search, if any, and waits until it has reported its move. The stop request is
+     * repeated until the search ends, in case it arrives before the search has started.
+     */
+    private void stopSearch() {
+        this.stopSignal.countDown();
+        if (this.search == null) {
+            return;
+        }
+        while (!this.search.isDone()) {
+            this.strategy.stop();
+            try {
+                this.search.get(1, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // still searching; stop again
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search failed.", e.getCause());
+            }
+        }
+        this.search = null;
+    }
+
+    /**
+     * Waits for the running search, if any, to finish on its own, as it must before the position or the
+     * options change. An infinite search would never finish, so it is stopped.
+     */
+    private void waitForSearch() {
+        if (this.stopSignal.getCount() > 0) {
+            stopSearch();
+        }
+        if (this.search == null) {
+            return;
+        }
+        try {
+            this.search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed.", e.getCause());
+        }
+        this.search = null;
+    }
+
+    /**
+     * Writes one line and flushes it, from either the command loop or the worker thread.
+     */
+    private synchronized void send(String line) {
+        this.out.println(line);
+        this.out.flush();
+    }
+}